@@ -0,0 +1,91 @@
+package com.tanggo.fund.monitor.benchmark;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.plugin.calculator.FreeMemoryMetricCalculator;
+import com.tanggo.fund.monitor.plugin.calculator.TopCpuMetricCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * top/free 输出解析
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculatorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class TopInput {
+
+        @Param({"procps-3.3-centos7.txt", "procps-ng-4-mib.txt"})
+        public String topSample;
+
+        // top -bn1 的进程行数
+        @Param({"0", "300"})
+        public int processes;
+
+        final TopCpuMetricCalculator calculator = new TopCpuMetricCalculator();
+        String output;
+        byte[] bytes;
+
+        @Setup
+        public void setUp() {
+            Samples.quietLogging();
+            output = Samples.topOutput(topSample, processes);
+            bytes = output.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FreeInput {
+
+        @Param({"procps-ng-h.txt", "procps-3.3-kib.txt"})
+        public String freeSample;
+
+        final FreeMemoryMetricCalculator calculator = new FreeMemoryMetricCalculator();
+        String output;
+
+        @Setup
+        public void setUp() {
+            Samples.quietLogging();
+            output = Samples.corpus("free/" + freeSample);
+        }
+    }
+
+    @Benchmark
+    public Metric topCalculate(TopInput input) {
+        return input.calculator.calculate(input.output);
+    }
+
+    @Benchmark
+    public List<Metric> topCalculateAll(TopInput input) {
+        return input.calculator.calculateAll(input.output);
+    }
+
+    @Benchmark
+    public List<Metric> topCalculateStream(TopInput input) throws IOException {
+        return input.calculator.calculateStream(new ByteArrayInputStream(input.bytes));
+    }
+
+    @Benchmark
+    public Metric freeCalculate(FreeInput input) {
+        return input.calculator.calculate(input.output);
+    }
+}
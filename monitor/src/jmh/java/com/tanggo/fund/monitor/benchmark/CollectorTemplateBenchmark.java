@@ -0,0 +1,119 @@
+package com.tanggo.fund.monitor.benchmark;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
+import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import com.tanggo.fund.monitor.core.entity.meta.MetricCalculatorMeta;
+import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
+import com.tanggo.fund.monitor.core.extension.MetricRetrievalChannel;
+import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import com.tanggo.fund.monitor.core.service.CollectorTemplate;
+import com.tanggo.fund.monitor.plugin.calculator.FreeMemoryMetricCalculator;
+import com.tanggo.fund.monitor.plugin.calculator.TopCpuMetricCalculator;
+import com.tanggo.fund.monitor.plugin.repo.InMemoryMetricCalculatorRepo;
+import com.tanggo.fund.monitor.plugin.repo.InMemoryMetricRetrievalChannelRepo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 采集流水线：通道执行 -> 计算器解析 -> 持久化
+ * 通道返回预先采集的 top/free 输出，持久化仓储只累加指标值
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectorTemplateBenchmark {
+
+    private CollectorTemplate template;
+    private MetricRetrievalMeta cpuMeta;
+    private List<MetricRetrievalMeta> batch;
+    private final SummingRepo repo = new SummingRepo();
+
+    @Setup
+    public void setUp() {
+        Samples.quietLogging();
+        String top = Samples.topOutput("procps-3.3-centos7.txt", 300);
+        String free = Samples.corpus("free/procps-ng-h.txt");
+
+        MetricRetrievalChannel channel = new MetricRetrievalChannel() {
+            @Override
+            public void connect(ChannelMeta channelMeta) {
+            }
+
+            @Override
+            public String execute(CommandMeta cmd) {
+                return cmd.getCommand().startsWith("top") ? top : free;
+            }
+        };
+
+        template = new CollectorTemplate();
+        template.setMonitorChannelRepo(new InMemoryMetricRetrievalChannelRepo(Map.of("stub_channel", channel)));
+        template.setMetricCalculatorRepo(new InMemoryMetricCalculatorRepo(Map.of(
+                "top_cpu_calculator", new TopCpuMetricCalculator(),
+                "free_memory_calculator", new FreeMemoryMetricCalculator())));
+        template.setMetricPersistRepo(repo);
+
+        ChannelMeta channelMeta = new ChannelMeta();
+        channelMeta.setChannelId("stub_channel");
+        cpuMeta = meta("ssh_cpu_monitor", channelMeta, "top -bn1 -d 1", "top_cpu_calculator");
+        batch = List.of(cpuMeta, meta("ssh_memory_monitor", channelMeta, "free -h", "free_memory_calculator"));
+    }
+
+    @Benchmark
+    public double retrieval() {
+        template.retrieval(cpuMeta);
+        return repo.sum;
+    }
+
+    @Benchmark
+    public double retrievalBatch() {
+        template.retrievalBatch(batch);
+        return repo.sum;
+    }
+
+    private static MetricRetrievalMeta meta(String monitorId, ChannelMeta channelMeta, String command, String calculatorId) {
+        CommandMeta commandMeta = new CommandMeta();
+        commandMeta.setCommand(command);
+        MetricCalculatorMeta calculatorMeta = new MetricCalculatorMeta();
+        calculatorMeta.setCalculatorId(calculatorId);
+
+        MetricRetrievalMeta meta = new MetricRetrievalMeta();
+        meta.setMonitorId(monitorId);
+        meta.setChannelMeta(channelMeta);
+        meta.setCommandMeta(commandMeta);
+        meta.setMetricCalculatorMeta(calculatorMeta);
+        return meta;
+    }
+
+    private static final class SummingRepo implements MetricPersistRepo {
+        private double sum;
+
+        @Override
+        public void insert(Metric metric) {
+            sum += metric.getMetricValue();
+        }
+
+        @Override
+        public void insertAll(Collection<Metric> metrics) {
+            for (Metric metric : metrics) {
+                sum += metric.getMetricValue();
+            }
+        }
+    }
+}
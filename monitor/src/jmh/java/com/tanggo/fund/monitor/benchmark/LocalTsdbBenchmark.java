@@ -0,0 +1,77 @@
+package com.tanggo.fund.monitor.benchmark;
+
+import com.tanggo.fund.monitor.plugin.repo.tsdb.TimeSeriesStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 本地时序库写入吞吐：样本轮流写入 series 条序列，每条序列5秒一个样本
+ * 包含序列查找、Gorilla 编码以及数据块封存到内存映射段文件的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalTsdbBenchmark {
+
+    @Param({"1000"})
+    public int series;
+
+    private Path directory;
+    private TimeSeriesStore store;
+    private Map<String, String>[] tags;
+    private long sequence;
+
+    @Setup(Level.Iteration)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        Samples.quietLogging();
+        directory = Files.createTempDirectory("tsdb-bench");
+        store = new TimeSeriesStore(directory);
+        store.open();
+        tags = new Map[series];
+        for (int i = 0; i < series; i++) {
+            tags[i] = Map.of("monitorId", "ssh_cpu_monitor", "host", "10.0." + (i / 256) + "." + (i % 256));
+        }
+        sequence = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean append() {
+        long n = sequence++;
+        int index = (int) (n % series);
+        long timestamp = 1_767_225_600_000L + (n / series) * 5_000L;
+        return store.append("cpu_usage", tags[index], timestamp, 20.0 + (n % 7) * 0.25);
+    }
+}
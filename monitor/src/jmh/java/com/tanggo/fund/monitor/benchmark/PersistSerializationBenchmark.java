@@ -0,0 +1,67 @@
+package com.tanggo.fund.monitor.benchmark;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.plugin.repo.InfluxdbMetricPersistRepo;
+import com.tanggo.fund.monitor.plugin.repo.MysqlMetricPersistRepo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 持久化仓储的序列化开销：InfluxDB行协议拼装、MySQL参数绑定
+ * 客户端由 {@link StandIns} 替代，不产生网络和磁盘IO
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistSerializationBenchmark {
+
+    // 每次 insertAll 的指标条数
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private List<Metric> batch;
+    private InfluxdbMetricPersistRepo influxRepo;
+    private MysqlMetricPersistRepo mysqlRepo;
+
+    @Setup
+    public void setUp() {
+        Samples.quietLogging();
+        batch = Samples.metrics(batchSize);
+        influxRepo = new InfluxdbMetricPersistRepo(StandIns.influxClient(), "monitor", "tanggo");
+        influxRepo.setRegisterShutdownHook(false);
+        mysqlRepo = new MysqlMetricPersistRepo(StandIns.dataSource());
+    }
+
+    @TearDown
+    public void tearDown() {
+        influxRepo.close();
+    }
+
+    @Benchmark
+    public long influxInsertAll() {
+        influxRepo.insertAll(batch);
+        return StandIns.sink;
+    }
+
+    @Benchmark
+    public long mysqlInsertAll() {
+        mysqlRepo.insertAll(batch);
+        return StandIns.sink;
+    }
+}
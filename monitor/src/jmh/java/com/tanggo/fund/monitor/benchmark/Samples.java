@@ -0,0 +1,82 @@
+package com.tanggo.fund.monitor.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试的输入数据
+ * top/free 样本取自测试语料（src/test/resources/corpus），进程列表按需扩充到真实主机的规模
+ */
+final class Samples {
+
+    private Samples() {
+    }
+
+    /**
+     * 关闭INFO日志：未配置logback时默认输出DEBUG，控制台IO会淹没被测代码
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    static String corpus(String path) {
+        try (InputStream in = Samples.class.getClassLoader().getResourceAsStream("corpus/" + path)) {
+            if (in == null) {
+                throw new IllegalStateException("找不到样本: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * top -bn1 输出：头部取自样本，后面追加 processes 行进程列表
+     */
+    static String topOutput(String sample, int processes) {
+        String header = corpus("top/" + sample);
+        int table = header.indexOf("\n\n");
+        StringBuilder sb = new StringBuilder(header.length() + processes * 80);
+        sb.append(table >= 0 ? header.substring(0, table + 2) : header + "\n");
+        sb.append("  PID USER      PR  NI    VIRT    RES    SHR S  %CPU %MEM     TIME+ COMMAND\n");
+        for (int i = 0; i < processes; i++) {
+            sb.append(String.format("%5d %-8s  20   0 %7d %6d %6d S %5.1f %4.1f %9s %s%n",
+                    1000 + i, i % 3 == 0 ? "root" : "app", 190000 + i * 37, 6000 + i * 11, 4000 + i,
+                    (i % 17) / 2.0, (i % 23) / 10.0, (i / 60) + ":" + String.format("%05.2f", (i % 60) * 0.97),
+                    i % 5 == 0 ? "java" : "kworker/" + (i % 8) + ":1"));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 指标批：每条带 monitorId/host 两个低基数标签
+     */
+    static List<Metric> metrics(int size) {
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<Metric> metrics = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Metric metric = new Metric();
+            metric.setMetricName(i % 2 == 0 ? "cpu_usage" : "memory_usage");
+            metric.setMetricValue(12.5 + i % 100);
+            metric.setTimestamp(base.plusNanos(i * 1_000_000L));
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("monitorId", i % 2 == 0 ? "ssh_cpu_monitor" : "ssh_memory_monitor");
+            tags.put("host", "10.0.0." + (i % 16));
+            metric.setTags(tags);
+            metrics.add(metric);
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,76 @@
+package com.tanggo.fund.monitor.benchmark;
+
+import com.tanggo.fund.monitor.core.query.Aggregation;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.series.SeriesBitmap;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+import com.tanggo.fund.monitor.core.series.SeriesTagIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列倒排索引选择延迟：series 条 cpu_usage 序列分布在 8 个机房、16 种角色上，
+ * 分别测量 等值AND、正则OR、带NOT 的选择器
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SeriesTagIndexBenchmark {
+
+    @Param({"1000000"})
+    public int series;
+
+    private SeriesTagIndex index;
+    private MetricQuery equalities;
+    private MetricQuery alternation;
+    private MetricQuery negation;
+
+    @Setup
+    public void setUp() {
+        Samples.quietLogging();
+        SeriesRegistry registry = new SeriesRegistry(series);
+        for (int i = 0; i < series; i++) {
+            registry.resolve("cpu_usage", Map.of("dc", "dc" + (i % 8), "role", "role" + (i % 16), "host", "host" + i));
+        }
+        index = new SeriesTagIndex();
+        index.setRegistry(registry);
+        index.catchUp();
+        equalities = MetricQuery.of("cpu_usage", 0, 0, 0, Aggregation.AVG,
+                TagMatcher.eq("dc", "dc1"), TagMatcher.eq("role", "role9"));
+        alternation = MetricQuery.of("cpu_usage", 0, 0, 0, Aggregation.AVG,
+                TagMatcher.regex("dc", "dc1|dc2"), TagMatcher.eq("role", "role9"));
+        negation = MetricQuery.of("cpu_usage", 0, 0, 0, Aggregation.AVG,
+                TagMatcher.eq("dc", "dc1"), TagMatcher.neq("role", "role9"));
+    }
+
+    @Benchmark
+    public SeriesBitmap selectAnd() {
+        return index.select(equalities);
+    }
+
+    @Benchmark
+    public SeriesBitmap selectRegexOr() {
+        return index.select(alternation);
+    }
+
+    @Benchmark
+    public SeriesBitmap selectNot() {
+        return index.select(negation);
+    }
+}
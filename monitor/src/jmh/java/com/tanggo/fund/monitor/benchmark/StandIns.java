@@ -0,0 +1,137 @@
+package com.tanggo.fund.monitor.benchmark;
+
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.client.WriteApi;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数据库客户端的本地替身
+ * 只吸收调用、不做IO，基准测得的是仓储自身的序列化开销；
+ * 动态代理每次调用有固定的装箱和分派成本，对比时只看同一替身下的相对变化
+ */
+final class StandIns {
+
+    // 吸收写入内容，防止被JIT消除
+    static volatile long sink;
+
+    private StandIns() {
+    }
+
+    /**
+     * InfluxDB客户端：makeWriteApi 返回只统计行协议长度的 WriteApi
+     */
+    static InfluxDBClient influxClient() {
+        WriteApi writeApi = proxy(WriteApi.class, (method, args) -> {
+            if ("writeRecords".equals(method) && args.length == 4) {
+                long chars = 0;
+                for (Object record : (List<?>) args[3]) {
+                    chars += ((String) record).length();
+                }
+                sink += chars;
+            }
+            return null;
+        });
+        return proxy(InfluxDBClient.class, (method, args) -> "makeWriteApi".equals(method) ? writeApi : null);
+    }
+
+    /**
+     * JDBC数据源：语句只吸收绑定参数，executeBatch 返回空结果
+     * 序列字典的登记语句记下 (哈希, 名称, 标签)，随后的 SELECT 按登记顺序返回这些行，编号从1开始；
+     * 字典缓存预热后基准只测样本写入
+     */
+    static DataSource dataSource() {
+        PreparedStatement statement = proxy(PreparedStatement.class, (method, args) -> {
+            if (args != null && args.length == 2) {
+                sink += args[1] == null ? 0 : args[1].hashCode();
+            }
+            return "executeBatch".equals(method) ? new int[0] : null;
+        });
+        List<Object[]> seriesRows = new ArrayList<>();
+        Object[] pending = new Object[3];
+        PreparedStatement seriesInsert = proxy(PreparedStatement.class, (method, args) -> {
+            if (args != null && args.length == 2 && args[0] instanceof Integer index) {
+                pending[index - 1] = args[1];
+            } else if ("addBatch".equals(method)) {
+                seriesRows.add(pending.clone());
+            }
+            return "executeBatch".equals(method) ? new int[0] : null;
+        });
+        PreparedStatement seriesSelect = proxy(PreparedStatement.class,
+                (method, args) -> "executeQuery".equals(method) ? resultSet(seriesRows) : null);
+        Connection connection = proxy(Connection.class, (method, args) -> {
+            if (!"prepareStatement".equals(method)) {
+                return "getAutoCommit".equals(method) ? true : null;
+            }
+            String sql = (String) args[0];
+            if (sql.startsWith("INSERT IGNORE INTO metric_series")) {
+                return seriesInsert;
+            }
+            return sql.startsWith("SELECT") ? seriesSelect : statement;
+        });
+        return proxy(DataSource.class, (method, args) -> "getConnection".equals(method) ? connection : null);
+    }
+
+    /**
+     * 登记过的序列行：series_id, series_hash, metric_name, tags
+     */
+    private static ResultSet resultSet(List<Object[]> seriesRows) {
+        int[] cursor = {-1};
+        return proxy(ResultSet.class, (method, args) -> switch (method) {
+            case "next" -> ++cursor[0] < seriesRows.size();
+            case "getLong" -> (Integer) args[0] == 1 ? (long) cursor[0] + 1 : seriesRows.get(cursor[0])[0];
+            case "getString" -> seriesRows.get(cursor[0])[(Integer) args[0] - 2];
+            default -> null;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            Object result = handler.invoke(method.getName(), args);
+            if (result == null && method.getReturnType().isPrimitive()) {
+                return defaultValue(method.getReturnType());
+            }
+            return result;
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == void.class) {
+            return null;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -1,10 +1,9 @@
 package com.tanggo.fund.monitor;
 
-import com.tanggo.fund.monitor.core.service.MetricCollectorService;
+import com.tanggo.fund.monitor.core.service.MetricCollectScheduler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 @Slf4j
@@ -17,30 +16,21 @@ public class MonitorApplication {
 
             // 加载 Spring XML 配置
             log.info("加载 Spring XML 配置: spring-ssh-cpu-monitor.xml");
-            ApplicationContext context = new ClassPathXmlApplicationContext(
+            ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(
                     "spring-ssh-cpu-monitor.xml"
             );
+            // 进程退出时关闭容器，由容器负责停止调度器
+            context.registerShutdownHook();
 
-            // 获取收集服务
-            log.info("获取 MetricCollectorService Bean");
-            MetricCollectorService service = context.getBean(MetricCollectorService.class);
+            // 获取采集调度器
+            log.info("获取 MetricCollectScheduler Bean");
+            MetricCollectScheduler scheduler = context.getBean(MetricCollectScheduler.class);
 
-            if (service != null) {
-                log.info("服务实例化成功，开始执行监控任务");
+            // 按各监控配置的采集间隔持续调度
+            log.info("\n========== 启动持续采集调度 ==========");
+            scheduler.start();
 
-                // 执行 SSH CPU 监控
-                log.info("\n========== 执行 SSH CPU 监控 ==========");
-                service.handleSshCpuMonitor();
-
-                log.info("\n========== 执行 SSH 内存监控 ==========");
-                service.handleSshMemoryMonitor();
-
-                log.info("所有监控任务执行完成");
-            } else {
-                log.error("无法获取 MetricCollectorService Bean");
-            }
-
-            log.info("========== 监控应用执行完成 ==========");
+            log.info("========== 监控应用已启动，共调度 {} 个监控任务 ==========", scheduler.getJobCount());
 
         } catch (Exception e) {
             log.error("应用执行异常", e);
@@ -49,4 +39,3 @@ public class MonitorApplication {
     }
 
 }
-
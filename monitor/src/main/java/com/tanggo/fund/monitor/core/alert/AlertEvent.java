@@ -0,0 +1,32 @@
+package com.tanggo.fund.monitor.core.alert;
+
+import com.tanggo.fund.monitor.core.entity.Alert;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * 告警事件：某条规则在某条序列上的状态变化（触发或恢复）
+ * 同一规则、同一序列的事件具有相同的指纹 {@link #getId()}
+ */
+@Value
+public class AlertEvent implements Alert {
+
+    public enum Status {
+        FIRING,
+        RESOLVED
+    }
+
+    // 指纹：规则ID + 序列哈希
+    String id;
+    Status status;
+    String ruleId;
+    String ruleName;
+    String severity;
+    String summary;
+    String metricName;
+    Map<String, String> labels;
+    // 触发时的样本值；RATE_OF_CHANGE 为每秒变化量，ABSENCE 为缺失秒数
+    double value;
+    long timestampMillis;
+}
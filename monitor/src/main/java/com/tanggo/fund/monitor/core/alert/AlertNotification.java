@@ -0,0 +1,20 @@
+package com.tanggo.fund.monitor.core.alert;
+
+import com.tanggo.fund.monitor.core.entity.Alert;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次合并下发的告警通知：同一接收者、同一分组标签下自上次通知以来新触发或恢复的告警
+ */
+@Value
+public class AlertNotification implements Alert {
+
+    // 分组键
+    String id;
+    String receiver;
+    Map<String, String> groupLabels;
+    List<Alert> alerts;
+}
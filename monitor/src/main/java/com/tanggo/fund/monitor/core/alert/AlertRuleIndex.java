@@ -0,0 +1,85 @@
+package com.tanggo.fund.monitor.core.alert;
+
+import com.tanggo.fund.monitor.core.entity.AlertRule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 规则索引：按指标名称分组，组内再按规则的第一个匹配标签（键、值）分桶，
+ * 一个样本只检查同名指标下没有标签条件的规则和标签值命中的桶
+ */
+final class AlertRuleIndex {
+
+    static final AlertRuleIndex EMPTY = new AlertRuleIndex(List.of());
+
+    private final Map<String, MetricRules> byMetric = new HashMap<>();
+    private final List<RuleState> absenceRules = new ArrayList<>();
+    private final List<RuleState> all;
+
+    AlertRuleIndex(Collection<RuleState> rules) {
+        this.all = List.copyOf(rules);
+        for (RuleState rule : rules) {
+            MetricRules metricRules = byMetric.computeIfAbsent(rule.rule.getMetricName(), k -> new MetricRules());
+            String key = rule.indexKey();
+            if (key == null) {
+                metricRules.unconditional.add(rule);
+            } else {
+                metricRules.byTag.computeIfAbsent(key, k -> new HashMap<>())
+                        .computeIfAbsent(rule.indexValue(), v -> new ArrayList<>())
+                        .add(rule);
+            }
+            if (rule.rule.getType() == AlertRule.Type.ABSENCE) {
+                absenceRules.add(rule);
+            }
+        }
+    }
+
+    /**
+     * 回调样本可能命中的全部规则（已校验全部标签条件）
+     */
+    void forEachMatching(String metricName, Map<String, String> tags, Consumer<RuleState> consumer) {
+        MetricRules metricRules = byMetric.get(metricName);
+        if (metricRules == null) {
+            return;
+        }
+        for (RuleState rule : metricRules.unconditional) {
+            consumer.accept(rule);
+        }
+        if (tags == null || metricRules.byTag.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Map<String, List<RuleState>>> entry : metricRules.byTag.entrySet()) {
+            String value = tags.get(entry.getKey());
+            if (value == null) {
+                continue;
+            }
+            List<RuleState> candidates = entry.getValue().get(value);
+            if (candidates == null) {
+                continue;
+            }
+            for (RuleState rule : candidates) {
+                if (rule.matches(tags)) {
+                    consumer.accept(rule);
+                }
+            }
+        }
+    }
+
+    List<RuleState> absenceRules() {
+        return absenceRules;
+    }
+
+    List<RuleState> all() {
+        return all;
+    }
+
+    private static final class MetricRules {
+        private final List<RuleState> unconditional = new ArrayList<>();
+        private final Map<String, Map<String, List<RuleState>>> byTag = new HashMap<>();
+    }
+}
@@ -0,0 +1,213 @@
+package com.tanggo.fund.monitor.core.alert;
+
+import com.tanggo.fund.monitor.core.entity.AlertRule;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * 一条规则及其在各序列上的判定状态
+ * 每条序列占用一个槽位，状态保存在按槽位下标访问的基本类型数组中；调用方按规则对象加锁串行访问
+ */
+final class RuleState {
+
+    // 无状态变化
+    static final int NONE = 0;
+    static final int FIRE = 1;
+    static final int RESOLVE = 2;
+
+    private static final long UNSET = Long.MIN_VALUE;
+
+    final AlertRule rule;
+    private final String[] tagKeys;
+    private final String[] tagValues;
+
+    private final SeriesSlots slots = new SeriesSlots();
+    private int[] seriesIds = new int[8];
+    private long[] lastTimestamp = new long[8];
+    private double[] lastValue = new double[8];
+    // FOR_DURATION：条件开始满足的样本时间
+    private long[] since = new long[8];
+    // 最近一次收到样本的本机时间，ABSENCE 据此判定缺失，其他规则据此释放长时间没有样本的序列
+    private long[] lastSeen = new long[8];
+    private boolean[] firing = new boolean[8];
+    private int size;
+
+    // 最近一次状态变化对应的报告值
+    private double reportValue;
+
+    RuleState(AlertRule rule) {
+        this.rule = rule;
+        Map<String, String> sorted = rule.getMatchTags() == null ? Map.of() : new TreeMap<>(rule.getMatchTags());
+        this.tagKeys = sorted.keySet().toArray(new String[0]);
+        this.tagValues = sorted.values().toArray(new String[0]);
+    }
+
+    /**
+     * 第一个匹配标签的键，作为索引键；没有匹配标签时返回 null
+     */
+    String indexKey() {
+        return tagKeys.length == 0 ? null : tagKeys[0];
+    }
+
+    String indexValue() {
+        return tagValues.length == 0 ? null : tagValues[0];
+    }
+
+    boolean matches(Map<String, String> tags) {
+        for (int i = 0; i < tagKeys.length; i++) {
+            if (tags == null || !tagValues[i].equals(tags.get(tagKeys[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 用一个样本推进序列状态
+     *
+     * @return NONE / FIRE / RESOLVE
+     */
+    int evaluate(int seriesId, long timestampMillis, double value, long nowMillis) {
+        int slot = slots.get(seriesId);
+        boolean first = slot < 0;
+        if (first) {
+            slot = allocate(seriesId);
+        }
+        boolean inOrder = first || timestampMillis > lastTimestamp[slot];
+
+        boolean active;
+        switch (rule.getType()) {
+            case THRESHOLD -> {
+                active = rule.getComparison().test(value, rule.getThreshold());
+                reportValue = value;
+            }
+            case FOR_DURATION -> {
+                if (rule.getComparison().test(value, rule.getThreshold())) {
+                    if (since[slot] == UNSET) {
+                        since[slot] = timestampMillis;
+                    }
+                    active = timestampMillis - since[slot] >= rule.getDurationMillis();
+                } else {
+                    since[slot] = UNSET;
+                    active = false;
+                }
+                reportValue = value;
+            }
+            case RATE_OF_CHANGE -> {
+                if (!inOrder || first) {
+                    active = firing[slot];
+                } else {
+                    double rate = (value - lastValue[slot]) * 1000.0 / (timestampMillis - lastTimestamp[slot]);
+                    active = rule.getComparison().test(rate, rule.getThreshold());
+                    reportValue = rate;
+                }
+            }
+            case ABSENCE -> {
+                active = false;
+                reportValue = value;
+            }
+            default -> throw new IllegalStateException("未知的规则类型: " + rule.getType());
+        }
+        if (inOrder) {
+            lastTimestamp[slot] = timestampMillis;
+            lastValue[slot] = value;
+        }
+        lastSeen[slot] = nowMillis;
+        return transition(slot, active);
+    }
+
+    /**
+     * ABSENCE 规则：找出超过缺失时长没有样本的序列
+     */
+    void sweepAbsence(long nowMillis, AbsenceCallback callback) {
+        for (int slot = 0; slot < size; slot++) {
+            long silent = nowMillis - lastSeen[slot];
+            if (!firing[slot] && silent >= rule.getDurationMillis()) {
+                firing[slot] = true;
+                callback.fire(seriesIds[slot], silent / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * 释放 idleBeforeMillis 之后没有样本、且未处于告警状态的序列
+     * ABSENCE 规则的状态本身就是为了发现长时间没有样本的序列，不释放
+     */
+    void evictIdle(long idleBeforeMillis) {
+        if (rule.getType() == AlertRule.Type.ABSENCE) {
+            return;
+        }
+        int slot = 0;
+        while (slot < size) {
+            if (firing[slot] || lastSeen[slot] >= idleBeforeMillis) {
+                slot++;
+                continue;
+            }
+            slots.remove(seriesIds[slot]);
+            int last = --size;
+            if (slot != last) {
+                // 最后一个槽位移入空位
+                seriesIds[slot] = seriesIds[last];
+                lastTimestamp[slot] = lastTimestamp[last];
+                lastValue[slot] = lastValue[last];
+                since[slot] = since[last];
+                lastSeen[slot] = lastSeen[last];
+                firing[slot] = firing[last];
+                slots.put(seriesIds[slot], slot);
+            }
+        }
+    }
+
+    /**
+     * 持有状态的序列ID
+     */
+    void forEachSeries(IntConsumer consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            consumer.accept(seriesIds[slot]);
+        }
+    }
+
+    double reportValue() {
+        return reportValue;
+    }
+
+    int seriesCount() {
+        return size;
+    }
+
+    private int transition(int slot, boolean active) {
+        if (active && !firing[slot]) {
+            firing[slot] = true;
+            return FIRE;
+        }
+        if (!active && firing[slot]) {
+            firing[slot] = false;
+            return RESOLVE;
+        }
+        return NONE;
+    }
+
+    private int allocate(int seriesId) {
+        if (size == seriesIds.length) {
+            int capacity = size * 2;
+            seriesIds = Arrays.copyOf(seriesIds, capacity);
+            lastTimestamp = Arrays.copyOf(lastTimestamp, capacity);
+            lastValue = Arrays.copyOf(lastValue, capacity);
+            since = Arrays.copyOf(since, capacity);
+            lastSeen = Arrays.copyOf(lastSeen, capacity);
+            firing = Arrays.copyOf(firing, capacity);
+        }
+        int slot = size++;
+        seriesIds[slot] = seriesId;
+        since[slot] = UNSET;
+        slots.put(seriesId, slot);
+        return slot;
+    }
+
+    interface AbsenceCallback {
+        void fire(int seriesId, double silentSeconds);
+    }
+}
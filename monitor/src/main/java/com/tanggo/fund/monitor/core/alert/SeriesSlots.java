@@ -0,0 +1,104 @@
+package com.tanggo.fund.monitor.core.alert;
+
+import java.util.Arrays;
+
+/**
+ * 序列ID到状态槽位的开放寻址哈希表（线性探测），键值均为 int，不产生装箱对象
+ */
+final class SeriesSlots {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    SeriesSlots() {
+        keys = new int[16];
+        values = new int[16];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * @return 槽位，不存在时返回 -1
+     */
+    int get(int seriesId) {
+        int mask = keys.length - 1;
+        for (int i = mix(seriesId) & mask; ; i = (i + 1) & mask) {
+            int key = keys[i];
+            if (key == seriesId) {
+                return values[i];
+            }
+            if (key == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    void put(int seriesId, int slot) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        for (int i = mix(seriesId) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == EMPTY) {
+                keys[i] = seriesId;
+                values[i] = slot;
+                size++;
+                return;
+            }
+            if (keys[i] == seriesId) {
+                values[i] = slot;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 删除序列，之后探测链上的项向前移动填补空位，不留删除标记
+     */
+    void remove(int seriesId) {
+        int mask = keys.length - 1;
+        int i = mix(seriesId) & mask;
+        while (keys[i] != seriesId) {
+            if (keys[i] == EMPTY) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            // 空位 i 位于 home 到 j 的探测路径上时才能前移
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,411 @@
+package com.tanggo.fund.monitor.core.alert;
+
+import com.google.common.hash.Hashing;
+import com.tanggo.fund.monitor.core.entity.AlertRule;
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.alert.AlertRepo;
+import com.tanggo.fund.monitor.core.extension.collector.MetricSubscriber;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.MetricSeries;
+import com.tanggo.fund.monitor.core.series.SeriesHotCache;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 流式告警判定
+ * 作为 {@link MetricSubscriber} 挂在 {@link com.tanggo.fund.monitor.core.service.CollectorTemplate} 上，
+ * 每个样本经 {@link AlertRuleIndex} 只交给可能命中的规则，状态变化立即通过 {@link AlertRepo} 下发，
+ * 检测延迟为一个样本而不是一轮轮询
+ *
+ * <p>ABSENCE 规则没有样本可触发，由后台线程按 absenceCheckIntervalMillis 扫描；
+ * 规则通过 {@link #setRules} 热更新，定义未变化的规则保留各序列的状态，不会重复告警；
+ * 配置了 {@link SeriesHotCache} 时，新增或修改的规则先回放缓存中的近期样本，加载后即可判定而不必等待新样本
+ *
+ * <p>超过 seriesIdleMillis 没有样本、且未处于告警状态的序列从规则状态中释放，不再被任何规则引用的序列ID随之回收，
+ * 标签值不断变化的序列（如超出序列字典上限的临时序列）不会让状态无限增长
+ */
+@Slf4j
+public class StreamingAlertEvaluator implements MetricSubscriber, AutoCloseable {
+
+    @Setter
+    private AlertRepo alertRepo;
+
+    // ABSENCE 规则的扫描间隔（毫秒）
+    @Setter
+    private long absenceCheckIntervalMillis = 1_000;
+
+    // 规则加载时回放近期样本的来源，为空时不回放
+    @Setter
+    private SeriesHotCache hotCache;
+
+    // 序列超过该时长（毫秒）没有样本即释放其状态，扫描间隔为其一半
+    @Setter
+    private long seriesIdleMillis = TimeUnit.HOURS.toMillis(1);
+
+    private volatile AlertRuleIndex index = AlertRuleIndex.EMPTY;
+
+    // 序列字典：序列（含meterId）-> 序列ID，规则状态只保存序列ID
+    private final Map<SeriesKey, Integer> seriesIds = new HashMap<>();
+    private final List<SeriesInfo> seriesInfos = new ArrayList<>();
+    // 已回收、可重新分配的序列ID
+    private final ArrayDeque<Integer> freeSeriesIds = new ArrayDeque<>();
+    // 判定持有读锁，回收序列ID持有写锁：取得序列ID到写入规则状态之间ID不会被回收
+    private final ReentrantReadWriteLock evictionLock = new ReentrantReadWriteLock();
+
+    private ScheduledExecutorService absenceChecker;
+
+    // 统计信息
+    private final AtomicLong evaluatedCount = new AtomicLong();
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong resolvedCount = new AtomicLong();
+    private final AtomicLong sendFailureCount = new AtomicLong();
+    private final AtomicLong evictedSeriesCount = new AtomicLong();
+
+    /**
+     * 启动 ABSENCE 规则扫描线程
+     */
+    public synchronized void start() {
+        if (absenceChecker != null) {
+            return;
+        }
+        absenceChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "alert-absence-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        absenceChecker.scheduleWithFixedDelay(() -> {
+            try {
+                checkAbsence(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.error("缺失告警扫描失败", e);
+            }
+        }, absenceCheckIntervalMillis, absenceCheckIntervalMillis, TimeUnit.MILLISECONDS);
+        long evictionInterval = Math.max(1, seriesIdleMillis / 2);
+        absenceChecker.scheduleWithFixedDelay(() -> {
+            try {
+                evictIdleSeries(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.error("空闲序列回收失败", e);
+            }
+        }, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (absenceChecker != null) {
+            absenceChecker.shutdownNow();
+            absenceChecker = null;
+        }
+    }
+
+    /**
+     * 替换规则集合；与现有规则定义完全相同的规则沿用原有状态
+     */
+    public synchronized void setRules(List<AlertRule> rules) {
+        Map<String, RuleState> existing = new HashMap<>();
+        for (RuleState state : index.all()) {
+            existing.put(state.rule.getRuleId(), state);
+        }
+        List<RuleState> states = new ArrayList<>(rules.size());
+        List<RuleState> created = new ArrayList<>();
+        for (AlertRule rule : rules) {
+            if (rule.getMetricName() == null || rule.getType() == null) {
+                log.warn("忽略不完整的告警规则: ruleId={}", rule.getRuleId());
+                continue;
+            }
+            RuleState previous = existing.get(rule.getRuleId());
+            if (previous != null && previous.rule.equals(rule)) {
+                states.add(previous);
+            } else {
+                RuleState state = new RuleState(copy(rule));
+                states.add(state);
+                created.add(state);
+            }
+        }
+        // 新规则回放得到的序列ID在规则发布前不被回收
+        evictionLock.readLock().lock();
+        try {
+            replay(created);
+            index = new AlertRuleIndex(states);
+        } finally {
+            evictionLock.readLock().unlock();
+        }
+        log.info("告警规则已加载: size={}", states.size());
+    }
+
+    /**
+     * 新规则发布前回放热缓存中的近期样本
+     */
+    private void replay(List<RuleState> created) {
+        if (hotCache == null || created.isEmpty()) {
+            return;
+        }
+        AlertRuleIndex fresh = new AlertRuleIndex(created);
+        Set<String> metricNames = new HashSet<>();
+        created.forEach(state -> metricNames.add(state.rule.getMetricName()));
+        long now = System.currentTimeMillis();
+        int replayed = 0;
+        for (String metricName : metricNames) {
+            for (Metric metric : hotCache.snapshot(metricName)) {
+                long timestamp = EpochNanos.toMillis(metric.getTimestampNanos());
+                fresh.forEachMatching(metricName, metric.getTags(),
+                        rule -> evaluate(rule, seriesId(metric), timestamp, metric.getMetricValue(), now));
+                replayed++;
+            }
+        }
+        log.info("新规则已回放近期样本: rules={}, samples={}", created.size(), replayed);
+    }
+
+    @Override
+    public void onMetrics(List<Metric> metrics) {
+        AlertRuleIndex current = index;
+        long now = System.currentTimeMillis();
+        evictionLock.readLock().lock();
+        try {
+            for (Metric metric : metrics) {
+                long timestamp = metric.hasTimestamp() ? EpochNanos.toMillis(metric.getTimestampNanos()) : now;
+                double value = metric.getMetricValue();
+                int[] seriesId = {-1};
+                current.forEachMatching(metric.getMetricName(), metric.getTags(), rule -> {
+                    if (seriesId[0] < 0) {
+                        seriesId[0] = seriesId(metric);
+                    }
+                    evaluate(rule, seriesId[0], timestamp, value, now);
+                });
+            }
+        } finally {
+            evictionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 释放空闲序列的规则状态，回收不再被任何规则引用的序列ID
+     *
+     * @return 回收的序列数
+     */
+    public int evictIdleSeries(long nowMillis) {
+        evictionLock.writeLock().lock();
+        try {
+            BitSet live = new BitSet();
+            for (RuleState rule : index.all()) {
+                synchronized (rule) {
+                    rule.evictIdle(nowMillis - seriesIdleMillis);
+                    rule.forEachSeries(live::set);
+                }
+            }
+            int evicted = 0;
+            synchronized (seriesIds) {
+                Iterator<Integer> ids = seriesIds.values().iterator();
+                while (ids.hasNext()) {
+                    int id = ids.next();
+                    if (!live.get(id)) {
+                        ids.remove();
+                        seriesInfos.set(id, null);
+                        freeSeriesIds.push(id);
+                        evicted++;
+                    }
+                }
+            }
+            if (evicted > 0) {
+                evictedSeriesCount.addAndGet(evicted);
+                log.debug("空闲序列已回收: count={}", evicted);
+            }
+            return evicted;
+        } finally {
+            evictionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 扫描 ABSENCE 规则，超过缺失时长没有样本的序列触发告警
+     */
+    public void checkAbsence(long nowMillis) {
+        for (RuleState rule : index.absenceRules()) {
+            List<AlertEvent> events = new ArrayList<>();
+            evictionLock.readLock().lock();
+            try {
+                synchronized (rule) {
+                    rule.sweepAbsence(nowMillis, (seriesId, silentSeconds) ->
+                            events.add(event(rule, seriesId, AlertEvent.Status.FIRING, silentSeconds, nowMillis)));
+                }
+            } finally {
+                evictionLock.readLock().unlock();
+            }
+            events.forEach(this::send);
+        }
+    }
+
+    private void evaluate(RuleState rule, int seriesId, long timestamp, double value, long now) {
+        if (Double.isNaN(value) && rule.rule.getType() != AlertRule.Type.ABSENCE) {
+            return;
+        }
+        evaluatedCount.incrementAndGet();
+        AlertEvent event = null;
+        synchronized (rule) {
+            int transition = rule.evaluate(seriesId, timestamp, value, now);
+            if (transition != RuleState.NONE) {
+                AlertEvent.Status status = transition == RuleState.FIRE ? AlertEvent.Status.FIRING : AlertEvent.Status.RESOLVED;
+                event = event(rule, seriesId, status, rule.reportValue(), timestamp);
+            }
+        }
+        if (event != null) {
+            send(event);
+        }
+    }
+
+    private void send(AlertEvent event) {
+        if (event.getStatus() == AlertEvent.Status.FIRING) {
+            firedCount.incrementAndGet();
+        } else {
+            resolvedCount.incrementAndGet();
+        }
+        log.info("告警状态变化: id={}, status={}, ruleId={}, labels={}, value={}",
+                event.getId(), event.getStatus(), event.getRuleId(), event.getLabels(), event.getValue());
+        if (alertRepo == null) {
+            return;
+        }
+        try {
+            alertRepo.sendAlert(event);
+        } catch (Exception e) {
+            sendFailureCount.incrementAndGet();
+            log.error("告警下发失败: id={}, status={}", event.getId(), event.getStatus(), e);
+        }
+    }
+
+    private AlertEvent event(RuleState state, int seriesId, AlertEvent.Status status, double value, long timestamp) {
+        SeriesInfo series;
+        synchronized (seriesIds) {
+            series = seriesInfos.get(seriesId);
+        }
+        AlertRule rule = state.rule;
+        return new AlertEvent(rule.getRuleId() + ":" + series.hash, status, rule.getRuleId(), rule.getRuleName(),
+                rule.getSeverity(), rule.getSummary(), series.metricName, series.labels, value, timestamp);
+    }
+
+    private int seriesId(Metric metric) {
+        SeriesKey key = new SeriesKey(metric.getSeries(), metric.getMeterId());
+        synchronized (seriesIds) {
+            Integer id = seriesIds.get(key);
+            if (id == null) {
+                SeriesInfo info = new SeriesInfo(metric, seriesKey(metric));
+                id = freeSeriesIds.poll();
+                if (id == null) {
+                    id = seriesInfos.size();
+                    seriesInfos.add(info);
+                } else {
+                    seriesInfos.set(id, info);
+                }
+                seriesIds.put(key, id);
+            }
+            return id;
+        }
+    }
+
+    private static String seriesKey(Metric metric) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(metric.getMetricName()).append('\u0000').append(Objects.toString(metric.getMeterId(), ""));
+        Map<String, String> tags = metric.getTags();
+        if (tags != null && !tags.isEmpty()) {
+            String[] keys = tags.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            for (String k : keys) {
+                sb.append('\u0000').append(k).append('\u0001').append(tags.get(k));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static AlertRule copy(AlertRule rule) {
+        AlertRule copy = new AlertRule();
+        copy.setRuleId(rule.getRuleId());
+        copy.setRuleName(rule.getRuleName());
+        copy.setMetricName(rule.getMetricName());
+        copy.setMatchTags(rule.getMatchTags() == null ? new HashMap<>() : new HashMap<>(rule.getMatchTags()));
+        copy.setType(rule.getType());
+        copy.setComparison(rule.getComparison());
+        copy.setThreshold(rule.getThreshold());
+        copy.setDurationMillis(rule.getDurationMillis());
+        copy.setSeverity(rule.getSeverity());
+        copy.setSummary(rule.getSummary());
+        return copy;
+    }
+
+    /**
+     * 当前规则数
+     */
+    public int getRuleCount() {
+        return index.all().size();
+    }
+
+    /**
+     * 已分配序列ID的序列数
+     */
+    public int getSeriesCount() {
+        synchronized (seriesIds) {
+            return seriesIds.size();
+        }
+    }
+
+    /**
+     * 因空闲被回收的序列数
+     */
+    public long getEvictedSeriesCount() {
+        return evictedSeriesCount.get();
+    }
+
+    /**
+     * 参与判定的（样本，规则）次数
+     */
+    public long getEvaluatedCount() {
+        return evaluatedCount.get();
+    }
+
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    public long getResolvedCount() {
+        return resolvedCount.get();
+    }
+
+    public long getSendFailureCount() {
+        return sendFailureCount.get();
+    }
+
+    private record SeriesKey(MetricSeries series, String meterId) {
+    }
+
+    private static final class SeriesInfo {
+        private final String metricName;
+        private final Map<String, String> labels;
+        private final String hash;
+
+        SeriesInfo(Metric metric, String key) {
+            this.metricName = metric.getMetricName();
+            Map<String, String> labels = metric.getTags() == null ? new HashMap<>() : new HashMap<>(metric.getTags());
+            if (metric.getMeterId() != null) {
+                labels.putIfAbsent("meterId", metric.getMeterId());
+            }
+            this.labels = Map.copyOf(labels);
+            this.hash = Long.toHexString(Hashing.murmur3_128().hashString(key, StandardCharsets.UTF_8).asLong());
+        }
+    }
+}
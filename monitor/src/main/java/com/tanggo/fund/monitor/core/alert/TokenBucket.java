@@ -0,0 +1,44 @@
+package com.tanggo.fund.monitor.core.alert;
+
+/**
+ * 令牌桶限流
+ * 容量为 burst，每秒补充 ratePerSecond 个令牌；按调用方传入的纳秒时钟惰性补充，不需要后台线程
+ */
+public final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param burst         桶容量（允许的突发次数）
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param nowNanos      当前纳秒时钟
+     */
+    public TokenBucket(int burst, double ratePerSecond, long nowNanos) {
+        if (burst <= 0 || ratePerSecond <= 0) {
+            throw new IllegalArgumentException("令牌桶容量和速率必须大于0: burst=" + burst + ", ratePerSecond=" + ratePerSecond);
+        }
+        this.capacity = burst;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+        this.tokens = burst;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 尝试取一个令牌
+     */
+    public synchronized boolean tryAcquire(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+}
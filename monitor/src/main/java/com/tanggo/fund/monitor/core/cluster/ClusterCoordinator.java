@@ -0,0 +1,190 @@
+package com.tanggo.fund.monitor.core.cluster;
+
+import com.tanggo.fund.monitor.core.extension.collector.ClusterMembershipRepo;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 采集集群协调器
+ * 定期向成员仓储写入本节点心跳，按心跳时间判定存活节点，并据此构建 {@link ConsistentHashRing}；
+ * 监控按 monitorId 分配给环上的节点，每个节点只采集归属自己的监控，总采集能力随节点数线性扩展
+ *
+ * <p>成员变化时通知监听者（如 {@link com.tanggo.fund.monitor.core.service.MetricCollectScheduler}）重新加载任务：
+ * 节点主动退出立即生效，节点宕机在 failureTimeoutMillis 后被剔除。各节点独立刷新成员视图，
+ * 归属切换期间可能短暂出现重复采集或漏采一到两个心跳周期。存活判定比较各节点写入的心跳时间，
+ * 跨主机部署时各节点时钟需要同步
+ */
+@Slf4j
+public class ClusterCoordinator implements AutoCloseable {
+
+    @Setter
+    private ClusterMembershipRepo membershipRepo;
+
+    // 节点ID，为空时使用 pid@hostname
+    @Getter
+    @Setter
+    private String nodeId;
+
+    // 心跳与成员刷新间隔（毫秒）
+    @Setter
+    private long heartbeatIntervalMillis = 5_000;
+
+    // 心跳超过该时长的节点视为宕机（毫秒），应为心跳间隔的数倍
+    @Setter
+    private long failureTimeoutMillis = 15_000;
+
+    // 每个节点的虚拟节点数，越大分布越均匀
+    @Setter
+    private int virtualNodes = 160;
+
+    private volatile ConsistentHashRing ring = new ConsistentHashRing(List.of(), 1);
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService executor;
+
+    // 统计信息
+    private final AtomicLong rebalanceCount = new AtomicLong();
+    private final AtomicLong heartbeatFailureCount = new AtomicLong();
+
+    /**
+     * 登记本节点并完成第一次成员刷新，之后按心跳间隔定期刷新
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        refresh(System.currentTimeMillis());
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cluster-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> refresh(System.currentTimeMillis()),
+                heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("集群协调器已启动: nodeId={}, members={}", nodeId, ring.getNodes());
+    }
+
+    /**
+     * 停止心跳并主动退出集群，其他节点在下一次刷新时接管本节点的监控
+     */
+    @Override
+    public synchronized void close() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        try {
+            membershipRepo.leave(nodeId);
+        } catch (Exception e) {
+            log.warn("退出集群失败，等待其他节点按心跳超时剔除: nodeId={}, error={}", nodeId, e.getMessage());
+        }
+        log.info("集群协调器已停止: nodeId={}", nodeId);
+    }
+
+    /**
+     * 写入心跳并刷新成员视图，成员变化时重建哈希环并通知监听者
+     * 成员仓储不可用时保留上一次的视图：宁可与其他节点重复采集，也不让监控无人负责
+     */
+    synchronized void refresh(long nowMillis) {
+        try {
+            membershipRepo.heartbeat(nodeId, nowMillis);
+        } catch (Exception e) {
+            heartbeatFailureCount.incrementAndGet();
+            log.warn("写入集群心跳失败: nodeId={}, error={}", nodeId, e.getMessage());
+        }
+
+        Set<String> live = new TreeSet<>();
+        try {
+            for (ClusterMember member : membershipRepo.members()) {
+                if (nowMillis - member.getHeartbeatMillis() <= failureTimeoutMillis) {
+                    live.add(member.getNodeId());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取集群成员失败，沿用当前视图: nodeId={}, error={}", nodeId, e.getMessage());
+            if (!ring.isEmpty()) {
+                return;
+            }
+        }
+        // 本节点始终在环上
+        live.add(nodeId);
+
+        List<String> previous = ring.getNodes();
+        if (previous.equals(new ArrayList<>(live))) {
+            return;
+        }
+        ring = new ConsistentHashRing(live, virtualNodes);
+        rebalanceCount.incrementAndGet();
+        Set<String> joined = new TreeSet<>(live);
+        previous.forEach(joined::remove);
+        Set<String> left = new TreeSet<>(previous);
+        left.removeAll(live);
+        log.info("集群成员变化，重新分配监控: nodeId={}, members={}, joined={}, left={}", nodeId, live, joined, left);
+
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.error("集群成员变化通知失败", e);
+            }
+        }
+    }
+
+    /**
+     * 监控是否归属本节点
+     */
+    public boolean owns(String monitorId) {
+        return nodeId.equals(ring.owner(monitorId));
+    }
+
+    /**
+     * 监控的归属节点
+     */
+    public String ownerOf(String monitorId) {
+        return ring.owner(monitorId);
+    }
+
+    /**
+     * 注册成员变化监听者，回调在心跳线程上执行
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 当前存活节点，按ID排序
+     */
+    public List<String> getMembers() {
+        return ring.getNodes();
+    }
+
+    /**
+     * 成员变化导致重新分配的次数
+     */
+    public long getRebalanceCount() {
+        return rebalanceCount.get();
+    }
+
+    public long getHeartbeatFailureCount() {
+        return heartbeatFailureCount.get();
+    }
+}
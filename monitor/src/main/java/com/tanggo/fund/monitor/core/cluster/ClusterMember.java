@@ -0,0 +1,16 @@
+package com.tanggo.fund.monitor.core.cluster;
+
+import lombok.Value;
+
+/**
+ * 采集集群成员
+ */
+@Value
+public class ClusterMember {
+
+    // 节点ID，集群内唯一
+    String nodeId;
+
+    // 最近一次心跳时间（epoch毫秒）
+    long heartbeatMillis;
+}
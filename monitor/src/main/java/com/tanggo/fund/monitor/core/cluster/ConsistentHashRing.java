@@ -0,0 +1,83 @@
+package com.tanggo.fund.monitor.core.cluster;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 一致性哈希环（不可变）
+ * 每个节点在环上放置 virtualNodes 个虚拟节点，键归属于顺时针方向的第一个虚拟节点；
+ * 节点加入或退出时只有落在其虚拟节点区间内的键改变归属，约为总数的 1/N
+ */
+public final class ConsistentHashRing {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * @param nodeIds      节点ID，重复的ID只计一次
+     * @param virtualNodes 每个节点的虚拟节点数
+     */
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("虚拟节点数必须大于0: " + virtualNodes);
+        }
+        this.nodes = List.copyOf(new TreeSet<>(nodeIds));
+
+        // 条目为 {哈希点, 节点下标}，按哈希点排序；哈希点相同时按节点名排序，保证各节点看到相同的环
+        List<long[]> entries = new ArrayList<>(nodes.size() * virtualNodes);
+        for (int n = 0; n < nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                entries.add(new long[]{hash(nodes.get(n) + "#" + v), n});
+            }
+        }
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[entries.size()];
+        this.owners = new String[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            points[i] = entries.get(i)[0];
+            owners[i] = nodes.get((int) entries.get(i)[1]);
+        }
+    }
+
+    /**
+     * 键的归属节点
+     *
+     * @return 环为空时返回 null
+     */
+    public String owner(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        long h = hash(key);
+        int index = Arrays.binarySearch(points, h);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * 环上的节点，按ID排序
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    private static long hash(String value) {
+        return HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+    }
+}
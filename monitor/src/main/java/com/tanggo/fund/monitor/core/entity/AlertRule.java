@@ -1,4 +1,58 @@
 package com.tanggo.fund.monitor.core.entity;
 
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 告警规则
+ * 按指标名称和等值标签选择序列，规则类型决定判定方式：
+ * <ul>
+ *     <li>THRESHOLD：单个样本满足比较条件即触发，不满足即恢复</li>
+ *     <li>FOR_DURATION：比较条件按样本时间持续满足 durationMillis 后触发</li>
+ *     <li>RATE_OF_CHANGE：相邻两个样本的每秒变化量满足比较条件即触发</li>
+ *     <li>ABSENCE：已出现过的序列超过 durationMillis 没有新样本即触发，新样本到达即恢复</li>
+ * </ul>
+ */
+@Data
 public class AlertRule {
+
+    public enum Type {
+        THRESHOLD,
+        FOR_DURATION,
+        RATE_OF_CHANGE,
+        ABSENCE
+    }
+
+    public enum Comparison {
+        GT,
+        GE,
+        LT,
+        LE,
+        EQ,
+        NE;
+
+        public boolean test(double value, double threshold) {
+            return switch (this) {
+                case GT -> value > threshold;
+                case GE -> value >= threshold;
+                case LT -> value < threshold;
+                case LE -> value <= threshold;
+                case EQ -> value == threshold;
+                case NE -> value != threshold;
+            };
+        }
+    }
+
+    private String ruleId;                                 // 规则ID
+    private String ruleName;                               // 规则名称
+    private String metricName;                             // 指标名称
+    private Map<String, String> matchTags = new HashMap<>(); // 需全部相等的标签，为空表示该指标的全部序列
+    private Type type = Type.THRESHOLD;                    // 规则类型
+    private Comparison comparison = Comparison.GT;         // 比较方式（ABSENCE 不使用）
+    private double threshold;                              // 阈值，RATE_OF_CHANGE 为每秒变化量
+    private long durationMillis;                           // FOR_DURATION 的持续时长 / ABSENCE 的缺失时长
+    private String severity;                               // 告警级别
+    private String summary;                                // 告警描述
 }
@@ -2,7 +2,20 @@ package com.tanggo.fund.monitor.core.entity;
 
 import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
 
+import java.util.List;
+
 public interface Collector {
 
     void retrieval(MetricRetrievalMeta esbMetricRetrievalMeta);
+
+    /**
+     * 批量检索共享同一通道的多个监控配置，默认逐个检索
+     *
+     * @param metas 共享同一 ChannelMeta 的监控配置
+     */
+    default void retrievalBatch(List<MetricRetrievalMeta> metas) {
+        for (MetricRetrievalMeta meta : metas) {
+            retrieval(meta);
+        }
+    }
 }
@@ -1,16 +1,114 @@
 package com.tanggo.fund.monitor.core.entity;
 
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.MetricSeries;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.Map;
 
+/**
+ * 指标样本
+ * 紧凑表示为 序列 + epoch纳秒时间戳 + 数值：采集链路通过 {@link #of(MetricSeries, long, double)} 创建，
+ * 名称和标签来自驻留的 {@link MetricSeries}，每个样本不再各自持有 LocalDateTime 和 HashMap
+ *
+ * <p>metricName、tags、timestamp 的 getter/setter 保留为兼容视图：通过 setter 设置的名称和标签
+ * 在第一次 {@link #getSeries()} 时规范化为序列；LocalDateTime 按系统时区与纳秒时间戳换算
+ */
 @Data
 public class Metric {
+
+    // 未设置采集时间
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
     private String meterId;           // 指标ID
-    private LocalDateTime timestamp;   // 采集时间
+    private long timestampNanos = NO_TIMESTAMP; // 采集时间（epoch纳秒）
     private String metricName;        // 指标名称
     private double metricValue;       // 指标值
     private Map<String, String> tags; // 标签（用于分类和聚合）
 //    private MeterStatus status;       // 指标状态（正常、告警等）
+
+    // 已解析的序列，设置后 metricName/tags 字段不再使用
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private MetricSeries series;
+
+    public static Metric of(MetricSeries series, long timestampNanos, double value) {
+        Metric metric = new Metric();
+        metric.series = series;
+        metric.timestampNanos = timestampNanos;
+        metric.metricValue = value;
+        return metric;
+    }
+
+    /**
+     * 样本所属序列，名称和标签只在第一次调用时规范化
+     */
+    public MetricSeries getSeries() {
+        if (series == null) {
+            series = SeriesRegistry.global().resolve(metricName, tags);
+            metricName = null;
+            tags = null;
+        }
+        return series;
+    }
+
+    public void setSeries(MetricSeries series) {
+        this.series = series;
+        this.metricName = null;
+        this.tags = null;
+    }
+
+    public String getMetricName() {
+        return series != null ? series.getMetricName() : metricName;
+    }
+
+    public void setMetricName(String metricName) {
+        detach();
+        this.metricName = metricName;
+    }
+
+    /**
+     * 标签视图，无标签时为 null；返回的 Map 可能只读，修改标签应通过 {@link #setTags(Map)}
+     */
+    public Map<String, String> getTags() {
+        if (series != null) {
+            return series.getTags().isEmpty() ? null : series.getTags();
+        }
+        return tags;
+    }
+
+    public void setTags(Map<String, String> tags) {
+        detach();
+        this.tags = tags;
+    }
+
+    /**
+     * 采集时间的本地时间视图
+     */
+    public LocalDateTime getTimestamp() {
+        return timestampNanos == NO_TIMESTAMP ? null : EpochNanos.toLocalDateTime(timestampNanos);
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestampNanos = timestamp == null ? NO_TIMESTAMP : EpochNanos.of(timestamp);
+    }
+
+    public boolean hasTimestamp() {
+        return timestampNanos != NO_TIMESTAMP;
+    }
+
+    /**
+     * 修改名称或标签前还原为可变字段
+     */
+    private void detach() {
+        if (series != null) {
+            metricName = series.getMetricName();
+            tags = getTags();
+            series = null;
+        }
+    }
 }
@@ -9,4 +9,9 @@ public class MetricRetrievalMeta {
     private ChannelMeta channelMeta;
     private CommandMeta commandMeta;
     private MetricCalculatorMeta metricCalculatorMeta;
+
+    // 采集间隔（毫秒），<=0 时使用调度器默认值
+    private long intervalMillis;
+    // 单次采集超时（毫秒），<=0 时使用调度器默认值
+    private long timeoutMillis;
 }
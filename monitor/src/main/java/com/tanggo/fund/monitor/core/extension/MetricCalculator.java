@@ -2,6 +2,19 @@ package com.tanggo.fund.monitor.core.extension;
 
 import com.tanggo.fund.monitor.core.entity.Metric;
 
+import java.util.List;
+
 public interface MetricCalculator {
     Metric calculate(String content);
+
+    /**
+     * 一次解析输出多个指标
+     * 每个数值各自成为一条序列，tags 只承载低基数的维度；只产生单个指标的计算器无需覆盖
+     *
+     * @param content 命令输出
+     * @return 本次解析得到的全部指标，第一个为主指标
+     */
+    default List<Metric> calculateAll(String content) {
+        return List.of(calculate(content));
+    }
 }
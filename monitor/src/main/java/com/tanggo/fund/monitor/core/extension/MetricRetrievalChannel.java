@@ -3,8 +3,71 @@ package com.tanggo.fund.monitor.core.extension;
 import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
 import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
 public interface MetricRetrievalChannel {
     void connect(ChannelMeta channelMeta);
 
     String execute(CommandMeta cmd);
+
+    /**
+     * 在指定通道上执行命令
+     * 通道实现可据此在同一实例上并发服务多个目标（如按主机复用连接），默认退化为 {@link #execute(CommandMeta)}
+     *
+     * @param channelMeta 通道元数据
+     * @param cmd         命令元数据
+     * @return 命令输出
+     */
+    default String execute(ChannelMeta channelMeta, CommandMeta cmd) {
+        return execute(cmd);
+    }
+
+    /**
+     * 在同一通道上批量执行命令
+     * 支持多路复用的通道（如SSH复合命令）可一次往返取回全部输出，默认逐条执行
+     *
+     * @param channelMeta 通道元数据
+     * @param cmds        命令元数据列表
+     * @return 与命令列表一一对应的输出
+     */
+    default List<String> executeBatch(ChannelMeta channelMeta, List<CommandMeta> cmds) {
+        List<String> outputs = new ArrayList<>(cmds.size());
+        for (CommandMeta cmd : cmds) {
+            outputs.add(execute(channelMeta, cmd));
+        }
+        return outputs;
+    }
+
+    /**
+     * 流式执行命令
+     * 通道把命令输出以流的形式交给 reader，reader 返回后通道立即释放资源（如关闭SSH exec通道），
+     * 未读取的剩余输出被丢弃；默认实现先取回完整输出再包装为流
+     *
+     * @param channelMeta 通道元数据
+     * @param cmd         命令元数据
+     * @param reader      输出消费者，可只读取需要的部分
+     * @return reader 的返回值
+     */
+    default <T> T executeStreaming(ChannelMeta channelMeta, CommandMeta cmd, OutputReader<T> reader) {
+        String output = execute(channelMeta, cmd);
+        try {
+            return reader.read(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 命令输出消费者
+     */
+    @FunctionalInterface
+    interface OutputReader<T> {
+        T read(InputStream output) throws IOException;
+    }
 }
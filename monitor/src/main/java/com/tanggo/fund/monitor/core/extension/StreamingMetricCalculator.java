@@ -0,0 +1,24 @@
+package com.tanggo.fund.monitor.core.extension;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 可流式消费命令输出的计算器
+ * 配合 {@link MetricRetrievalChannel#executeStreaming}，边读边解析，拿到所需数据后直接返回，
+ * 不必缓冲完整输出（如 top 只需要表头，无需读取进程列表）
+ */
+public interface StreamingMetricCalculator extends MetricCalculator {
+
+    /**
+     * 增量解析命令输出
+     *
+     * @param output 命令输出流，由通道负责关闭
+     * @return 本次解析得到的全部指标，第一个为主指标
+     * @throws IOException 读取输出失败（通道故障，区别于解析失败）
+     */
+    List<Metric> calculateStream(InputStream output) throws IOException;
+}
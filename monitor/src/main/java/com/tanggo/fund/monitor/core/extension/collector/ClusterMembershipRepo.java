@@ -0,0 +1,31 @@
+package com.tanggo.fund.monitor.core.extension.collector;
+
+import com.tanggo.fund.monitor.core.cluster.ClusterMember;
+
+import java.util.List;
+
+/**
+ * 采集集群成员仓储
+ * 各节点通过共享的成员仓储（共享目录、数据库表等）互相发现；存活判定由
+ * {@link com.tanggo.fund.monitor.core.cluster.ClusterCoordinator} 按心跳时间完成，仓储只负责记录
+ */
+public interface ClusterMembershipRepo {
+
+    /**
+     * 登记或刷新节点心跳
+     *
+     * @param nodeId          节点ID
+     * @param heartbeatMillis 心跳时间（epoch毫秒）
+     */
+    void heartbeat(String nodeId, long heartbeatMillis);
+
+    /**
+     * 节点主动退出
+     */
+    void leave(String nodeId);
+
+    /**
+     * 全部已登记的节点，包括心跳已过期的节点
+     */
+    List<ClusterMember> members();
+}
@@ -2,6 +2,20 @@ package com.tanggo.fund.monitor.core.extension.collector;
 
 import com.tanggo.fund.monitor.core.entity.Metric;
 
+import java.util.Collection;
+
 public interface MetricPersistRepo {
     void insert(Metric metric);
+
+    /**
+     * 批量写入
+     * 一个采集周期（或一轮调度中多个监控）产生的全部指标一次交给后端，后端可实现原生批量写入，默认逐条写入
+     *
+     * @param metrics 待保存的指标数据
+     */
+    default void insertAll(Collection<Metric> metrics) {
+        for (Metric metric : metrics) {
+            insert(metric);
+        }
+    }
 }
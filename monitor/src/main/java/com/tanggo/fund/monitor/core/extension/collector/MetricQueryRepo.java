@@ -0,0 +1,19 @@
+package com.tanggo.fund.monitor.core.extension.collector;
+
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+
+import java.util.List;
+
+/**
+ * 指标查询仓储
+ * 各后端尽量把标签过滤、时间范围和按步长聚合下推到存储执行（MySQL 生成 SQL，InfluxDB 生成 Flux）
+ */
+public interface MetricQueryRepo {
+
+    /**
+     * @param query 已按步长对齐的查询，fromMillis/toMillis 均为 stepMillis 的整数倍
+     * @return 每条匹配序列的降采样结果
+     */
+    List<TimeSeries> query(MetricQuery query);
+}
@@ -2,6 +2,10 @@ package com.tanggo.fund.monitor.core.extension.collector;
 
 import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
 
+import java.util.List;
+
 public interface MetricRetrievalMetaRepo {
     MetricRetrievalMeta queryById(String esbMoni);
+
+    List<MetricRetrievalMeta> queryAll();
 }
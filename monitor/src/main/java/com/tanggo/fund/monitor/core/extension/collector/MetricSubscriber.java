@@ -0,0 +1,18 @@
+package com.tanggo.fund.monitor.core.extension.collector;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+
+import java.util.List;
+
+/**
+ * 指标订阅者
+ * {@link com.tanggo.fund.monitor.core.service.CollectorTemplate} 每个采集周期解析出指标后、入库之前同步回调，
+ * 用于告警等需要即时看到样本的流式处理；回调在采集线程上执行，实现应尽快返回，异常不影响入库
+ */
+public interface MetricSubscriber {
+
+    /**
+     * @param metrics 本周期产生的指标（已补充监控ID标签），不可修改
+     */
+    void onMetrics(List<Metric> metrics);
+}
@@ -0,0 +1,170 @@
+package com.tanggo.fund.monitor.core.instrument;
+
+import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 采集器自监控注册表
+ * 按 阶段 + monitorId/channelId/calculatorId 维护 {@link StageStats}，
+ * 可导出快照、Prometheus文本格式，或由 InstrumentationPublisher 转成指标写回持久化仓储
+ */
+public class CollectorInstrumentation {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final ConcurrentMap<SeriesKey, StageStats> series = new ConcurrentHashMap<>();
+
+    /**
+     * 获取（或创建）一个阶段的统计，null 标签视为空串
+     */
+    public StageStats stage(Stage stage, String monitorId, String channelId, String calculatorId) {
+        SeriesKey key = new SeriesKey(stage, nullToEmpty(monitorId), nullToEmpty(channelId), nullToEmpty(calculatorId));
+        StageStats stats = series.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        return series.computeIfAbsent(key,
+                k -> new StageStats(k.stage(), k.monitorId(), k.channelId(), k.calculatorId()));
+    }
+
+    /**
+     * 以监控配置的全部标签获取阶段统计
+     */
+    public StageStats stage(Stage stage, MetricRetrievalMeta meta) {
+        return stage(stage, meta.getMonitorId(),
+                meta.getChannelMeta() == null ? null : meta.getChannelMeta().getChannelId(),
+                meta.getMetricCalculatorMeta() == null ? null : meta.getMetricCalculatorMeta().getCalculatorId());
+    }
+
+    /**
+     * 计时执行，异常时记为失败并原样抛出
+     */
+    public <T> T time(StageStats stats, Supplier<T> action) {
+        long start = stats.begin();
+        try {
+            T result = action.get();
+            stats.success(start);
+            return result;
+        } catch (RuntimeException | Error e) {
+            stats.failure(start);
+            throw e;
+        }
+    }
+
+    public void time(StageStats stats, Runnable action) {
+        long start = stats.begin();
+        try {
+            action.run();
+            stats.success(start);
+        } catch (RuntimeException | Error e) {
+            stats.failure(start);
+            throw e;
+        }
+    }
+
+    /**
+     * 全部序列的快照，按阶段和标签排序
+     */
+    public List<StageSnapshot> snapshot() {
+        List<StageSnapshot> snapshots = new ArrayList<>(series.size());
+        for (StageStats stats : series.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(StageSnapshot::getStage)
+                .thenComparing(StageSnapshot::getMonitorId)
+                .thenComparing(StageSnapshot::getChannelId)
+                .thenComparing(StageSnapshot::getCalculatorId));
+        return snapshots;
+    }
+
+    /**
+     * Prometheus 文本格式（0.0.4），延迟为自启动以来的累计分布
+     */
+    public String scrape() {
+        List<StageSnapshot> snapshots = snapshot();
+        StringBuilder sb = new StringBuilder(256 + snapshots.size() * 512);
+
+        sb.append("# HELP collector_stage_duration_seconds Latency of each collection stage.\n");
+        sb.append("# TYPE collector_stage_duration_seconds summary\n");
+        for (StageSnapshot s : snapshots) {
+            HistogramSnapshot latency = s.getLatency();
+            for (double q : QUANTILES) {
+                sb.append("collector_stage_duration_seconds");
+                labels(sb, s, "quantile", Double.toString(q));
+                sb.append(' ').append(seconds(latency.percentile(q))).append('\n');
+            }
+            sb.append("collector_stage_duration_seconds_sum");
+            labels(sb, s, null, null);
+            sb.append(' ').append(seconds(latency.getSumNanos())).append('\n');
+            sb.append("collector_stage_duration_seconds_count");
+            labels(sb, s, null, null);
+            sb.append(' ').append(latency.getCount()).append('\n');
+        }
+
+        sb.append("# HELP collector_stage_total Completed executions of each collection stage by result.\n");
+        sb.append("# TYPE collector_stage_total counter\n");
+        for (StageSnapshot s : snapshots) {
+            sb.append("collector_stage_total");
+            labels(sb, s, "result", "success");
+            sb.append(' ').append(s.getSuccessCount()).append('\n');
+            sb.append("collector_stage_total");
+            labels(sb, s, "result", "failure");
+            sb.append(' ').append(s.getFailureCount()).append('\n');
+        }
+
+        sb.append("# HELP collector_stage_in_flight Executions of each collection stage currently running.\n");
+        sb.append("# TYPE collector_stage_in_flight gauge\n");
+        for (StageSnapshot s : snapshots) {
+            sb.append("collector_stage_in_flight");
+            labels(sb, s, null, null);
+            sb.append(' ').append(s.getInFlight()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void labels(StringBuilder sb, StageSnapshot s, String extraName, String extraValue) {
+        sb.append("{stage=\"").append(s.getStage().label()).append('"');
+        label(sb, "monitorId", s.getMonitorId());
+        label(sb, "channelId", s.getChannelId());
+        label(sb, "calculatorId", s.getCalculatorId());
+        if (extraName != null) {
+            label(sb, extraName, extraValue);
+        }
+        sb.append('}');
+    }
+
+    private static void label(StringBuilder sb, String name, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        sb.append(',').append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    private record SeriesKey(Stage stage, String monitorId, String channelId, String calculatorId) {
+    }
+}
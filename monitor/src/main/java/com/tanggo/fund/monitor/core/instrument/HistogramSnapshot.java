@@ -0,0 +1,78 @@
+package com.tanggo.fund.monitor.core.instrument;
+
+/**
+ * 直方图快照
+ * 两次快照相减得到区间内的分布，用于按周期输出分位数
+ */
+public class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sumNanos;
+
+    HistogramSnapshot(long[] counts, long count, long sumNanos) {
+        this.counts = counts;
+        this.count = count;
+        this.sumNanos = sumNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSumNanos() {
+        return sumNanos;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0.0 : (double) sumNanos / count;
+    }
+
+    /**
+     * 分位数（纳秒），取所在桶的上界
+     *
+     * @param quantile 0~1
+     */
+    public long percentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return LatencyHistogram.bucketUpperBound(i);
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * 最大值（纳秒），取最高非空桶的上界
+     */
+    public long getMaxNanos() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return LatencyHistogram.bucketUpperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 本快照与更早快照之间新增的部分
+     */
+    public HistogramSnapshot minus(HistogramSnapshot earlier) {
+        if (earlier == null) {
+            return this;
+        }
+        long[] delta = new long[counts.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            delta[i] = Math.max(0, counts[i] - earlier.counts[i]);
+            total += delta[i];
+        }
+        return new HistogramSnapshot(delta, total, sumNanos - earlier.sumNanos);
+    }
+}
@@ -0,0 +1,80 @@
+package com.tanggo.fund.monitor.core.instrument;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 自监控数据的HTTP抓取端点
+ * 基于JDK内置 HttpServer，在 {@code GET /metrics} 返回 Prometheus 文本格式
+ */
+@Slf4j
+public class InstrumentationHttpExporter implements AutoCloseable {
+
+    private final CollectorInstrumentation instrumentation;
+
+    // 监听地址
+    @Setter
+    private String host = "0.0.0.0";
+
+    // 监听端口，0 表示随机端口
+    @Setter
+    private int port = 9464;
+
+    private HttpServer server;
+
+    public InstrumentationHttpExporter(CollectorInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("自监控端点启动失败: " + host + ":" + port, e);
+        }
+        server.createContext("/metrics", this::handle);
+        server.start();
+        log.info("自监控端点已启动: http://{}:{}/metrics", host, getPort());
+    }
+
+    /**
+     * 实际监听的端口
+     */
+    public int getPort() {
+        HttpServer s = server;
+        return s == null ? port : s.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = instrumentation.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
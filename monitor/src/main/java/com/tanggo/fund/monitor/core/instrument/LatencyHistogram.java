@@ -0,0 +1,71 @@
+package com.tanggo.fund.monitor.core.instrument;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图（纳秒）
+ * 对数-线性分桶：每个2的幂区间再等分为 {@value #SUB_BUCKETS} 个子桶，相对误差约3%，
+ * 记录只做一次下标计算和一次原子自增，不加锁、不分配对象
+ *
+ * <p>可记录的上限为 2^{@value #MAX_EXPONENT} 纳秒（约18分钟），超出部分计入最后一个桶
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 40;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sumNanos = new LongAdder();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketIndex(nanos));
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * 当前累计值的快照
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new HistogramSnapshot(copy, total, sumNanos.sum());
+    }
+
+    /**
+     * 小于 {@value #SUB_BUCKETS} 的值每个值一个桶；之后每个2的幂区间按最高6位再分 {@value #SUB_BUCKETS} 个子桶
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 桶内可能出现的最大值
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,24 @@
+package com.tanggo.fund.monitor.core.instrument;
+
+/**
+ * 采集流程的阶段
+ */
+public enum Stage {
+    // 一次完整的检索（单个监控或同通道批量）
+    CYCLE,
+    // 建立通道连接
+    CONNECT,
+    // 执行命令
+    EXECUTE,
+    // 计算器解析
+    CALCULATE,
+    // 持久化
+    PERSIST;
+
+    /**
+     * 输出时使用的小写名称
+     */
+    public String label() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,18 @@
+package com.tanggo.fund.monitor.core.instrument;
+
+import lombok.Value;
+
+/**
+ * 阶段统计快照，未知的标签为空串
+ */
+@Value
+public class StageSnapshot {
+    Stage stage;
+    String monitorId;
+    String channelId;
+    String calculatorId;
+    HistogramSnapshot latency;
+    long successCount;
+    long failureCount;
+    long inFlight;
+}
@@ -0,0 +1,63 @@
+package com.tanggo.fund.monitor.core.instrument;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个阶段在一组标签下的统计：延迟直方图、成功/失败次数、进行中数量
+ */
+public class StageStats {
+
+    @Getter
+    private final Stage stage;
+    @Getter
+    private final String monitorId;
+    @Getter
+    private final String channelId;
+    @Getter
+    private final String calculatorId;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder success = new LongAdder();
+    private final LongAdder failure = new LongAdder();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    StageStats(Stage stage, String monitorId, String channelId, String calculatorId) {
+        this.stage = stage;
+        this.monitorId = monitorId;
+        this.channelId = channelId;
+        this.calculatorId = calculatorId;
+    }
+
+    /**
+     * 阶段开始
+     *
+     * @return 开始时间（纳秒），传给 {@link #success(long)} 或 {@link #failure(long)}
+     */
+    public long begin() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void success(long startNanos) {
+        end(startNanos);
+        success.increment();
+    }
+
+    public void failure(long startNanos) {
+        end(startNanos);
+        failure.increment();
+    }
+
+    private void end(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        inFlight.decrementAndGet();
+    }
+
+    public StageSnapshot snapshot() {
+        return new StageSnapshot(stage, monitorId, channelId, calculatorId,
+                latency.snapshot(), success.sum(), failure.sum(), inFlight.get());
+    }
+}
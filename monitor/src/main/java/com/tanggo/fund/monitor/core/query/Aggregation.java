@@ -0,0 +1,16 @@
+package com.tanggo.fund.monitor.core.query;
+
+/**
+ * 降采样聚合函数：每个步长窗口内的样本聚合为一个点
+ */
+public enum Aggregation {
+    AVG,
+    MIN,
+    MAX,
+    SUM,
+    COUNT,
+    // 窗口内第95百分位（最近秩法）
+    P95,
+    // 每秒增长率：相邻样本的非负增量除以间隔秒数，窗口内取平均；计数器回绕的样本对被忽略
+    RATE
+}
@@ -0,0 +1,152 @@
+package com.tanggo.fund.monitor.core.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进程内降采样
+ * 后端无法下推的聚合（如 MySQL 的 P95、RATE）以及本地存储的查询，先取原始样本再按步长窗口聚合
+ *
+ * <p>样本按标签分组缓存，{@link #result()} 时逐序列按时间排序后扫描窗口
+ */
+public final class BucketAggregator {
+
+    private final MetricQuery query;
+    private final Map<Map<String, String>, Samples> series = new LinkedHashMap<>();
+
+    /**
+     * @param query 已按步长对齐的查询
+     */
+    public BucketAggregator(MetricQuery query) {
+        this.query = query;
+    }
+
+    public void add(Map<String, String> tags, long timestampMillis, double value) {
+        series.computeIfAbsent(tags, t -> new Samples()).add(timestampMillis, value);
+    }
+
+    public List<TimeSeries> result() {
+        List<TimeSeries> result = new ArrayList<>(series.size());
+        for (Map.Entry<Map<String, String>, Samples> entry : series.entrySet()) {
+            List<DataPoint> points = entry.getValue().aggregate();
+            if (!points.isEmpty()) {
+                result.add(new TimeSeries(query.getMetricName(), entry.getKey(), points));
+            }
+        }
+        return result;
+    }
+
+    private final class Samples {
+        private long[] timestamps = new long[16];
+        private double[] values = new double[16];
+        private int size;
+        private boolean sorted = true;
+
+        void add(long timestampMillis, double value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (size > 0 && timestampMillis < timestamps[size - 1]) {
+                sorted = false;
+            }
+            timestamps[size] = timestampMillis;
+            values[size] = value;
+            size++;
+        }
+
+        List<DataPoint> aggregate() {
+            if (!sorted) {
+                sort();
+            }
+            List<DataPoint> points = new ArrayList<>();
+            int from = 0;
+            while (from < size) {
+                long bucket = query.bucketStart(timestamps[from]);
+                int to = from + 1;
+                while (to < size && timestamps[to] < bucket + query.getStepMillis()) {
+                    to++;
+                }
+                if (bucket >= query.getFromMillis() && bucket < query.getToMillis()) {
+                    double value = aggregate(from, to);
+                    if (!Double.isNaN(value) || query.getAggregation() != Aggregation.RATE) {
+                        points.add(new DataPoint(bucket, value));
+                    }
+                }
+                from = to;
+            }
+            return points;
+        }
+
+        private double aggregate(int from, int to) {
+            int n = to - from;
+            switch (query.getAggregation()) {
+                case COUNT:
+                    return n;
+                case SUM:
+                case AVG: {
+                    double sum = 0;
+                    for (int i = from; i < to; i++) {
+                        sum += values[i];
+                    }
+                    return query.getAggregation() == Aggregation.SUM ? sum : sum / n;
+                }
+                case MIN: {
+                    double min = Double.POSITIVE_INFINITY;
+                    for (int i = from; i < to; i++) {
+                        min = Math.min(min, values[i]);
+                    }
+                    return min;
+                }
+                case MAX: {
+                    double max = Double.NEGATIVE_INFINITY;
+                    for (int i = from; i < to; i++) {
+                        max = Math.max(max, values[i]);
+                    }
+                    return max;
+                }
+                case P95: {
+                    double[] window = Arrays.copyOfRange(values, from, to);
+                    Arrays.sort(window);
+                    return window[(int) Math.ceil(0.95 * n) - 1];
+                }
+                case RATE: {
+                    // 样本对归属后一个样本所在的窗口，窗口内第一个样本与上一窗口末尾样本组成样本对
+                    double sum = 0;
+                    int pairs = 0;
+                    for (int i = Math.max(from, 1); i < to; i++) {
+                        long dt = timestamps[i] - timestamps[i - 1];
+                        double dv = values[i] - values[i - 1];
+                        if (dt > 0 && dv >= 0) {
+                            sum += dv * 1000.0 / dt;
+                            pairs++;
+                        }
+                    }
+                    return pairs == 0 ? Double.NaN : sum / pairs;
+                }
+                default:
+                    throw new IllegalStateException("未知聚合函数: " + query.getAggregation());
+            }
+        }
+
+        private void sort() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+            long[] sortedTimestamps = new long[size];
+            double[] sortedValues = new double[size];
+            for (int i = 0; i < size; i++) {
+                sortedTimestamps[i] = timestamps[order[i]];
+                sortedValues[i] = values[order[i]];
+            }
+            timestamps = sortedTimestamps;
+            values = sortedValues;
+            sorted = true;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.tanggo.fund.monitor.core.query;
+
+import lombok.Value;
+
+/**
+ * 查询结果中的一个点，时间戳为窗口起点
+ */
+@Value
+public class DataPoint {
+    long timestampMillis;
+    double value;
+}
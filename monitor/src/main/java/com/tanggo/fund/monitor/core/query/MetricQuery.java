@@ -0,0 +1,51 @@
+package com.tanggo.fund.monitor.core.query;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 指标查询：序列选择器（指标名称 + 标签匹配条件）、时间范围 [fromMillis, toMillis)、步长和聚合函数
+ */
+@Data
+public class MetricQuery {
+    private String metricName;
+    private List<TagMatcher> matchers = new ArrayList<>();
+    private long fromMillis;
+    private long toMillis;
+    private long stepMillis;
+    private Aggregation aggregation = Aggregation.AVG;
+
+    public static MetricQuery of(String metricName, long fromMillis, long toMillis, long stepMillis,
+                                 Aggregation aggregation, TagMatcher... matchers) {
+        MetricQuery query = new MetricQuery();
+        query.setMetricName(metricName);
+        query.setFromMillis(fromMillis);
+        query.setToMillis(toMillis);
+        query.setStepMillis(stepMillis);
+        query.setAggregation(aggregation);
+        query.setMatchers(new ArrayList<>(List.of(matchers)));
+        return query;
+    }
+
+    /**
+     * 序列标签是否满足全部匹配条件
+     */
+    public boolean matches(Map<String, String> tags) {
+        for (TagMatcher matcher : matchers) {
+            if (!matcher.matches(tags.get(matcher.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 样本时间所在窗口的起点
+     */
+    public long bucketStart(long timestampMillis) {
+        return fromMillis + Math.floorDiv(timestampMillis - fromMillis, stepMillis) * stepMillis;
+    }
+}
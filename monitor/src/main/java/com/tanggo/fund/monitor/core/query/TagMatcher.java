@@ -0,0 +1,74 @@
+package com.tanggo.fund.monitor.core.query;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.Value;
+
+import java.util.regex.Pattern;
+
+/**
+ * 标签匹配条件
+ * 缺失的标签按空字符串参与匹配；正则为全匹配（自动加 ^...$ 锚定）
+ */
+@Value
+public class TagMatcher {
+
+    public enum Op {
+        EQ,
+        NEQ,
+        REGEX,
+        NOT_REGEX
+    }
+
+    String key;
+    Op op;
+    String value;
+
+    // 正则条件预编译，不参与 equals/hashCode
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Pattern pattern;
+
+    private TagMatcher(String key, Op op, String value) {
+        this.key = key;
+        this.op = op;
+        this.value = value;
+        this.pattern = op == Op.REGEX || op == Op.NOT_REGEX ? Pattern.compile(value) : null;
+    }
+
+    public static TagMatcher eq(String key, String value) {
+        return new TagMatcher(key, Op.EQ, value);
+    }
+
+    public static TagMatcher neq(String key, String value) {
+        return new TagMatcher(key, Op.NEQ, value);
+    }
+
+    public static TagMatcher regex(String key, String regex) {
+        return new TagMatcher(key, Op.REGEX, regex);
+    }
+
+    public static TagMatcher notRegex(String key, String regex) {
+        return new TagMatcher(key, Op.NOT_REGEX, regex);
+    }
+
+    /**
+     * @param tagValue 序列的标签值，缺失时为 null
+     */
+    public boolean matches(String tagValue) {
+        String actual = tagValue == null ? "" : tagValue;
+        return switch (op) {
+            case EQ -> actual.equals(value);
+            case NEQ -> !actual.equals(value);
+            case REGEX -> pattern.matcher(actual).matches();
+            case NOT_REGEX -> !pattern.matcher(actual).matches();
+        };
+    }
+
+    /**
+     * 交给后端正则引擎时使用的锚定表达式
+     */
+    public String anchoredRegex() {
+        return "^(?:" + value + ")$";
+    }
+}
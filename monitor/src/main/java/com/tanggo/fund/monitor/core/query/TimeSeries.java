@@ -0,0 +1,22 @@
+package com.tanggo.fund.monitor.core.query;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查询结果中的一条序列：指标名称、标签和按时间排序的点
+ */
+@Value
+public class TimeSeries {
+    String metricName;
+    Map<String, String> tags;
+    List<DataPoint> points;
+
+    public TimeSeries(String metricName, Map<String, String> tags, List<DataPoint> points) {
+        this.metricName = metricName;
+        this.tags = Map.copyOf(tags);
+        this.points = List.copyOf(points);
+    }
+}
@@ -0,0 +1,185 @@
+package com.tanggo.fund.monitor.core.rollup;
+
+import java.util.Arrays;
+
+/**
+ * 可合并的分位数草图（DDSketch）
+ * 按对数间隔分桶：gamma = (1 + a) / (1 - a)，值 v 落入下标 ceil(log_gamma(|v|)) 的桶，
+ * 任意分位数的相对误差不超过 a；两个草图按桶计数相加即可合并，适合把细粒度窗口逐级汇总成粗粒度窗口
+ *
+ * <p>正数、负数分别保存在以最小下标为偏移的连续 long 数组中，零值单独计数；
+ * 监控指标的取值范围通常很窄，每个草图只有几十个桶
+ */
+public final class QuantileSketch {
+
+    // 绝对值小于该值按零计数
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private final Store positive = new Store();
+    private final Store negative = new Store();
+    private long zeroCount;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("相对误差需在(0, 1)之间: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * 加入一个样本，NaN 和 ±Inf 没有对应的桶，直接忽略
+     */
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        if (value > MIN_INDEXABLE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+    }
+
+    /**
+     * 合并另一个草图（两者的相对误差必须相同）
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("相对误差不同的草图不能合并");
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+    }
+
+    /**
+     * 分位数估计
+     *
+     * @param q 0~1
+     * @return 估计值；草图为空时返回 NaN
+     */
+    public double quantile(double q) {
+        long count = getCount();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.ceil(q * count) - 1;
+        if (rank < 0) {
+            rank = 0;
+        }
+        // 负数按绝对值从大到小
+        if (rank < negative.total) {
+            return -value(negative.indexAtRankFromTop(rank));
+        }
+        rank -= negative.total;
+        if (rank < zeroCount) {
+            return 0;
+        }
+        rank -= zeroCount;
+        return value(positive.indexAtRank(rank));
+    }
+
+    public long getCount() {
+        return positive.total + negative.total + zeroCount;
+    }
+
+    public void clear() {
+        positive.clear();
+        negative.clear();
+        zeroCount = 0;
+    }
+
+    private int index(double absValue) {
+        return (int) Math.ceil(Math.log(absValue) / logGamma);
+    }
+
+    /**
+     * 桶 (gamma^(i-1), gamma^i] 的代表值，与桶内任意值的相对误差不超过 a
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private static final class Store {
+        private long[] counts = new long[0];
+        private int offset;
+        private long total;
+
+        void add(int index, long count) {
+            ensure(index);
+            counts[index - offset] += count;
+            total += count;
+        }
+
+        void merge(Store other) {
+            if (other.total == 0) {
+                return;
+            }
+            ensure(other.offset);
+            ensure(other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+            total += other.total;
+        }
+
+        int indexAtRank(long rank) {
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return offset + i;
+                }
+            }
+            return offset + counts.length - 1;
+        }
+
+        int indexAtRankFromTop(long rank) {
+            long seen = 0;
+            for (int i = counts.length - 1; i >= 0; i--) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return offset + i;
+                }
+            }
+            return offset;
+        }
+
+        void clear() {
+            Arrays.fill(counts, 0);
+            total = 0;
+        }
+
+        /**
+         * 扩展数组使其覆盖 index，保留已有计数
+         */
+        private void ensure(int index) {
+            if (counts.length == 0) {
+                counts = new long[8];
+                offset = index - 4;
+                return;
+            }
+            if (index >= offset && index < offset + counts.length) {
+                return;
+            }
+            int newOffset = Math.min(offset, index);
+            int newEnd = Math.max(offset + counts.length, index + 1);
+            int length = Math.max(newEnd - newOffset, counts.length * 2);
+            if (index < offset) {
+                newOffset = newEnd - length;
+            }
+            long[] grown = new long[length];
+            System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+            counts = grown;
+            offset = newOffset;
+        }
+    }
+}
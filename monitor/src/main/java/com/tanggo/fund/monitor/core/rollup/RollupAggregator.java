@@ -0,0 +1,271 @@
+package com.tanggo.fund.monitor.core.rollup;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.MetricSeries;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 摄入时的流式汇总
+ * 每条序列在每个层级各保持一个当前窗口（min/max/sum/count + 分位数草图）。
+ * 原始样本只进入最细层级；细层级窗口关闭时输出汇总并合并进上一层级的窗口，逐级向上，
+ * 粗层级不再重复扫描原始样本
+ *
+ * <p>窗口在两种情况下关闭：同一序列出现下一个窗口的样本，或调用 {@link #flush(long)} 时窗口已早于水位线。
+ * 早于当前窗口、或所在窗口已被水位线关闭的迟到样本不再计入汇总（原始数据不受影响）；NaN 和 ±Inf（如 Prometheus 直方图的 +Inf 桶上界）不参与汇总
+ *
+ * <p>非线程安全，由调用方串行访问
+ */
+public class RollupAggregator {
+
+    /**
+     * 汇总序列的统计量标签
+     */
+    public static final String STAT_TAG = "rollup_stat";
+
+    private final List<RollupTier> tiers;
+    private final double sketchAccuracy;
+    private final Map<SeriesKey, SeriesRollup> series = new HashMap<>();
+    // 已刷出的最大水位线，结束时间不晚于它的窗口不再重新打开
+    private long flushedWatermark = Long.MIN_VALUE;
+    private long lateCount;
+    private long nonFiniteCount;
+
+    /**
+     * @param tiers          汇总层级，窗口宽度必须逐级整除
+     * @param sketchAccuracy 分位数草图的相对误差
+     */
+    public RollupAggregator(List<RollupTier> tiers, double sketchAccuracy) {
+        List<RollupTier> sorted = new ArrayList<>(tiers);
+        sorted.sort(Comparator.comparingLong(RollupTier::getWindowMillis));
+        for (int i = 0; i < sorted.size(); i++) {
+            long window = sorted.get(i).getWindowMillis();
+            if (window <= 0) {
+                throw new IllegalArgumentException("汇总窗口必须大于0: " + sorted.get(i));
+            }
+            if (i > 0 && window % sorted.get(i - 1).getWindowMillis() != 0) {
+                throw new IllegalArgumentException("汇总窗口必须逐级整除: " + sorted.get(i - 1) + " -> " + sorted.get(i));
+            }
+        }
+        this.tiers = List.copyOf(sorted);
+        this.sketchAccuracy = sketchAccuracy;
+    }
+
+    /**
+     * 汇总一批原始指标
+     *
+     * @return 本批次内关闭的窗口，按层级分组
+     */
+    public Map<RollupTier, List<Metric>> add(Collection<Metric> metrics) {
+        Map<RollupTier, List<Metric>> out = new LinkedHashMap<>();
+        if (tiers.isEmpty()) {
+            return out;
+        }
+        for (Metric metric : metrics) {
+            double value = metric.getMetricValue();
+            if (!metric.hasTimestamp()) {
+                continue;
+            }
+            if (!Double.isFinite(value)) {
+                nonFiniteCount++;
+                continue;
+            }
+            long timestamp = EpochNanos.toMillis(metric.getTimestampNanos());
+            long start = windowStart(timestamp, 0);
+            if (start + tiers.get(0).getWindowMillis() <= flushedWatermark) {
+                lateCount++;
+                continue;
+            }
+            SeriesRollup rollup = series.computeIfAbsent(new SeriesKey(metric.getSeries(), metric.getMeterId()),
+                    k -> new SeriesRollup(k, tiers.size()));
+            Window window = rollup.windows[0];
+            if (window.open && start < window.start) {
+                lateCount++;
+                continue;
+            }
+            if (window.open && start > window.start) {
+                close(rollup, 0, out);
+            }
+            if (!window.open) {
+                window.open(start, sketchAccuracy);
+            }
+            window.add(value);
+        }
+        return out;
+    }
+
+    /**
+     * 关闭结束时间不晚于水位线的窗口，长时间没有新样本的序列随之释放
+     *
+     * @param watermarkMillis 水位线（毫秒时间戳），通常为当前时间减去允许的迟到时长
+     * @return 关闭的窗口，按层级分组
+     */
+    public Map<RollupTier, List<Metric>> flush(long watermarkMillis) {
+        Map<RollupTier, List<Metric>> out = new LinkedHashMap<>();
+        flushedWatermark = Math.max(flushedWatermark, watermarkMillis);
+        Iterator<SeriesRollup> iterator = series.values().iterator();
+        while (iterator.hasNext()) {
+            SeriesRollup rollup = iterator.next();
+            boolean anyOpen = false;
+            for (int level = 0; level < tiers.size(); level++) {
+                Window window = rollup.windows[level];
+                if (window.open && window.start + tiers.get(level).getWindowMillis() <= watermarkMillis) {
+                    close(rollup, level, out);
+                }
+                anyOpen |= window.open;
+            }
+            if (!anyOpen) {
+                iterator.remove();
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 输出窗口汇总并合并进上一层级
+     */
+    private void close(SeriesRollup rollup, int level, Map<RollupTier, List<Metric>> out) {
+        Window window = rollup.windows[level];
+        RollupTier tier = tiers.get(level);
+        List<Metric> metrics = out.computeIfAbsent(tier, t -> new ArrayList<>());
+        long timestamp = EpochNanos.ofMillis(window.start);
+        for (RollupStat stat : RollupStat.values()) {
+            metrics.add(rollup.metric(stat, window.value(stat), timestamp));
+        }
+
+        if (level + 1 < tiers.size()) {
+            Window parent = rollup.windows[level + 1];
+            long parentStart = windowStart(window.start, level + 1);
+            if (parent.open && parentStart > parent.start) {
+                close(rollup, level + 1, out);
+            }
+            if (!parent.open) {
+                parent.open(parentStart, sketchAccuracy);
+            }
+            parent.merge(window);
+        }
+        window.open = false;
+    }
+
+    private long windowStart(long timestamp, int level) {
+        long width = tiers.get(level).getWindowMillis();
+        return Math.floorDiv(timestamp, width) * width;
+    }
+
+    /**
+     * 当前保持窗口状态的序列数
+     */
+    public int getSeriesCount() {
+        return series.size();
+    }
+
+    /**
+     * 迟到而未计入汇总的样本数
+     */
+    public long getLateCount() {
+        return lateCount;
+    }
+
+    /**
+     * 因取值为 NaN 或 ±Inf 而未参与汇总的样本数
+     */
+    public long getNonFiniteCount() {
+        return nonFiniteCount;
+    }
+
+    public List<RollupTier> getTiers() {
+        return tiers;
+    }
+
+    private record SeriesKey(MetricSeries series, String meterId) {
+    }
+
+    private static final class SeriesRollup {
+        private final String meterId;
+        // 每个统计量对应的汇总序列，创建时解析一次
+        private final MetricSeries[] statSeries;
+        private final Window[] windows;
+
+        SeriesRollup(SeriesKey key, int levels) {
+            this.meterId = key.meterId();
+            RollupStat[] stats = RollupStat.values();
+            this.statSeries = new MetricSeries[stats.length];
+            for (RollupStat stat : stats) {
+                Map<String, String> tags = new HashMap<>(key.series().getTags());
+                tags.put(STAT_TAG, stat.label());
+                statSeries[stat.ordinal()] = SeriesRegistry.global().resolve(key.series().getMetricName(), tags);
+            }
+            this.windows = new Window[levels];
+            for (int i = 0; i < levels; i++) {
+                windows[i] = new Window();
+            }
+        }
+
+        Metric metric(RollupStat stat, double value, long timestamp) {
+            Metric metric = Metric.of(statSeries[stat.ordinal()], timestamp, value);
+            metric.setMeterId(meterId);
+            return metric;
+        }
+    }
+
+    private static final class Window {
+        private boolean open;
+        private long start;
+        private double min;
+        private double max;
+        private double sum;
+        private long count;
+        private QuantileSketch sketch;
+
+        void open(long start, double sketchAccuracy) {
+            this.open = true;
+            this.start = start;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            sum = 0;
+            count = 0;
+            if (sketch == null) {
+                sketch = new QuantileSketch(sketchAccuracy);
+            } else {
+                sketch.clear();
+            }
+        }
+
+        void add(double value) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            count++;
+            sketch.add(value);
+        }
+
+        void merge(Window other) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sum += other.sum;
+            count += other.count;
+            sketch.merge(other.sketch);
+        }
+
+        double value(RollupStat stat) {
+            return switch (stat) {
+                case MIN -> min;
+                case MAX -> max;
+                case SUM -> sum;
+                case COUNT -> count;
+                case P50 -> sketch.quantile(0.50);
+                case P95 -> sketch.quantile(0.95);
+                case P99 -> sketch.quantile(0.99);
+            };
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.tanggo.fund.monitor.core.rollup;
+
+import java.util.Locale;
+
+/**
+ * 汇总窗口输出的统计量，每个统计量是一条独立序列，以 {@link RollupAggregator#STAT_TAG} 标签区分
+ */
+public enum RollupStat {
+    MIN,
+    MAX,
+    SUM,
+    COUNT,
+    P50,
+    P95,
+    P99;
+
+    /**
+     * 标签值（小写）
+     */
+    public String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
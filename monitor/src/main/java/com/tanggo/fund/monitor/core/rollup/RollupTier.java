@@ -0,0 +1,48 @@
+package com.tanggo.fund.monitor.core.rollup;
+
+import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import com.tanggo.fund.monitor.core.extension.collector.MetricQueryRepo;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 汇总层级
+ * 一个固定窗口宽度的汇总数据集，拥有独立的写入和查询仓储，保留时长由仓储自身执行，
+ * 查询端据此判断层级是否覆盖查询范围
+ */
+@Getter
+@Setter
+public class RollupTier {
+
+    // 层级名称，如 1m / 5m / 1h
+    private String name;
+
+    // 窗口宽度（毫秒）
+    private long windowMillis;
+
+    // 保留时长（毫秒）
+    private long retentionMillis;
+
+    // 汇总数据写入仓储
+    private MetricPersistRepo persistRepo;
+
+    // 汇总数据查询仓储，为空时该层级不参与查询
+    private MetricQueryRepo queryRepo;
+
+    public RollupTier() {
+    }
+
+    public RollupTier(String name, long windowMillis, long retentionMillis,
+                      MetricPersistRepo persistRepo, MetricQueryRepo queryRepo) {
+        this.name = name;
+        this.windowMillis = windowMillis;
+        this.retentionMillis = retentionMillis;
+        this.persistRepo = persistRepo;
+        this.queryRepo = queryRepo;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
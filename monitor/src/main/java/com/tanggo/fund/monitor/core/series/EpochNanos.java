@@ -0,0 +1,55 @@
+package com.tanggo.fund.monitor.core.series;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * epoch纳秒时间戳与 {@link LocalDateTime} 的换算
+ * 采集链路内部统一使用 long 纳秒，只在兼容旧接口时按系统时区换算
+ */
+public final class EpochNanos {
+
+    // 系统时区，只解析一次
+    public static final ZoneId SYSTEM_ZONE = ZoneId.systemDefault();
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private EpochNanos() {
+    }
+
+    public static long now() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * NANOS_PER_SECOND + now.getNano();
+    }
+
+    public static long ofMillis(long epochMillis) {
+        return epochMillis * 1_000_000L;
+    }
+
+    public static long ofSeconds(long epochSeconds) {
+        return epochSeconds * NANOS_PER_SECOND;
+    }
+
+    public static long toMillis(long epochNanos) {
+        return Math.floorDiv(epochNanos, 1_000_000L);
+    }
+
+    /**
+     * 按系统时区把本地时间换算为epoch纳秒
+     */
+    public static long of(LocalDateTime localDateTime) {
+        ZoneOffset offset = SYSTEM_ZONE.getRules().getOffset(localDateTime);
+        return localDateTime.toEpochSecond(offset) * NANOS_PER_SECOND + localDateTime.getNano();
+    }
+
+    /**
+     * 按系统时区把epoch纳秒换算为本地时间
+     */
+    public static LocalDateTime toLocalDateTime(long epochNanos) {
+        long seconds = Math.floorDiv(epochNanos, NANOS_PER_SECOND);
+        int nanos = (int) Math.floorMod(epochNanos, NANOS_PER_SECOND);
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(seconds, nanos), SYSTEM_ZONE);
+    }
+}
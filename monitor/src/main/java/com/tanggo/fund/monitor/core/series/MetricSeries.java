@@ -0,0 +1,66 @@
+package com.tanggo.fund.monitor.core.series;
+
+import java.util.Map;
+
+/**
+ * 时间序列标识：指标名称加一组规范化的标签
+ * 由 {@link SeriesRegistry} 登记并分配编号，同一序列在进程内只有一个实例，可以按引用比较。
+ * 超出登记上限的临时序列每次查找都是新实例，按名称和标签比较相等，作为 HashMap 键时同一序列仍落在同一项
+ */
+public final class MetricSeries {
+
+    private final int id;
+    private final String metricName;
+    private final Map<String, String> tags;
+
+    // 最近一次追加标签得到的序列，采集链路上同一序列总是追加相同的监控ID标签
+    volatile Derived derived;
+
+    MetricSeries(int id, String metricName, Map<String, String> tags) {
+        this.id = id;
+        this.metricName = metricName;
+        this.tags = tags;
+    }
+
+    /**
+     * 序列编号，从0开始连续分配；超出登记上限的临时序列为 -1
+     */
+    public int getId() {
+        return id;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    /**
+     * 按键排序的只读标签，无标签时为空Map
+     */
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (id >= 0 || !(o instanceof MetricSeries other) || other.id >= 0) {
+            return false;
+        }
+        return metricName.equals(other.metricName) && tags.equals(other.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return id >= 0 ? System.identityHashCode(this) : 31 * metricName.hashCode() + tags.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return metricName + tags;
+    }
+
+    record Derived(String key, String value, MetricSeries series) {
+    }
+}
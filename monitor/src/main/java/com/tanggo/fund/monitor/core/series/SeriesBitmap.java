@@ -0,0 +1,443 @@
+package com.tanggo.fund.monitor.core.series;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * 序列编号位图（Roaring 结构）
+ * 编号按高16位分桶，每个桶一个容器：元素不超过 4096 个时为有序 char 数组，否则为 65536 位的 long[1024] 位图。
+ * 稀疏的标签值只占几个字节，覆盖大半序列的标签值每个编号约 1 bit；交、并、差按桶逐个计算
+ *
+ * <p>非线程安全：{@link SeriesTagIndex} 在锁内修改，对外返回的结果是独立副本
+ */
+public final class SeriesBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITS_WORDS = 1024;
+
+    private static final SeriesBitmap EMPTY = new SeriesBitmap();
+
+    // 按高16位排序的桶
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int size;
+
+    /**
+     * 空位图（只读，不能调用 {@link #add(int)}）
+     */
+    public static SeriesBitmap empty() {
+        return EMPTY;
+    }
+
+    public static SeriesBitmap of(int... ids) {
+        SeriesBitmap bitmap = new SeriesBitmap();
+        for (int id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 加入编号，重复加入无效
+     */
+    public void add(int id) {
+        if (this == EMPTY) {
+            throw new UnsupportedOperationException("空位图只读");
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("序列编号不能为负数: " + id);
+        }
+        char key = (char) (id >>> 16);
+        int i = indexOf(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, key, new Container(new char[1], null, 0));
+        }
+        containers[i].add((char) id);
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int i = indexOf((char) (id >>> 16));
+        return i >= 0 && containers[i].contains((char) id);
+    }
+
+    public int getCardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 按编号升序回调
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << 16;
+            Container c = containers[i];
+            if (c.array != null) {
+                for (int j = 0; j < c.cardinality; j++) {
+                    consumer.accept(high | c.array[j]);
+                }
+            } else {
+                for (int w = 0; w < BITS_WORDS; w++) {
+                    long word = c.bits[w];
+                    while (word != 0) {
+                        consumer.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[getCardinality()];
+        int[] position = new int[1];
+        forEach(id -> result[position[0]++] = id);
+        return result;
+    }
+
+    /**
+     * 容器占用的内存估算（字节）
+     */
+    public long getSizeInBytes() {
+        long bytes = 2L * keys.length + 8L * containers.length;
+        for (int i = 0; i < size; i++) {
+            Container c = containers[i];
+            bytes += 16 + (c.array != null ? 2L * c.array.length : 8L * BITS_WORDS);
+        }
+        return bytes;
+    }
+
+    public SeriesBitmap copy() {
+        SeriesBitmap copy = new SeriesBitmap();
+        copy.keys = Arrays.copyOf(keys, size);
+        copy.containers = new Container[size];
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * 交集
+     */
+    public static SeriesBitmap and(SeriesBitmap a, SeriesBitmap b) {
+        SeriesBitmap result = new SeriesBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.appendContainer(a.keys[i], Container.and(a.containers[i], b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 并集
+     */
+    public static SeriesBitmap or(SeriesBitmap a, SeriesBitmap b) {
+        SeriesBitmap result = new SeriesBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.appendContainer(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.appendContainer(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(a.keys[i], Container.or(a.containers[i], b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 多个位图的并集，两两归并，避免逐个累加时反复复制已合并的结果
+     */
+    public static SeriesBitmap or(List<SeriesBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) {
+            return empty();
+        }
+        if (bitmaps.size() == 1) {
+            return bitmaps.get(0).copy();
+        }
+        List<SeriesBitmap> round = bitmaps;
+        while (round.size() > 1) {
+            List<SeriesBitmap> next = new ArrayList<>((round.size() + 1) / 2);
+            for (int i = 0; i < round.size(); i += 2) {
+                next.add(i + 1 < round.size() ? or(round.get(i), round.get(i + 1)) : round.get(i));
+            }
+            round = next;
+        }
+        return round.get(0);
+    }
+
+    /**
+     * 差集：a 中不在 b 里的编号
+     */
+    public static SeriesBitmap andNot(SeriesBitmap a, SeriesBitmap b) {
+        SeriesBitmap result = new SeriesBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            if (j < b.size && b.keys[j] == a.keys[i]) {
+                result.appendContainer(a.keys[i], Container.andNot(a.containers[i], b.containers[j]));
+            } else {
+                result.appendContainer(a.keys[i], a.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(char key) {
+        // 编号连续分配，绝大多数写入落在最后一个桶
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.max(1, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void appendContainer(char key, Container container) {
+        if (container.cardinality > 0) {
+            insertContainer(size, key, container);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeriesBitmap other) || other.getCardinality() != getCardinality()) {
+            return false;
+        }
+        return Arrays.equals(toArray(), other.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * 一个桶内的低16位编号，array 与 bits 二选一
+     */
+    private static final class Container {
+        private char[] array;
+        private long[] bits;
+        private int cardinality;
+
+        Container(char[] array, long[] bits, int cardinality) {
+            this.array = array;
+            this.bits = bits;
+            this.cardinality = cardinality;
+        }
+
+        void add(char low) {
+            if (bits != null) {
+                long mask = 1L << low;
+                if ((bits[low >>> 6] & mask) == 0) {
+                    bits[low >>> 6] |= mask;
+                    cardinality++;
+                }
+                return;
+            }
+            int i = cardinality > 0 && array[cardinality - 1] < low
+                    ? -cardinality - 1 : Arrays.binarySearch(array, 0, cardinality, low);
+            if (i >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_MAX) {
+                toBits();
+                add(low);
+                return;
+            }
+            i = -i - 1;
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_MAX, Math.max(4, array.length * 2)));
+            }
+            System.arraycopy(array, i, array, i + 1, cardinality - i);
+            array[i] = low;
+            cardinality++;
+        }
+
+        boolean contains(char low) {
+            if (bits != null) {
+                return (bits[low >>> 6] & (1L << low)) != 0;
+            }
+            return Arrays.binarySearch(array, 0, cardinality, low) >= 0;
+        }
+
+        Container copy() {
+            return new Container(array != null ? Arrays.copyOf(array, cardinality) : null,
+                    bits != null ? bits.clone() : null, cardinality);
+        }
+
+        private void toBits() {
+            bits = new long[BITS_WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[array[i] >>> 6] |= 1L << array[i];
+            }
+            array = null;
+        }
+
+        /**
+         * 位图结果元素较少时转回数组
+         */
+        private Container normalize() {
+            if (bits != null && cardinality <= ARRAY_MAX) {
+                char[] values = new char[cardinality];
+                int n = 0;
+                for (int w = 0; w < BITS_WORDS; w++) {
+                    long word = bits[w];
+                    while (word != 0) {
+                        values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+                array = values;
+                bits = null;
+            } else if (array != null && cardinality > ARRAY_MAX) {
+                toBits();
+            }
+            return this;
+        }
+
+        static Container and(Container a, Container b) {
+            if (a.bits != null && b.bits != null) {
+                long[] words = new long[BITS_WORDS];
+                int cardinality = 0;
+                for (int w = 0; w < BITS_WORDS; w++) {
+                    words[w] = a.bits[w] & b.bits[w];
+                    cardinality += Long.bitCount(words[w]);
+                }
+                return new Container(null, words, cardinality).normalize();
+            }
+            if (a.array == null) {
+                return and(b, a);
+            }
+            // a 为数组：逐个检查
+            char[] values = new char[a.cardinality];
+            int n = 0;
+            for (int i = 0; i < a.cardinality; i++) {
+                if (b.contains(a.array[i])) {
+                    values[n++] = a.array[i];
+                }
+            }
+            return new Container(values, null, n);
+        }
+
+        static Container or(Container a, Container b) {
+            if (a.array != null && b.array != null) {
+                char[] values = new char[a.cardinality + b.cardinality];
+                int i = 0;
+                int j = 0;
+                int n = 0;
+                while (i < a.cardinality || j < b.cardinality) {
+                    if (j == b.cardinality || (i < a.cardinality && a.array[i] < b.array[j])) {
+                        values[n++] = a.array[i++];
+                    } else if (i == a.cardinality || a.array[i] > b.array[j]) {
+                        values[n++] = b.array[j++];
+                    } else {
+                        values[n++] = a.array[i++];
+                        j++;
+                    }
+                }
+                return new Container(values, null, n).normalize();
+            }
+            if (a.bits == null) {
+                return or(b, a);
+            }
+            Container result = a.copy();
+            if (b.bits != null) {
+                int cardinality = 0;
+                for (int w = 0; w < BITS_WORDS; w++) {
+                    result.bits[w] |= b.bits[w];
+                    cardinality += Long.bitCount(result.bits[w]);
+                }
+                result.cardinality = cardinality;
+            } else {
+                for (int i = 0; i < b.cardinality; i++) {
+                    result.add(b.array[i]);
+                }
+            }
+            return result;
+        }
+
+        static Container andNot(Container a, Container b) {
+            if (a.array != null) {
+                char[] values = new char[a.cardinality];
+                int n = 0;
+                for (int i = 0; i < a.cardinality; i++) {
+                    if (!b.contains(a.array[i])) {
+                        values[n++] = a.array[i];
+                    }
+                }
+                return new Container(values, null, n);
+            }
+            Container result = a.copy();
+            if (b.bits != null) {
+                int cardinality = 0;
+                for (int w = 0; w < BITS_WORDS; w++) {
+                    result.bits[w] &= ~b.bits[w];
+                    cardinality += Long.bitCount(result.bits[w]);
+                }
+                result.cardinality = cardinality;
+            } else {
+                for (int i = 0; i < b.cardinality; i++) {
+                    char low = b.array[i];
+                    long mask = 1L << low;
+                    if ((result.bits[low >>> 6] & mask) != 0) {
+                        result.bits[low >>> 6] &= ~mask;
+                        result.cardinality--;
+                    }
+                }
+            }
+            return result.normalize();
+        }
+    }
+}
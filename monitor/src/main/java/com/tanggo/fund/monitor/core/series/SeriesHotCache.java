@@ -0,0 +1,402 @@
+package com.tanggo.fund.monitor.core.series;
+
+import com.tanggo.fund.monitor.core.cluster.ClusterCoordinator;
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.collector.MetricSubscriber;
+import com.tanggo.fund.monitor.core.query.BucketAggregator;
+import com.tanggo.fund.monitor.core.query.DataPoint;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import com.tanggo.fund.monitor.core.service.CollectorTemplate;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 序列热缓存
+ * 作为 {@link MetricSubscriber} 挂在 {@link CollectorTemplate} 上，
+ * 为每条序列保留最近 samplesPerSeries 个样本：最新值 O(1) 读取，近期窗口查询不再访问 MySQL / InfluxDB
+ *
+ * <p>样本（epoch纳秒时间戳 + 数值，16字节）保存在堆外直接内存页中，每条序列占用一个固定大小的环形槽位；
+ * 页按需分配，总量不超过 maxSeries × samplesPerSeries × 16 字节。槽位用尽时淘汰最久未读写的序列（LRU）。
+ * 同一序列早于最新样本的迟到样本被丢弃，环内样本始终按时间有序
+ *
+ * <p>每条序列的缓存从它的第一个样本开始覆盖，更早的数据（进程重启前、或监控从其他节点迁入前采集的）只在存储中。
+ * 缓存只包含本进程采集的序列：配置了 {@link ClusterCoordinator} 时，只有用 monitorId 等值条件限定到
+ * 归属本节点的监控的查询才由缓存回答；成员变化后各序列的覆盖起点推迟到变化后的第一个样本，
+ * 迁出再迁回期间由其他节点采集的样本不会被漏掉
+ */
+@Slf4j
+public class SeriesHotCache implements MetricSubscriber {
+
+    private static final int SAMPLE_BYTES = 16;
+    private static final int MAX_SLOTS_PER_PAGE = 1024;
+
+    // 每条序列保留的样本数，首次写入后修改无效
+    @Setter
+    private int samplesPerSeries = 64;
+
+    // 缓存的序列数上限，首次写入后修改无效
+    @Setter
+    private int maxSeries = 100_000;
+
+    // 序列倒排索引，配置后带标签条件的查询按索引选出序列，不再逐条比较同名序列的标签；
+    // 超出登记上限的临时序列（编号 -1）不在索引中，缓存了这类序列的指标仍逐条比较
+    @Setter
+    private SeriesTagIndex tagIndex;
+
+    // 集群协调器，为空时本进程采集全部监控
+    private ClusterCoordinator clusterCoordinator;
+
+    // 访问顺序：最久未读写的序列在最前
+    private final LinkedHashMap<MetricSeries, Slot> slots = new LinkedHashMap<>(1024, 0.75f, true);
+    private final Map<String, Set<Slot>> byMetricName = new HashMap<>();
+    // 指标名称 -> 缓存中未登记（编号 -1）的序列数
+    private final Map<String, Integer> unregisteredByName = new HashMap<>();
+    // 各指标被淘汰序列的最新样本时间，早于该时间的窗口不能只读缓存
+    private final Map<String, Long> evictedUntilMillis = new HashMap<>();
+
+    private ByteBuffer[] pages = new ByteBuffer[0];
+    private int slotsPerPage;
+    private int slotBytes;
+    private int nextSlot;
+    // 第一次收到样本的时间，之前的数据只在存储中
+    private long startMillis = -1;
+    // 集群成员变化次数，槽位记录的值落后时覆盖起点推迟到下一个样本
+    private long membershipGeneration;
+
+    // 统计信息
+    private final AtomicLong sampleCount = new AtomicLong();
+    private final AtomicLong lateCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong queryHitCount = new AtomicLong();
+    private final AtomicLong queryMissCount = new AtomicLong();
+
+    /**
+     * 配置集群协调器并监听成员变化
+     */
+    public synchronized void setClusterCoordinator(ClusterCoordinator clusterCoordinator) {
+        this.clusterCoordinator = clusterCoordinator;
+        if (clusterCoordinator != null) {
+            clusterCoordinator.addListener(this::onMembershipChange);
+        }
+    }
+
+    private synchronized void onMembershipChange() {
+        membershipGeneration++;
+    }
+
+    @Override
+    public void onMetrics(List<Metric> metrics) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (startMillis < 0) {
+                init(now);
+            }
+            for (Metric metric : metrics) {
+                long timestamp = metric.hasTimestamp() ? metric.getTimestampNanos() : EpochNanos.ofMillis(now);
+                append(metric.getSeries(), timestamp, metric.getMetricValue());
+            }
+        }
+    }
+
+    private void init(long now) {
+        if (samplesPerSeries <= 0 || maxSeries <= 0) {
+            throw new IllegalStateException("热缓存容量必须大于0: samplesPerSeries=" + samplesPerSeries + ", maxSeries=" + maxSeries);
+        }
+        slotBytes = samplesPerSeries * SAMPLE_BYTES;
+        slotsPerPage = Math.max(1, Math.min(Math.min(MAX_SLOTS_PER_PAGE, maxSeries), Integer.MAX_VALUE / slotBytes));
+        startMillis = now;
+        log.info("序列热缓存已启用: samplesPerSeries={}, maxSeries={}, maxBytes={}",
+                samplesPerSeries, maxSeries, (long) maxSeries * slotBytes);
+    }
+
+    private void append(MetricSeries series, long timestampNanos, double value) {
+        Slot slot = slots.get(series);
+        if (slot == null) {
+            slot = allocate(series);
+        } else if (timestampNanos < slot.latestNanos) {
+            lateCount.incrementAndGet();
+            return;
+        }
+        if (slot.generation != membershipGeneration) {
+            // 新序列从第一个样本开始覆盖；成员变化后此前的空档可能由其他节点采集
+            slot.coveredFromMillis = Math.max(slot.coveredFromMillis, EpochNanos.toMillis(timestampNanos));
+            slot.generation = membershipGeneration;
+        }
+        ByteBuffer page = pages[slot.index / slotsPerPage];
+        int base = (slot.index % slotsPerPage) * slotBytes;
+        int offset = base + slot.head * SAMPLE_BYTES;
+        if (slot.count == samplesPerSeries) {
+            // 覆盖最旧的样本，之后只能覆盖比它更晚的窗口
+            slot.coveredFromMillis = Math.max(slot.coveredFromMillis, EpochNanos.toMillis(page.getLong(offset)) + 1);
+        } else {
+            slot.count++;
+        }
+        page.putLong(offset, timestampNanos);
+        page.putDouble(offset + 8, value);
+        slot.head = slot.head + 1 == samplesPerSeries ? 0 : slot.head + 1;
+        slot.latestNanos = timestampNanos;
+        sampleCount.incrementAndGet();
+    }
+
+    private Slot allocate(MetricSeries series) {
+        int index;
+        if (nextSlot < maxSeries) {
+            index = nextSlot++;
+            int page = index / slotsPerPage;
+            if (page == pages.length) {
+                pages = Arrays.copyOf(pages, page + 1);
+                pages[page] = ByteBuffer.allocateDirect(slotsPerPage * slotBytes).order(ByteOrder.nativeOrder());
+            }
+        } else {
+            Iterator<Slot> eldest = slots.values().iterator();
+            Slot evicted = eldest.next();
+            eldest.remove();
+            detach(evicted);
+            evictedUntilMillis.merge(evicted.series.getMetricName(), EpochNanos.toMillis(evicted.latestNanos), Math::max);
+            evictionCount.incrementAndGet();
+            index = evicted.index;
+        }
+        Slot slot = new Slot(series, index);
+        slots.put(series, slot);
+        byMetricName.computeIfAbsent(series.getMetricName(), name -> new LinkedHashSet<>()).add(slot);
+        if (series.getId() < 0) {
+            unregisteredByName.merge(series.getMetricName(), 1, Integer::sum);
+        }
+        return slot;
+    }
+
+    private void detach(Slot slot) {
+        Set<Slot> sameName = byMetricName.get(slot.series.getMetricName());
+        if (sameName != null) {
+            sameName.remove(slot);
+            if (sameName.isEmpty()) {
+                byMetricName.remove(slot.series.getMetricName());
+            }
+        }
+        if (slot.series.getId() < 0) {
+            unregisteredByName.computeIfPresent(slot.series.getMetricName(), (name, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * 序列的最新样本
+     *
+     * @return 序列不在缓存中时返回 null
+     */
+    public synchronized Metric latest(MetricSeries series) {
+        Slot slot = slots.get(series);
+        if (slot == null) {
+            return null;
+        }
+        int offset = offset(slot, slot.head == 0 ? samplesPerSeries - 1 : slot.head - 1);
+        ByteBuffer page = pages[slot.index / slotsPerPage];
+        return Metric.of(series, page.getLong(offset), page.getDouble(offset + 8));
+    }
+
+    /**
+     * 满足查询标签条件的各序列最新样本，查询的时间范围和步长不使用
+     *
+     * @return 集群部署时查询未限定到归属本节点的监控（缓存只有部分序列）返回 null
+     */
+    public synchronized List<Metric> latest(MetricQuery query) {
+        if (!local(query)) {
+            return null;
+        }
+        List<Metric> result = new ArrayList<>();
+        for (Slot slot : matching(query)) {
+            result.add(latest(slot.series));
+        }
+        return result;
+    }
+
+    /**
+     * 序列在 [fromMillis, toMillis) 内的原始样本，按时间排序
+     */
+    public synchronized List<DataPoint> window(MetricSeries series, long fromMillis, long toMillis) {
+        Slot slot = slots.get(series);
+        List<DataPoint> points = new ArrayList<>();
+        if (slot != null) {
+            forEachSample(slot, (timestampNanos, value) -> {
+                long millis = EpochNanos.toMillis(timestampNanos);
+                if (millis >= fromMillis && millis < toMillis) {
+                    points.add(new DataPoint(millis, value));
+                }
+            });
+        }
+        return points;
+    }
+
+    /**
+     * 指标所有缓存序列的样本副本，按序列分组、组内按时间排序，用于回放
+     */
+    public synchronized List<Metric> snapshot(String metricName) {
+        List<Metric> result = new ArrayList<>();
+        for (Slot slot : byMetricName.getOrDefault(metricName, Set.of())) {
+            forEachSample(slot, (timestampNanos, value) -> result.add(Metric.of(slot.series, timestampNanos, value)));
+        }
+        return result;
+    }
+
+    /**
+     * 用缓存回答降采样查询
+     * 只有匹配的序列都在缓存中、且缓存完整覆盖查询起点之后的数据时才返回结果；
+     * 集群部署时查询还必须限定到归属本节点的监控
+     *
+     * @return 缓存无法完整回答时返回 null，由调用方查询存储
+     */
+    public synchronized List<TimeSeries> query(MetricQuery query) {
+        List<Slot> matched = startMillis < 0 || !local(query) ? List.of() : matching(query);
+        long coveredFrom = Math.max(startMillis, evictedUntilMillis.getOrDefault(query.getMetricName(), Long.MIN_VALUE) + 1);
+        for (Slot slot : matched) {
+            coveredFrom = Math.max(coveredFrom, slot.coveredFromMillis);
+        }
+        if (matched.isEmpty() || query.getFromMillis() < coveredFrom) {
+            queryMissCount.incrementAndGet();
+            return null;
+        }
+        BucketAggregator aggregator = new BucketAggregator(query);
+        for (Slot slot : matched) {
+            Map<String, String> tags = slot.series.getTags();
+            forEachSample(slot, (timestampNanos, value) -> {
+                long millis = EpochNanos.toMillis(timestampNanos);
+                if (millis >= query.getFromMillis() && millis < query.getToMillis()) {
+                    aggregator.add(tags, millis, value);
+                }
+            });
+        }
+        queryHitCount.incrementAndGet();
+        return aggregator.result();
+    }
+
+    /**
+     * 查询的序列是否全部由本节点采集：未配置集群时总是成立，
+     * 否则要求查询用 monitorId 等值条件限定到归属本节点的监控，其他节点的序列不会出现在本节点的缓存中
+     */
+    private boolean local(MetricQuery query) {
+        if (clusterCoordinator == null) {
+            return true;
+        }
+        for (TagMatcher matcher : query.getMatchers()) {
+            if (matcher.getOp() == TagMatcher.Op.EQ && CollectorTemplate.MONITOR_ID_TAG.equals(matcher.getKey())) {
+                return clusterCoordinator.owns(matcher.getValue());
+            }
+        }
+        return false;
+    }
+
+    private List<Slot> matching(MetricQuery query) {
+        List<Slot> matched = new ArrayList<>();
+        Set<Slot> sameName = byMetricName.getOrDefault(query.getMetricName(), Set.of());
+        if (tagIndex != null && !query.getMatchers().isEmpty() && !sameName.isEmpty()
+                && !unregisteredByName.containsKey(query.getMetricName())) {
+            for (MetricSeries series : tagIndex.series(query)) {
+                Slot slot = slots.get(series);
+                if (slot != null) {
+                    matched.add(slot);
+                }
+            }
+            return matched;
+        }
+        for (Slot slot : sameName) {
+            if (query.matches(slot.series.getTags())) {
+                matched.add(slot);
+            }
+        }
+        return matched;
+    }
+
+    private void forEachSample(Slot slot, SampleConsumer consumer) {
+        ByteBuffer page = pages[slot.index / slotsPerPage];
+        int oldest = slot.count < samplesPerSeries ? 0 : slot.head;
+        for (int i = 0; i < slot.count; i++) {
+            int position = oldest + i;
+            int offset = offset(slot, position < samplesPerSeries ? position : position - samplesPerSeries);
+            consumer.accept(page.getLong(offset), page.getDouble(offset + 8));
+        }
+    }
+
+    private int offset(Slot slot, int position) {
+        return (slot.index % slotsPerPage) * slotBytes + position * SAMPLE_BYTES;
+    }
+
+    /**
+     * 清空缓存并释放堆外内存页
+     */
+    public synchronized void clear() {
+        slots.clear();
+        byMetricName.clear();
+        unregisteredByName.clear();
+        evictedUntilMillis.clear();
+        pages = new ByteBuffer[0];
+        nextSlot = 0;
+        startMillis = -1;
+    }
+
+    public synchronized int getSeriesCount() {
+        return slots.size();
+    }
+
+    /**
+     * 已分配的堆外内存（字节）
+     */
+    public synchronized long getAllocatedBytes() {
+        return (long) pages.length * slotsPerPage * slotBytes;
+    }
+
+    public long getSampleCount() {
+        return sampleCount.get();
+    }
+
+    public long getLateCount() {
+        return lateCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getQueryHitCount() {
+        return queryHitCount.get();
+    }
+
+    public long getQueryMissCount() {
+        return queryMissCount.get();
+    }
+
+    private interface SampleConsumer {
+        void accept(long timestampNanos, double value);
+    }
+
+    private static final class Slot {
+        private final MetricSeries series;
+        private final int index;
+        // 下一个写入位置
+        private int head;
+        private int count;
+        private long latestNanos = Long.MIN_VALUE;
+        // 查询起点不早于该时间时，缓存包含该序列的全部样本
+        private long coveredFromMillis = Long.MIN_VALUE;
+        // 上次确定覆盖起点时的集群成员变化次数，-1 表示尚未收到样本
+        private long generation = -1;
+
+        Slot(MetricSeries series, int index) {
+            this.series = series;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.tanggo.fund.monitor.core.series;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 序列字典
+ * 把指标名称加标签规范化为唯一的 {@link MetricSeries} 并分配连续编号；标签键值字符串同样驻留，
+ * 同一序列的样本共享一份名称和标签，不再各自持有 HashMap
+ *
+ * <p>查找只做一次哈希查询；未命中时加锁登记。序列数超过 maxSeries 时不再登记，
+ * 返回编号为 -1 的临时序列，防止标签值失控（如带进程号、请求ID的标签）耗尽内存：
+ * 临时序列不加锁、不驻留字符串，按名称和标签比较相等（见 {@link MetricSeries#equals(Object)}）
+ */
+@Slf4j
+public final class SeriesRegistry {
+
+    public static final int DEFAULT_MAX_SERIES = 1_000_000;
+
+    private static final SeriesRegistry GLOBAL = new SeriesRegistry(DEFAULT_MAX_SERIES);
+
+    private final int maxSeries;
+    private final Map<Key, MetricSeries> byKey = new ConcurrentHashMap<>();
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+    // 编号到序列，只在持有锁时追加；先写入数组再发布 size，读线程按 size 判断下标是否可读
+    private volatile MetricSeries[] byId = new MetricSeries[1024];
+    private volatile int size;
+
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    public SeriesRegistry(int maxSeries) {
+        if (maxSeries <= 0) {
+            throw new IllegalArgumentException("序列数上限必须大于0: " + maxSeries);
+        }
+        this.maxSeries = maxSeries;
+    }
+
+    /**
+     * 进程内共享的序列字典，采集、告警、持久化使用同一套序列编号
+     */
+    public static SeriesRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * 查找序列，不存在时登记
+     *
+     * @param metricName 指标名称
+     * @param tags       标签，可以为 null；键或值为 null 的标签被忽略
+     */
+    public MetricSeries resolve(String metricName, Map<String, String> tags) {
+        if (metricName == null) {
+            throw new IllegalArgumentException("指标名称不能为空");
+        }
+        MetricSeries series = byKey.get(new Key(metricName, tags == null ? Map.of() : tags));
+        if (series != null) {
+            return series;
+        }
+        return size >= maxSeries ? overflow(metricName, canonical(tags, false)) : register(metricName, tags);
+    }
+
+    /**
+     * 只查找不登记，用于查询等不应产生新序列的场景
+     *
+     * @return 序列未登记时返回 null
+     */
+    public MetricSeries find(String metricName, Map<String, String> tags) {
+        if (metricName == null) {
+            return null;
+        }
+        return byKey.get(new Key(metricName, tags == null ? Map.of() : tags));
+    }
+
+    /**
+     * 在序列上追加一个标签（已存在同名标签时保持原值）
+     * 结果缓存在原序列上，重复追加相同标签不再查找
+     */
+    public MetricSeries withTag(MetricSeries series, String key, String value) {
+        MetricSeries.Derived derived = series.derived;
+        if (derived != null && derived.key().equals(key) && derived.value().equals(value)) {
+            return derived.series();
+        }
+        MetricSeries result;
+        if (series.getTags().containsKey(key)) {
+            result = series;
+        } else {
+            Map<String, String> tags = new HashMap<>(series.getTags());
+            tags.put(key, value);
+            result = resolve(series.getMetricName(), tags);
+        }
+        series.derived = new MetricSeries.Derived(key, value, result);
+        return result;
+    }
+
+    /**
+     * 按编号查找序列
+     *
+     * @return 编号未分配时返回 null
+     */
+    public MetricSeries get(int id) {
+        if (id < 0 || id >= size) {
+            return null;
+        }
+        return byId[id];
+    }
+
+    /**
+     * 已登记的序列数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 因超出上限未登记的次数
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * 驻留的字符串个数
+     */
+    int getInternedStringCount() {
+        return strings.size();
+    }
+
+    private synchronized MetricSeries register(String metricName, Map<String, String> tags) {
+        // 先按未驻留的规范形式查找，达到上限后不再驻留任何字符串
+        Map<String, String> canonical = canonical(tags, false);
+        MetricSeries series = byKey.get(new Key(metricName, canonical));
+        if (series != null) {
+            return series;
+        }
+        if (size >= maxSeries) {
+            return overflow(metricName, canonical);
+        }
+        canonical = canonical(tags, true);
+        series = new MetricSeries(size, intern(metricName), canonical);
+        if (size == byId.length) {
+            byId = Arrays.copyOf(byId, byId.length * 2);
+        }
+        byId[size] = series;
+        byKey.put(new Key(series.getMetricName(), canonical), series);
+        size = size + 1;
+        return series;
+    }
+
+    /**
+     * 超出上限时的临时序列，已登记的序列（如标签中带 null 值的等价写法）仍返回登记的实例
+     *
+     * @param canonical 未驻留的规范化标签
+     */
+    private MetricSeries overflow(String metricName, Map<String, String> canonical) {
+        MetricSeries series = byKey.get(new Key(metricName, canonical));
+        if (series != null) {
+            return series;
+        }
+        if (overflowCount.getAndIncrement() == 0) {
+            log.warn("序列数达到上限，新序列不再登记: maxSeries={}, series={}{}", maxSeries, metricName, canonical);
+        }
+        return new MetricSeries(-1, metricName, canonical);
+    }
+
+    private Map<String, String> canonical(Map<String, String> tags, boolean intern) {
+        if (tags == null || tags.isEmpty()) {
+            return Map.of();
+        }
+        TreeMap<String, String> sorted = new TreeMap<>();
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                sorted.put(intern ? intern(entry.getKey()) : entry.getKey(), intern ? intern(entry.getValue()) : entry.getValue());
+            }
+        }
+        return sorted.isEmpty() ? Map.of() : Collections.unmodifiableMap(sorted);
+    }
+
+    private String intern(String s) {
+        String existing = strings.putIfAbsent(s, s);
+        return existing != null ? existing : s;
+    }
+
+    /**
+     * 查找键：标签比较使用 Map 语义，与键的顺序和 Map 实现无关
+     */
+    private record Key(String metricName, Map<String, String> tags) {
+    }
+}
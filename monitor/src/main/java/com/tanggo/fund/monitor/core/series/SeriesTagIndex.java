@@ -0,0 +1,197 @@
+package com.tanggo.fund.monitor.core.series;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.collector.MetricSubscriber;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 序列倒排索引
+ * 为 {@link SeriesRegistry} 中的序列维护 指标名称 → 序列编号、标签键=值 → 序列编号 的 {@link SeriesBitmap} 倒排表，
+ * "cpu_usage where dc=sh and role=db" 这样的选择器按位图求交得到候选序列，不再逐条比较标签
+ *
+ * <p>序列编号连续分配，索引只需登记上次之后新增的编号：作为 {@link MetricSubscriber} 在每个采集周期补登，
+ * 查询前也会补登一次。超出登记上限的临时序列（编号 -1）不进入索引
+ *
+ * <p>匹配条件之间为 AND；NEQ / NOT_REGEX 为 NOT，按候选集求差；同一标签的 OR 用正则分支表达（如 {@code sh|bj}）。
+ * 与 {@link TagMatcher} 一致，缺失的标签按空字符串参与匹配
+ */
+public class SeriesTagIndex implements MetricSubscriber {
+
+    @Setter
+    private SeriesRegistry registry = SeriesRegistry.global();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, SeriesBitmap> byName = new HashMap<>();
+    // 标签键 → 标签值 → 序列
+    private final Map<String, Map<String, SeriesBitmap>> postings = new HashMap<>();
+    // 带有该标签键的序列，用于计算标签缺失的序列
+    private final Map<String, SeriesBitmap> byKey = new HashMap<>();
+    // 编号小于该值的序列已登记
+    private volatile int indexed;
+
+    // 统计信息
+    private final AtomicLong selectCount = new AtomicLong();
+
+    @Override
+    public void onMetrics(List<Metric> metrics) {
+        catchUp();
+    }
+
+    /**
+     * 登记序列字典中新增的序列
+     */
+    public void catchUp() {
+        if (indexed == registry.size()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int size = registry.size();
+            for (int id = indexed; id < size; id++) {
+                index(registry.get(id));
+            }
+            indexed = size;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(MetricSeries series) {
+        int id = series.getId();
+        byName.computeIfAbsent(series.getMetricName(), name -> new SeriesBitmap()).add(id);
+        for (Map.Entry<String, String> tag : series.getTags().entrySet()) {
+            postings.computeIfAbsent(tag.getKey(), key -> new HashMap<>())
+                    .computeIfAbsent(tag.getValue(), value -> new SeriesBitmap()).add(id);
+            byKey.computeIfAbsent(tag.getKey(), key -> new SeriesBitmap()).add(id);
+        }
+    }
+
+    /**
+     * 满足查询选择器（指标名称 + 全部标签条件）的序列编号，查询的时间范围和步长不使用
+     *
+     * @return 独立副本，调用方可以继续求交、并、差
+     */
+    public SeriesBitmap select(MetricQuery query) {
+        catchUp();
+        selectCount.incrementAndGet();
+        lock.readLock().lock();
+        try {
+            SeriesBitmap candidates = byName.get(query.getMetricName());
+            if (candidates == null) {
+                return SeriesBitmap.empty();
+            }
+            if (query.getMatchers().isEmpty()) {
+                return candidates.copy();
+            }
+            for (TagMatcher matcher : query.getMatchers()) {
+                candidates = apply(candidates, matcher);
+                if (candidates.isEmpty()) {
+                    break;
+                }
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 满足查询选择器的序列，按编号排序
+     */
+    public List<MetricSeries> series(MetricQuery query) {
+        SeriesBitmap ids = select(query);
+        List<MetricSeries> result = new ArrayList<>(ids.getCardinality());
+        ids.forEach(id -> result.add(registry.get(id)));
+        return result;
+    }
+
+    /**
+     * 在候选集上应用一个条件：先求出标签值满足肯定形式（EQ / REGEX）的序列，NOT 形式再从候选集中减去
+     */
+    private SeriesBitmap apply(SeriesBitmap candidates, TagMatcher matcher) {
+        Map<String, SeriesBitmap> values = postings.getOrDefault(matcher.getKey(), Map.of());
+        boolean regex = matcher.getOp() == TagMatcher.Op.REGEX || matcher.getOp() == TagMatcher.Op.NOT_REGEX;
+        SeriesBitmap positive;
+        boolean matchesMissing;
+        if (regex) {
+            // 正则只对该键的不同取值计算一次，与序列数无关
+            List<SeriesBitmap> matched = new ArrayList<>();
+            for (Map.Entry<String, SeriesBitmap> entry : values.entrySet()) {
+                if (matcher.getPattern().matcher(entry.getKey()).matches()) {
+                    matched.add(entry.getValue());
+                }
+            }
+            positive = SeriesBitmap.or(matched);
+            matchesMissing = matcher.getPattern().matcher("").matches();
+        } else {
+            positive = values.getOrDefault(matcher.getValue(), SeriesBitmap.empty());
+            matchesMissing = matcher.getValue().isEmpty();
+        }
+        if (matchesMissing) {
+            SeriesBitmap missing = SeriesBitmap.andNot(candidates, byKey.getOrDefault(matcher.getKey(), SeriesBitmap.empty()));
+            positive = SeriesBitmap.or(positive, missing);
+        }
+        boolean negate = matcher.getOp() == TagMatcher.Op.NEQ || matcher.getOp() == TagMatcher.Op.NOT_REGEX;
+        return negate ? SeriesBitmap.andNot(candidates, positive) : SeriesBitmap.and(candidates, positive);
+    }
+
+    /**
+     * 已登记的序列数
+     */
+    public int getIndexedSeriesCount() {
+        return indexed;
+    }
+
+    /**
+     * 倒排表（标签键=值）个数
+     */
+    public int getPostingCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (Map<String, SeriesBitmap> values : postings.values()) {
+                count += values.size();
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 位图占用的内存估算（字节），不含键值字符串（与序列字典共享）
+     */
+    public long getSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (SeriesBitmap bitmap : byName.values()) {
+                bytes += bitmap.getSizeInBytes();
+            }
+            for (Map<String, SeriesBitmap> values : postings.values()) {
+                for (SeriesBitmap bitmap : values.values()) {
+                    bytes += bitmap.getSizeInBytes();
+                }
+            }
+            for (SeriesBitmap bitmap : byKey.values()) {
+                bytes += bitmap.getSizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getSelectCount() {
+        return selectCount.get();
+    }
+}
@@ -1,13 +1,16 @@
 package com.tanggo.fund.monitor.core.service;
 
+import com.tanggo.fund.monitor.core.alert.StreamingAlertEvaluator;
 import com.tanggo.fund.monitor.core.entity.Alert;
 import com.tanggo.fund.monitor.core.entity.AlertRule;
 import com.tanggo.fund.monitor.core.extension.alert.AlertRepo;
 import com.tanggo.fund.monitor.core.extension.alert.AlertProcessRepo;
 import com.tanggo.fund.monitor.core.extension.alert.AlertRuleRepo;
+import lombok.Setter;
 
 import java.util.List;
 
+@Setter
 public class AlertRuleService {
 
     private AlertRepo alertRepo;
@@ -17,17 +20,31 @@ public class AlertRuleService {
 
     private AlertProcessRepo alertProcessRepo;
 
+    // 流式告警判定，规则变化时热更新
+    private StreamingAlertEvaluator alertEvaluator;
+
 
     public void processAlertRule() {
 
         //获取所有规则
         List<AlertRule> alertRuleList = alertRuleRepo.loadAll();
 
+        //流式判定：样本到达即判定并下发，这里只刷新规则
+        if (alertEvaluator != null) {
+            alertEvaluator.setRules(alertRuleList);
+        }
+
+        if (alertProcessRepo == null) {
+            return;
+        }
+
         //处理规则 生成警告
         Alert alert = alertProcessRepo.handle(alertRuleList);
 
         //下发警告
-        alertRepo.sendAlert(alert);
+        if (alert != null) {
+            alertRepo.sendAlert(alert);
+        }
 
 
     }
@@ -4,6 +4,7 @@ import com.tanggo.fund.monitor.core.entity.Collector;
 import com.tanggo.fund.monitor.core.entity.Metric;
 import com.tanggo.fund.monitor.core.extension.MetricCalculator;
 import com.tanggo.fund.monitor.core.extension.MetricRetrievalChannel;
+import com.tanggo.fund.monitor.core.extension.StreamingMetricCalculator;
 import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
 import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
 import com.tanggo.fund.monitor.core.entity.meta.MetricCalculatorMeta;
@@ -11,12 +12,27 @@ import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
 import com.tanggo.fund.monitor.core.extension.collector.MetricCalculatorRepo;
 import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
 import com.tanggo.fund.monitor.core.extension.collector.MetricRetrievalChannelRepo;
+import com.tanggo.fund.monitor.core.extension.collector.MetricSubscriber;
+import com.tanggo.fund.monitor.core.instrument.CollectorInstrumentation;
+import com.tanggo.fund.monitor.core.instrument.Stage;
+import com.tanggo.fund.monitor.core.instrument.StageStats;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 @Slf4j
 public class CollectorTemplate implements Collector {
 
+    // 监控ID标签键
+    public static final String MONITOR_ID_TAG = "monitorId";
+
     @Setter
     private MetricRetrievalChannelRepo monitorChannelRepo;
 
@@ -26,6 +42,15 @@ public class CollectorTemplate implements Collector {
     @Setter
     private MetricPersistRepo metricPersistRepo;
 
+    // 入库前同步接收指标的订阅者（如流式告警）
+    @Setter
+    private List<MetricSubscriber> metricSubscribers = List.of();
+
+    // 各阶段的耗时和成功/失败计数
+    @Getter
+    @Setter
+    private CollectorInstrumentation instrumentation = new CollectorInstrumentation();
+
 
     private MetricRetrievalMeta esbMonitorMeta() {
 
@@ -56,6 +81,8 @@ public class CollectorTemplate implements Collector {
 
         log.info("开始指标检索流程");
 
+        StageStats cycle = instrumentation.stage(Stage.CYCLE, esbMetricRetrievalMeta);
+        long cycleStart = cycle.begin();
         try {
             //获取通道
             log.debug("获取通道: {}", esbMetricRetrievalMeta.getChannelMeta().getChannelId());
@@ -65,12 +92,8 @@ public class CollectorTemplate implements Collector {
 
             //建立连接
             log.debug("建立连接");
-            metricRetrievalChannel.connect(esbMetricRetrievalMeta.getChannelMeta());
-
-            //执行命令
-            log.debug("执行命令: {}", esbMetricRetrievalMeta.getCommandMeta().getCommand());
-            String content = metricRetrievalChannel.execute(esbMetricRetrievalMeta.getCommandMeta());
-            log.debug("命令输出: {}", content);
+            instrumentation.time(instrumentation.stage(Stage.CONNECT, esbMetricRetrievalMeta),
+                    () -> metricRetrievalChannel.connect(esbMetricRetrievalMeta.getChannelMeta()));
 
             //获取数据处理
             log.debug("获取计算器: {}", esbMetricRetrievalMeta.getMetricCalculatorMeta().getCalculatorId());
@@ -78,20 +101,165 @@ public class CollectorTemplate implements Collector {
                     esbMetricRetrievalMeta.getMetricCalculatorMeta().getCalculatorId()
             );
 
-            //数据解析并计算
-            log.debug("开始数据解析和计算");
-            Metric metric = metricCalculator.calculate(content);
+            //执行命令并解析
+            log.debug("执行命令: {}", esbMetricRetrievalMeta.getCommandMeta().getCommand());
+            StageStats execute = instrumentation.stage(Stage.EXECUTE, esbMetricRetrievalMeta);
+            StageStats calculate = instrumentation.stage(Stage.CALCULATE, esbMetricRetrievalMeta);
+            List<Metric> calculated;
+            if (metricCalculator instanceof StreamingMetricCalculator streaming) {
+                // 流式：计算器直接消费通道输出，执行阶段的耗时包含解析
+                calculated = instrumentation.time(execute, () -> metricRetrievalChannel.executeStreaming(
+                        esbMetricRetrievalMeta.getChannelMeta(),
+                        esbMetricRetrievalMeta.getCommandMeta(),
+                        output -> calculateStream(streaming, output, calculate)
+                ));
+            } else {
+                String content = instrumentation.time(execute, () -> metricRetrievalChannel.execute(
+                        esbMetricRetrievalMeta.getChannelMeta(),
+                        esbMetricRetrievalMeta.getCommandMeta()
+                ));
+                log.debug("命令输出: {}", content);
 
-            //入库
-            log.debug("保存指标数据");
-            metricPersistRepo.insert(metric);
+                //数据解析并计算
+                log.debug("开始数据解析和计算");
+                calculated = instrumentation.time(calculate, () -> metricCalculator.calculateAll(content));
+            }
+            List<Metric> metrics = label(calculated, esbMetricRetrievalMeta);
+            publish(metrics);
 
+            //入库：本周期产生的指标一次交给持久化仓储
+            log.debug("保存指标数据: size={}", metrics.size());
+            instrumentation.time(instrumentation.stage(Stage.PERSIST, esbMetricRetrievalMeta),
+                    () -> metricPersistRepo.insertAll(metrics));
+
+            cycle.success(cycleStart);
             log.info("指标检索流程完成");
         } catch (Exception e) {
+            cycle.failure(cycleStart);
             log.error("指标检索流程异常", e);
             throw new RuntimeException("指标检索失败", e);
         }
     }
 
+    /**
+     * 批量检索
+     * 同一通道上本轮到期的全部命令通过 {@link MetricRetrievalChannel#executeBatch} 一次执行，
+     * 输出拆分后分别交给各自的计算器，整批指标通过一次 {@link MetricPersistRepo#insertAll} 入库；
+     * 单个监控解析失败不影响同批其他监控
+     *
+     * <p>连接、执行、持久化和整轮耗时是通道级的，只带 channelId 标签；解析按监控分别计量
+     *
+     * @param metas 共享同一 ChannelMeta 的监控配置
+     */
+    @Override
+    public void retrievalBatch(List<MetricRetrievalMeta> metas) {
+        if (metas.size() == 1) {
+            retrieval(metas.get(0));
+            return;
+        }
+
+        ChannelMeta channelMeta = metas.get(0).getChannelMeta();
+        String channelId = channelMeta.getChannelId();
+        log.info("开始批量指标检索流程: channelId={}, size={}", channelId, metas.size());
+
+        StageStats cycle = instrumentation.stage(Stage.CYCLE, null, channelId, null);
+        long cycleStart = cycle.begin();
+
+        List<String> contents;
+        try {
+            MetricRetrievalChannel metricRetrievalChannel = monitorChannelRepo.queryByChannelId(channelId);
+            instrumentation.time(instrumentation.stage(Stage.CONNECT, null, channelId, null),
+                    () -> metricRetrievalChannel.connect(channelMeta));
+
+            List<CommandMeta> commands = new ArrayList<>(metas.size());
+            for (MetricRetrievalMeta meta : metas) {
+                commands.add(meta.getCommandMeta());
+            }
+            contents = instrumentation.time(instrumentation.stage(Stage.EXECUTE, null, channelId, null),
+                    () -> metricRetrievalChannel.executeBatch(channelMeta, commands));
+        } catch (Exception e) {
+            cycle.failure(cycleStart);
+            log.error("批量指标检索流程异常: channelId={}", channelId, e);
+            throw new RuntimeException("指标检索失败", e);
+        }
+
+        int failed = 0;
+        List<Metric> metrics = new ArrayList<>(metas.size());
+        for (int i = 0; i < metas.size(); i++) {
+            MetricRetrievalMeta meta = metas.get(i);
+            String content = contents.get(i);
+            try {
+                MetricCalculator metricCalculator = metricCalculatorRepo.queryById(
+                        meta.getMetricCalculatorMeta().getCalculatorId()
+                );
+                metrics.addAll(label(instrumentation.time(instrumentation.stage(Stage.CALCULATE, meta),
+                        () -> metricCalculator.calculateAll(content)), meta));
+            } catch (Exception e) {
+                failed++;
+                log.error("指标解析失败: monitorId={}", meta.getMonitorId(), e);
+            }
+        }
+
+        publish(metrics);
+        try {
+            instrumentation.time(instrumentation.stage(Stage.PERSIST, null, channelId, null),
+                    () -> metricPersistRepo.insertAll(metrics));
+        } catch (Exception e) {
+            cycle.failure(cycleStart);
+            log.error("批量保存指标数据异常: channelId={}, size={}", channelId, metrics.size(), e);
+            throw new RuntimeException("指标检索失败", e);
+        }
+
+        if (failed > 0) {
+            cycle.failure(cycleStart);
+            throw new RuntimeException("批量指标检索部分失败: " + failed + "/" + metas.size());
+        }
+        cycle.success(cycleStart);
+        log.info("批量指标检索流程完成: channelId={}, size={}", channelId, metas.size());
+    }
+
+    private List<Metric> calculateStream(StreamingMetricCalculator calculator, InputStream output, StageStats calculate)
+            throws IOException {
+        long start = calculate.begin();
+        try {
+            List<Metric> metrics = calculator.calculateStream(output);
+            calculate.success(start);
+            return metrics;
+        } catch (IOException | RuntimeException e) {
+            calculate.failure(start);
+            throw e;
+        }
+    }
+
+    /**
+     * 通知订阅者，订阅者的异常只记录日志，不影响入库
+     */
+    private void publish(List<Metric> metrics) {
+        if (metricSubscribers.isEmpty() || metrics.isEmpty()) {
+            return;
+        }
+        List<Metric> view = Collections.unmodifiableList(metrics);
+        for (MetricSubscriber subscriber : metricSubscribers) {
+            try {
+                subscriber.onMetrics(view);
+            } catch (Exception e) {
+                log.error("指标订阅者处理失败: subscriber={}", subscriber.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * 为计算器产出的指标补充监控ID标签，区分不同监控配置产生的同名序列
+     */
+    private List<Metric> label(List<Metric> metrics, MetricRetrievalMeta meta) {
+        if (meta.getMonitorId() == null) {
+            return metrics;
+        }
+        SeriesRegistry registry = SeriesRegistry.global();
+        for (Metric metric : metrics) {
+            metric.setSeries(registry.withTag(metric.getSeries(), MONITOR_ID_TAG, meta.getMonitorId()));
+        }
+        return metrics;
+    }
 
 }
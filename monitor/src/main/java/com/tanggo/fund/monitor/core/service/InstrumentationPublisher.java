@@ -0,0 +1,140 @@
+package com.tanggo.fund.monitor.core.service;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import com.tanggo.fund.monitor.core.instrument.CollectorInstrumentation;
+import com.tanggo.fund.monitor.core.instrument.HistogramSnapshot;
+import com.tanggo.fund.monitor.core.instrument.StageSnapshot;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自监控指标发布
+ * 定期把 {@link CollectorInstrumentation} 的区间增量转成指标，经 {@link MetricPersistRepo} 写入与业务指标相同的存储
+ *
+ * <p>每个有活动的序列输出：
+ * <ul>
+ *     <li>collector_stage_count / collector_stage_failure：区间内完成次数和失败次数</li>
+ *     <li>collector_stage_latency_p50_ms / p99_ms / max_ms：区间内延迟分布</li>
+ *     <li>collector_stage_in_flight：发布时刻进行中的数量</li>
+ * </ul>
+ * 标签为 stage 以及非空的 monitorId/channelId/calculatorId
+ */
+@Slf4j
+public class InstrumentationPublisher {
+
+    @Setter
+    private CollectorInstrumentation instrumentation;
+
+    @Setter
+    private MetricPersistRepo metricPersistRepo;
+
+    // 发布间隔（毫秒）
+    @Setter
+    private long intervalMillis = 60_000;
+
+    private ScheduledExecutorService executor;
+
+    // 上一次发布时各序列的快照，用于计算区间增量
+    private final Map<String, StageSnapshot> previous = new HashMap<>();
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "instrumentation-publisher");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::publishQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("自监控指标发布已启动: intervalMillis={}", intervalMillis);
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        executor = null;
+        // 停止前发布最后一个区间
+        publishQuietly();
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (Exception e) {
+            log.warn("自监控指标发布失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 发布一次区间增量
+     *
+     * @return 写入的指标数
+     */
+    public synchronized int publish() {
+        long now = EpochNanos.now();
+        List<Metric> metrics = new ArrayList<>();
+        for (StageSnapshot current : instrumentation.snapshot()) {
+            String key = current.getStage() + "|" + current.getMonitorId() + "|" + current.getChannelId() + "|" + current.getCalculatorId();
+            StageSnapshot last = previous.put(key, current);
+
+            HistogramSnapshot latency = current.getLatency().minus(last == null ? null : last.getLatency());
+            long failures = current.getFailureCount() - (last == null ? 0 : last.getFailureCount());
+            if (latency.getCount() == 0 && current.getInFlight() == 0) {
+                continue;
+            }
+
+            Map<String, String> tags = tags(current);
+            metrics.add(metric("collector_stage_count", latency.getCount(), now, tags));
+            metrics.add(metric("collector_stage_failure", failures, now, tags));
+            metrics.add(metric("collector_stage_in_flight", current.getInFlight(), now, tags));
+            if (latency.getCount() > 0) {
+                metrics.add(metric("collector_stage_latency_p50_ms", millis(latency.percentile(0.5)), now, tags));
+                metrics.add(metric("collector_stage_latency_p99_ms", millis(latency.percentile(0.99)), now, tags));
+                metrics.add(metric("collector_stage_latency_max_ms", millis(latency.getMaxNanos()), now, tags));
+            }
+        }
+        if (!metrics.isEmpty()) {
+            metricPersistRepo.insertAll(metrics);
+        }
+        log.debug("自监控指标已发布: size={}", metrics.size());
+        return metrics.size();
+    }
+
+    private static Map<String, String> tags(StageSnapshot s) {
+        Map<String, String> tags = new LinkedHashMap<>(8);
+        tags.put("stage", s.getStage().label());
+        if (!s.getMonitorId().isEmpty()) {
+            tags.put("monitorId", s.getMonitorId());
+        }
+        if (!s.getChannelId().isEmpty()) {
+            tags.put("channelId", s.getChannelId());
+        }
+        if (!s.getCalculatorId().isEmpty()) {
+            tags.put("calculatorId", s.getCalculatorId());
+        }
+        return tags;
+    }
+
+    private static Metric metric(String name, double value, long timestamp, Map<String, String> tags) {
+        return Metric.of(SeriesRegistry.global().resolve(name, tags), timestamp, value);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
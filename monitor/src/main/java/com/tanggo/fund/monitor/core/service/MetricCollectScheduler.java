@@ -0,0 +1,480 @@
+package com.tanggo.fund.monitor.core.service;
+
+import com.tanggo.fund.monitor.core.cluster.ClusterCoordinator;
+import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
+import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
+import com.tanggo.fund.monitor.core.extension.collector.MetricRetrievalMetaRepo;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 指标采集调度器
+ * 按每个监控配置自己的采集间隔持续调度 {@link MetricCollectorService#handle(String)}，
+ * 采集任务在有界工作线程池中并行执行，单个慢主机不会拖住其他任务
+ *
+ * <p>调度规则：
+ * <ul>
+ *     <li>单线程时钟按 tickMillis 固定频率扫描到期任务，并记录时钟滞后（tick lag）</li>
+ *     <li>上一次执行尚未结束的任务本轮直接跳过（skip-if-still-running）</li>
+ *     <li>开始执行后超过 timeoutMillis 的任务会被中断（排队时间不计入），任务真正退出前不会再次调度</li>
+ *     <li>工作队列已满时本轮任务被拒绝并计数，不阻塞时钟线程</li>
+ *     <li>开启 batchByChannel 时，同一轮到期且共享同一 ChannelMeta 的任务合并为一个批次，
+ *     通过 {@link MetricCollectorService#handleBatch(List)} 一次往返完成</li>
+ *     <li>配置了 {@link ClusterCoordinator} 时只调度归属本节点的监控，集群成员变化后自动重新加载</li>
+ * </ul>
+ */
+@Slf4j
+public class MetricCollectScheduler {
+
+    @Setter
+    private MetricCollectorService metricCollectorService;
+
+    @Setter
+    private MetricRetrievalMetaRepo metricRetrievalMetaRepo;
+
+    // 集群模式下只调度本节点负责的监控，为空时调度全部
+    @Setter
+    private ClusterCoordinator clusterCoordinator;
+
+    // 时钟扫描周期（毫秒）
+    @Setter
+    private long tickMillis = 100;
+
+    // 监控配置未指定间隔时的默认采集间隔（毫秒）
+    @Setter
+    private long defaultIntervalMillis = 10_000;
+
+    // 监控配置未指定超时时的默认超时（毫秒）
+    @Setter
+    private long defaultTimeoutMillis = 30_000;
+
+    // 工作线程数
+    @Setter
+    private int workerThreads = 64;
+
+    // 工作队列容量
+    @Setter
+    private int workerQueueCapacity = 1024;
+
+    // 是否将同一轮到期、共享同一通道的任务合并执行
+    @Setter
+    private boolean batchByChannel = true;
+
+    // 首次执行相位的打散窗口（毫秒）
+    @Setter
+    private long phaseSpreadMillis = 1_000;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    // 集群成员变化监听，保持同一实例以便停止时注销
+    private final Runnable membershipListener = this::refreshJobs;
+
+    private volatile ScheduledExecutorService ticker;
+    private ThreadPoolExecutor workers;
+
+    private long firstTickNanos;
+    private long tickCount;
+
+    // 调度统计
+    private final AtomicLong lastTickLagNanos = new AtomicLong();
+    private final AtomicLong maxTickLagNanos = new AtomicLong();
+    private final AtomicLong lastDispatchLagNanos = new AtomicLong();
+    private final AtomicLong maxDispatchLagNanos = new AtomicLong();
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong missedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong batchedCount = new AtomicLong();
+
+    /**
+     * 启动调度器
+     * 从元数据仓储加载全部监控配置，启动时钟线程和工作线程池
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        log.info("启动指标采集调度器: tickMillis={}, workerThreads={}, workerQueueCapacity={}",
+                tickMillis, workerThreads, workerQueueCapacity);
+
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workerQueueCapacity), namedThreadFactory("collector-worker", true),
+                new ThreadPoolExecutor.AbortPolicy());
+        workers.allowCoreThreadTimeOut(true);
+
+        // 时钟线程为非守护线程，保证调度器运行期间进程不退出
+        ScheduledThreadPoolExecutor scheduled = new ScheduledThreadPoolExecutor(1,
+                namedThreadFactory("collector-ticker", false));
+        scheduled.setRemoveOnCancelPolicy(true);
+        ticker = scheduled;
+
+        if (clusterCoordinator != null) {
+            clusterCoordinator.addListener(membershipListener);
+        }
+        refreshJobs();
+
+        firstTickNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        tickCount = 0;
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止调度器
+     * 不再派发新任务，并中断正在执行的采集任务
+     */
+    public synchronized void stop() {
+        if (ticker == null) {
+            return;
+        }
+        log.info("停止指标采集调度器");
+        if (clusterCoordinator != null) {
+            clusterCoordinator.removeListener(membershipListener);
+        }
+        ticker.shutdownNow();
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ticker = null;
+        workers = null;
+    }
+
+    /**
+     * 重新加载监控配置
+     * 新增的配置加入调度，已删除的配置移出调度，间隔变化的配置在下一次到期时生效；
+     * 集群模式下不再归属本节点的监控同样移出调度
+     */
+    public synchronized void refreshJobs() {
+        List<MetricRetrievalMeta> metas = metricRetrievalMetaRepo.queryAll();
+        long now = System.nanoTime();
+        Set<String> alive = new HashSet<>();
+
+        for (MetricRetrievalMeta meta : metas) {
+            String monitorId = meta.getMonitorId();
+            if (monitorId == null) {
+                log.warn("忽略未配置monitorId的监控配置: {}", meta);
+                continue;
+            }
+            if (clusterCoordinator != null && !clusterCoordinator.owns(monitorId)) {
+                continue;
+            }
+            alive.add(monitorId);
+            long intervalNanos = TimeUnit.MILLISECONDS.toNanos(
+                    meta.getIntervalMillis() > 0 ? meta.getIntervalMillis() : defaultIntervalMillis);
+            long timeoutMillis = meta.getTimeoutMillis() > 0 ? meta.getTimeoutMillis() : defaultTimeoutMillis;
+
+            Job job = jobs.get(monitorId);
+            if (job == null) {
+                // 散列出首次执行的相位，避免大量主机在同一时刻集中采集；
+                // 合并执行时按通道散列，保证同一通道上的任务落在同一轮
+                int hash = batchByChannel && meta.getChannelMeta() != null
+                        ? meta.getChannelMeta().hashCode() : monitorId.hashCode();
+                long spread = Math.max(1, Math.min(phaseSpreadMillis, TimeUnit.NANOSECONDS.toMillis(intervalNanos)));
+                long phase = TimeUnit.MILLISECONDS.toNanos(Math.floorMod(hash, spread));
+                job = new Job(monitorId, now + phase);
+                jobs.put(monitorId, job);
+                log.info("加入调度: monitorId={}, intervalMillis={}, timeoutMillis={}",
+                        monitorId, TimeUnit.NANOSECONDS.toMillis(intervalNanos), timeoutMillis);
+            }
+            job.intervalNanos = intervalNanos;
+            job.timeoutMillis = timeoutMillis;
+            job.channelMeta = meta.getChannelMeta();
+        }
+
+        jobs.keySet().removeIf(monitorId -> {
+            if (!alive.contains(monitorId)) {
+                log.info("移出调度: monitorId={}", monitorId);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 时钟扫描
+     * 只在时钟线程中执行，负责计算滞后并派发到期任务
+     */
+    void tick() {
+        try {
+            long now = System.nanoTime();
+            long expected = firstTickNanos + tickCount * TimeUnit.MILLISECONDS.toNanos(tickMillis);
+            tickCount++;
+            long lag = Math.max(0, now - expected);
+            lastTickLagNanos.set(lag);
+            maxTickLagNanos.accumulateAndGet(lag, Math::max);
+
+            Map<Object, List<Job>> groups = new LinkedHashMap<>();
+            for (Job job : jobs.values()) {
+                if (now - job.nextDueNanos < 0) {
+                    continue;
+                }
+                long due = job.nextDueNanos;
+                job.advance(now);
+
+                if (!job.running.compareAndSet(false, true)) {
+                    skippedCount.incrementAndGet();
+                    log.debug("上一次采集尚未结束，跳过本轮: monitorId={}", job.monitorId);
+                    continue;
+                }
+                job.dueNanos = due;
+                Object groupKey = batchByChannel && job.channelMeta != null ? job.channelMeta : job;
+                groups.computeIfAbsent(groupKey, k -> new ArrayList<>(2)).add(job);
+            }
+
+            for (List<Job> group : groups.values()) {
+                dispatch(group);
+            }
+        } catch (Exception e) {
+            // 时钟线程不能因为异常而终止
+            log.error("调度时钟执行异常", e);
+        }
+    }
+
+    private void dispatch(List<Job> group) {
+        long maxTimeout = 0;
+        long dueNanos = Long.MAX_VALUE;
+        for (Job job : group) {
+            maxTimeout = Math.max(maxTimeout, job.timeoutMillis);
+            dueNanos = Math.min(dueNanos, job.dueNanos);
+        }
+        long due = dueNanos;
+        long timeoutMillis = maxTimeout;
+
+        GroupTask task = new GroupTask(group, due, timeoutMillis);
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            group.forEach(job -> job.running.set(false));
+            rejectedCount.addAndGet(group.size());
+            log.warn("工作队列已满，拒绝本轮采集: monitorIds={}", monitorIds(group));
+            return;
+        }
+        dispatchedCount.addAndGet(group.size());
+        if (group.size() > 1) {
+            batchedCount.addAndGet(group.size());
+        }
+    }
+
+    /**
+     * 一个派发批次
+     * 超时从任务开始执行时计时，排队时间不计入；任务执行结束或在排队中被取消后都会清除运行标记
+     */
+    private class GroupTask extends FutureTask<Void> {
+        private final List<Job> group;
+        private final long dueNanos;
+        private final long timeoutMillis;
+        // 由 run 或排队中的取消之一认领，认领方负责清除运行标记
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private GroupTask(List<Job> group, long dueNanos, long timeoutMillis) {
+            super(() -> collect(group), null);
+            this.group = group;
+            this.dueNanos = dueNanos;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            long lag = Math.max(0, System.nanoTime() - dueNanos);
+            lastDispatchLagNanos.set(lag);
+            maxDispatchLagNanos.accumulateAndGet(lag, Math::max);
+            Future<?> timeout = scheduleTimeout();
+            try {
+                // 被中断的采集真正退出后才返回
+                super.run();
+            } finally {
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+                group.forEach(job -> job.running.set(false));
+            }
+        }
+
+        private Future<?> scheduleTimeout() {
+            ScheduledExecutorService clock = ticker;
+            if (clock == null) {
+                return null;
+            }
+            try {
+                return clock.schedule(() -> {
+                    if (!isDone()) {
+                        timeoutCount.addAndGet(group.size());
+                        log.warn("采集超时，中断任务: monitorIds={}, timeoutMillis={}", monitorIds(group), timeoutMillis);
+                        cancel(true);
+                    }
+                }, timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // 调度器正在停止
+                return null;
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() && claimed.compareAndSet(false, true)) {
+                group.forEach(job -> job.running.set(false));
+            }
+        }
+    }
+
+    private void collect(List<Job> group) {
+        if (group.size() == 1) {
+            metricCollectorService.handle(group.get(0).monitorId);
+        } else {
+            metricCollectorService.handleBatch(monitorIds(group));
+        }
+        completedCount.addAndGet(group.size());
+    }
+
+    private List<String> monitorIds(List<Job> group) {
+        List<String> ids = new ArrayList<>(group.size());
+        for (Job job : group) {
+            ids.add(job.monitorId);
+        }
+        return ids;
+    }
+
+    private ThreadFactory namedThreadFactory(String prefix, boolean daemon) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(daemon);
+            return t;
+        };
+    }
+
+    /**
+     * 最近一次时钟滞后（毫秒）
+     */
+    public long getLastTickLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastTickLagNanos.get());
+    }
+
+    /**
+     * 历史最大时钟滞后（毫秒）
+     */
+    public long getMaxTickLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxTickLagNanos.get());
+    }
+
+    /**
+     * 最近一次任务从到期到开始执行的延迟（毫秒），包含工作队列排队时间
+     */
+    public long getLastDispatchLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastDispatchLagNanos.get());
+    }
+
+    /**
+     * 历史最大派发延迟（毫秒）
+     */
+    public long getMaxDispatchLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxDispatchLagNanos.get());
+    }
+
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    /**
+     * 因上一次执行未结束而跳过的次数
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * 因调度落后超过一个采集间隔而错过的次数
+     */
+    public long getMissedCount() {
+        return missedCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 以合并批次方式派发的任务数
+     */
+    public long getBatchedCount() {
+        return batchedCount.get();
+    }
+
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    /**
+     * 当前工作队列中等待执行的任务数
+     */
+    public int getQueuedCount() {
+        ThreadPoolExecutor executor = workers;
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * 调度任务状态
+     */
+    private class Job {
+        private final String monitorId;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile long intervalNanos;
+        private volatile long timeoutMillis;
+        private volatile ChannelMeta channelMeta;
+        private long nextDueNanos;
+        private long dueNanos;
+
+        private Job(String monitorId, long firstDueNanos) {
+            this.monitorId = monitorId;
+            this.nextDueNanos = firstDueNanos;
+        }
+
+        /**
+         * 推进到下一次到期时间
+         * 若调度已落后超过一个间隔，丢弃错过的轮次，从当前时刻重新对齐
+         */
+        private void advance(long now) {
+            nextDueNanos += intervalNanos;
+            if (now - nextDueNanos >= 0) {
+                long missed = (now - nextDueNanos) / intervalNanos + 1;
+                missedCount.addAndGet(missed);
+                nextDueNanos += missed * intervalNanos;
+            }
+        }
+    }
+}
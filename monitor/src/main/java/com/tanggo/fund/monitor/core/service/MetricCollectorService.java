@@ -5,6 +5,9 @@ import com.tanggo.fund.monitor.core.extension.collector.MetricRetrievalMetaRepo;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 指标收集服务
  * 执行选定的监控任务，获取和处理指标数据
@@ -47,6 +50,37 @@ public class MetricCollectorService {
         }
     }
 
+    /**
+     * 批量处理共享同一通道的监控任务
+     * 同一通道上的命令合并为一次远程执行，输出再分发给各监控的计算器
+     *
+     * @param monitorIds 监控配置ID列表
+     */
+    public void handleBatch(List<String> monitorIds) {
+        log.info("开始批量处理监控任务: {}", monitorIds);
+
+        try {
+            List<MetricRetrievalMeta> metas = new ArrayList<>(monitorIds.size());
+            for (String monitorId : monitorIds) {
+                MetricRetrievalMeta meta = metricRetrievalMetaRepo.queryById(monitorId);
+                if (meta == null) {
+                    log.error("找不到监控配置: {}", monitorId);
+                    continue;
+                }
+                metas.add(meta);
+            }
+            if (metas.isEmpty()) {
+                return;
+            }
+
+            collectorTemplate.retrievalBatch(metas);
+
+            log.info("批量监控任务完成: {}", monitorIds);
+        } catch (Exception e) {
+            log.error("批量监控任务执行失败: {}", monitorIds, e);
+        }
+    }
+
     /**
      * 处理默认监控任务（SSH CPU监控）
      * 使用预配置的ssh_cpu_monitor配置
@@ -1,16 +1,239 @@
 package com.tanggo.fund.monitor.core.service;
 
-import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.collector.MetricQueryRepo;
+import com.tanggo.fund.monitor.core.query.DataPoint;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.MetricSeries;
+import com.tanggo.fund.monitor.core.series.SeriesHotCache;
+import com.tanggo.fund.monitor.core.series.SeriesTagIndex;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 指标查询服务
+ * 把查询时间范围按步长对齐后交给 {@link MetricQueryRepo}，结果放入有界 LRU + TTL 缓存：
+ * 同一面板在一个步长内的反复刷新得到相同的缓存键，不再访问存储；
+ * 并发的相同查询共享同一次后端访问
+ *
+ * <p>包含当前时间的范围数据仍在增长，缓存 cacheTtlMillis；已结束的范围不再变化，缓存 closedRangeTtlMillis
+ *
+ * <p>配置了 {@link SeriesHotCache} 时，缓存能完整覆盖的近期窗口直接由内存中的样本计算，最新值查询只读热缓存；
+ * 配置了 {@link SeriesTagIndex} 时可按选择器列出序列
+ */
+@Slf4j
 public class MetricQueryService {
 
+    @Setter
+    private MetricQueryRepo metricQueryRepo;
+
+    // 与采集同进程部署时的序列热缓存，为空时全部查询访问存储
+    @Setter
+    private SeriesHotCache hotCache;
+
+    // 序列倒排索引，用于序列发现
+    @Setter
+    private SeriesTagIndex tagIndex;
+
+    // 缓存条目上限
+    @Setter
+    private int cacheMaxEntries = 1_000;
+
+    // 包含当前时间的查询结果缓存时长（毫秒）
+    @Setter
+    private long cacheTtlMillis = 15_000;
+
+    // 已结束时间范围的查询结果缓存时长（毫秒）
+    @Setter
+    private long closedRangeTtlMillis = 600_000;
+
+    private final Map<String, CacheEntry> cache = new LinkedHashMap<>(64, 0.75f, true);
+
+    // 统计信息
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * 执行查询
+     *
+     * @param query 查询条件，时间范围会被扩展到步长的整数倍
+     * @return 每条匹配序列的降采样结果
+     */
+    public List<TimeSeries> query(MetricQuery query) {
+        MetricQuery aligned = align(query);
+        if (hotCache != null) {
+            List<TimeSeries> hot = hotCache.query(aligned);
+            if (hot != null) {
+                return hot;
+            }
+        }
+        String key = cacheKey(aligned);
+        long now = System.currentTimeMillis();
+
+        CompletableFuture<List<TimeSeries>> future;
+        boolean owner = false;
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                hitCount.incrementAndGet();
+                future = entry.future;
+            } else {
+                missCount.incrementAndGet();
+                future = new CompletableFuture<>();
+                long ttl = aligned.getToMillis() <= now ? closedRangeTtlMillis : cacheTtlMillis;
+                cache.put(key, new CacheEntry(future, now + ttl));
+                evictOverflow();
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                future.complete(List.copyOf(metricQueryRepo.query(aligned)));
+            } catch (RuntimeException | Error e) {
+                synchronized (cache) {
+                    cache.remove(key);
+                }
+                future.completeExceptionally(e);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 最新值查询：每条匹配序列返回一个点（原始样本时间和值），查询的时间范围和步长不使用
+     * 最新值只在热缓存中，集群部署时查询必须用 monitorId 等值条件限定到归属本节点的监控
+     */
+    public List<TimeSeries> latest(MetricQuery query) {
+        if (hotCache == null) {
+            throw new IllegalStateException("未配置序列热缓存，无法查询最新值");
+        }
+        if (query.getMetricName() == null || query.getMetricName().isEmpty()) {
+            throw new IllegalArgumentException("查询缺少指标名称");
+        }
+        List<Metric> latest = hotCache.latest(query);
+        if (latest == null) {
+            throw new IllegalStateException("最新值查询必须用 " + CollectorTemplate.MONITOR_ID_TAG + " 限定到本节点采集的监控: " + query);
+        }
+        List<TimeSeries> result = new ArrayList<>();
+        for (Metric metric : latest) {
+            DataPoint point = new DataPoint(EpochNanos.toMillis(metric.getTimestampNanos()), metric.getMetricValue());
+            result.add(new TimeSeries(metric.getMetricName(), metric.getSeries().getTags(), List.of(point)));
+        }
+        return result;
+    }
+
+    /**
+     * 序列发现：返回本进程已登记、满足选择器的序列，按位图倒排索引计算，不访问存储；查询的时间范围和步长不使用
+     */
+    public List<MetricSeries> series(MetricQuery query) {
+        if (tagIndex == null) {
+            throw new IllegalStateException("未配置序列倒排索引，无法查询序列");
+        }
+        if (query.getMetricName() == null || query.getMetricName().isEmpty()) {
+            throw new IllegalArgumentException("查询缺少指标名称");
+        }
+        return tagIndex.series(query);
+    }
+
+    /**
+     * 校验查询并把 [from, to) 扩展到步长边界
+     */
+    static MetricQuery align(MetricQuery query) {
+        if (query.getMetricName() == null || query.getMetricName().isEmpty()) {
+            throw new IllegalArgumentException("查询缺少指标名称");
+        }
+        if (query.getStepMillis() <= 0) {
+            throw new IllegalArgumentException("步长必须大于0: " + query.getStepMillis());
+        }
+        if (query.getToMillis() <= query.getFromMillis()) {
+            throw new IllegalArgumentException("结束时间必须晚于开始时间");
+        }
+        long step = query.getStepMillis();
+        MetricQuery aligned = new MetricQuery();
+        aligned.setMetricName(query.getMetricName());
+        aligned.setMatchers(List.copyOf(query.getMatchers()));
+        aligned.setStepMillis(step);
+        aligned.setAggregation(query.getAggregation());
+        aligned.setFromMillis(Math.floorDiv(query.getFromMillis(), step) * step);
+        aligned.setToMillis(-Math.floorDiv(-query.getToMillis(), step) * step);
+        return aligned;
+    }
+
+    private static String cacheKey(MetricQuery query) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(query.getMetricName()).append('|').append(query.getAggregation())
+                .append('|').append(query.getFromMillis()).append('|').append(query.getToMillis())
+                .append('|').append(query.getStepMillis());
+        query.getMatchers().stream()
+                .map(TagMatcher::toString)
+                .sorted()
+                .forEach(m -> sb.append('|').append(m));
+        return sb.toString();
+    }
+
+    private void evictOverflow() {
+        var iterator = cache.entrySet().iterator();
+        while (cache.size() > cacheMaxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
 
-    private MetricPersistRepo metricPersistRepo;
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
 
+    public long getHitCount() {
+        return hitCount.get();
+    }
 
-    public void query() {
+    public long getMissCount() {
+        return missCount.get();
+    }
 
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
 
+    public int getCacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
     }
 
+    private static final class CacheEntry {
+        private final CompletableFuture<List<TimeSeries>> future;
+        private final long expiresAt;
+
+        CacheEntry(CompletableFuture<List<TimeSeries>> future, long expiresAt) {
+            this.future = future;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
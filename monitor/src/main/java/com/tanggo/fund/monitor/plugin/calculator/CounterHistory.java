@@ -0,0 +1,88 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 按名称（网卡、磁盘）保存上一次的计数器读数，用于计算两次读取之间的速率
+ * 一次读取以 {@link #begin} 开始、{@link #end} 结束，本次没有出现的名称随之移除
+ */
+final class CounterHistory {
+
+    private final int width;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long generation;
+    private long previousNanos = -1;
+    private long currentNanos;
+
+    /**
+     * @param width 每个名称的计数器个数
+     */
+    CounterHistory(int width) {
+        this.width = width;
+    }
+
+    void begin(long nanoTime) {
+        generation++;
+        currentNanos = nanoTime;
+    }
+
+    /**
+     * 距上一次读取的秒数，首次读取返回 NaN
+     */
+    double elapsedSeconds() {
+        if (previousNanos < 0 || currentNanos <= previousNanos) {
+            return Double.NaN;
+        }
+        return (currentNanos - previousNanos) / 1_000_000_000.0;
+    }
+
+    /**
+     * 记录本次读数并把上一次读数写入 previous
+     *
+     * @return 该名称是否有上一次读数
+     */
+    boolean swap(String name, long[] current, long[] previous) {
+        Entry entry = entries.get(name);
+        boolean known = entry != null;
+        if (!known) {
+            entry = new Entry(width);
+            entries.put(name, entry);
+        } else {
+            System.arraycopy(entry.counters, 0, previous, 0, width);
+        }
+        System.arraycopy(current, 0, entry.counters, 0, width);
+        entry.generation = generation;
+        return known;
+    }
+
+    void end() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().generation != generation) {
+                iterator.remove();
+            }
+        }
+        previousNanos = currentNanos;
+    }
+
+    /**
+     * 计数器增量的每秒速率；计数回绕或重置时返回 NaN
+     */
+    static double rate(long current, long previous, double seconds) {
+        if (current < previous || Double.isNaN(seconds)) {
+            return Double.NaN;
+        }
+        return (current - previous) / seconds;
+    }
+
+    private static final class Entry {
+        private final long[] counters;
+        private long generation;
+
+        Entry(int width) {
+            this.counters = new long[width];
+        }
+    }
+}
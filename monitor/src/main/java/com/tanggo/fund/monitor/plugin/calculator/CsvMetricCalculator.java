@@ -0,0 +1,303 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.StreamingMetricCalculator;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CSV行批量计算器
+ * 每行数据产生一个或多个指标，配合 {@link com.tanggo.fund.monitor.plugin.channel.FTPMetricRetrievalChannel}
+ * 增量读取时，一次只收到文件新追加的若干行
+ *
+ * <p>列名由 columns 配置（增量读取时表头只出现在文件开头，不能依赖它），第一列等于列名的行视为表头跳过。支持两种布局：
+ * <ul>
+ *     <li>宽表：每个数值列是一个指标，指标名为 metricPrefix + 列名（valueColumns 为空时取除时间、标签外的全部列）</li>
+ *     <li>长表：配置 nameColumn 和 valueColumn，每行一个指标</li>
+ * </ul>
+ * 格式错误的行跳过并计数，不影响同批其他行；字段支持双引号转义，但不支持跨行的引号字段
+ */
+@Slf4j
+public class CsvMetricCalculator implements StreamingMetricCalculator {
+
+    // 列名，按文件中的顺序
+    @Setter
+    private List<String> columns;
+
+    // 分隔符
+    @Setter
+    private char delimiter = ',';
+
+    // 时间列，为空时使用解析时刻
+    @Setter
+    private String timestampColumn;
+
+    // 时间格式：epoch_millis、epoch_seconds 或 DateTimeFormatter 模式（按本地时区解释）
+    @Setter
+    private String timestampFormat = "epoch_millis";
+
+    // 作为标签的列
+    @Setter
+    private List<String> tagColumns = List.of();
+
+    // 宽表的数值列
+    @Setter
+    private List<String> valueColumns = List.of();
+
+    // 长表的指标名列
+    @Setter
+    private String nameColumn;
+
+    // 长表的数值列
+    @Setter
+    private String valueColumn;
+
+    // 指标名前缀
+    @Setter
+    private String metricPrefix = "";
+
+    private volatile Layout layout;
+
+    private final AtomicLong rowCount = new AtomicLong();
+    private final AtomicLong invalidRowCount = new AtomicLong();
+
+    @Override
+    public Metric calculate(String content) {
+        List<Metric> metrics = calculateAll(content);
+        if (metrics.isEmpty()) {
+            throw new IllegalArgumentException("没有新的数据行");
+        }
+        return metrics.get(0);
+    }
+
+    @Override
+    public List<Metric> calculateAll(String content) {
+        try {
+            return calculateStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 逐行解析，没有新数据行时返回空列表
+     */
+    @Override
+    public List<Metric> calculateStream(InputStream output) throws IOException {
+        Layout layout = layout();
+        long now = EpochNanos.now();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(output, StandardCharsets.UTF_8), 64 << 10);
+        List<Metric> metrics = new ArrayList<>();
+        List<String> fields = new ArrayList<>(layout.width);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            split(line, fields);
+            if (fields.get(0).equals(columns.get(0))) {
+                // 表头
+                continue;
+            }
+            rowCount.incrementAndGet();
+            try {
+                row(layout, fields, now, metrics);
+            } catch (RuntimeException e) {
+                invalidRowCount.incrementAndGet();
+                log.warn("CSV行格式错误，已跳过: line={}, error={}", lineNumber, e.getMessage());
+            }
+        }
+        return metrics;
+    }
+
+    private void row(Layout layout, List<String> fields, long now, List<Metric> out) {
+        if (fields.size() < layout.width) {
+            throw new IllegalArgumentException("列数不足: expected=" + layout.width + ", actual=" + fields.size());
+        }
+        long timestamp = layout.timestamp < 0 ? now : timestamp(fields.get(layout.timestamp));
+        Map<String, String> tags = null;
+        if (layout.tags.length > 0) {
+            tags = new HashMap<>(layout.tags.length * 2);
+            for (int i = 0; i < layout.tags.length; i++) {
+                tags.put(layout.tagNames[i], fields.get(layout.tags[i]));
+            }
+        }
+
+        if (layout.name >= 0) {
+            String value = fields.get(layout.value);
+            if (value.isEmpty()) {
+                return;
+            }
+            out.add(metric(metricPrefix + fields.get(layout.name), Double.parseDouble(value), timestamp, tags));
+            return;
+        }
+        // 先解析整行再输出，半行有效的数据不入库
+        int start = out.size();
+        try {
+            for (int i = 0; i < layout.values.length; i++) {
+                String value = fields.get(layout.values[i]);
+                if (!value.isEmpty()) {
+                    out.add(metric(layout.metricNames[i], Double.parseDouble(value), timestamp, tags));
+                }
+            }
+        } catch (RuntimeException e) {
+            out.subList(start, out.size()).clear();
+            throw e;
+        }
+    }
+
+    private long timestamp(String value) {
+        return switch (timestampFormat) {
+            case "epoch_millis" -> EpochNanos.ofMillis(Long.parseLong(value));
+            case "epoch_seconds" -> EpochNanos.ofSeconds(Long.parseLong(value));
+            default -> EpochNanos.of(LocalDateTime.parse(value, layout().formatter));
+        };
+    }
+
+    private static Metric metric(String name, double value, long timestamp, Map<String, String> tags) {
+        return Metric.of(SeriesRegistry.global().resolve(name, tags), timestamp, value);
+    }
+
+    /**
+     * 按分隔符切分一行，双引号内的分隔符不切分，两个连续双引号表示一个双引号
+     */
+    private void split(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int len = line.length();
+        if (len > 0 && line.charAt(len - 1) == '\r') {
+            len--;
+        }
+        for (int i = 0; i < len; i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < len && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+    }
+
+    private Layout layout() {
+        Layout l = layout;
+        if (l == null) {
+            synchronized (this) {
+                if (layout == null) {
+                    layout = new Layout();
+                }
+                l = layout;
+            }
+        }
+        return l;
+    }
+
+    public long getRowCount() {
+        return rowCount.get();
+    }
+
+    /**
+     * 格式错误被跳过的行数
+     */
+    public long getInvalidRowCount() {
+        return invalidRowCount.get();
+    }
+
+    /**
+     * 列名到下标的解析结果，首次解析时根据配置生成
+     */
+    private final class Layout {
+        private final int width;
+        private final int timestamp;
+        private final int[] tags;
+        private final String[] tagNames;
+        private final int name;
+        private final int value;
+        private final int[] values;
+        private final String[] metricNames;
+        private final DateTimeFormatter formatter;
+
+        private Layout() {
+            if (columns == null || columns.isEmpty()) {
+                throw new IllegalStateException("CSV计算器未配置columns");
+            }
+            width = columns.size();
+            timestamp = timestampColumn == null ? -1 : index(timestampColumn);
+            tagNames = tagColumns.toArray(new String[0]);
+            tags = new int[tagNames.length];
+            for (int i = 0; i < tags.length; i++) {
+                tags[i] = index(tagNames[i]);
+            }
+            if (nameColumn != null) {
+                if (valueColumn == null) {
+                    throw new IllegalStateException("长表布局需要同时配置nameColumn和valueColumn");
+                }
+                name = index(nameColumn);
+                value = index(valueColumn);
+                values = new int[0];
+                metricNames = new String[0];
+            } else {
+                name = -1;
+                value = -1;
+                List<String> names = new ArrayList<>(valueColumns);
+                if (names.isEmpty()) {
+                    for (String column : columns) {
+                        if (!column.equals(timestampColumn) && !tagColumns.contains(column)) {
+                            names.add(column);
+                        }
+                    }
+                }
+                values = new int[names.size()];
+                metricNames = new String[names.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = index(names.get(i));
+                    metricNames[i] = metricPrefix + names.get(i);
+                }
+            }
+            boolean epoch = "epoch_millis".equals(timestampFormat) || "epoch_seconds".equals(timestampFormat);
+            formatter = epoch ? null : DateTimeFormatter.ofPattern(timestampFormat);
+        }
+
+        private int index(String column) {
+            int index = columns.indexOf(column);
+            if (index < 0) {
+                throw new IllegalStateException("列不存在: " + column + ", columns=" + columns);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.isDecimalChar;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.isSpace;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.lineEnd;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.parseDecimal;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.regionMatches;
+
+/**
+ * free 输出解析器
+ * 单遍扫描输出文本，结果写入实例字段，实例可重复使用（非线程安全）
+ *
+ * <p>只解析 {@code Mem:} 行的 total/used/free 三列，每列取第一个数值、忽略单位，
+ * 即 {@code free -h} 下的 {@code 16Gi} 记为16
+ */
+@Slf4j
+final class FreeOutputParser {
+
+    private static final String MEM_PREFIX = "Mem:";
+
+    boolean memoryFound;
+    double memoryUsagePercent;
+    double memoryTotal;
+    double memoryUsed;
+
+    boolean freeFound;
+    double memoryFree;
+
+    private final StreamLineReader lines = new StreamLineReader();
+
+    /**
+     * 解析一次 free 输出，覆盖上一次的结果
+     * 单行数值格式错误时跳过该行，已解析出的列保持不变
+     */
+    void parse(CharSequence output) {
+        reset();
+        int len = output.length();
+        int from = 0;
+        while (from <= len) {
+            int to = lineEnd(output, from);
+            acceptLine(output, from, to);
+            from = to + 1;
+        }
+    }
+
+    /**
+     * 逐行读取 free 输出，Mem 行解析完整后立即返回
+     */
+    void parse(InputStream output) throws IOException {
+        reset();
+        lines.reset(output);
+        while (lines.next()) {
+            CharSequence line = lines.line();
+            acceptLine(line, 0, line.length());
+            if (memoryFound && freeFound) {
+                return;
+            }
+        }
+    }
+
+    private void reset() {
+        memoryFound = false;
+        freeFound = false;
+    }
+
+    private void acceptLine(CharSequence s, int from, int to) {
+        // 与 String.trim() 一致：去掉首尾不大于空格的字符
+        int start = from;
+        int end = to;
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (regionMatches(s, start, end, MEM_PREFIX)) {
+            try {
+                parseMemoryLine(s, start, end);
+            } catch (NumberFormatException e) {
+                log.warn("解析内存数值失败: {}", s.subSequence(from, to), e);
+            }
+        }
+    }
+
+    /**
+     * 按空白切分列：第0列为 "Mem:"，依次取第1、2、3列
+     */
+    private void parseMemoryLine(CharSequence s, int from, int to) {
+        int totalFrom = -1;
+        int totalTo = -1;
+        int usedFrom = -1;
+        int usedTo = -1;
+        int freeFrom = -1;
+        int freeTo = -1;
+
+        int column = 0;
+        int i = from;
+        while (i < to && column < 4) {
+            int start = i;
+            while (i < to && !isSpace(s.charAt(i))) {
+                i++;
+            }
+            if (column == 1) {
+                totalFrom = start;
+                totalTo = i;
+            } else if (column == 2) {
+                usedFrom = start;
+                usedTo = i;
+            } else if (column == 3) {
+                freeFrom = start;
+                freeTo = i;
+            }
+            column++;
+            while (i < to && isSpace(s.charAt(i))) {
+                i++;
+            }
+        }
+        if (column < 4) {
+            return;
+        }
+
+        double total = firstNumber(s, totalFrom, totalTo);
+        double used = firstNumber(s, usedFrom, usedTo);
+        if (total > 0) {
+            memoryFound = true;
+            memoryUsagePercent = (used / total) * 100;
+            memoryTotal = total;
+            memoryUsed = used;
+            memoryFree = firstNumber(s, freeFrom, freeTo);
+            freeFound = true;
+        }
+    }
+
+    /**
+     * 列中第一段 {@code [\d.]+}，没有数字时为0
+     */
+    private static double firstNumber(CharSequence s, int from, int to) {
+        int i = from;
+        while (i < to && !isDecimalChar(s.charAt(i))) {
+            i++;
+        }
+        if (i == to) {
+            return 0.0;
+        }
+        int start = i;
+        while (i < to && isDecimalChar(s.charAt(i))) {
+            i++;
+        }
+        return parseDecimal(s, start, i);
+    }
+}
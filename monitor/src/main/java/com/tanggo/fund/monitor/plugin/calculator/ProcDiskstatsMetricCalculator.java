@@ -0,0 +1,91 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * /proc/diskstats 磁盘IO计算器
+ * 每块磁盘（device 标签）输出进行中的IO数，第二次读取起输出读写字节和次数的每秒速率以及IO繁忙百分比；
+ * 扇区固定按512字节计算（与内核统计口径一致）。主指标 disk_read_bytes_total 为所有磁盘读取字节数之和
+ */
+public class ProcDiskstatsMetricCalculator extends ProcfsMetricCalculator {
+
+    private static final int SECTOR_BYTES = 512;
+
+    // 设备名之后：reads merged sectorsRead msReading writes merged sectorsWritten msWriting inProgress msIo weightedMsIo
+    private static final int FIELDS = 11;
+    private static final int READS = 0;
+    private static final int SECTORS_READ = 2;
+    private static final int WRITES = 4;
+    private static final int SECTORS_WRITTEN = 6;
+    private static final int IN_PROGRESS = 8;
+    private static final int IO_MILLIS = 9;
+
+    // 不采集的设备（正则全匹配），默认排除虚拟设备
+    @Setter
+    private String excludeDevices = "(loop|ram|zram|fd|sr|nbd)\\d*";
+
+    private Pattern excludePattern;
+    private final CounterHistory history = new CounterHistory(FIELDS);
+    private final long[] counters = new long[FIELDS];
+    private final long[] previous = new long[FIELDS];
+
+    @Override
+    protected List<Metric> parse(ProcScanner scanner, long timestamp, long nanoTime) {
+        if (excludePattern == null) {
+            excludePattern = Pattern.compile(excludeDevices == null || excludeDevices.isEmpty() ? "(?!)" : excludeDevices);
+        }
+        history.begin(nanoTime);
+        double seconds = history.elapsedSeconds();
+        List<Metric> perDevice = new ArrayList<>();
+        long readBytesTotal = 0;
+
+        for (; scanner.hasLine(); scanner.nextLine()) {
+            // 主设备号、次设备号
+            if (scanner.nextLong() < 0 || scanner.nextLong() < 0) {
+                continue;
+            }
+            String name = scanner.token();
+            if (name == null || excludePattern.matcher(name).matches()) {
+                continue;
+            }
+            for (int i = 0; i < FIELDS; i++) {
+                counters[i] = Math.max(0, scanner.nextLong());
+            }
+            readBytesTotal += counters[SECTORS_READ] * SECTOR_BYTES;
+            Map<String, String> tags = Map.of("device", name);
+            perDevice.add(sample("disk_io_in_progress", counters[IN_PROGRESS], timestamp, tags));
+            if (!history.swap(name, counters, previous)) {
+                continue;
+            }
+            addRate(perDevice, "disk_read_bytes_per_sec", SECTORS_READ, SECTOR_BYTES, seconds, timestamp, tags);
+            addRate(perDevice, "disk_write_bytes_per_sec", SECTORS_WRITTEN, SECTOR_BYTES, seconds, timestamp, tags);
+            addRate(perDevice, "disk_reads_per_sec", READS, 1, seconds, timestamp, tags);
+            addRate(perDevice, "disk_writes_per_sec", WRITES, 1, seconds, timestamp, tags);
+            // 繁忙毫秒数 / 经过毫秒数
+            double busy = CounterHistory.rate(counters[IO_MILLIS], previous[IO_MILLIS], seconds);
+            if (!Double.isNaN(busy)) {
+                perDevice.add(sample("disk_io_util_percent", Math.min(100.0, busy / 10.0), timestamp, tags));
+            }
+        }
+        history.end();
+
+        List<Metric> metrics = new ArrayList<>(perDevice.size() + 1);
+        metrics.add(sample("disk_read_bytes_total", readBytesTotal, timestamp));
+        metrics.addAll(perDevice);
+        return metrics;
+    }
+
+    private void addRate(List<Metric> metrics, String name, int field, int unit, double seconds,
+                         long timestamp, Map<String, String> tags) {
+        double rate = CounterHistory.rate(counters[field], previous[field], seconds);
+        if (!Double.isNaN(rate)) {
+            metrics.add(sample(name, rate * unit, timestamp, tags));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * /proc/loadavg 负载计算器
+ * 格式：1分钟 5分钟 15分钟负载 可运行/总调度实体数 最近的进程号
+ */
+public class ProcLoadavgMetricCalculator extends ProcfsMetricCalculator {
+
+    @Override
+    protected List<Metric> parse(ProcScanner scanner, long timestamp, long nanoTime) {
+        double load1 = scanner.nextDecimal();
+        double load5 = scanner.nextDecimal();
+        double load15 = scanner.nextDecimal();
+        if (Double.isNaN(load1) || Double.isNaN(load5) || Double.isNaN(load15)) {
+            throw new IllegalArgumentException("输出不是/proc/loadavg");
+        }
+        List<Metric> metrics = new ArrayList<>(5);
+        metrics.add(sample("load_average_1m", load1, timestamp));
+        metrics.add(sample("load_average_5m", load5, timestamp));
+        metrics.add(sample("load_average_15m", load15, timestamp));
+        long runnable = scanner.nextLong();
+        // 跳过 '/'
+        scanner.skip(1);
+        long total = scanner.nextLong();
+        if (runnable >= 0 && total >= 0) {
+            metrics.add(sample("scheduling_entities_runnable", runnable, timestamp));
+            metrics.add(sample("scheduling_entities_total", total, timestamp));
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,73 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * /proc/meminfo 内存计算器
+ * memory_usage 为 (MemTotal - MemAvailable) / MemTotal，与 free 命令的“可用”口径一致；
+ * 内核不提供 MemAvailable 时以 MemFree + Buffers + Cached 近似
+ */
+public class ProcMeminfoMetricCalculator extends ProcfsMetricCalculator {
+
+    private static final String[] KEYS = {
+            "MemTotal:", "MemFree:", "MemAvailable:", "Buffers:", "Cached:", "SwapTotal:", "SwapFree:"
+    };
+    private static final int MEM_TOTAL = 0;
+    private static final int MEM_FREE = 1;
+    private static final int MEM_AVAILABLE = 2;
+    private static final int BUFFERS = 3;
+    private static final int CACHED = 4;
+    private static final int SWAP_TOTAL = 5;
+    private static final int SWAP_FREE = 6;
+
+    private final long[] values = new long[KEYS.length];
+
+    @Override
+    protected List<Metric> parse(ProcScanner scanner, long timestamp, long nanoTime) {
+        Arrays.fill(values, -1);
+        int found = 0;
+        for (; scanner.hasLine() && found < KEYS.length; scanner.nextLine()) {
+            for (int i = 0; i < KEYS.length; i++) {
+                if (values[i] < 0 && scanner.startsWith(KEYS[i])) {
+                    scanner.skip(KEYS[i].length());
+                    values[i] = scanner.nextLong();
+                    found++;
+                    break;
+                }
+            }
+        }
+        long total = values[MEM_TOTAL];
+        if (total <= 0) {
+            throw new IllegalArgumentException("未找到MemTotal，输出不是/proc/meminfo");
+        }
+        long available = values[MEM_AVAILABLE] >= 0
+                ? values[MEM_AVAILABLE]
+                : Math.max(0, values[MEM_FREE]) + Math.max(0, values[BUFFERS]) + Math.max(0, values[CACHED]);
+
+        List<Metric> metrics = new ArrayList<>(10);
+        metrics.add(sample("memory_usage", (total - available) * 100.0 / total, timestamp));
+        metrics.add(sample("memory_total_kb", total, timestamp));
+        metrics.add(sample("memory_available_kb", available, timestamp));
+        addIfPresent(metrics, "memory_free_kb", values[MEM_FREE], timestamp);
+        addIfPresent(metrics, "memory_buffers_kb", values[BUFFERS], timestamp);
+        addIfPresent(metrics, "memory_cached_kb", values[CACHED], timestamp);
+        long swapTotal = values[SWAP_TOTAL];
+        if (swapTotal >= 0 && values[SWAP_FREE] >= 0) {
+            long swapUsed = swapTotal - values[SWAP_FREE];
+            metrics.add(sample("swap_total_kb", swapTotal, timestamp));
+            metrics.add(sample("swap_used_kb", swapUsed, timestamp));
+            metrics.add(sample("swap_usage", swapTotal == 0 ? 0.0 : swapUsed * 100.0 / swapTotal, timestamp));
+        }
+        return metrics;
+    }
+
+    private static void addIfPresent(List<Metric> metrics, String name, long value, long timestamp) {
+        if (value >= 0) {
+            metrics.add(sample(name, value, timestamp));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * /proc/net/dev 网卡流量计算器
+ * 每块网卡（interface 标签）输出累计收发字节数和错误/丢包数，第二次读取起输出收发字节和包的每秒速率；
+ * 主指标 net_receive_bytes_total 为所有网卡接收字节数之和
+ */
+public class ProcNetDevMetricCalculator extends ProcfsMetricCalculator {
+
+    // 接收：bytes packets errs drop fifo frame compressed multicast；发送：bytes packets errs drop ...
+    private static final int FIELDS = 12;
+    private static final int RX_BYTES = 0;
+    private static final int RX_PACKETS = 1;
+    private static final int RX_ERRORS = 2;
+    private static final int RX_DROPS = 3;
+    private static final int TX_BYTES = 8;
+    private static final int TX_PACKETS = 9;
+    private static final int TX_ERRORS = 10;
+    private static final int TX_DROPS = 11;
+
+    // 不采集的网卡（正则全匹配）
+    @Setter
+    private String excludeInterfaces = "lo";
+
+    private Pattern excludePattern;
+    private final CounterHistory history = new CounterHistory(FIELDS);
+    private final long[] counters = new long[FIELDS];
+    private final long[] previous = new long[FIELDS];
+
+    @Override
+    protected List<Metric> parse(ProcScanner scanner, long timestamp, long nanoTime) {
+        if (excludePattern == null) {
+            excludePattern = Pattern.compile(excludeInterfaces == null || excludeInterfaces.isEmpty() ? "(?!)" : excludeInterfaces);
+        }
+        history.begin(nanoTime);
+        double seconds = history.elapsedSeconds();
+        List<Metric> perInterface = new ArrayList<>();
+        long receivedTotal = 0;
+        boolean header = true;
+
+        for (; scanner.hasLine(); scanner.nextLine()) {
+            // 前两行为表头
+            if (header && (scanner.startsWith("Inter") || scanner.startsWith(" face"))) {
+                continue;
+            }
+            header = false;
+            String name = scanner.token();
+            if (name == null || excludePattern.matcher(name).matches()) {
+                continue;
+            }
+            for (int i = 0; i < FIELDS; i++) {
+                counters[i] = Math.max(0, scanner.nextLong());
+            }
+            receivedTotal += counters[RX_BYTES];
+            Map<String, String> tags = Map.of("interface", name);
+            perInterface.add(sample("net_receive_bytes_total", counters[RX_BYTES], timestamp, tags));
+            perInterface.add(sample("net_transmit_bytes_total", counters[TX_BYTES], timestamp, tags));
+            perInterface.add(sample("net_receive_errors_total", counters[RX_ERRORS], timestamp, tags));
+            perInterface.add(sample("net_transmit_errors_total", counters[TX_ERRORS], timestamp, tags));
+            perInterface.add(sample("net_receive_drops_total", counters[RX_DROPS], timestamp, tags));
+            perInterface.add(sample("net_transmit_drops_total", counters[TX_DROPS], timestamp, tags));
+            if (history.swap(name, counters, previous)) {
+                addRate(perInterface, "net_receive_bytes_per_sec", RX_BYTES, seconds, timestamp, tags);
+                addRate(perInterface, "net_transmit_bytes_per_sec", TX_BYTES, seconds, timestamp, tags);
+                addRate(perInterface, "net_receive_packets_per_sec", RX_PACKETS, seconds, timestamp, tags);
+                addRate(perInterface, "net_transmit_packets_per_sec", TX_PACKETS, seconds, timestamp, tags);
+            }
+        }
+        history.end();
+
+        List<Metric> metrics = new ArrayList<>(perInterface.size() + 1);
+        metrics.add(sample("net_receive_bytes_total", receivedTotal, timestamp));
+        metrics.addAll(perInterface);
+        return metrics;
+    }
+
+    private void addRate(List<Metric> metrics, String name, int field, double seconds,
+                         long timestamp, Map<String, String> tags) {
+        double rate = CounterHistory.rate(counters[field], previous[field], seconds);
+        if (!Double.isNaN(rate)) {
+            metrics.add(sample(name, rate, timestamp, tags));
+        }
+    }
+}
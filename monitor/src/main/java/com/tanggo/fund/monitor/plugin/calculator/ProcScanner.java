@@ -0,0 +1,152 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * /proc 文本扫描器
+ * 直接在 {@link ByteBuffer} 上按绝对下标解析 ASCII 文本（可以是直接缓冲区），逐行推进，不解码为字符串
+ */
+final class ProcScanner {
+
+    private ByteBuffer buf;
+    private int pos;
+    private int limit;
+    // 当前行结束位置（换行符下标或 limit）
+    private int lineEnd;
+
+    ProcScanner reset(ByteBuffer buffer) {
+        this.buf = buffer;
+        this.pos = buffer.position();
+        this.limit = buffer.limit();
+        this.lineEnd = findLineEnd(pos);
+        return this;
+    }
+
+    boolean hasLine() {
+        return pos < limit;
+    }
+
+    /**
+     * 移动到下一行行首
+     */
+    void nextLine() {
+        pos = Math.min(limit, lineEnd + 1);
+        lineEnd = findLineEnd(pos);
+    }
+
+    /**
+     * 当前位置是否以 token 开头（ASCII）
+     */
+    boolean startsWith(String token) {
+        if (lineEnd - pos < token.length()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (buf.get(pos + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 跳过 n 个字节
+     */
+    void skip(int n) {
+        pos = Math.min(lineEnd, pos + n);
+    }
+
+    /**
+     * 读取下一个以空白或 ':' 结束的词，行内没有时返回 null
+     */
+    String token() {
+        skipSpaces();
+        int start = pos;
+        while (pos < lineEnd && !isSpace(buf.get(pos)) && buf.get(pos) != ':') {
+            pos++;
+        }
+        if (pos == start) {
+            return null;
+        }
+        byte[] bytes = new byte[pos - start];
+        buf.get(start, bytes);
+        if (pos < lineEnd && buf.get(pos) == ':') {
+            pos++;
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 读取下一个非负整数，行内没有时返回 -1
+     */
+    long nextLong() {
+        skipSpacesAndColon();
+        if (pos >= lineEnd || !isDigit(buf.get(pos))) {
+            return -1;
+        }
+        long value = 0;
+        while (pos < lineEnd && isDigit(buf.get(pos))) {
+            value = value * 10 + (buf.get(pos) - '0');
+            pos++;
+        }
+        return value;
+    }
+
+    /**
+     * 读取下一个非负小数，行内没有时返回 NaN
+     */
+    double nextDecimal() {
+        skipSpacesAndColon();
+        if (pos >= lineEnd || !isDigit(buf.get(pos))) {
+            return Double.NaN;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        boolean fraction = false;
+        while (pos < lineEnd) {
+            byte b = buf.get(pos);
+            if (isDigit(b)) {
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction) {
+                    scale++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        return scale == 0 ? mantissa : mantissa / Math.pow(10, scale);
+    }
+
+    private void skipSpaces() {
+        while (pos < lineEnd && isSpace(buf.get(pos))) {
+            pos++;
+        }
+    }
+
+    private void skipSpacesAndColon() {
+        while (pos < lineEnd && (isSpace(buf.get(pos)) || buf.get(pos) == ':')) {
+            pos++;
+        }
+    }
+
+    private int findLineEnd(int from) {
+        for (int i = from; i < limit; i++) {
+            if (buf.get(i) == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,142 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /proc/stat CPU使用率计算器
+ * CPU时间是开机以来的累计节拍数，使用率按两次读取之间的差值计算；首次读取没有上一次读数，结果为开机以来的平均值
+ *
+ * <p>输出与 {@link TopCpuMetricCalculator} 同名的 cpu_usage / cpu_user_percent / cpu_system_percent / cpu_idle_percent，
+ * 另有 iowait、steal、每个核心的使用率（cpu 标签）以及上下文切换速率和运行/阻塞进程数
+ */
+public class ProcStatMetricCalculator extends ProcfsMetricCalculator {
+
+    // 节拍字段：user nice system idle iowait irq softirq steal（guest 已计入 user）
+    private static final int FIELDS = 8;
+    private static final int USER = 0;
+    private static final int NICE = 1;
+    private static final int SYSTEM = 2;
+    private static final int IDLE = 3;
+    private static final int IOWAIT = 4;
+    private static final int IRQ = 5;
+    private static final int SOFTIRQ = 6;
+    private static final int STEAL = 7;
+
+    // 是否输出每个核心的使用率
+    @Setter
+    private boolean perCore = true;
+
+    private final Map<String, CpuState> cpus = new HashMap<>();
+    private final long[] ticks = new long[FIELDS];
+    private long lastContextSwitches = -1;
+    private long lastNanoTime;
+
+    @Override
+    protected List<Metric> parse(ProcScanner scanner, long timestamp, long nanoTime) {
+        List<Metric> metrics = new ArrayList<>(perCore ? 16 : 8);
+        List<Metric> cores = perCore ? new ArrayList<>() : null;
+        long contextSwitches = -1;
+        long running = -1;
+        long blocked = -1;
+
+        for (; scanner.hasLine(); scanner.nextLine()) {
+            if (scanner.startsWith("cpu")) {
+                boolean total = scanner.startsWith("cpu ");
+                if (!total && !perCore) {
+                    continue;
+                }
+                String label = scanner.token();
+                for (int i = 0; i < FIELDS; i++) {
+                    long value = scanner.nextLong();
+                    ticks[i] = Math.max(0, value);
+                }
+                CpuState state = cpus.computeIfAbsent(label, l -> new CpuState());
+                state.update(ticks);
+                if (total) {
+                    metrics.add(sample("cpu_usage", state.usage, timestamp));
+                    metrics.add(sample("cpu_user_percent", state.user, timestamp));
+                    metrics.add(sample("cpu_system_percent", state.system, timestamp));
+                    metrics.add(sample("cpu_iowait_percent", state.iowait, timestamp));
+                    metrics.add(sample("cpu_steal_percent", state.steal, timestamp));
+                    metrics.add(sample("cpu_idle_percent", state.idle, timestamp));
+                } else {
+                    cores.add(sample("cpu_core_usage", state.usage, timestamp, Map.of("cpu", label.substring(3))));
+                }
+            } else if (scanner.startsWith("ctxt ")) {
+                scanner.skip(4);
+                contextSwitches = scanner.nextLong();
+            } else if (scanner.startsWith("procs_running ")) {
+                scanner.skip(13);
+                running = scanner.nextLong();
+            } else if (scanner.startsWith("procs_blocked ")) {
+                scanner.skip(13);
+                blocked = scanner.nextLong();
+            }
+        }
+        if (metrics.isEmpty()) {
+            throw new IllegalArgumentException("未找到cpu行，输出不是/proc/stat");
+        }
+        if (cores != null) {
+            metrics.addAll(cores);
+        }
+
+        if (contextSwitches >= 0) {
+            if (lastContextSwitches >= 0 && contextSwitches >= lastContextSwitches && nanoTime > lastNanoTime) {
+                double seconds = (nanoTime - lastNanoTime) / 1_000_000_000.0;
+                metrics.add(sample("context_switches_per_sec", (contextSwitches - lastContextSwitches) / seconds, timestamp));
+            }
+            lastContextSwitches = contextSwitches;
+        }
+        lastNanoTime = nanoTime;
+        if (running >= 0) {
+            metrics.add(sample("processes_running", running, timestamp));
+        }
+        if (blocked >= 0) {
+            metrics.add(sample("processes_blocked", blocked, timestamp));
+        }
+        return metrics;
+    }
+
+    /**
+     * 单个CPU（或汇总行）的上一次节拍读数和最近一次计算结果
+     */
+    private static final class CpuState {
+        private final long[] previous = new long[FIELDS];
+        private double usage;
+        private double user;
+        private double system;
+        private double iowait;
+        private double steal;
+        private double idle;
+
+        void update(long[] current) {
+            long total = 0;
+            for (int i = 0; i < FIELDS; i++) {
+                total += delta(current, i);
+            }
+            // 两次读取落在同一节拍内时沿用上一次结果
+            if (total <= 0) {
+                return;
+            }
+            double scale = 100.0 / total;
+            idle = delta(current, IDLE) * scale;
+            iowait = delta(current, IOWAIT) * scale;
+            user = (delta(current, USER) + delta(current, NICE)) * scale;
+            system = (delta(current, SYSTEM) + delta(current, IRQ) + delta(current, SOFTIRQ)) * scale;
+            steal = delta(current, STEAL) * scale;
+            usage = 100.0 - idle - iowait;
+            System.arraycopy(current, 0, previous, 0, FIELDS);
+        }
+
+        private long delta(long[] current, int field) {
+            // 计数回绕（如CPU下线后重新上线）时按0处理
+            return Math.max(0, current[field] - previous[field]);
+        }
+    }
+}
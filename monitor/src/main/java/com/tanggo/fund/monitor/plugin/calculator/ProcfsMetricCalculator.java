@@ -0,0 +1,67 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.StreamingMetricCalculator;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+import com.tanggo.fund.monitor.plugin.channel.ByteBufferInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /proc 文件计算器基类
+ * 配合 {@link com.tanggo.fund.monitor.plugin.channel.ProcfsMetricRetrievalChannel} 直接在通道的缓冲区上解析；
+ * 其他来源的输出（字符串或普通流）先转为堆缓冲区再解析
+ *
+ * <p>计数器类数据（CPU时间、网卡字节数、磁盘扇区数）由子类保存上一次读数，按两次读取之间的差值计算比率；
+ * 读数与计算器实例绑定，一个实例只应服务一台主机
+ */
+abstract class ProcfsMetricCalculator implements StreamingMetricCalculator {
+
+    private final ProcScanner scanner = new ProcScanner();
+
+    @Override
+    public Metric calculate(String content) {
+        return calculateAll(content).get(0);
+    }
+
+    @Override
+    public List<Metric> calculateAll(String content) {
+        return parse(ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Override
+    public List<Metric> calculateStream(InputStream output) throws IOException {
+        ByteBuffer buffer = output instanceof ByteBufferInputStream stream
+                ? stream.buffer()
+                : ByteBuffer.wrap(output.readAllBytes());
+        return parse(buffer);
+    }
+
+    private synchronized List<Metric> parse(ByteBuffer buffer) {
+        return parse(scanner.reset(buffer), EpochNanos.now(), System.nanoTime());
+    }
+
+    /**
+     * 解析一次读数
+     *
+     * @param scanner   位于文件开头的扫描器
+     * @param timestamp 指标时间戳（epoch纳秒）
+     * @param nanoTime  读取时刻的单调时钟，用于计算比率
+     * @return 本次读数产生的指标，第一个为主指标
+     */
+    protected abstract List<Metric> parse(ProcScanner scanner, long timestamp, long nanoTime);
+
+    protected static Metric sample(String name, double value, long timestamp) {
+        return sample(name, value, timestamp, null);
+    }
+
+    protected static Metric sample(String name, double value, long timestamp, Map<String, String> tags) {
+        return Metric.of(SeriesRegistry.global().resolve(name, tags), timestamp, value);
+    }
+}
@@ -0,0 +1,280 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.StreamingMetricCalculator;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Prometheus 文本格式（exposition format 0.0.4，兼容 OpenMetrics 文本）计算器
+ * 每个样本行输出为一个指标，标签原样转为指标标签；注释行（HELP/TYPE/EOF）跳过，
+ * 直方图和摘要按各自的 _bucket/_sum/_count 样本输出
+ *
+ * <p>时间戳：0.0.4 为整数毫秒，OpenMetrics 为秒（可带小数，如 {@code 1520879607.789}）。
+ * 带小数点或指数的按秒解析；整数绝对值小于 1e11 时按秒、否则按毫秒解析（1e11 毫秒对应 1973 年，1e11 秒远在未来）。
+ * OpenMetrics 样本行末尾的 exemplar（{@code # {trace_id="..."} 值 [时间戳]}）跳过
+ *
+ * <p>配合 {@link com.tanggo.fund.monitor.plugin.channel.RestMetricRetrievalChannel} 流式执行时边读边解析，
+ * 不缓冲完整响应；值为 NaN 的样本（如没有观测值的摘要分位数）不输出
+ */
+@Slf4j
+public class PrometheusTextMetricCalculator implements StreamingMetricCalculator {
+
+    private static final ThreadLocal<StreamLineReader> READER = ThreadLocal.withInitial(StreamLineReader::new);
+
+    // 小于该值的整数时间戳按秒解析
+    private static final long MAX_SECONDS_TIMESTAMP = 100_000_000_000L;
+
+    // 名称过滤结果缓存的最大条目数
+    private static final int MAX_FILTER_CACHE = 10_000;
+
+    // 只保留名称匹配该正则的样本，为空时全部保留
+    private Pattern include;
+
+    // 丢弃名称匹配该正则的样本
+    private Pattern exclude;
+
+    // 单次抓取的最大样本数，超出部分丢弃，防止目标暴露高基数序列
+    @Setter
+    private int maxSamples = 100_000;
+
+    private final Map<String, Boolean> filterCache = new ConcurrentHashMap<>();
+
+    public void setIncludeMetrics(String regex) {
+        include = regex == null || regex.isBlank() ? null : Pattern.compile(regex);
+        filterCache.clear();
+    }
+
+    public void setExcludeMetrics(String regex) {
+        exclude = regex == null || regex.isBlank() ? null : Pattern.compile(regex);
+        filterCache.clear();
+    }
+
+    @Override
+    public Metric calculate(String content) {
+        return calculateAll(content).get(0);
+    }
+
+    @Override
+    public List<Metric> calculateAll(String content) {
+        try {
+            return calculateStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 逐行解析，第一个样本为主指标；没有任何样本时按解析失败处理
+     */
+    @Override
+    public List<Metric> calculateStream(InputStream output) throws IOException {
+        long now = EpochNanos.now();
+        StreamLineReader reader = READER.get();
+        reader.reset(output);
+        List<Metric> metrics = new ArrayList<>();
+        // 标签只用于查找序列，登记时会复制，逐行复用同一个 Map
+        Map<String, String> tags = new HashMap<>(8);
+        int lineNumber = 0;
+        while (reader.next()) {
+            lineNumber++;
+            if (metrics.size() >= maxSamples) {
+                log.warn("样本数超过上限，丢弃剩余部分: maxSamples={}", maxSamples);
+                break;
+            }
+            Metric metric;
+            try {
+                metric = parseLine(reader.line(), now, tags);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Prometheus文本格式错误: line=" + lineNumber + ", " + e.getMessage(), e);
+            }
+            if (metric != null) {
+                metrics.add(metric);
+            }
+        }
+        if (metrics.isEmpty()) {
+            throw new IllegalArgumentException("输出中没有Prometheus样本");
+        }
+        return metrics;
+    }
+
+    /**
+     * 解析一行：{@code name{label="value",...} value [timestamp] [# exemplar]}
+     *
+     * @return 注释、空行、被过滤或值为 NaN 的样本返回 null
+     */
+    private Metric parseLine(CharSequence line, long now, Map<String, String> tags) {
+        int len = line.length();
+        int i = skipSpaces(line, 0, len);
+        if (i == len || line.charAt(i) == '#') {
+            return null;
+        }
+
+        int nameStart = i;
+        while (i < len && isNameChar(line.charAt(i))) {
+            i++;
+        }
+        if (i == nameStart) {
+            throw new IllegalArgumentException("缺少指标名");
+        }
+        String name = line.subSequence(nameStart, i).toString();
+
+        tags.clear();
+        if (i < len && line.charAt(i) == '{') {
+            i = parseLabels(line, i + 1, len, tags);
+        }
+
+        i = skipSpaces(line, i, len);
+        int valueStart = i;
+        while (i < len && !TextScan.isSpace(line.charAt(i))) {
+            i++;
+        }
+        if (i == valueStart) {
+            throw new IllegalArgumentException("缺少样本值: " + name);
+        }
+        double value = parseValue(line.subSequence(valueStart, i).toString());
+        if (Double.isNaN(value) || !accept(name)) {
+            return null;
+        }
+
+        long timestamp = now;
+        i = skipSpaces(line, i, len);
+        if (i < len && line.charAt(i) != '#') {
+            int tsEnd = i;
+            while (tsEnd < len && !TextScan.isSpace(line.charAt(tsEnd))) {
+                tsEnd++;
+            }
+            timestamp = parseTimestamp(line.subSequence(i, tsEnd).toString());
+        }
+
+        return Metric.of(SeriesRegistry.global().resolve(name, tags), timestamp, value);
+    }
+
+    /**
+     * 解析标签集合，返回 '}' 之后的位置
+     */
+    private static int parseLabels(CharSequence line, int i, int len, Map<String, String> tags) {
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            i = skipSpaces(line, i, len);
+            if (i >= len) {
+                throw new IllegalArgumentException("标签未闭合");
+            }
+            if (line.charAt(i) == '}') {
+                return i + 1;
+            }
+            int keyStart = i;
+            while (i < len && isNameChar(line.charAt(i))) {
+                i++;
+            }
+            if (i == keyStart) {
+                throw new IllegalArgumentException("缺少标签名");
+            }
+            String key = line.subSequence(keyStart, i).toString();
+            i = skipSpaces(line, i, len);
+            if (i >= len || line.charAt(i) != '=') {
+                throw new IllegalArgumentException("标签缺少'=': " + key);
+            }
+            i = skipSpaces(line, i + 1, len);
+            if (i >= len || line.charAt(i) != '"') {
+                throw new IllegalArgumentException("标签值缺少引号: " + key);
+            }
+            i++;
+            value.setLength(0);
+            boolean nonAscii = false;
+            while (true) {
+                if (i >= len) {
+                    throw new IllegalArgumentException("标签值未闭合: " + key);
+                }
+                char c = line.charAt(i++);
+                if (c == '"') {
+                    break;
+                }
+                if (c == '\\' && i < len) {
+                    char escaped = line.charAt(i++);
+                    c = escaped == 'n' ? '\n' : escaped;
+                }
+                nonAscii |= c > 0x7F;
+                value.append(c);
+            }
+            tags.put(key, nonAscii ? utf8(value) : value.toString());
+            i = skipSpaces(line, i, len);
+            if (i < len && line.charAt(i) == ',') {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 行内容按 ISO-8859-1 逐字节映射，含多字节字符的标签值按UTF-8还原
+     */
+    private static String utf8(CharSequence latin1) {
+        byte[] bytes = new byte[latin1.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) latin1.charAt(i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解析样本时间戳为 epoch 纳秒，见类注释中的秒/毫秒判定规则
+     */
+    private static long parseTimestamp(String token) {
+        if (token.indexOf('.') >= 0 || token.indexOf('e') >= 0 || token.indexOf('E') >= 0) {
+            return new BigDecimal(token).movePointRight(9).longValue();
+        }
+        long value = Long.parseLong(token);
+        return Math.abs(value) < MAX_SECONDS_TIMESTAMP ? value * 1_000_000_000L : EpochNanos.ofMillis(value);
+    }
+
+    private static double parseValue(String token) {
+        return switch (token) {
+            case "+Inf", "Inf" -> Double.POSITIVE_INFINITY;
+            case "-Inf" -> Double.NEGATIVE_INFINITY;
+            case "NaN" -> Double.NaN;
+            default -> Double.parseDouble(token);
+        };
+    }
+
+    private boolean accept(String name) {
+        if (include == null && exclude == null) {
+            return true;
+        }
+        Boolean cached = filterCache.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        boolean accepted = (include == null || include.matcher(name).matches())
+                && (exclude == null || !exclude.matcher(name).matches());
+        if (filterCache.size() < MAX_FILTER_CACHE) {
+            filterCache.put(name, accepted);
+        }
+        return accepted;
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == ':';
+    }
+
+    private static int skipSpaces(CharSequence line, int i, int len) {
+        while (i < len && TextScan.isSpace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
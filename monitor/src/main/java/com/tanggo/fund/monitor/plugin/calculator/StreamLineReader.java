@@ -0,0 +1,57 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 从字节流逐行读取，行内容放在复用的缓冲中
+ * 字节按 ISO-8859-1 映射为字符：top/free 的表头都是ASCII，进程名中的多字节字符不参与解析
+ */
+final class StreamLineReader {
+
+    private final byte[] buffer = new byte[8192];
+    private final StringBuilder line = new StringBuilder(256);
+
+    private InputStream in;
+    private int position;
+    private int limit;
+
+    void reset(InputStream in) {
+        this.in = in;
+        this.position = 0;
+        this.limit = 0;
+        this.line.setLength(0);
+    }
+
+    /**
+     * 读取下一行（不含换行符）
+     *
+     * @return 流已结束且没有剩余内容时返回 false
+     */
+    boolean next() throws IOException {
+        line.setLength(0);
+        boolean any = false;
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return any;
+                }
+            }
+            any = true;
+            while (position < limit) {
+                byte b = buffer[position++];
+                if (b == '\n') {
+                    return true;
+                }
+                line.append((char) (b & 0xFF));
+            }
+        }
+    }
+
+    CharSequence line() {
+        return line;
+    }
+}
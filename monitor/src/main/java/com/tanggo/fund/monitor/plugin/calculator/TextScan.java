@@ -0,0 +1,126 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+/**
+ * 命令输出扫描工具
+ * 直接在 {@link CharSequence} 的区间上查找和解析数值，不切分字符串、不使用正则
+ *
+ * <p>字符类与原正则保持一致：空白对应 {@code \s}，十进制数对应 {@code [\d.]+}
+ */
+final class TextScan {
+
+    // 2^53，尾数不超过该值时可精确表示为double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    // 10^0 ~ 10^22 均可精确表示为double
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        double p = 1.0;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = p;
+            p *= 10.0;
+        }
+    }
+
+    private TextScan() {
+    }
+
+    /**
+     * 正则 {@code \s} 对应的空白字符
+     */
+    static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isDecimalChar(char c) {
+        return (c >= '0' && c <= '9') || c == '.';
+    }
+
+    /**
+     * 行结束位置（换行符下标或文本长度）
+     */
+    static int lineEnd(CharSequence s, int from) {
+        int len = s.length();
+        for (int i = from; i < len; i++) {
+            if (s.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * 在 [from, to) 中查找 token，返回下标，未找到返回 -1
+     */
+    static int indexOf(CharSequence s, String token, int from, int to) {
+        int last = to - token.length();
+        char first = token.charAt(0);
+        for (int i = from; i <= last; i++) {
+            if (s.charAt(i) == first && regionMatches(s, i, to, token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * [at, to) 是否以 token 开头
+     */
+    static boolean regionMatches(CharSequence s, int at, int to, String token) {
+        if (to - at < token.length()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (s.charAt(at + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析 [from, to) 区间内的 {@code [\d.]+} 文本，结果与 {@link Double#parseDouble} 一致
+     *
+     * <p>尾数不超过 2^53 且小数位不超过 22 时，尾数和 10 的幂都能精确表示，
+     * 一次 IEEE 除法即得到正确舍入的结果；其余情况回退到 {@link Double#parseDouble}
+     *
+     * @throws NumberFormatException 没有数字或出现多个小数点
+     */
+    static double parseDecimal(CharSequence s, int from, int to) {
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        boolean digits = false;
+        boolean exact = true;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                if (point) {
+                    throw new NumberFormatException("multiple points: " + s.subSequence(from, to));
+                }
+                point = true;
+                continue;
+            }
+            digits = true;
+            if (point) {
+                fractionDigits++;
+            }
+            if (mantissa > (MAX_EXACT_MANTISSA - 9) / 10) {
+                exact = false;
+            } else {
+                mantissa = mantissa * 10 + (c - '0');
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("no digits: " + s.subSequence(from, to));
+        }
+        if (exact && fractionDigits < POWERS_OF_TEN.length) {
+            return mantissa / POWERS_OF_TEN[fractionDigits];
+        }
+        return Double.parseDouble(s.subSequence(from, to).toString());
+    }
+}
@@ -1,136 +1,87 @@
 package com.tanggo.fund.monitor.plugin.calculator;
 
 import com.tanggo.fund.monitor.core.entity.Metric;
-import com.tanggo.fund.monitor.core.extension.MetricCalculator;
+import com.tanggo.fund.monitor.core.extension.StreamingMetricCalculator;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
 import lombok.extern.slf4j.Slf4j;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Top命令CPU使用率解析器
  * 解析top命令输出，提取CPU使用率指标
+ *
+ * <p>解析由 {@link TopOutputParser} 单遍扫描完成，每个采集线程复用一个解析器实例；
+ * 通过通道流式执行时只读取到所需的表头行为止
  */
 @Slf4j
-public class TopCpuMetricCalculator implements MetricCalculator {
+public class TopCpuMetricCalculator implements StreamingMetricCalculator {
+
+    private static final ThreadLocal<TopOutputParser> PARSER = ThreadLocal.withInitial(TopOutputParser::new);
 
     @Override
     public Metric calculate(String topOutput) {
+        return calculateAll(topOutput).get(0);
+    }
+
+    /**
+     * 每个解析出的数值输出为独立指标，同一次解析共享时间戳，cpu_usage 为主指标
+     */
+    @Override
+    public List<Metric> calculateAll(String topOutput) {
+        long now = EpochNanos.now();
         try {
             log.debug("解析top命令输出: {}", topOutput);
-            Map<String, Double> metrics = parseTopOutput(topOutput);
-
-            Metric metric = new Metric();
-            metric.setMetricName("cpu_usage");
-            metric.setMetricValue(metrics.getOrDefault("cpu_usage_percent", 0.0));
-            metric.setTimestamp(LocalDateTime.now());
-
-            Map<String, String> tags = new HashMap<>();
-            metrics.forEach((key, value) -> tags.put(key, String.format("%.2f", value)));
-            metric.setTags(tags);
-
-            log.info("解析成功，CPU使用率: {}%", metrics.get("cpu_usage_percent"));
-            return metric;
+            TopOutputParser parser = PARSER.get();
+            parser.parse(topOutput);
+            return metrics(parser, now);
         } catch (Exception e) {
+            // 错误信息只记日志，不写入标签，避免产生高基数序列
             log.error("解析top输出失败: {}", e.getMessage(), e);
-
-            Metric metric = new Metric();
-            metric.setMetricName("cpu_usage");
-            metric.setMetricValue(-1);
-            metric.setTimestamp(LocalDateTime.now());
-
-            Map<String, String> tags = new HashMap<>();
-            tags.put("error", e.getMessage());
-            metric.setTags(tags);
-
-            return metric;
+            return List.of(sample("cpu_usage", -1, now));
         }
     }
 
     /**
-     * 解析top命令输出
-     * 从top输出中提取CPU使用率等指标
-     *
-     * @param topOutput top命令的标准输出
-     * @return 包含指标数据的Map
+     * 流式解析，CPU行和内存行读到后即返回；读取失败向上抛出，由通道按执行失败处理
      */
-    private Map<String, Double> parseTopOutput(String topOutput) {
-        Map<String, Double> metrics = new HashMap<>();
-
-        String[] lines = topOutput.split("\n");
-
-        for (String line : lines) {
-            // 查找包含CPU信息的行
-            if (line.contains("%Cpu")) {
-                // 示例: %Cpu(s): 12.5 us, 8.3 sy, 0.0 ni, 78.9 id, 0.3 wa, 0.0 hi, 0.0 si, 0.0 st
-                double userCpu = extractValue(line, "us");
-                double sysCpu = extractValue(line, "sy");
-                double idleCpu = extractValue(line, "id");
-
-                double totalCpu = userCpu + sysCpu;
-                metrics.put("cpu_usage_percent", totalCpu);
-                metrics.put("cpu_user_percent", userCpu);
-                metrics.put("cpu_system_percent", sysCpu);
-                metrics.put("cpu_idle_percent", idleCpu);
-            }
-
-            // 查找包含内存信息的行
-            if (line.contains("KiB Mem")) {
-                // 示例: KiB Mem : 16384000 total, 8192000 free, 5120000 used, 3072000 buff/cache
-                double totalMem = extractMemValue(line, "total");
-                double usedMem = extractMemValue(line, "used");
-
-                double memUsagePercent = (usedMem / totalMem) * 100;
-                metrics.put("memory_usage_percent", memUsagePercent);
-                metrics.put("memory_total_kb", totalMem);
-                metrics.put("memory_used_kb", usedMem);
-            }
+    @Override
+    public List<Metric> calculateStream(InputStream topOutput) throws IOException {
+        long now = EpochNanos.now();
+        TopOutputParser parser = PARSER.get();
+        try {
+            parser.parse(topOutput);
+        } catch (RuntimeException e) {
+            log.error("解析top输出失败: {}", e.getMessage(), e);
+            return List.of(sample("cpu_usage", -1, now));
         }
+        return metrics(parser, now);
+    }
 
-        // 如果没有找到CPU信息，尝试解析其他格式
-        if (!metrics.containsKey("cpu_usage_percent")) {
-            metrics.put("cpu_usage_percent", 0.0);
+    private List<Metric> metrics(TopOutputParser parser, long now) {
+        List<Metric> metrics = new ArrayList<>(7);
+        // 没有找到CPU信息时主指标为0
+        metrics.add(sample("cpu_usage", parser.cpuFound ? parser.cpuUser + parser.cpuSystem : 0.0, now));
+        if (parser.cpuFound) {
+            metrics.add(sample("cpu_user_percent", parser.cpuUser, now));
+            metrics.add(sample("cpu_system_percent", parser.cpuSystem, now));
+            metrics.add(sample("cpu_idle_percent", parser.cpuIdle, now));
+        }
+        if (parser.memoryFound) {
+            metrics.add(sample("memory_usage_percent", parser.memoryUsagePercent, now));
+            metrics.add(sample("memory_total_kb", parser.memoryTotalKb, now));
+            metrics.add(sample("memory_used_kb", parser.memoryUsedKb, now));
         }
 
+        log.debug("解析成功，CPU使用率: {}%", metrics.get(0).getMetricValue());
         return metrics;
     }
 
-    /**
-     * 提取CPU指标值
-     *
-     * @param line 包含CPU数据的行
-     * @param key 指标键（如: us, sy, id）
-     * @return 提取到的数值
-     */
-    private double extractValue(String line, String key) {
-        // 使用正则表达式匹配 "12.5 us" 类型的模式
-        Pattern pattern = Pattern.compile("([\\d.]+)\\s+" + key);
-        Matcher matcher = pattern.matcher(line);
-
-        if (matcher.find()) {
-            return Double.parseDouble(matcher.group(1));
-        }
-        return 0.0;
-    }
-
-    /**
-     * 提取内存指标值
-     *
-     * @param line 包含内存数据的行
-     * @param key 指标键（如: total, used, free）
-     * @return 提取到的数值（KB）
-     */
-    private double extractMemValue(String line, String key) {
-        // 使用正则表达式匹配 "16384000 total" 类型的模式
-        Pattern pattern = Pattern.compile("(\\d+)\\s+" + key);
-        Matcher matcher = pattern.matcher(line);
-
-        if (matcher.find()) {
-            return Double.parseDouble(matcher.group(1));
-        }
-        return 0.0;
+    private Metric sample(String name, double value, long timestamp) {
+        return Metric.of(SeriesRegistry.global().resolve(name, null), timestamp, value);
     }
 }
@@ -0,0 +1,199 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.indexOf;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.isDecimalChar;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.isDigit;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.isSpace;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.lineEnd;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.parseDecimal;
+import static com.tanggo.fund.monitor.plugin.calculator.TextScan.regionMatches;
+
+/**
+ * top 输出解析器
+ * 单遍扫描输出文本，结果写入实例字段，实例可重复使用（非线程安全）
+ *
+ * <p>CPU行：{@code %Cpu(s): 12.5 us,  8.3 sy,  0.0 ni, 78.9 id, ...}，取每个键之前的第一个数值
+ * <p>内存行：procps 的 {@code KiB Mem : 16384000 total, ...} 以及 procps-ng 按单位缩放后的
+ * {@code MiB Mem :  15890.1 total, ...}（GiB/TiB等同理），统一换算为KiB
+ */
+final class TopOutputParser {
+
+    private static final String CPU_MARKER = "%Cpu";
+    private static final String MEM_MARKER = "iB Mem";
+    private static final String MEM_UNITS = "KMGTPE";
+
+    // CPU行
+    boolean cpuFound;
+    double cpuUser;
+    double cpuSystem;
+    double cpuIdle;
+
+    // 内存行
+    boolean memoryFound;
+    double memoryTotalKb;
+    double memoryUsedKb;
+    double memoryUsagePercent;
+
+    private final StreamLineReader lines = new StreamLineReader();
+
+    /**
+     * 解析一次 top 输出，覆盖上一次的结果
+     *
+     * @throws NumberFormatException 数值格式错误
+     */
+    void parse(CharSequence output) {
+        reset();
+        int len = output.length();
+        int from = 0;
+        while (from <= len) {
+            int to = lineEnd(output, from);
+            acceptLine(output, from, to);
+            from = to + 1;
+        }
+    }
+
+    /**
+     * 逐行读取 top 输出，CPU行和内存行都已解析后立即返回，不再读取后面的进程列表
+     * （top 先输出全部 %Cpu 行再输出内存行，提前结束不影响结果）
+     *
+     * @throws NumberFormatException 数值格式错误
+     */
+    void parse(InputStream output) throws IOException {
+        reset();
+        lines.reset(output);
+        while (lines.next()) {
+            CharSequence line = lines.line();
+            acceptLine(line, 0, line.length());
+            if (cpuFound && memoryFound) {
+                return;
+            }
+        }
+    }
+
+    private void reset() {
+        cpuFound = false;
+        memoryFound = false;
+    }
+
+    private void acceptLine(CharSequence s, int from, int to) {
+        if (indexOf(s, CPU_MARKER, from, to) >= 0) {
+            parseCpuLine(s, from, to);
+        }
+        int unit = memoryUnit(s, from, to);
+        if (unit >= 0) {
+            parseMemoryLine(s, from, to, unit);
+        }
+    }
+
+    /**
+     * 内存行的单位：0=KiB，1=MiB，2=GiB...；不是内存行返回 -1
+     */
+    private static int memoryUnit(CharSequence s, int from, int to) {
+        int at = indexOf(s, MEM_MARKER, from, to);
+        while (at >= 0) {
+            if (at > from) {
+                int unit = MEM_UNITS.indexOf(s.charAt(at - 1));
+                if (unit >= 0) {
+                    return unit;
+                }
+            }
+            at = indexOf(s, MEM_MARKER, at + 1, to);
+        }
+        return -1;
+    }
+
+    /**
+     * 每个键取第一个"数值 + 空白 + 键"，缺失的键为0
+     */
+    private void parseCpuLine(CharSequence s, int from, int to) {
+        double us = 0.0;
+        double sy = 0.0;
+        double id = 0.0;
+        boolean usFound = false;
+        boolean syFound = false;
+        boolean idFound = false;
+
+        int i = from;
+        while (i < to) {
+            if (!isDecimalChar(s.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < to && isDecimalChar(s.charAt(i))) {
+                i++;
+            }
+            int end = i;
+            int key = end;
+            while (key < to && isSpace(s.charAt(key))) {
+                key++;
+            }
+            if (key == end) {
+                continue;
+            }
+            if (!usFound && regionMatches(s, key, to, "us")) {
+                us = parseDecimal(s, start, end);
+                usFound = true;
+            } else if (!syFound && regionMatches(s, key, to, "sy")) {
+                sy = parseDecimal(s, start, end);
+                syFound = true;
+            } else if (!idFound && regionMatches(s, key, to, "id")) {
+                id = parseDecimal(s, start, end);
+                idFound = true;
+            }
+        }
+
+        cpuFound = true;
+        cpuUser = us;
+        cpuSystem = sy;
+        cpuIdle = id;
+    }
+
+    /**
+     * KiB 行只取整数部分（与旧实现一致），其他单位取带小数的数值并换算为KiB
+     */
+    private void parseMemoryLine(CharSequence s, int from, int to, int unit) {
+        boolean kib = unit == 0;
+        double total = 0.0;
+        double used = 0.0;
+        boolean totalFound = false;
+        boolean usedFound = false;
+
+        int i = from;
+        while (i < to) {
+            char c = s.charAt(i);
+            if (!(kib ? isDigit(c) : isDecimalChar(c))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < to && (kib ? isDigit(s.charAt(i)) : isDecimalChar(s.charAt(i)))) {
+                i++;
+            }
+            int end = i;
+            int key = end;
+            while (key < to && isSpace(s.charAt(key))) {
+                key++;
+            }
+            if (key == end) {
+                continue;
+            }
+            if (!totalFound && regionMatches(s, key, to, "total")) {
+                total = parseDecimal(s, start, end);
+                totalFound = true;
+            } else if (!usedFound && regionMatches(s, key, to, "used")) {
+                used = parseDecimal(s, start, end);
+                usedFound = true;
+            }
+        }
+
+        double scale = Math.pow(1024, unit);
+        memoryFound = true;
+        memoryUsagePercent = (used / total) * 100;
+        memoryTotalKb = total * scale;
+        memoryUsedKb = used * scale;
+    }
+}
@@ -0,0 +1,66 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 非阻塞的并发许可
+ * 许可不足时 {@link #acquire()} 返回未完成的 future，由释放许可的线程按先来先得的顺序完成，等待期间不占用线程
+ */
+final class AsyncPermits {
+
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int available;
+
+    AsyncPermits(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("许可数必须大于0: " + permits);
+        }
+        this.available = permits;
+    }
+
+    /**
+     * 获取一个许可
+     *
+     * @return 获得许可时完成；调用方取消 future 时放弃排队
+     */
+    CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+
+    /**
+     * 归还许可：有排队者时直接转交，排队者的后续动作在当前线程执行
+     */
+    void release() {
+        while (true) {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    available++;
+                    return;
+                }
+            }
+            // 已取消的排队者不接收许可，继续转交下一个
+            if (next.complete(null)) {
+                return;
+            }
+        }
+    }
+
+    synchronized int getAvailable() {
+        return available;
+    }
+
+    synchronized int getWaiting() {
+        return waiters.size();
+    }
+}
@@ -0,0 +1,57 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 基于 {@link ByteBuffer} 的输入流
+ * 通道把读入缓冲区的输出直接交给计算器，能识别该类型的计算器可通过 {@link #buffer()} 绕过流接口按下标解析
+ */
+public final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * @param buffer position 到 limit 之间为输出内容
+     */
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 未读取部分的只读视图
+     */
+    public ByteBuffer buffer() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.min(Math.max(n, 0), buffer.remaining());
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+}
@@ -0,0 +1,121 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 只输出完整行的输入流
+ * 从底层流最多读取 limit 个字节，只把最后一个换行符之前（含换行符）的内容交给调用方；
+ * 末尾没有换行符的半行（写入方尚未写完）被扣留，不计入 {@link #getDelivered()}，下次从该位置重新读取
+ */
+final class CompleteLinesInputStream extends InputStream {
+
+    private final InputStream in;
+    private long remaining;
+
+    private byte[] buffer = new byte[64 << 10];
+    // [start, releasable) 为可交付的完整行，[releasable, end) 为尚未见到换行符的内容
+    private int start;
+    private int releasable;
+    private int end;
+    private boolean eof;
+
+    private long delivered;
+
+    CompleteLinesInputStream(InputStream in, long limit) {
+        this.in = in;
+        this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        delivered++;
+        return buffer[start++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, releasable - start);
+        System.arraycopy(buffer, start, b, off, n);
+        start += n;
+        delivered += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return releasable - start;
+    }
+
+    /**
+     * 确保有可交付的字节
+     *
+     * @return 已读到上限或底层流结束且没有完整行时返回 false
+     */
+    private boolean fill() throws IOException {
+        while (start == releasable) {
+            if (eof) {
+                return false;
+            }
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                releasable = 0;
+                start = 0;
+            }
+            if (end == buffer.length) {
+                // 单行超过缓冲区，扩容
+                byte[] larger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, larger, 0, end);
+                buffer = larger;
+            }
+            if (remaining == 0) {
+                eof = true;
+                return false;
+            }
+            int n = in.read(buffer, end, (int) Math.min(buffer.length - end, remaining));
+            if (n < 0) {
+                eof = true;
+                return false;
+            }
+            int scanFrom = end;
+            end += n;
+            remaining -= n;
+            for (int i = end - 1; i >= scanFrom; i--) {
+                if (buffer[i] == '\n') {
+                    releasable = i + 1;
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 已交付给调用方的字节数
+     */
+    long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * 是否已读满上限
+     */
+    boolean isLimitReached() {
+        return remaining == 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
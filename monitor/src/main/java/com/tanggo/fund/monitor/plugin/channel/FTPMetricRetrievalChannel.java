@@ -3,17 +3,272 @@ package com.tanggo.fund.monitor.plugin.channel;
 import com.tanggo.fund.monitor.core.extension.MetricRetrievalChannel;
 import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
 import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FTP文件增量读取通道
+ * 命令为远端文件路径（如 /data/metrics/app.csv），每次只下载上次读取位置之后新追加的内容，类似 {@code tail -f}
+ *
+ * <p>读取过程：SIZE 获取当前文件大小，REST 设置续传位置，RETR 只传输新增字节；
+ * 新增内容末尾不完整的半行不交给计算器，读取位置停在最后一个换行符之后，下次与后续内容一起读取。
+ * 文件变小视为被截断或轮转，从头开始读取（大小相同的轮转无法识别）
+ *
+ * <p>读取位置按 主机/用户/路径 记录在内存中，配置 offsetFile 后同时持久化，重启后继续读取。
+ * 流式执行时计算器返回后才推进读取位置，解析失败的内容下次重读；非流式执行取回内容即推进
+ *
+ * <p>通道扩展属性：host、port（默认21）、username、password
+ */
+@Slf4j
 public class FTPMetricRetrievalChannel implements MetricRetrievalChannel {
 
+    @Getter
+    @Setter
+    private FtpClientPool clientPool = new FtpClientPool();
+
+    // 单次读取的最大字节数，积压较多时分多个周期读完
+    @Setter
+    private long maxReadBytes = 8L << 20;
+
+    // 首次读取某个文件时是否跳过已有内容，只读取之后追加的部分
+    @Setter
+    private boolean startAtEnd = false;
+
+    // 读取位置持久化文件，为空时只保存在内存中
+    @Setter
+    private String offsetFile;
+
+    private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+    private volatile boolean offsetsLoaded;
+
+    // 兼容 connect + execute(CommandMeta) 的调用方式，记录当前线程最近连接的通道
+    private final ThreadLocal<ChannelMeta> connectedChannel = new ThreadLocal<>();
+
+    // 统计信息
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong truncatedCount = new AtomicLong();
 
     @Override
     public void connect(ChannelMeta channelMeta) {
-
+        // 预热/校验池化连接
+        clientPool.acquire(clientKey(channelMeta), password(channelMeta)).close();
+        connectedChannel.set(channelMeta);
     }
 
     @Override
     public String execute(CommandMeta cmd) {
-        return "";
+        ChannelMeta channelMeta = connectedChannel.get();
+        if (channelMeta == null) {
+            throw new RuntimeException("FTP连接未建立");
+        }
+        return execute(channelMeta, cmd);
+    }
+
+    /**
+     * 返回新增的完整行，没有新内容时返回空字符串
+     */
+    @Override
+    public String execute(ChannelMeta channelMeta, CommandMeta cmd) {
+        return tail(channelMeta, cmd, in -> new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 流式执行：数据连接上的新增内容直接交给 reader，没有新内容时 reader 收到空流
+     */
+    @Override
+    public <T> T executeStreaming(ChannelMeta channelMeta, CommandMeta cmd, OutputReader<T> reader) {
+        return tail(channelMeta, cmd, reader);
+    }
+
+    private <T> T tail(ChannelMeta channelMeta, CommandMeta cmd, OutputReader<T> reader) {
+        String path = cmd.getCommand();
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("FTP文件路径不能为空");
+        }
+        path = path.trim();
+        loadOffsets();
+
+        FtpClientPool.ClientKey key = clientKey(channelMeta);
+        String offsetKey = key + path;
+        try (FtpClientPool.Lease lease = clientPool.acquire(key, password(channelMeta))) {
+            FTPClient client = lease.getClient();
+            try {
+                long size = size(client, path);
+                Long known = offsets.get(offsetKey);
+                long offset;
+                if (known == null) {
+                    offset = startAtEnd ? size : 0;
+                } else if (size < known) {
+                    truncatedCount.incrementAndGet();
+                    log.info("远端文件变小，从头读取: {}{}, offset={}, size={}", key, path, known, size);
+                    offset = 0;
+                } else {
+                    offset = known;
+                }
+
+                if (size <= offset) {
+                    T result = reader.read(InputStream.nullInputStream());
+                    saveOffset(offsetKey, known, offset);
+                    return result;
+                }
+
+                long length = Math.min(size - offset, maxReadBytes);
+                client.setRestartOffset(offset);
+                InputStream data = client.retrieveFileStream(path);
+                if (data == null) {
+                    throw new IOException("下载失败: " + client.getReplyString().trim());
+                }
+                T result;
+                CompleteLinesInputStream lines = new CompleteLinesInputStream(data, length);
+                try (lines) {
+                    result = reader.read(lines);
+                }
+                // 读满上限后提前关闭数据连接，服务端可能回复传输中止，此时控制连接不再复用
+                if (!client.completePendingCommand()) {
+                    log.debug("传输未正常结束: {}{}, reply={}", key, path, client.getReplyString().trim());
+                    lease.invalidate();
+                }
+                if (lines.getDelivered() == 0 && lines.isLimitReached()) {
+                    throw new IllegalStateException("单行超过读取上限: " + path + ", maxReadBytes=" + maxReadBytes);
+                }
+                bytesRead.addAndGet(lines.getDelivered());
+                saveOffset(offsetKey, known, offset + lines.getDelivered());
+                return result;
+            } catch (IOException e) {
+                lease.invalidate();
+                throw new UncheckedIOException("FTP读取失败: " + key + path, e);
+            } catch (RuntimeException e) {
+                // 传输中途失败时控制连接状态不确定
+                lease.invalidate();
+                throw e;
+            }
+        }
+    }
+
+    private static long size(FTPClient client, String path) throws IOException {
+        String size = client.getSize(path);
+        if (size != null) {
+            return Long.parseLong(size.trim());
+        }
+        // 服务端不支持SIZE时退回MLST
+        FTPFile file = client.mlistFile(path);
+        if (file != null && file.getSize() >= 0) {
+            return file.getSize();
+        }
+        throw new IOException("无法获取文件大小: " + path + ", reply=" + client.getReplyString().trim());
+    }
+
+    /**
+     * 清除某个文件的读取位置，下次从头（或按 startAtEnd 从末尾）读取
+     */
+    public void resetOffset(ChannelMeta channelMeta, String path) {
+        loadOffsets();
+        if (offsets.remove(clientKey(channelMeta) + path.trim()) != null) {
+            persistOffsets();
+        }
+    }
+
+    private void saveOffset(String offsetKey, Long previous, long offset) {
+        if (previous != null && previous == offset) {
+            return;
+        }
+        offsets.put(offsetKey, offset);
+        persistOffsets();
+    }
+
+    private void loadOffsets() {
+        if (offsetsLoaded) {
+            return;
+        }
+        synchronized (offsets) {
+            if (offsetsLoaded) {
+                return;
+            }
+            if (offsetFile != null && Files.exists(Path.of(offsetFile))) {
+                Properties properties = new Properties();
+                try (InputStream in = Files.newInputStream(Path.of(offsetFile))) {
+                    properties.load(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("读取FTP读取位置文件失败: " + offsetFile, e);
+                }
+                properties.forEach((k, v) -> offsets.put(k.toString(), Long.parseLong(v.toString())));
+                log.info("已加载FTP读取位置: file={}, size={}", offsetFile, offsets.size());
+            }
+            offsetsLoaded = true;
+        }
+    }
+
+    /**
+     * 整体写入临时文件后原子替换，崩溃时不会留下半个文件
+     */
+    private void persistOffsets() {
+        if (offsetFile == null) {
+            return;
+        }
+        synchronized (offsets) {
+            Path target = Path.of(offsetFile);
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            Properties properties = new Properties();
+            offsets.forEach((k, v) -> properties.setProperty(k, Long.toString(v)));
+            try {
+                if (target.getParent() != null) {
+                    Files.createDirectories(target.getParent());
+                }
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    properties.store(out, "FTP tail offsets");
+                }
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("保存FTP读取位置失败: " + offsetFile, e);
+            }
+        }
+    }
+
+    public void disconnect() {
+        clientPool.close();
+        log.info("FTP连接已断开");
+    }
+
+    /**
+     * 已交给计算器的字节数
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * 检测到文件被截断或轮转的次数
+     */
+    public long getTruncatedCount() {
+        return truncatedCount.get();
+    }
+
+    private FtpClientPool.ClientKey clientKey(ChannelMeta channelMeta) {
+        Map<String, Object> extensions = channelMeta.getExtensions();
+        String host = (String) extensions.get("host");
+        Object portObj = extensions.getOrDefault("port", 21);
+        int port = portObj instanceof Number ? ((Number) portObj).intValue() : Integer.parseInt(portObj.toString());
+        String username = (String) extensions.getOrDefault("username", "anonymous");
+        return new FtpClientPool.ClientKey(host, port, username);
+    }
+
+    private String password(ChannelMeta channelMeta) {
+        return (String) channelMeta.getExtensions().getOrDefault("password", "");
     }
 }
@@ -0,0 +1,273 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import lombok.Setter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FTP控制连接池
+ * 按 host/port/username 缓存已登录的控制连接，避免每次采集都重新建立TCP连接和登录
+ *
+ * <p>FTP控制连接同一时刻只能执行一个传输，因此连接按租约独占借出，归还后放回空闲队列；
+ * 空闲超过 healthCheckIntervalMillis 的连接借出前发送 NOOP 校验，超过 idleTimeoutMillis 的连接在借出或归还时关闭
+ */
+@Slf4j
+public class FtpClientPool implements AutoCloseable {
+
+    // 建立控制连接的超时时间（毫秒）
+    @Setter
+    private int connectTimeoutMillis = 30_000;
+
+    // 数据连接读取超时（毫秒）
+    @Setter
+    private int dataTimeoutMillis = 60_000;
+
+    // 每个主机保留的最大空闲连接数
+    @Setter
+    private int maxIdlePerHost = 4;
+
+    // 空闲连接关闭阈值（毫秒）
+    @Setter
+    private long idleTimeoutMillis = 300_000;
+
+    // 空闲超过该时长的连接在借出前需要健康检查（毫秒）
+    @Setter
+    private long healthCheckIntervalMillis = 30_000;
+
+    // 是否使用被动模式，采集端在NAT之后时需要
+    @Setter
+    private boolean passiveMode = true;
+
+    private final Map<ClientKey, Deque<PooledClient>> idle = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong loginCount = new AtomicLong();
+    private final AtomicLong loginFailureCount = new AtomicLong();
+    private final AtomicLong reuseCount = new AtomicLong();
+    private final AtomicLong healthCheckFailureCount = new AtomicLong();
+
+    /**
+     * 借出一个已登录的连接，使用完毕后必须关闭租约
+     *
+     * @param key      连接键
+     * @param password 登录密码
+     * @return 连接租约
+     */
+    public Lease acquire(ClientKey key, String password) {
+        Deque<PooledClient> queue = idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+        long now = System.currentTimeMillis();
+        while (true) {
+            PooledClient pooled;
+            synchronized (queue) {
+                pooled = queue.pollFirst();
+            }
+            if (pooled == null) {
+                return new Lease(this, key, login(key, password));
+            }
+            long idleMillis = now - pooled.lastUsedMillis;
+            if (idleMillis >= idleTimeoutMillis || !pooled.client.isConnected()) {
+                disconnect(pooled.client);
+                continue;
+            }
+            if (idleMillis >= healthCheckIntervalMillis && !isAlive(key, pooled.client)) {
+                disconnect(pooled.client);
+                continue;
+            }
+            reuseCount.incrementAndGet();
+            return new Lease(this, key, pooled.client);
+        }
+    }
+
+    private void release(ClientKey key, FTPClient client) {
+        Deque<PooledClient> queue = idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+        long now = System.currentTimeMillis();
+        synchronized (queue) {
+            // 顺带清理空闲过久的连接，队列尾部最旧
+            Iterator<PooledClient> it = queue.descendingIterator();
+            while (it.hasNext()) {
+                PooledClient oldest = it.next();
+                if (now - oldest.lastUsedMillis < idleTimeoutMillis) {
+                    break;
+                }
+                it.remove();
+                disconnect(oldest.client);
+            }
+            if (queue.size() < maxIdlePerHost) {
+                queue.addFirst(new PooledClient(client, now));
+                return;
+            }
+        }
+        disconnect(client);
+    }
+
+    private FTPClient login(ClientKey key, String password) {
+        FTPClient client = new FTPClient();
+        client.setConnectTimeout(connectTimeoutMillis);
+        client.setDataTimeout(Duration.ofMillis(dataTimeoutMillis));
+        try {
+            client.connect(key.getHost(), key.getPort());
+            if (!FTPReply.isPositiveCompletion(client.getReplyCode())) {
+                throw new IOException("FTP服务拒绝连接: " + client.getReplyString().trim());
+            }
+            if (!client.login(key.getUsername(), password)) {
+                throw new IOException("FTP登录失败: " + client.getReplyString().trim());
+            }
+            client.setFileType(FTP.BINARY_FILE_TYPE);
+            if (passiveMode) {
+                client.enterLocalPassiveMode();
+            }
+            loginCount.incrementAndGet();
+            log.info("FTP连接成功: {}", key);
+            return client;
+        } catch (IOException e) {
+            loginFailureCount.incrementAndGet();
+            disconnect(client);
+            log.error("FTP连接失败: {}, error={}", key, e.getMessage());
+            throw new RuntimeException("FTP连接失败: " + key, e);
+        }
+    }
+
+    private boolean isAlive(ClientKey key, FTPClient client) {
+        try {
+            if (client.sendNoOp()) {
+                return true;
+            }
+        } catch (IOException e) {
+            log.debug("FTP连接健康检查异常: {}", key, e);
+        }
+        healthCheckFailureCount.incrementAndGet();
+        log.warn("FTP连接健康检查失败，重新连接: {}", key);
+        return false;
+    }
+
+    private static void disconnect(FTPClient client) {
+        if (!client.isConnected()) {
+            return;
+        }
+        try {
+            client.logout();
+        } catch (IOException ignored) {
+            // 连接可能已断开
+        }
+        try {
+            client.disconnect();
+        } catch (IOException ignored) {
+            // 忽略
+        }
+    }
+
+    /**
+     * 关闭全部空闲连接，已借出的连接在归还时关闭或重新入池
+     */
+    @Override
+    public void close() {
+        for (Deque<PooledClient> queue : idle.values()) {
+            synchronized (queue) {
+                queue.forEach(pooled -> disconnect(pooled.client));
+                queue.clear();
+            }
+        }
+        log.info("FTP连接池已关闭");
+    }
+
+    public int getIdleCount() {
+        int count = 0;
+        for (Deque<PooledClient> queue : idle.values()) {
+            synchronized (queue) {
+                count += queue.size();
+            }
+        }
+        return count;
+    }
+
+    public long getLoginCount() {
+        return loginCount.get();
+    }
+
+    public long getLoginFailureCount() {
+        return loginFailureCount.get();
+    }
+
+    /**
+     * 连接复用次数（借出时无需登录）
+     */
+    public long getReuseCount() {
+        return reuseCount.get();
+    }
+
+    public long getHealthCheckFailureCount() {
+        return healthCheckFailureCount.get();
+    }
+
+    /**
+     * 连接键
+     */
+    @Value
+    public static class ClientKey {
+        String host;
+        int port;
+        String username;
+
+        @Override
+        public String toString() {
+            return username + "@" + host + ":" + port;
+        }
+    }
+
+    /**
+     * 连接租约
+     * 关闭时归还连接；传输异常等导致控制连接状态不确定时应标记失效，关闭时直接断开
+     */
+    public static class Lease implements AutoCloseable {
+        private final FtpClientPool pool;
+        private final ClientKey key;
+        private final FTPClient client;
+        private boolean invalid;
+        private boolean closed;
+
+        private Lease(FtpClientPool pool, ClientKey key, FTPClient client) {
+            this.pool = pool;
+            this.key = key;
+            this.client = client;
+        }
+
+        public FTPClient getClient() {
+            return client;
+        }
+
+        /**
+         * 标记连接失效
+         */
+        public void invalidate() {
+            invalid = true;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (invalid || !client.isConnected()) {
+                disconnect(client);
+            } else {
+                pool.release(key, client);
+            }
+        }
+    }
+
+    private record PooledClient(FTPClient client, long lastUsedMillis) {
+    }
+}
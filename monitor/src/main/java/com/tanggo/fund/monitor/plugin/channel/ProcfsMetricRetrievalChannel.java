@@ -0,0 +1,117 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
+import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import com.tanggo.fund.monitor.core.extension.MetricRetrievalChannel;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 本机 /proc 读取通道
+ * 采集器所在主机的指标直接读取 /proc 下的伪文件（命令即相对路径，如 stat、meminfo、loadavg、net/dev、diskstats），
+ * 不经过SSH、不创建进程，单次读取为微秒级，可用于亚秒级采样
+ *
+ * <p>每个采集线程复用一个直接缓冲区，文件内容读入后以 {@link ByteBufferInputStream} 交给流式计算器，
+ * 不经过字符串解码；/proc 文件的大小属性恒为0，因此读到文件末尾为止，缓冲区不足时倍增
+ */
+@Slf4j
+public class ProcfsMetricRetrievalChannel implements MetricRetrievalChannel {
+
+    // /proc 挂载点，测试时可指向样例目录
+    @Setter
+    private String procRoot = "/proc";
+
+    // 每个采集线程的初始缓冲区大小（字节）
+    @Setter
+    private int initialBufferBytes = 64 << 10;
+
+    // 单个文件的最大读取字节数，防止误配置读取大文件
+    @Setter
+    private int maxFileBytes = 16 << 20;
+
+    private final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<>();
+
+    @Override
+    public void connect(ChannelMeta channelMeta) {
+        if (!Files.isDirectory(Path.of(procRoot))) {
+            throw new IllegalStateException("procfs不可用: " + procRoot);
+        }
+    }
+
+    @Override
+    public String execute(CommandMeta cmd) {
+        ByteBuffer content = read(cmd);
+        return StandardCharsets.US_ASCII.decode(content).toString();
+    }
+
+    /**
+     * 文件内容以直接缓冲区视图交给 reader，reader 返回前缓冲区不会被同一线程的下一次读取覆盖
+     */
+    @Override
+    public <T> T executeStreaming(ChannelMeta channelMeta, CommandMeta cmd, OutputReader<T> reader) {
+        ByteBuffer content = read(cmd);
+        try {
+            return reader.read(new ByteBufferInputStream(content));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 读取整个文件到当前线程的缓冲区
+     *
+     * @return position=0、limit=文件长度的缓冲区
+     */
+    ByteBuffer read(CommandMeta cmd) {
+        Path file = resolve(cmd.getCommand());
+        ByteBuffer buffer = buffers.get();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(initialBufferBytes);
+            buffers.set(buffer);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (true) {
+                int n = channel.read(buffer);
+                if (n < 0) {
+                    break;
+                }
+                if (!buffer.hasRemaining()) {
+                    if (buffer.capacity() >= maxFileBytes) {
+                        throw new IllegalStateException("文件超过读取上限: " + file + ", maxFileBytes=" + maxFileBytes);
+                    }
+                    ByteBuffer larger = ByteBuffer.allocateDirect(Math.min(maxFileBytes, buffer.capacity() * 2));
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                    buffers.set(buffer);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取procfs失败: " + file, e);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private Path resolve(String command) {
+        if (command == null || command.isBlank()) {
+            throw new IllegalArgumentException("procfs路径不能为空");
+        }
+        Path root = Path.of(procRoot).normalize();
+        Path file = root.resolve(command.trim()).normalize();
+        if (!file.startsWith(root)) {
+            throw new IllegalArgumentException("procfs路径越界: " + command);
+        }
+        return file;
+    }
+}
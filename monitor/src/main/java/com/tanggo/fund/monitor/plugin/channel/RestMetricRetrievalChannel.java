@@ -3,17 +3,526 @@ package com.tanggo.fund.monitor.plugin.channel;
 import com.tanggo.fund.monitor.core.extension.MetricRetrievalChannel;
 import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
 import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
-public class RestMetricRetrievalChannel implements MetricRetrievalChannel {
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
+/**
+ * HTTP指标抓取通道
+ * 命令为请求路径（拼接在通道的 baseUrl 之后）或完整URL，响应体即命令输出，可配合
+ * {@link com.tanggo.fund.monitor.plugin.calculator.PrometheusTextMetricCalculator} 解析 Prometheus 文本格式
+ *
+ * <p>特性：
+ * <ul>
+ *     <li>所有目标共享一个 {@link HttpClient}，HTTP/1.1 连接按 host:port 池化并保持长连接</li>
+ *     <li>请求异步发出，同一通道上批量到期的抓取（调度器开启 batchByChannel 时）全部并发在途，
+ *     一个采集线程即可在一个周期内完成成百上千个目标</li>
+ *     <li>每个 host:port 的并发请求数和全局在途请求数分别受限，超出的请求排队等待，不占用线程</li>
+ *     <li>响应带 ETag/Last-Modified 时缓存响应体，下次发送条件请求，304 时直接返回缓存</li>
+ *     <li>请求 gzip 压缩，响应按 Content-Encoding 解压</li>
+ * </ul>
+ *
+ * <p>通道扩展属性：baseUrl，或 scheme/host/port；headers（附加请求头）。
+ * 命令扩展属性：timeoutMillis（整个请求的超时）；headers；conditional（false 时不发送条件请求）
+ */
+@Slf4j
+public class RestMetricRetrievalChannel implements MetricRetrievalChannel, AutoCloseable {
+
+    // 建立TCP连接的超时时间（毫秒）
+    @Setter
+    private long connectTimeoutMillis = 5_000;
+
+    // 命令未指定 timeoutMillis 时的请求超时（毫秒）
+    @Setter
+    private long defaultTimeoutMillis = 10_000;
+
+    // 单个 host:port 的最大并发请求数，避免压垮被监控服务
+    @Setter
+    private int maxConcurrentPerHost = 4;
+
+    // 全局最大在途请求数，限制连接数和文件句柄
+    @Setter
+    private int maxConcurrentRequests = 1024;
+
+    // HttpClient 回调线程数，负责收发和解压，不执行阻塞操作
+    @Setter
+    private int ioThreads = 4;
+
+    // HTTP协议版本：HTTP_1_1 或 HTTP_2
+    @Setter
+    private String httpVersion = "HTTP_1_1";
+
+    // 条件请求缓存的最大条目数（按URL）
+    @Setter
+    private int maxCachedResponses = 10_000;
+
+    // User-Agent 请求头
+    @Setter
+    private String userAgent = "tanggo-monitor-collector";
+
+    private volatile HttpClient client;
+    private ExecutorService executor;
+    private AsyncPermits requestPermits;
+
+    private final Map<String, AsyncPermits> hostPermits = new ConcurrentHashMap<>();
+    private final Map<URI, CachedBody> cache = new ConcurrentHashMap<>();
+
+    // 兼容 connect + execute(CommandMeta) 的调用方式，记录当前线程最近连接的通道
+    private final ThreadLocal<ChannelMeta> connectedChannel = new ThreadLocal<>();
+
+    // 统计信息
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
 
     @Override
     public void connect(ChannelMeta channelMeta) {
-
+        // 连接由 HttpClient 按需建立和复用，命令也可以是完整URL，这里不校验地址
+        client();
+        connectedChannel.set(channelMeta);
     }
 
     @Override
     public String execute(CommandMeta cmd) {
-        return "";
+        ChannelMeta channelMeta = connectedChannel.get();
+        if (channelMeta == null) {
+            throw new RuntimeException("REST通道未连接");
+        }
+        return execute(channelMeta, cmd);
+    }
+
+    @Override
+    public String execute(ChannelMeta channelMeta, CommandMeta cmd) {
+        Target target = target(channelMeta, cmd);
+        return new String(await(fetch(target), target), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 批量执行：全部请求先异步发出再依次等待，总耗时取决于最慢的目标而不是各目标之和
+     * 单个目标失败时对应输出为空字符串，由计算器按解析失败处理，不影响同批其他目标
+     */
+    @Override
+    public List<String> executeBatch(ChannelMeta channelMeta, List<CommandMeta> cmds) {
+        List<Target> targets = new ArrayList<>(cmds.size());
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>(cmds.size());
+        for (CommandMeta cmd : cmds) {
+            Target target = target(channelMeta, cmd);
+            targets.add(target);
+            futures.add(fetch(target));
+        }
+
+        List<String> outputs = new ArrayList<>(cmds.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                outputs.add(new String(await(futures.get(i), targets.get(i)), StandardCharsets.UTF_8));
+            } catch (RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // 调度器超时中断，放弃剩余请求
+                    futures.forEach(f -> f.cancel(true));
+                    throw e;
+                }
+                log.warn("HTTP抓取失败: url={}, error={}", targets.get(i).uri, rootMessage(e));
+                outputs.add("");
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * 流式执行：reader 直接读取响应体，没有缓存校验头的响应不在内存中缓冲完整内容
+     */
+    @Override
+    public <T> T executeStreaming(ChannelMeta channelMeta, CommandMeta cmd, OutputReader<T> reader) {
+        Target target = target(channelMeta, cmd);
+        HttpClient httpClient = client();
+        AsyncPermits host = hostPermits(target);
+        awaitPermits(host, target);
+        try {
+            requestCount.incrementAndGet();
+            HttpResponse<InputStream> response = httpClient.send(target.request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream raw = response.body()) {
+                if (response.statusCode() == 304) {
+                    return reader.read(new ByteArrayInputStream(notModified(target)));
+                }
+                checkStatus(response.statusCode(), target);
+                InputStream body = new CountingInputStream(decode(raw, response.headers()));
+                if (target.conditional && hasValidators(response.headers())) {
+                    byte[] bytes = body.readAllBytes();
+                    remember(target, response.headers(), bytes);
+                    return reader.read(new ByteArrayInputStream(bytes));
+                }
+                cache.remove(target.uri);
+                return reader.read(body);
+            }
+        } catch (IOException e) {
+            failureCount.incrementAndGet();
+            throw new UncheckedIOException("HTTP请求失败: " + target.uri, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("HTTP请求被中断: " + target.uri, e);
+        } catch (RuntimeException e) {
+            failureCount.incrementAndGet();
+            throw e;
+        } finally {
+            release(host);
+        }
+    }
+
+    /**
+     * 异步抓取：先后获取主机许可和全局许可，请求完成（含超时）后归还
+     */
+    private CompletableFuture<byte[]> fetch(Target target) {
+        HttpClient httpClient = client();
+        AsyncPermits host = hostPermits(target);
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        host.acquire().thenCompose(v -> requestPermits.acquire()).thenRun(() -> {
+            if (result.isDone()) {
+                // 排队期间调用方已放弃
+                release(host);
+                return;
+            }
+            requestCount.incrementAndGet();
+            CompletableFuture<HttpResponse<byte[]>> exchange =
+                    httpClient.sendAsync(target.request, HttpResponse.BodyHandlers.ofByteArray());
+            // 调用方放弃或超时都取消请求，连接随之释放
+            result.whenComplete((body, error) -> {
+                if (error != null) {
+                    exchange.cancel(true);
+                }
+            });
+            exchange.copy().orTimeout(target.timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((response, error) -> {
+                release(host);
+                if (error != null) {
+                    failureCount.incrementAndGet();
+                    result.completeExceptionally(error);
+                    return;
+                }
+                try {
+                    result.complete(body(target, response));
+                } catch (RuntimeException e) {
+                    failureCount.incrementAndGet();
+                    result.completeExceptionally(e);
+                }
+            });
+        });
+        return result;
+    }
+
+    private byte[] body(Target target, HttpResponse<byte[]> response) {
+        if (response.statusCode() == 304) {
+            return notModified(target);
+        }
+        checkStatus(response.statusCode(), target);
+        byte[] raw = response.body();
+        byte[] body;
+        try {
+            body = isGzip(response.headers()) ? decode(new ByteArrayInputStream(raw), response.headers()).readAllBytes() : raw;
+        } catch (IOException e) {
+            throw new UncheckedIOException("解压响应失败: " + target.uri, e);
+        }
+        bytesReceived.addAndGet(body.length);
+        if (target.conditional && hasValidators(response.headers())) {
+            remember(target, response.headers(), body);
+        } else {
+            cache.remove(target.uri);
+        }
+        return body;
+    }
+
+    private byte[] await(CompletableFuture<byte[]> future, Target target) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("HTTP请求被中断: " + target.uri, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw new RuntimeException("HTTP请求超时: " + target.uri + ", timeoutMillis=" + target.timeoutMillis, cause);
+            }
+            throw new RuntimeException("HTTP请求失败: " + target.uri, cause);
+        }
+    }
+
+    /**
+     * 同步等待许可，超时后许可一旦到达立即归还
+     */
+    private void awaitPermits(AsyncPermits host, Target target) {
+        CompletableFuture<Void> permits = host.acquire().thenCompose(v -> requestPermits.acquire());
+        try {
+            permits.get(target.timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            permits.thenRun(() -> release(host));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            failureCount.incrementAndGet();
+            throw new RuntimeException("等待HTTP并发配额超时: " + target.uri, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("获取HTTP并发配额失败", e.getCause());
+        }
+    }
+
+    private void release(AsyncPermits host) {
+        requestPermits.release();
+        host.release();
+    }
+
+    private AsyncPermits hostPermits(Target target) {
+        return hostPermits.computeIfAbsent(target.hostKey, k -> new AsyncPermits(maxConcurrentPerHost));
+    }
+
+    private byte[] notModified(Target target) {
+        CachedBody cached = cache.get(target.uri);
+        if (cached == null) {
+            throw new IllegalStateException("服务端返回304但没有缓存的响应: " + target.uri);
+        }
+        notModifiedCount.incrementAndGet();
+        return cached.body;
+    }
+
+    private void checkStatus(int status, Target target) {
+        if (status < 200 || status >= 300) {
+            throw new IllegalStateException("HTTP请求失败: status=" + status + ", url=" + target.uri);
+        }
+    }
+
+    private void remember(Target target, HttpHeaders headers, byte[] body) {
+        if (cache.size() >= maxCachedResponses && !cache.containsKey(target.uri)) {
+            return;
+        }
+        cache.put(target.uri, new CachedBody(headers.firstValue("ETag").orElse(null),
+                headers.firstValue("Last-Modified").orElse(null), body));
+    }
+
+    private static boolean hasValidators(HttpHeaders headers) {
+        return headers.firstValue("ETag").isPresent() || headers.firstValue("Last-Modified").isPresent();
+    }
+
+    private static boolean isGzip(HttpHeaders headers) {
+        return headers.firstValue("Content-Encoding").map(v -> v.trim().equalsIgnoreCase("gzip")).orElse(false);
+    }
+
+    private static InputStream decode(InputStream raw, HttpHeaders headers) throws IOException {
+        return isGzip(headers) ? new GZIPInputStream(raw, 8192) : raw;
+    }
+
+    private Target target(ChannelMeta channelMeta, CommandMeta cmd) {
+        String command = cmd.getCommand();
+        if (command == null || command.isBlank()) {
+            throw new IllegalArgumentException("请求路径不能为空");
+        }
+        command = command.trim();
+        URI uri;
+        if (command.startsWith("http://") || command.startsWith("https://")) {
+            uri = URI.create(command);
+        } else {
+            String base = baseUrl(channelMeta);
+            if (base == null) {
+                throw new IllegalArgumentException("REST通道未配置baseUrl或host: " + channelMeta.getChannelId());
+            }
+            boolean slash = base.endsWith("/");
+            boolean leading = command.startsWith("/");
+            uri = URI.create(slash && leading ? base + command.substring(1)
+                    : slash || leading ? base + command : base + "/" + command);
+        }
+
+        Map<String, Object> commandExtensions = cmd.getExtensions();
+        long timeoutMillis = longValue(commandExtensions, "timeoutMillis", defaultTimeoutMillis);
+        boolean conditional = !"false".equals(String.valueOf(value(commandExtensions, "conditional")));
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .GET()
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .header("Accept-Encoding", "gzip")
+                .header("User-Agent", userAgent);
+        headers(builder, value(channelMeta.getExtensions(), "headers"));
+        headers(builder, value(commandExtensions, "headers"));
+        CachedBody cached = conditional ? cache.get(uri) : null;
+        if (cached != null) {
+            if (cached.etag != null) {
+                builder.header("If-None-Match", cached.etag);
+            }
+            if (cached.lastModified != null) {
+                builder.header("If-Modified-Since", cached.lastModified);
+            }
+        }
+        return new Target(uri, uri.getScheme() + "://" + uri.getAuthority(), builder.build(), timeoutMillis, conditional);
+    }
+
+    private static String baseUrl(ChannelMeta channelMeta) {
+        Map<String, Object> extensions = channelMeta.getExtensions();
+        Object baseUrl = value(extensions, "baseUrl");
+        if (baseUrl != null) {
+            return baseUrl.toString();
+        }
+        Object host = value(extensions, "host");
+        if (host == null) {
+            return null;
+        }
+        Object scheme = value(extensions, "scheme");
+        Object port = value(extensions, "port");
+        return (scheme == null ? "http" : scheme) + "://" + host + (port == null ? "" : ":" + port);
+    }
+
+    private static void headers(HttpRequest.Builder builder, Object headers) {
+        if (headers instanceof Map<?, ?> map) {
+            map.forEach((name, value) -> builder.setHeader(name.toString(), String.valueOf(value)));
+        }
+    }
+
+    private static Object value(Map<String, Object> extensions, String key) {
+        return extensions == null ? null : extensions.get(key);
+    }
+
+    private static long longValue(Map<String, Object> extensions, String key, long defaultValue) {
+        Object value = value(extensions, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString().trim());
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getClass().getSimpleName() + ": " + root.getMessage();
+    }
+
+    private HttpClient client() {
+        HttpClient c = client;
+        if (c != null) {
+            return c;
+        }
+        synchronized (this) {
+            if (client == null) {
+                AtomicInteger sequence = new AtomicInteger();
+                executor = Executors.newFixedThreadPool(ioThreads, r -> {
+                    Thread thread = new Thread(r, "rest-channel-io-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                requestPermits = new AsyncPermits(maxConcurrentRequests);
+                client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.valueOf(httpVersion))
+                        .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .executor(executor)
+                        .build();
+                log.info("REST通道已初始化: maxConcurrentPerHost={}, maxConcurrentRequests={}, ioThreads={}",
+                        maxConcurrentPerHost, maxConcurrentRequests, ioThreads);
+            }
+            return client;
+        }
+    }
+
+    /**
+     * 停止回调线程，池化连接随 HttpClient 一起释放
+     */
+    @Override
+    public synchronized void close() {
+        if (client == null) {
+            return;
+        }
+        executor.shutdownNow();
+        client = null;
+        cache.clear();
+        log.info("REST通道已关闭: requests={}, notModified={}, failures={}",
+                requestCount.get(), notModifiedCount.get(), failureCount.get());
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * 条件请求命中（304）次数
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * 解压后的响应体字节数
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public int getCachedResponseCount() {
+        return cache.size();
+    }
+
+    private record Target(URI uri, String hostKey, HttpRequest request, long timeoutMillis, boolean conditional) {
+    }
+
+    private record CachedBody(String etag, String lastModified, byte[] body) {
+    }
+
+    /**
+     * 统计流式读取的字节数
+     */
+    private final class CountingInputStream extends InputStream {
+
+        private final InputStream in;
+
+        CountingInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                bytesReceived.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                bytesReceived.addAndGet(n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
     }
 }
@@ -1,90 +1,140 @@
 package com.tanggo.fund.monitor.plugin.channel;
 
 import com.jcraft.jsch.ChannelExec;
-import com.jcraft.jsch.JSch;
-import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
 import com.tanggo.fund.monitor.core.extension.MetricRetrievalChannel;
 import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
 import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * SSH远程执行通道
+ * 会话由 {@link SshSessionPool} 按 host/port/username 池化复用，同一个通道实例可以并发服务多个主机
+ */
 @Slf4j
 public class SSHMetricRetrievalChannel implements MetricRetrievalChannel {
 
-    private Session session;
-    private String host;
-    private int port;
-    private String username;
-    private String password;
+    @Getter
+    @Setter
+    private SshSessionPool sessionPool = new SshSessionPool();
+
+    // 兼容 connect + execute(CommandMeta) 的调用方式，记录当前线程最近连接的通道
+    private final ThreadLocal<ChannelMeta> connectedChannel = new ThreadLocal<>();
 
     @Override
     public void connect(ChannelMeta channelMeta) {
-        try {
-            // 从扩展属性中获取SSH连接信息
-            Map<String, Object> extensions = channelMeta.getExtensions();
-            this.host = (String) extensions.get("host");
-            Object portObj = extensions.getOrDefault("port", 22);
-            this.port = portObj instanceof Number ? ((Number) portObj).intValue() : 22;
-            this.username = (String) extensions.get("username");
-            this.password = (String) extensions.get("password");
-
-            JSch jsch = new JSch();
-            session = jsch.getSession(username, host, port);
-            session.setPassword(password);
-            session.setConfig("StrictHostKeyChecking", "no");
-            session.connect(30000);
-
-            log.info("SSH连接成功: {}@{}:{}", username, host, port);
-        } catch (JSchException e) {
-            log.error("SSH连接失败: {}", e.getMessage(), e);
-            throw new RuntimeException("SSH连接失败", e);
-        }
+        // 预热/校验池化会话，已有可用会话时不会重新握手
+        sessionPool.connect(sessionKey(channelMeta), password(channelMeta));
+        connectedChannel.set(channelMeta);
     }
 
     @Override
     public String execute(CommandMeta cmd) {
-        if (session == null || !session.isConnected()) {
+        ChannelMeta channelMeta = connectedChannel.get();
+        if (channelMeta == null) {
             throw new RuntimeException("SSH会话未连接");
         }
+        return execute(channelMeta, cmd);
+    }
+
+    @Override
+    public String execute(ChannelMeta channelMeta, CommandMeta cmd) {
+        return exec(channelMeta, cmd.getCommand());
+    }
 
-        try {
-            String command = cmd.getCommand();
-            log.info("执行命令: {}", command);
+    /**
+     * 流式执行：reader 直接读取exec通道的输出流，返回后立即关闭通道，远端剩余输出不再传输
+     */
+    @Override
+    public <T> T executeStreaming(ChannelMeta channelMeta, CommandMeta cmd, OutputReader<T> reader) {
+        return exec(channelMeta, cmd.getCommand(), reader);
+    }
+
+    /**
+     * 批量执行：将同一主机上的多条命令合并为一条复合命令，只开一个exec通道
+     */
+    @Override
+    public List<String> executeBatch(ChannelMeta channelMeta, List<CommandMeta> cmds) {
+        if (cmds.size() == 1) {
+            return List.of(execute(channelMeta, cmds.get(0)));
+        }
+        ShellCommandBatcher batcher = ShellCommandBatcher.create(cmds.size());
+        String output = exec(channelMeta, batcher.compose(cmds));
+        return batcher.split(output);
+    }
 
-            com.jcraft.jsch.Channel channel = session.openChannel("exec");
-            ((ChannelExec) channel).setCommand(command);
+    private String exec(ChannelMeta channelMeta, String command) {
+        return exec(channelMeta, command, this::readAll);
+    }
 
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(channel.getInputStream())
-            );
+    private <T> T exec(ChannelMeta channelMeta, String command, OutputReader<T> reader) {
+        SshSessionPool.SessionKey key = sessionKey(channelMeta);
 
-            channel.connect();
+        try (SshSessionPool.Lease lease = sessionPool.acquire(key, password(channelMeta))) {
+            log.debug("执行命令: {}, host={}", command, key);
 
-            StringBuilder output = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+            ChannelExec channel;
+            try {
+                channel = (ChannelExec) lease.getSession().openChannel("exec");
+            } catch (Exception e) {
+                // 会话已失效，下次借出时重新握手
+                lease.invalidate();
+                throw e;
             }
+            channel.setCommand(command);
+
+            try {
+                InputStream output = channel.getInputStream();
+
+                channel.connect();
 
-            channel.disconnect();
-            log.info("命令执行成功");
+                T result = reader.read(output);
 
-            return output.toString();
+                log.debug("命令执行成功: host={}", key);
+                return result;
+            } finally {
+                channel.disconnect();
+            }
         } catch (Exception e) {
             log.error("命令执行失败: {}", e.getMessage(), e);
             throw new RuntimeException("命令执行失败", e);
         }
     }
 
-    public void disconnect() {
-        if (session != null && session.isConnected()) {
-            session.disconnect();
-            log.info("SSH连接已断开");
+    private String readAll(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+        StringBuilder output = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            output.append(line).append("\n");
         }
+        return output.toString();
+    }
+
+    public void disconnect() {
+        sessionPool.close();
+        log.info("SSH连接已断开");
+    }
+
+    private SshSessionPool.SessionKey sessionKey(ChannelMeta channelMeta) {
+        // 从扩展属性中获取SSH连接信息
+        Map<String, Object> extensions = channelMeta.getExtensions();
+        String host = (String) extensions.get("host");
+        Object portObj = extensions.getOrDefault("port", 22);
+        int port = portObj instanceof Number ? ((Number) portObj).intValue() : Integer.parseInt(portObj.toString());
+        String username = (String) extensions.get("username");
+        return new SshSessionPool.SessionKey(host, port, username);
+    }
+
+    private String password(ChannelMeta channelMeta) {
+        return (String) channelMeta.getExtensions().get("password");
     }
 }
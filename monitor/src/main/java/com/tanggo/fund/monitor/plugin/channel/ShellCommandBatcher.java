@@ -0,0 +1,132 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Shell命令批处理器
+ * 将同一主机上的多条命令合并为一条以分隔标记隔开的复合命令，一次远程执行即可取回全部输出，再按标记拆分回各条命令
+ *
+ * <p>复合命令形如：
+ * <pre>
+ * printf '\n%s\n' '__MONITOR_BATCH_3f9a_0__'
+ * (
+ * top -bn1 -d 1
+ * wait
+ * )
+ * printf '\n%s\n' '__MONITOR_BATCH_3f9a_1__'
+ * ...
+ * printf '\n%s\n' '__MONITOR_BATCH_3f9a_END__'
+ * </pre>
+ * 每条命令在独立的子 shell 中执行并以换行结束，末尾的 {@code &}、{@code # 注释} 和 {@code exit} 都只作用于该命令自身；
+ * 子 shell 等待命令放到后台的任务结束，它们的输出不会落到下一个标记之后。
+ * 标记中的随机串保证不会与命令自身输出冲突；结束标记用于识别输出被截断的情况。
+ * 每个标记前先输出一个换行，命令输出末尾没有换行时标记仍独占一行，拆分时再去掉这个换行
+ */
+public class ShellCommandBatcher {
+
+    private static final String MARKER_PREFIX = "__MONITOR_BATCH_";
+    private static final String MARKER_SUFFIX = "__";
+
+    private final String nonce;
+    private final int size;
+
+    private ShellCommandBatcher(String nonce, int size) {
+        this.nonce = nonce;
+        this.size = size;
+    }
+
+    /**
+     * 创建批处理器
+     *
+     * @param size 批内命令条数
+     * @return 使用随机标记的批处理器
+     */
+    public static ShellCommandBatcher create(int size) {
+        return new ShellCommandBatcher(Long.toHexString(ThreadLocalRandom.current().nextLong()), size);
+    }
+
+    /**
+     * 合并为复合命令
+     *
+     * @param cmds 命令列表
+     * @return 复合命令
+     */
+    public String compose(List<CommandMeta> cmds) {
+        if (cmds.size() != size) {
+            throw new IllegalArgumentException("命令条数与批大小不一致: " + cmds.size() + " != " + size);
+        }
+        StringBuilder compound = new StringBuilder();
+        for (int i = 0; i < cmds.size(); i++) {
+            appendMarker(compound, Integer.toString(i))
+                    .append("\n(\n").append(cmds.get(i).getCommand()).append("\nwait\n)\n");
+        }
+        appendMarker(compound, "END");
+        return compound.toString();
+    }
+
+    /**
+     * 按标记拆分复合命令输出
+     *
+     * @param output 复合命令输出
+     * @return 与命令列表一一对应的输出
+     */
+    public List<String> split(String output) {
+        List<String> results = new ArrayList<>(size);
+        int expected = 0;
+        int contentStart = -1;
+        int pos = 0;
+        int len = output.length();
+
+        while (pos < len) {
+            int lineEnd = output.indexOf('\n', pos);
+            if (lineEnd < 0) {
+                lineEnd = len;
+            }
+            if (isMarkerLine(output, pos, lineEnd)) {
+                String id = output.substring(pos + MARKER_PREFIX.length() + nonce.length() + 1,
+                        lineEnd - MARKER_SUFFIX.length());
+                if (contentStart >= 0) {
+                    // 去掉标记前额外输出的换行
+                    int contentEnd = pos > contentStart && output.charAt(pos - 1) == '\n' ? pos - 1 : pos;
+                    results.add(output.substring(contentStart, contentEnd));
+                }
+                if ("END".equals(id)) {
+                    contentStart = -1;
+                    break;
+                }
+                if (Integer.parseInt(id) != expected) {
+                    throw new IllegalStateException("批处理输出标记乱序: 期望 " + expected + "，实际 " + id);
+                }
+                expected++;
+                contentStart = lineEnd + 1;
+            }
+            pos = lineEnd + 1;
+        }
+
+        if (contentStart >= 0 || results.size() != size) {
+            throw new IllegalStateException("批处理输出不完整: 期望 " + size + " 段，实际 " + results.size() + " 段");
+        }
+        return results;
+    }
+
+    private boolean isMarkerLine(String output, int start, int end) {
+        int markerLen = MARKER_PREFIX.length() + nonce.length() + 1;
+        return end - start > markerLen + MARKER_SUFFIX.length()
+                && output.startsWith(MARKER_PREFIX, start)
+                && output.startsWith(nonce, start + MARKER_PREFIX.length())
+                && output.charAt(start + MARKER_PREFIX.length() + nonce.length()) == '_'
+                && output.startsWith(MARKER_SUFFIX, end - MARKER_SUFFIX.length());
+    }
+
+    private StringBuilder appendMarker(StringBuilder compound, String id) {
+        return compound.append("printf '\\n%s\\n' '").append(marker(id)).append('\'');
+    }
+
+    private String marker(String id) {
+        return MARKER_PREFIX + nonce + "_" + id + MARKER_SUFFIX;
+    }
+}
@@ -0,0 +1,434 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import lombok.Setter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSH会话池
+ * 按 host/port/username 复用已认证的SSH会话，避免每次采集都重新进行TCP握手、密钥交换和认证
+ *
+ * <p>特性：
+ * <ul>
+ *     <li>每个会话通过信号量限制并发exec通道数，避免超过服务端 MaxSessions</li>
+ *     <li>空闲超过 healthCheckIntervalMillis 的会话在借出前发送keepalive校验，失效则重连</li>
+ *     <li>失效或被替换的会话先停止借出，仍有其他租约在使用时等最后一个租约归还后再断开</li>
+ *     <li>后台线程回收空闲超过 idleTimeoutMillis 且无在途通道的会话</li>
+ *     <li>统计握手次数、握手耗时、复用次数和回收次数</li>
+ * </ul>
+ */
+@Slf4j
+public class SshSessionPool implements AutoCloseable {
+
+    // 建立会话的超时时间（毫秒）
+    @Setter
+    private int connectTimeoutMillis = 30_000;
+
+    // 空闲会话回收阈值（毫秒）
+    @Setter
+    private long idleTimeoutMillis = 300_000;
+
+    // 空闲超过该时长的会话在借出前需要健康检查（毫秒）
+    @Setter
+    private long healthCheckIntervalMillis = 30_000;
+
+    // 单个会话允许的最大并发exec通道数
+    @Setter
+    private int maxChannelsPerSession = 8;
+
+    // 等待exec通道配额的超时时间（毫秒）
+    @Setter
+    private long channelAcquireTimeoutMillis = 30_000;
+
+    // 会话工厂，便于替换JSch实现
+    @Setter
+    private SessionFactory sessionFactory = new JSchSessionFactory();
+
+    private final Map<SessionKey, PooledSession> sessions = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService evictor;
+
+    // 统计信息
+    private final AtomicLong handshakeCount = new AtomicLong();
+    private final AtomicLong handshakeFailureCount = new AtomicLong();
+    private final AtomicLong handshakeNanosTotal = new AtomicLong();
+    private final AtomicLong maxHandshakeNanos = new AtomicLong();
+    private final AtomicLong reuseCount = new AtomicLong();
+    private final AtomicLong healthCheckFailureCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    /**
+     * 确保目标主机已有可用会话（不占用exec通道配额）
+     *
+     * @param key      会话键
+     * @param password 登录密码
+     */
+    public void connect(SessionKey key, String password) {
+        lease(key, password, false).close();
+    }
+
+    /**
+     * 借出会话并占用一个exec通道配额，使用完毕后必须关闭租约
+     *
+     * @param key      会话键
+     * @param password 登录密码
+     * @return 会话租约
+     */
+    public Lease acquire(SessionKey key, String password) {
+        return lease(key, password, true);
+    }
+
+    private Lease lease(SessionKey key, String password, boolean withPermit) {
+        ensureEvictor();
+        while (true) {
+            PooledSession pooled = sessions.computeIfAbsent(key, k -> new PooledSession(k, maxChannelsPerSession));
+            if (withPermit) {
+                pooled.acquirePermit(channelAcquireTimeoutMillis);
+            }
+            try {
+                Session session = pooled.checkout(password);
+                if (session == null) {
+                    // 会话已被回收，归还配额后重新获取
+                    if (withPermit) {
+                        pooled.permits.release();
+                    }
+                    continue;
+                }
+                return new Lease(pooled, session, withPermit);
+            } catch (RuntimeException e) {
+                if (withPermit) {
+                    pooled.permits.release();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 回收空闲会话
+     */
+    void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (PooledSession pooled : sessions.values()) {
+            if (pooled.tryEvict(now, idleTimeoutMillis)) {
+                sessions.remove(pooled.key, pooled);
+                evictedCount.incrementAndGet();
+                log.info("回收空闲SSH会话: {}", pooled.key);
+            }
+        }
+    }
+
+    private void ensureEvictor() {
+        if (evictor != null) {
+            return;
+        }
+        synchronized (this) {
+            if (evictor == null) {
+                ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "ssh-session-evictor");
+                    t.setDaemon(true);
+                    return t;
+                });
+                long period = Math.max(1_000, idleTimeoutMillis / 2);
+                executor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+                evictor = executor;
+            }
+        }
+    }
+
+    /**
+     * 关闭全部会话并停止回收线程
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService executor = evictor;
+        if (executor != null) {
+            executor.shutdownNow();
+            evictor = null;
+        }
+        sessions.values().forEach(PooledSession::disconnect);
+        sessions.clear();
+        log.info("SSH会话池已关闭");
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getHandshakeCount() {
+        return handshakeCount.get();
+    }
+
+    public long getHandshakeFailureCount() {
+        return handshakeFailureCount.get();
+    }
+
+    /**
+     * 会话复用次数（借出时无需握手）
+     */
+    public long getReuseCount() {
+        return reuseCount.get();
+    }
+
+    public long getHealthCheckFailureCount() {
+        return healthCheckFailureCount.get();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * 平均握手耗时（毫秒）
+     */
+    public double getAverageHandshakeMillis() {
+        long count = handshakeCount.get();
+        return count == 0 ? 0.0 : handshakeNanosTotal.get() / 1_000_000.0 / count;
+    }
+
+    /**
+     * 最大握手耗时（毫秒）
+     */
+    public double getMaxHandshakeMillis() {
+        return maxHandshakeNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 会话键
+     */
+    @Value
+    public static class SessionKey {
+        String host;
+        int port;
+        String username;
+
+        @Override
+        public String toString() {
+            return username + "@" + host + ":" + port;
+        }
+    }
+
+    /**
+     * 会话工厂
+     */
+    public interface SessionFactory {
+        Session create(SessionKey key) throws JSchException;
+    }
+
+    private static class JSchSessionFactory implements SessionFactory {
+        private final JSch jsch = new JSch();
+
+        @Override
+        public Session create(SessionKey key) throws JSchException {
+            return jsch.getSession(key.getUsername(), key.getHost(), key.getPort());
+        }
+    }
+
+    /**
+     * 会话租约
+     * 关闭时归还exec通道配额；执行失败时可标记会话失效，下次借出时重连
+     */
+    public static class Lease implements AutoCloseable {
+        private final PooledSession pooled;
+        private final Session session;
+        private final boolean withPermit;
+        private boolean closed;
+
+        private Lease(PooledSession pooled, Session session, boolean withPermit) {
+            this.pooled = pooled;
+            this.session = session;
+            this.withPermit = withPermit;
+        }
+
+        public Session getSession() {
+            return session;
+        }
+
+        /**
+         * 标记会话失效
+         */
+        public void invalidate() {
+            pooled.invalidate(session);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pooled.lastUsedMillis = System.currentTimeMillis();
+            if (withPermit) {
+                pooled.permits.release();
+            }
+            pooled.release(session);
+        }
+    }
+
+    /**
+     * 池化会话
+     */
+    private class PooledSession {
+        private final SessionKey key;
+        private final Semaphore permits;
+        private final AtomicLong leases = new AtomicLong();
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+        private Session session;
+        // 当前会话上未归还的租约数
+        private int sessionLeases;
+        // 已停止借出、等待租约归还后断开的会话 -> 未归还的租约数
+        private final Map<Session, Integer> retired = new IdentityHashMap<>();
+        private boolean evicted;
+
+        private PooledSession(SessionKey key, int maxChannels) {
+            this.key = key;
+            this.permits = new Semaphore(maxChannels, true);
+        }
+
+        private void acquirePermit(long timeoutMillis) {
+            try {
+                if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new RuntimeException("等待SSH通道配额超时: " + key);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("等待SSH通道配额被中断: " + key, e);
+            }
+        }
+
+        /**
+         * 取出可用会话，必要时执行健康检查或重新握手
+         *
+         * @return 可用会话；若该池化会话已被回收则返回null
+         */
+        private synchronized Session checkout(String password) {
+            if (evicted) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            if (session != null && session.isConnected()) {
+                if (now - lastUsedMillis < healthCheckIntervalMillis || isAlive(session)) {
+                    reuseCount.incrementAndGet();
+                    leases.incrementAndGet();
+                    sessionLeases++;
+                    return session;
+                }
+            }
+            retire();
+            session = handshake(password);
+            leases.incrementAndGet();
+            sessionLeases++;
+            return session;
+        }
+
+        /**
+         * 当前会话停止借出；没有租约在使用时立即断开，否则等最后一个租约归还
+         */
+        private void retire() {
+            if (session == null) {
+                return;
+            }
+            if (sessionLeases == 0) {
+                session.disconnect();
+            } else {
+                retired.put(session, sessionLeases);
+            }
+            session = null;
+            sessionLeases = 0;
+        }
+
+        /**
+         * 归还租约，已停止借出的会话在最后一个租约归还后断开
+         */
+        private synchronized void release(Session s) {
+            leases.decrementAndGet();
+            if (s == session) {
+                sessionLeases--;
+                return;
+            }
+            Integer remaining = retired.get(s);
+            if (remaining == null) {
+                return;
+            }
+            if (remaining == 1) {
+                retired.remove(s);
+                s.disconnect();
+            } else {
+                retired.put(s, remaining - 1);
+            }
+        }
+
+        private boolean isAlive(Session s) {
+            try {
+                s.sendKeepAliveMsg();
+                return true;
+            } catch (Exception e) {
+                healthCheckFailureCount.incrementAndGet();
+                log.warn("SSH会话健康检查失败，重新连接: {}, error={}", key, e.getMessage());
+                return false;
+            }
+        }
+
+        private Session handshake(String password) {
+            long start = System.nanoTime();
+            try {
+                Session s = sessionFactory.create(key);
+                s.setPassword(password);
+                s.setConfig("StrictHostKeyChecking", "no");
+                s.connect(connectTimeoutMillis);
+
+                long elapsed = System.nanoTime() - start;
+                handshakeCount.incrementAndGet();
+                handshakeNanosTotal.addAndGet(elapsed);
+                maxHandshakeNanos.accumulateAndGet(elapsed, Math::max);
+                log.info("SSH连接成功: {}, 握手耗时={}ms", key, elapsed / 1_000_000);
+                return s;
+            } catch (JSchException e) {
+                handshakeFailureCount.incrementAndGet();
+                log.error("SSH连接失败: {}, error={}", key, e.getMessage(), e);
+                throw new RuntimeException("SSH连接失败", e);
+            }
+        }
+
+        private synchronized void invalidate(Session s) {
+            if (session == s) {
+                retire();
+            }
+        }
+
+        private synchronized boolean tryEvict(long now, long idleTimeout) {
+            if (leases.get() > 0 || now - lastUsedMillis < idleTimeout) {
+                return false;
+            }
+            evicted = true;
+            if (session != null) {
+                session.disconnect();
+                session = null;
+            }
+            return true;
+        }
+
+        private synchronized void disconnect() {
+            evicted = true;
+            if (session != null && session.isConnected()) {
+                session.disconnect();
+            }
+            session = null;
+            sessionLeases = 0;
+            retired.keySet().forEach(Session::disconnect);
+            retired.clear();
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步批量持久化仓储
+ * 采集线程只把指标放入有界内存队列即返回，后台刷写线程按批量大小或时间间隔（先到者触发）
+ * 调用被装饰仓储的 {@link MetricPersistRepo#insertAll} 批量写库（如 {@link MysqlMetricPersistRepo}）
+ *
+ * <p>队列已满时的行为由 {@link OverflowPolicy} 决定：
+ * <ul>
+ *     <li>BLOCK：阻塞采集线程直到队列有空位</li>
+ *     <li>DROP_OLDEST：丢弃队列中最早的指标</li>
+ *     <li>SPILL：溢出到本地文件，队列空闲时回放；写库失败的批次同样溢出等待重试</li>
+ * </ul>
+ * 溢出分段连续回放失败 maxReplayAttempts 次后转为死信文件（dead-spill-*.tsv）不再重试，
+ * 被永久拒绝的数据（如违反约束）不会挡住后面的分段
+ */
+@Slf4j
+public class AsyncBatchMetricPersistRepo implements MetricPersistRepo {
+
+    /**
+     * 队列溢出策略
+     */
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP_OLDEST,
+        SPILL
+    }
+
+    private final MetricPersistRepo delegate;
+
+    // 内存队列容量
+    @Setter
+    private int queueCapacity = 10_000;
+
+    // 单批最大条数
+    @Setter
+    private int batchSize = 500;
+
+    // 最长刷写间隔（毫秒）
+    @Setter
+    private long flushIntervalMillis = 1_000;
+
+    // 队列溢出策略
+    @Setter
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    // SPILL策略的溢出目录
+    @Setter
+    private String spillDirectory = "data/spill";
+
+    // 单个溢出分段文件的最大记录数
+    @Setter
+    private int spillSegmentRecords = 10_000;
+
+    // 溢出分段回放失败多少次后转为死信
+    @Setter
+    private int maxReplayAttempts = 5;
+
+    private BlockingQueue<Metric> queue;
+    private MetricSpillStore spillStore;
+    private Thread flusher;
+    private volatile boolean running;
+    // 最早溢出分段的连续回放失败次数，只由刷写线程访问
+    private long replayingSegmentId = -1;
+    private int replayFailures;
+
+    // 统计信息
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong deadLetteredCount = new AtomicLong();
+    private final AtomicLong loopErrorCount = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong flushNanosTotal = new AtomicLong();
+
+    public AsyncBatchMetricPersistRepo(MetricPersistRepo delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 启动后台刷写线程
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            spillStore = new MetricSpillStore(Path.of(spillDirectory), spillSegmentRecords);
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "metric-persist-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("异步批量持久化已启动: queueCapacity={}, batchSize={}, flushIntervalMillis={}, overflowPolicy={}",
+                queueCapacity, batchSize, flushIntervalMillis, overflowPolicy);
+    }
+
+    /**
+     * 停止刷写线程，队列中剩余指标全部刷写后返回
+     */
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        // 不中断刷写线程，避免打断进行中的写库操作；刷写线程取空队列后自行退出
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (spillStore != null) {
+            spillStore.close();
+        }
+        log.info("异步批量持久化已停止: flushed={}, dropped={}, spilled={}",
+                flushedCount.get(), droppedCount.get(), spilledCount.get());
+    }
+
+    @Override
+    public void insert(Metric metric) {
+        if (!running) {
+            throw new IllegalStateException("异步批量持久化未启动");
+        }
+        enqueue(metric);
+    }
+
+    /**
+     * 批量入队：SPILL策略下，放不进队列的剩余指标一次性溢出
+     */
+    @Override
+    public void insertAll(Collection<Metric> metrics) {
+        if (!running) {
+            throw new IllegalStateException("异步批量持久化未启动");
+        }
+        if (overflowPolicy != OverflowPolicy.SPILL) {
+            for (Metric metric : metrics) {
+                enqueue(metric);
+            }
+            return;
+        }
+
+        List<Metric> overflow = null;
+        for (Metric metric : metrics) {
+            enqueuedCount.incrementAndGet();
+            if (overflow == null && queue.offer(metric)) {
+                continue;
+            }
+            if (overflow == null) {
+                overflow = new ArrayList<>();
+            }
+            overflow.add(metric);
+        }
+        if (overflow != null) {
+            spillStore.append(overflow);
+            spilledCount.addAndGet(overflow.size());
+        }
+    }
+
+    private void enqueue(Metric metric) {
+        enqueuedCount.incrementAndGet();
+        if (queue.offer(metric)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    queue.put(metric);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCount.incrementAndGet();
+                    throw new RuntimeException("等待持久化队列被中断", e);
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(metric)) {
+                    if (queue.poll() != null) {
+                        droppedCount.incrementAndGet();
+                    }
+                }
+            }
+            case SPILL -> {
+                spillStore.append(List.of(metric));
+                spilledCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void flushLoop() {
+        List<Metric> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+                running = false;
+            }
+
+            try {
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                } else if (spillStore != null && spillStore.getPendingRecords() > 0) {
+                    // 内存队列空闲时回放溢出数据
+                    replaySpill();
+                }
+            } catch (Exception e) {
+                // 刷写线程不能退出，否则 BLOCK 策略的采集线程将永久阻塞
+                loopErrorCount.incrementAndGet();
+                failedCount.addAndGet(batch.size());
+                log.error("刷写线程处理失败，稍后继续: size={}", batch.size(), e);
+                sleepQuietly(flushIntervalMillis);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 攒批：达到 batchSize 或距第一条指标超过 flushIntervalMillis 即返回
+     */
+    private void fillBatch(List<Metric> batch) throws InterruptedException {
+        Metric first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Metric next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * 回放最早的溢出分段，全部写入成功后才删除分段文件
+     * 部分写入后失败时，未写入的指标追加为新分段后再删除原分段，已写入的不再重复回放
+     */
+    private void replaySpill() {
+        MetricSpillStore.Segment segment = spillStore.readSegment();
+        if (segment == null) {
+            return;
+        }
+        List<Metric> spilled = segment.metrics();
+        int from = 0;
+        try {
+            for (; from < spilled.size(); from += batchSize) {
+                write(spilled.subList(from, Math.min(spilled.size(), from + batchSize)));
+            }
+        } catch (Exception e) {
+            if (from > 0) {
+                log.warn("回放溢出指标部分失败，剩余指标重新溢出: remaining={}, error={}", spilled.size() - from, e.getMessage());
+                spillStore.append(spilled.subList(from, spilled.size()));
+                spillStore.removeSegment(segment);
+            } else if (recordReplayFailure(segment)) {
+                log.error("溢出分段回放连续失败，转为死信: segment={}, records={}, attempts={}",
+                        segment.id(), spilled.size(), maxReplayAttempts, e);
+                spillStore.deadLetter(segment);
+                deadLetteredCount.addAndGet(spilled.size());
+            } else {
+                log.warn("回放溢出指标失败，稍后重试: segment={}, attempt={}, error={}",
+                        segment.id(), replayFailures, e.getMessage());
+            }
+            sleepQuietly(flushIntervalMillis);
+            return;
+        }
+        spillStore.removeSegment(segment);
+    }
+
+    /**
+     * 记录一次整段回放失败
+     *
+     * @return 是否达到失败次数上限
+     */
+    private boolean recordReplayFailure(MetricSpillStore.Segment segment) {
+        if (segment.id() != replayingSegmentId) {
+            replayingSegmentId = segment.id();
+            replayFailures = 0;
+        }
+        return ++replayFailures >= maxReplayAttempts;
+    }
+
+    private void flush(List<Metric> batch) {
+        try {
+            write(batch);
+        } catch (Exception e) {
+            if (spillStore != null) {
+                log.warn("批量写入失败，溢出到本地等待重试: size={}, error={}", batch.size(), e.getMessage());
+                spillStore.append(batch);
+                spilledCount.addAndGet(batch.size());
+                sleepQuietly(flushIntervalMillis);
+            } else {
+                log.error("批量写入失败，丢弃本批指标: size={}", batch.size(), e);
+                failedCount.addAndGet(batch.size());
+            }
+        }
+    }
+
+    private void write(List<Metric> batch) {
+        long start = System.nanoTime();
+        delegate.insertAll(batch);
+        long elapsed = System.nanoTime() - start;
+        batchCount.incrementAndGet();
+        flushedCount.addAndGet(batch.size());
+        lastBatchSize.set(batch.size());
+        lastFlushNanos.set(elapsed);
+        flushNanosTotal.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 当前队列深度
+     */
+    public int getQueueDepth() {
+        BlockingQueue<Metric> q = queue;
+        return q == null ? 0 : q.size();
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.get();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * 写库失败并被丢弃的指标数
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * DROP_OLDEST策略下被丢弃的指标数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    /**
+     * 回放多次失败后转入死信文件的指标数
+     */
+    public long getDeadLetteredCount() {
+        return deadLetteredCount.get();
+    }
+
+    /**
+     * 刷写线程捕获的意外异常次数
+     */
+    public long getLoopErrorCount() {
+        return loopErrorCount.get();
+    }
+
+    public long getSpillPendingCount() {
+        return spillStore == null ? 0 : spillStore.getPendingRecords();
+    }
+
+    public long getLastBatchSize() {
+        return lastBatchSize.get();
+    }
+
+    /**
+     * 平均批大小
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0.0 : (double) flushedCount.get() / batches;
+    }
+
+    /**
+     * 最近一次刷写耗时（毫秒）
+     */
+    public double getLastFlushMillis() {
+        return lastFlushNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 最大刷写耗时（毫秒）
+     */
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * 平均刷写耗时（毫秒）
+     */
+    public double getAverageFlushMillis() {
+        long batches = batchCount.get();
+        return batches == 0 ? 0.0 : flushNanosTotal.get() / 1_000_000.0 / batches;
+    }
+}
@@ -0,0 +1,438 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.alert.AlertEvent;
+import com.tanggo.fund.monitor.core.alert.AlertNotification;
+import com.tanggo.fund.monitor.core.alert.TokenBucket;
+import com.tanggo.fund.monitor.core.entity.Alert;
+import com.tanggo.fund.monitor.core.extension.alert.AlertRepo;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 告警分发仓储
+ * 放在实际下发的 {@link AlertRepo}（接收者）之前，{@link #sendAlert} 只做去重和分组后立即返回：
+ * <ul>
+ *     <li>去重：按告警指纹（{@link Alert#getId()}）合并，已通知且仍在触发的告警不再重复下发，
+ *     分组等待期内触发又恢复的告警直接抵消</li>
+ *     <li>分组：按接收者和 groupBy 标签分组，新分组等待 groupWaitMillis 收集同类告警，
+ *     之后最多每 groupIntervalMillis 下发一次该分组的变化</li>
+ *     <li>限流：每个接收者一个令牌桶，令牌不足时通知留在分组中，下次合并下发</li>
+ *     <li>异步投递：接收者调用在投递线程池执行，失败后指数退避重试 maxRetries 次；
+ *     重试耗尽后撤销已通知状态并把告警放回分组，随分组下次到期重新下发</li>
+ * </ul>
+ * 告警风暴时下游调用次数与分组数成正比，而不是与告警数成正比
+ */
+@Slf4j
+public class DispatchingAlertRepo implements AlertRepo, AutoCloseable {
+
+    // 接收者名称 -> 实际下发仓储
+    private final Map<String, AlertRepo> receivers;
+
+    // 未匹配路由时使用的接收者
+    @Setter
+    private String defaultReceiver = "default";
+
+    // 告警级别 -> 接收者名称
+    @Setter
+    private Map<String, String> routes = Map.of();
+
+    // 分组标签：ruleId / severity / metricName 或序列标签名
+    @Setter
+    private List<String> groupBy = List.of("ruleId");
+
+    // 新分组首次通知前的等待时间（毫秒）
+    @Setter
+    private long groupWaitMillis = 30_000;
+
+    // 同一分组两次通知的最小间隔（毫秒）
+    @Setter
+    private long groupIntervalMillis = 300_000;
+
+    // 每个接收者的令牌桶容量
+    @Setter
+    private int receiverBurst = 10;
+
+    // 每个接收者每秒补充的令牌数
+    @Setter
+    private double receiverRatePerSecond = 1.0;
+
+    // 投递失败的最大重试次数
+    @Setter
+    private int maxRetries = 5;
+
+    // 首次重试间隔（毫秒）
+    @Setter
+    private long retryInitialMillis = 1_000;
+
+    // 最大重试间隔（毫秒）
+    @Setter
+    private long retryMaxMillis = 60_000;
+
+    // 检查分组到期的间隔（毫秒）
+    @Setter
+    private long tickMillis = 200;
+
+    // 投递线程数
+    @Setter
+    private int deliveryThreads = 2;
+
+    private final Map<String, Group> groups = new HashMap<>();
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService delivery;
+
+    // 统计信息
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final AtomicLong notificationCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * @param receivers 接收者名称 -> 实际下发仓储
+     */
+    public DispatchingAlertRepo(Map<String, AlertRepo> receivers) {
+        this.receivers = Map.copyOf(receivers);
+    }
+
+    /**
+     * 启动分组检查线程和投递线程池
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "alert-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger sequence = new AtomicInteger();
+        delivery = Executors.newFixedThreadPool(deliveryThreads, r -> {
+            Thread thread = new Thread(r, "alert-delivery-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                dispatch(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.error("告警分组检查失败", e);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        log.info("告警分发已启动: receivers={}, groupBy={}, groupWaitMillis={}, groupIntervalMillis={}",
+                receivers.keySet(), groupBy, groupWaitMillis, groupIntervalMillis);
+    }
+
+    /**
+     * 停止分发；仍在等待分组的告警不再下发，进行中的投递最多等待10秒
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        delivery.shutdown();
+        try {
+            delivery.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        log.info("告警分发已停止: received={}, suppressed={}, notifications={}, failed={}",
+                receivedCount.get(), suppressedCount.get(), notificationCount.get(), failedCount.get());
+    }
+
+    /**
+     * 去重并放入分组，不调用接收者
+     */
+    @Override
+    public void sendAlert(Alert alert) {
+        receivedCount.incrementAndGet();
+        String receiver = route(alert);
+        Map<String, String> groupLabels = groupLabels(alert);
+        String key = receiver + groupLabels;
+        long now = System.currentTimeMillis();
+        synchronized (groups) {
+            Group group = groups.computeIfAbsent(key, k -> new Group(k, receiver, groupLabels));
+            if (!group.offer(alert)) {
+                suppressedCount.incrementAndGet();
+                return;
+            }
+            if (group.firstPendingAt == 0) {
+                group.firstPendingAt = now;
+            }
+        }
+    }
+
+    /**
+     * 下发到期的分组：新分组等待 groupWaitMillis，已通知过的分组间隔 groupIntervalMillis
+     */
+    void dispatch(long nowMillis) {
+        List<AlertNotification> ready = new ArrayList<>();
+        synchronized (groups) {
+            Iterator<Group> iterator = groups.values().iterator();
+            while (iterator.hasNext()) {
+                Group group = iterator.next();
+                if (group.pending.isEmpty()) {
+                    // 等待期内的告警全部抵消
+                    group.firstPendingAt = 0;
+                    if (group.notified.isEmpty()) {
+                        iterator.remove();
+                    }
+                    continue;
+                }
+                long due = group.lastNotifiedAt == 0
+                        ? group.firstPendingAt + groupWaitMillis
+                        : Math.max(group.firstPendingAt, group.lastNotifiedAt + groupIntervalMillis);
+                if (nowMillis < due) {
+                    continue;
+                }
+                if (!bucket(group.receiver).tryAcquire(System.nanoTime())) {
+                    throttledCount.incrementAndGet();
+                    continue;
+                }
+                ready.add(group.drain(nowMillis));
+            }
+        }
+        for (AlertNotification notification : ready) {
+            notificationCount.incrementAndGet();
+            deliver(notification, 0);
+        }
+    }
+
+    private void deliver(AlertNotification notification, int attempt) {
+        try {
+            delivery.execute(() -> {
+                try {
+                    receivers.get(notification.getReceiver()).sendAlert(notification);
+                } catch (Exception e) {
+                    retry(notification, attempt, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            failedCount.incrementAndGet();
+            log.warn("告警分发已停止，丢弃通知: group={}", notification.getId());
+        }
+    }
+
+    private void retry(AlertNotification notification, int attempt, Exception cause) {
+        if (attempt >= maxRetries || scheduler == null || scheduler.isShutdown()) {
+            log.error("告警投递失败，放弃: group={}, receiver={}, attempts={}",
+                    notification.getId(), notification.getReceiver(), attempt + 1, cause);
+            rollback(notification);
+            failedCount.incrementAndGet();
+            return;
+        }
+        long backoff = Math.min(retryMaxMillis, retryInitialMillis << Math.min(attempt, 20));
+        retryCount.incrementAndGet();
+        log.warn("告警投递失败，{}毫秒后重试: group={}, receiver={}, error={}",
+                backoff, notification.getId(), notification.getReceiver(), cause.getMessage());
+        try {
+            scheduler.schedule(() -> deliver(notification, attempt + 1), backoff, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            failedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 撤销 drain 时对已通知指纹的更新，未投递成功的告警放回分组
+     */
+    private void rollback(AlertNotification notification) {
+        synchronized (groups) {
+            Group group = groups.computeIfAbsent(notification.getId(),
+                    k -> new Group(k, notification.getReceiver(), notification.getGroupLabels()));
+            group.restore(notification.getAlerts(), System.currentTimeMillis());
+        }
+    }
+
+    private String route(Alert alert) {
+        String receiver = null;
+        if (alert instanceof AlertEvent event && event.getSeverity() != null) {
+            receiver = routes.get(event.getSeverity());
+        }
+        if (receiver == null || !receivers.containsKey(receiver)) {
+            receiver = defaultReceiver;
+        }
+        if (!receivers.containsKey(receiver)) {
+            throw new IllegalStateException("未配置告警接收者: " + receiver);
+        }
+        return receiver;
+    }
+
+    private Map<String, String> groupLabels(Alert alert) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        if (!(alert instanceof AlertEvent event)) {
+            labels.put("id", alert.getId());
+            return labels;
+        }
+        for (String name : groupBy) {
+            String value = switch (name) {
+                case "ruleId" -> event.getRuleId();
+                case "severity" -> event.getSeverity();
+                case "metricName" -> event.getMetricName();
+                default -> event.getLabels().get(name);
+            };
+            labels.put(name, value == null ? "" : value);
+        }
+        return labels;
+    }
+
+    private TokenBucket bucket(String receiver) {
+        return buckets.computeIfAbsent(receiver, r -> new TokenBucket(receiverBurst, receiverRatePerSecond, System.nanoTime()));
+    }
+
+    /**
+     * 已收到的告警数
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * 去重抵消的告警数
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    /**
+     * 已下发的通知数
+     */
+    public long getNotificationCount() {
+        return notificationCount.get();
+    }
+
+    /**
+     * 因限流推迟的分组次数
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * 重试耗尽后放弃的通知数
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * 当前分组数
+     */
+    public int getGroupCount() {
+        synchronized (groups) {
+            return groups.size();
+        }
+    }
+
+    private static final class Group {
+        private final String key;
+        private final String receiver;
+        private final Map<String, String> labels;
+        // 指纹 -> 等待下发的最新状态
+        private final Map<String, Alert> pending = new LinkedHashMap<>();
+        // 已通知且仍在触发的指纹
+        private final Set<String> notified = new HashSet<>();
+        private long firstPendingAt;
+        private long lastNotifiedAt;
+
+        Group(String key, String receiver, Map<String, String> labels) {
+            this.key = key;
+            this.receiver = receiver;
+            this.labels = Map.copyOf(labels);
+        }
+
+        /**
+         * @return false 表示告警被去重抵消
+         */
+        boolean offer(Alert alert) {
+            String fingerprint = alert.getId();
+            boolean resolved = alert instanceof AlertEvent event && event.getStatus() == AlertEvent.Status.RESOLVED;
+            if (resolved) {
+                if (notified.contains(fingerprint)) {
+                    pending.put(fingerprint, alert);
+                    return true;
+                }
+                // 尚未通知的触发与恢复相互抵消
+                pending.remove(fingerprint);
+                return false;
+            }
+            if (notified.contains(fingerprint) && !pending.containsKey(fingerprint)) {
+                return false;
+            }
+            return pending.put(fingerprint, alert) == null;
+        }
+
+        AlertNotification drain(long nowMillis) {
+            List<Alert> alerts = new ArrayList<>(pending.values());
+            for (Map.Entry<String, Alert> entry : pending.entrySet()) {
+                Alert alert = entry.getValue();
+                if (!(alert instanceof AlertEvent event)) {
+                    continue;
+                }
+                if (event.getStatus() == AlertEvent.Status.FIRING) {
+                    notified.add(entry.getKey());
+                } else {
+                    notified.remove(entry.getKey());
+                }
+            }
+            pending.clear();
+            firstPendingAt = 0;
+            lastNotifiedAt = nowMillis;
+            return new AlertNotification(key, receiver, labels, alerts);
+        }
+
+        /**
+         * 放回投递失败的告警；期间又收到同一指纹的相反状态时两者抵消，接收者看到的状态保持不变
+         */
+        void restore(List<Alert> alerts, long nowMillis) {
+            for (Alert alert : alerts) {
+                String fingerprint = alert.getId();
+                if (!(alert instanceof AlertEvent event)) {
+                    pending.putIfAbsent(fingerprint, alert);
+                    continue;
+                }
+                boolean firing = event.getStatus() == AlertEvent.Status.FIRING;
+                // 接收者仍停留在投递前的状态
+                if (firing) {
+                    notified.remove(fingerprint);
+                } else {
+                    notified.add(fingerprint);
+                }
+                Alert newer = pending.get(fingerprint);
+                if (newer == null) {
+                    pending.put(fingerprint, alert);
+                } else if (newer instanceof AlertEvent newerEvent && newerEvent.getStatus() != event.getStatus()) {
+                    pending.remove(fingerprint);
+                }
+            }
+            if (!pending.isEmpty() && firstPendingAt == 0) {
+                firstPendingAt = nowMillis;
+            }
+        }
+    }
+}
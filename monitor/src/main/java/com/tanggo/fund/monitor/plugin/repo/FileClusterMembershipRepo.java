@@ -0,0 +1,92 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.cluster.ClusterMember;
+import com.tanggo.fund.monitor.core.extension.collector.ClusterMembershipRepo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 基于共享目录的集群成员仓储
+ * 每个节点一个文件（nodeId.member），内容为最近一次心跳时间；写入临时文件后原子替换，读取方不会看到半个文件。
+ * 适用于同一台主机上的多个采集进程，或挂载了同一共享存储（如NFS）的多台主机
+ */
+@Slf4j
+public class FileClusterMembershipRepo implements ClusterMembershipRepo {
+
+    private static final String SUFFIX = ".member";
+
+    // 节点ID只允许用作文件名的字符
+    private static final Pattern NODE_ID = Pattern.compile("[A-Za-z0-9._@-]+");
+
+    private final Path directory;
+
+    public FileClusterMembershipRepo(String directory) {
+        this.directory = Path.of(directory);
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建集群成员目录失败: " + directory, e);
+        }
+    }
+
+    @Override
+    public void heartbeat(String nodeId, long heartbeatMillis) {
+        Path file = file(nodeId);
+        Path tmp = directory.resolve(nodeId + SUFFIX + ".tmp");
+        try {
+            Files.writeString(tmp, Long.toString(heartbeatMillis), StandardCharsets.US_ASCII);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入集群心跳失败: " + file, e);
+        }
+    }
+
+    @Override
+    public void leave(String nodeId) {
+        try {
+            Files.deleteIfExists(file(nodeId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("删除集群成员文件失败: " + nodeId, e);
+        }
+    }
+
+    @Override
+    public List<ClusterMember> members() {
+        List<ClusterMember> members = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String nodeId = name.substring(0, name.length() - SUFFIX.length());
+                try {
+                    long heartbeat = Long.parseLong(Files.readString(file, StandardCharsets.US_ASCII).trim());
+                    members.add(new ClusterMember(nodeId, heartbeat));
+                } catch (NoSuchFileException e) {
+                    // 读取期间节点退出
+                } catch (NumberFormatException e) {
+                    log.warn("忽略格式错误的集群成员文件: {}", file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取集群成员目录失败: " + directory, e);
+        }
+        return members;
+    }
+
+    private Path file(String nodeId) {
+        if (nodeId == null || !NODE_ID.matcher(nodeId).matches()) {
+            throw new IllegalArgumentException("节点ID只能包含字母、数字和 ._@- : " + nodeId);
+        }
+        return directory.resolve(nodeId + SUFFIX);
+    }
+}
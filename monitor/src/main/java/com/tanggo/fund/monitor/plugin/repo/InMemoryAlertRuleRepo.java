@@ -0,0 +1,22 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.AlertRule;
+import com.tanggo.fund.monitor.core.extension.alert.AlertRuleRepo;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 内存实现的告警规则仓储
+ * 用于开发和测试环境
+ */
+@AllArgsConstructor
+public class InMemoryAlertRuleRepo implements AlertRuleRepo {
+
+    private final List<AlertRule> alertRules;
+
+    @Override
+    public List<AlertRule> loadAll() {
+        return List.copyOf(alertRules);
+    }
+}
@@ -4,6 +4,8 @@ import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
 import com.tanggo.fund.monitor.core.extension.collector.MetricRetrievalMetaRepo;
 import lombok.AllArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,4 +21,9 @@ public class InMemoryMetricRetrievalMetaRepo implements MetricRetrievalMetaRepo
     public MetricRetrievalMeta queryById(String monitorId) {
         return metaData.get(monitorId);
     }
+
+    @Override
+    public List<MetricRetrievalMeta> queryAll() {
+        return new ArrayList<>(metaData.values());
+    }
 }
@@ -0,0 +1,79 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * InfluxDB行协议编码
+ * 直接把 {@link Metric} 写成行协议文本，避免为每个样本创建 Point 对象
+ *
+ * <p>格式：{@code measurement,meterId=..,tagK=tagV value=1.5 1700000000000000000}，
+ * 标签按键排序（InfluxDB推荐的写入顺序），空值标签被忽略
+ */
+final class InfluxLineProtocol {
+
+    private InfluxLineProtocol() {
+    }
+
+    /**
+     * 追加一行记录
+     *
+     * @param sb     输出缓冲
+     * @param metric 指标，未设置采集时间时由服务端填写写入时间
+     * @return 是否写入（值为NaN或无穷大时InfluxDB不接受，返回false）
+     */
+    static boolean append(StringBuilder sb, Metric metric) {
+        double value = metric.getMetricValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+
+        escape(sb, metric.getMetricName(), false);
+        if (metric.getMeterId() != null && !metric.getMeterId().isEmpty()) {
+            sb.append(",meterId=");
+            escape(sb, metric.getMeterId(), true);
+        }
+        Map<String, String> tags = metric.getTags();
+        if (tags != null && !tags.isEmpty()) {
+            String[] keys = tags.keySet().toArray(new String[0]);
+            if (keys.length > 1) {
+                Arrays.sort(keys);
+            }
+            for (String key : keys) {
+                String tagValue = tags.get(key);
+                if (key == null || key.isEmpty() || tagValue == null || tagValue.isEmpty()) {
+                    continue;
+                }
+                sb.append(',');
+                escape(sb, key, true);
+                sb.append('=');
+                escape(sb, tagValue, true);
+            }
+        }
+        sb.append(" value=").append(value);
+        if (metric.hasTimestamp()) {
+            sb.append(' ').append(metric.getTimestampNanos());
+        }
+        return true;
+    }
+
+    /**
+     * 转义：先转义反斜杠，measurement 还需转义逗号和空格，tag键值还需转义等号
+     */
+    private static void escape(StringBuilder sb, String s, boolean tag) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\n') {
+                // 换行会截断整行记录，替换为转义的空格
+                sb.append("\\ ");
+                continue;
+            }
+            if (c == '\\' || c == ',' || c == ' ' || (tag && c == '=')) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+}
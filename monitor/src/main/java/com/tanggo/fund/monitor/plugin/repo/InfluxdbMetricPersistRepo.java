@@ -2,24 +2,76 @@ package com.tanggo.fund.monitor.plugin.repo;
 
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteOptions;
 import com.influxdb.client.domain.WritePrecision;
-import com.influxdb.client.write.Point;
+import com.influxdb.client.write.events.BackpressureEvent;
+import com.influxdb.client.write.events.WriteErrorEvent;
+import com.influxdb.client.write.events.WriteRetriableErrorEvent;
+import com.influxdb.client.write.events.WriteSuccessEvent;
 import com.tanggo.fund.monitor.core.entity.Metric;
 import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import java.time.ZoneId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * InfluxDB数据库持久化实现
  * 将监控指标数据保存到InfluxDB
+ *
+ * <p>仓储持有唯一一个长生命周期的非阻塞 WriteApi，由客户端后台按批量大小、刷写间隔和抖动合并写入，
+ * 失败的批次进入重试缓冲；{@link #close()} 在关闭时刷写剩余数据
  */
 @Slf4j
-public class InfluxdbMetricPersistRepo implements MetricPersistRepo {
+public class InfluxdbMetricPersistRepo implements MetricPersistRepo, AutoCloseable {
 
     private final InfluxDBClient influxDBClient;
     private final String bucket;
     private final String organization;
 
+    // 单批最大点数
+    @Setter
+    private int batchSize = 5_000;
+
+    // 刷写间隔（毫秒）
+    @Setter
+    private int flushIntervalMillis = 1_000;
+
+    // 刷写抖动（毫秒），避免多个采集器同时写入
+    @Setter
+    private int jitterIntervalMillis = 0;
+
+    // 首次重试间隔（毫秒）
+    @Setter
+    private int retryIntervalMillis = 5_000;
+
+    // 最大重试次数
+    @Setter
+    private int maxRetries = 5;
+
+    // 重试缓冲区可容纳的最大点数
+    @Setter
+    private int bufferLimit = 100_000;
+
+    // 是否注册JVM关闭钩子，在进程退出前刷写缓冲数据
+    @Setter
+    private boolean registerShutdownHook = true;
+
+    private volatile WriteApi writeApi;
+    private volatile boolean closed;
+    private Thread shutdownHook;
+
+    // 统计信息
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong writtenBatchCount = new AtomicLong();
+    private final AtomicLong retriableErrorCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong backpressureCount = new AtomicLong();
+
     /**
      * 构造函数
      *
@@ -40,42 +92,162 @@ public class InfluxdbMetricPersistRepo implements MetricPersistRepo {
      */
     @Override
     public void insert(Metric metric) {
+        insertAll(List.of(metric));
+    }
+
+    /**
+     * 批量写入指标数据
+     * 直接拼装行协议文本，交给共享的 WriteApi 异步批量发送
+     *
+     * @param metrics 待保存的指标数据
+     */
+    @Override
+    public void insertAll(Collection<Metric> metrics) {
+        if (metrics.isEmpty()) {
+            return;
+        }
         try {
-            // 将LocalDateTime转换为纳秒时间戳
-            long timestamp = metric.getTimestamp()
-                    .atZone(ZoneId.systemDefault())
-                    .toInstant()
-                    .toEpochMilli() * 1_000_000;
-
-            // 创建Point对象
-            Point point = Point.measurement(metric.getMetricName())
-                    .time(timestamp, WritePrecision.NS)
-                    .addField("value", metric.getMetricValue());
-
-            // 添加meterId作为tag
-            if (metric.getMeterId() != null) {
-                point.addTag("meterId", metric.getMeterId());
+            List<String> records = new ArrayList<>(metrics.size());
+            StringBuilder sb = new StringBuilder(128);
+            for (Metric metric : metrics) {
+                sb.setLength(0);
+                if (InfluxLineProtocol.append(sb, metric)) {
+                    records.add(sb.toString());
+                } else {
+                    skippedCount.incrementAndGet();
+                    log.debug("跳过非有限数值指标: metricName={}, value={}", metric.getMetricName(), metric.getMetricValue());
+                }
             }
-
-            // 添加自定义标签
-            if (metric.getTags() != null && !metric.getTags().isEmpty()) {
-                metric.getTags().forEach(point::addTag);
+            if (records.isEmpty()) {
+                return;
             }
 
-            // 写入数据
-            WriteApi writeApi = influxDBClient.getWriteApi();
-            writeApi.writePoint(bucket, organization, point);
+            writeApi().writeRecords(bucket, organization, WritePrecision.NS, records);
+            submittedCount.addAndGet(records.size());
 
-            log.info("指标数据已保存到InfluxDB: metricName={}, value={}, timestamp={}",
-                    metric.getMetricName(), metric.getMetricValue(), metric.getTimestamp());
+            log.debug("指标数据已提交到InfluxDB写入缓冲: size={}", records.size());
 
         } catch (Exception e) {
-            log.error("保存指标到InfluxDB异常: metricName={}, error={}",
-                    metric.getMetricName(), e.getMessage(), e);
+            log.error("保存指标到InfluxDB异常: size={}, error={}", metrics.size(), e.getMessage(), e);
             throw new RuntimeException("InfluxDB操作失败", e);
         }
     }
 
+    /**
+     * 立即刷写缓冲区
+     */
+    public void flush() {
+        WriteApi api = writeApi;
+        if (api != null) {
+            api.flush();
+        }
+    }
+
+    /**
+     * 刷写缓冲数据并释放 WriteApi
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM 正在退出，钩子已在执行
+            }
+        }
+        shutdownHook = null;
+        WriteApi api = writeApi;
+        if (api != null) {
+            log.info("关闭InfluxDB写入管道，刷写剩余数据: submitted={}", submittedCount.get());
+            api.close();
+            writeApi = null;
+        }
+    }
+
+    private WriteApi writeApi() {
+        WriteApi api = writeApi;
+        if (api != null) {
+            return api;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("InfluxDB写入管道已关闭");
+            }
+            if (writeApi == null) {
+                WriteOptions options = WriteOptions.builder()
+                        .batchSize(batchSize)
+                        .flushInterval(flushIntervalMillis)
+                        .jitterInterval(jitterIntervalMillis)
+                        .retryInterval(retryIntervalMillis)
+                        .maxRetries(maxRetries)
+                        .bufferLimit(bufferLimit)
+                        .build();
+                WriteApi created = influxDBClient.makeWriteApi(options);
+                created.listenEvents(WriteSuccessEvent.class, event -> writtenBatchCount.incrementAndGet());
+                created.listenEvents(WriteRetriableErrorEvent.class, event -> {
+                    retriableErrorCount.incrementAndGet();
+                    log.warn("InfluxDB写入失败，等待重试: {}", event.getThrowable().getMessage());
+                });
+                created.listenEvents(WriteErrorEvent.class, event -> {
+                    errorCount.incrementAndGet();
+                    log.error("InfluxDB写入失败: {}", event.getThrowable().getMessage());
+                });
+                created.listenEvents(BackpressureEvent.class, event -> {
+                    backpressureCount.incrementAndGet();
+                    log.warn("InfluxDB写入缓冲已满，触发背压: {}", event.getReason());
+                });
+                if (registerShutdownHook) {
+                    shutdownHook = new Thread(this::close, "influxdb-write-shutdown");
+                    Runtime.getRuntime().addShutdownHook(shutdownHook);
+                }
+                log.info("InfluxDB写入管道已创建: batchSize={}, flushIntervalMillis={}, jitterIntervalMillis={}, bufferLimit={}",
+                        batchSize, flushIntervalMillis, jitterIntervalMillis, bufferLimit);
+                writeApi = created;
+            }
+            return writeApi;
+        }
+    }
+
+    /**
+     * 已提交到写入缓冲的点数
+     */
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    /**
+     * 因数值非有限而跳过的点数
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * 写入成功的批次数
+     */
+    public long getWrittenBatchCount() {
+        return writtenBatchCount.get();
+    }
+
+    public long getRetriableErrorCount() {
+        return retriableErrorCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * 写入缓冲区溢出（背压）次数
+     */
+    public long getBackpressureCount() {
+        return backpressureCount.get();
+    }
+
     /**
      * 获取InfluxDB客户端
      *
@@ -0,0 +1,125 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.query.FluxRecord;
+import com.influxdb.query.FluxTable;
+import com.tanggo.fund.monitor.core.extension.collector.MetricQueryRepo;
+import com.tanggo.fund.monitor.core.query.DataPoint;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * InfluxDB指标查询实现
+ * 查询 {@link InfluxdbMetricPersistRepo} 写入的数据（measurement 为指标名称，字段 value），
+ * 过滤和降采样全部生成 Flux 下推：aggregateWindow 的窗口按纪元对齐，与对齐后的查询范围一致；
+ * P95 使用 quantile(exact_selector)，RATE 先 derivative(nonNegative) 再取窗口平均
+ */
+@Slf4j
+public class InfluxdbMetricQueryRepo implements MetricQueryRepo {
+
+    private final InfluxDBClient influxDBClient;
+    private final String bucket;
+    private final String organization;
+
+    public InfluxdbMetricQueryRepo(InfluxDBClient influxDBClient, String bucket, String organization) {
+        this.influxDBClient = influxDBClient;
+        this.bucket = bucket;
+        this.organization = organization;
+    }
+
+    @Override
+    public List<TimeSeries> query(MetricQuery query) {
+        String flux = flux(query, bucket);
+        try {
+            List<FluxTable> tables = influxDBClient.getQueryApi().query(flux, organization);
+            List<TimeSeries> result = new ArrayList<>(tables.size());
+            for (FluxTable table : tables) {
+                List<FluxRecord> records = table.getRecords();
+                if (records.isEmpty()) {
+                    continue;
+                }
+                List<DataPoint> points = new ArrayList<>(records.size());
+                for (FluxRecord record : records) {
+                    if (record.getTime() != null && record.getValue() instanceof Number value) {
+                        points.add(new DataPoint(record.getTime().toEpochMilli(), value.doubleValue()));
+                    }
+                }
+                result.add(new TimeSeries(query.getMetricName(), tags(records.get(0)), points));
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("查询InfluxDB异常: metricName={}, error={}", query.getMetricName(), e.getMessage(), e);
+            throw new RuntimeException("InfluxDB查询失败", e);
+        }
+    }
+
+    /**
+     * 记录中的标签列：去掉 Flux 内部列（_开头、result、table）
+     */
+    private static Map<String, String> tags(FluxRecord record) {
+        Map<String, String> tags = new HashMap<>();
+        record.getValues().forEach((column, value) -> {
+            if (!column.startsWith("_") && !"result".equals(column) && !"table".equals(column) && value != null) {
+                tags.put(column, value.toString());
+            }
+        });
+        return tags;
+    }
+
+    static String flux(MetricQuery query, String bucket) {
+        StringBuilder flux = new StringBuilder(512);
+        flux.append("from(bucket: ").append(string(bucket)).append(")\n")
+                .append("  |> range(start: ").append(Instant.ofEpochMilli(query.getFromMillis()))
+                .append(", stop: ").append(Instant.ofEpochMilli(query.getToMillis())).append(")\n")
+                .append("  |> filter(fn: (r) => r._measurement == ").append(string(query.getMetricName()))
+                .append(" and r._field == \"value\")\n");
+        for (TagMatcher matcher : query.getMatchers()) {
+            flux.append("  |> filter(fn: (r) => ").append(predicate(matcher)).append(")\n");
+        }
+
+        String every = query.getStepMillis() + "ms";
+        String window = "  |> aggregateWindow(every: " + every + ", fn: %s, createEmpty: false, timeSrc: \"_start\")\n";
+        switch (query.getAggregation()) {
+            case AVG -> flux.append(String.format(window, "mean"));
+            case MIN -> flux.append(String.format(window, "min"));
+            case MAX -> flux.append(String.format(window, "max"));
+            case SUM -> flux.append(String.format(window, "sum"));
+            case COUNT -> flux.append(String.format(window, "count"));
+            case P95 -> flux.append(String.format(window,
+                    "(column, tables=<-) => tables |> quantile(q: 0.95, column: column, method: \"exact_selector\")"));
+            case RATE -> flux.append("  |> derivative(unit: 1s, nonNegative: true)\n")
+                    .append(String.format(window, "mean"));
+        }
+        return flux.toString();
+    }
+
+    /**
+     * 标签条件；缺失的标签按空字符串处理
+     */
+    private static String predicate(TagMatcher matcher) {
+        String column = "r[" + string(matcher.getKey()) + "]";
+        String missing = "not exists " + column + " or ";
+        return switch (matcher.getOp()) {
+            case EQ -> (matcher.getValue().isEmpty() ? missing : "") + column + " == " + string(matcher.getValue());
+            case NEQ -> (matcher.getValue().isEmpty() ? "" : missing) + column + " != " + string(matcher.getValue());
+            case REGEX -> (matcher.matches(null) ? missing : "") + column + " =~ " + regex(matcher);
+            case NOT_REGEX -> (matcher.matches(null) ? missing : "") + column + " !~ " + regex(matcher);
+        };
+    }
+
+    private static String string(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String regex(TagMatcher matcher) {
+        return "/" + matcher.anchoredRegex().replace("/", "\\/") + "/";
+    }
+}
@@ -0,0 +1,226 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import com.tanggo.fund.monitor.core.extension.collector.MetricQueryRepo;
+import com.tanggo.fund.monitor.core.query.BucketAggregator;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.MetricSeries;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+import com.tanggo.fund.monitor.plugin.repo.tsdb.Series;
+import com.tanggo.fund.monitor.plugin.repo.tsdb.TimeSeriesStore;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地时序库持久化实现
+ * 用于无法稳定连接 MySQL / InfluxDB 的边缘采集点，指标写入本机的 {@link TimeSeriesStore}
+ * （按时间分区、内存映射的列式段文件，Gorilla 压缩），可在本地按指标名称和标签查询
+ *
+ * <p>后台线程按 flushIntervalMillis 封存活跃数据块并同步段文件，同时清理超出保留期的分区
+ */
+@Slf4j
+public class LocalTsdbMetricPersistRepo implements MetricPersistRepo, MetricQueryRepo, AutoCloseable {
+
+    private static final String METER_ID_TAG = "meterId";
+
+    // 存储目录
+    @Setter
+    private String directory = "data/tsdb";
+
+    // 分区时间跨度（毫秒）
+    @Setter
+    private long partitionMillis = TimeUnit.HOURS.toMillis(2);
+
+    // 数据保留时长（毫秒）
+    @Setter
+    private long retentionMillis = TimeUnit.DAYS.toMillis(7);
+
+    // 段文件容量（字节）
+    @Setter
+    private int segmentBytes = 64 << 20;
+
+    // 单个数据块的最大样本数
+    @Setter
+    private int maxSamplesPerChunk = 120;
+
+    // 封存与清理间隔（毫秒），也是异常退出时可能丢失的最长数据窗口
+    @Setter
+    private long flushIntervalMillis = 60_000;
+
+    private volatile TimeSeriesStore store;
+    private ScheduledExecutorService maintenance;
+
+    /**
+     * 打开存储目录并启动后台维护线程
+     */
+    public synchronized void start() {
+        if (store != null) {
+            return;
+        }
+        TimeSeriesStore opened = new TimeSeriesStore(Path.of(directory));
+        opened.setPartitionMillis(partitionMillis);
+        opened.setRetentionMillis(retentionMillis);
+        opened.setSegmentBytes(segmentBytes);
+        opened.setMaxSamplesPerChunk(maxSamplesPerChunk);
+        opened.open();
+        opened.enforceRetention(System.currentTimeMillis());
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "local-tsdb-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintain, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        store = opened;
+    }
+
+    private void maintain() {
+        try {
+            store.flush();
+            store.enforceRetention(System.currentTimeMillis());
+        } catch (Exception e) {
+            log.error("本地时序库维护失败: directory={}", directory, e);
+        }
+    }
+
+    @Override
+    public void insert(Metric metric) {
+        insertAll(List.of(metric));
+    }
+
+    /**
+     * 批量写入，非有限数值同样保存（XOR 编码保留原始位）
+     */
+    @Override
+    public void insertAll(Collection<Metric> metrics) {
+        TimeSeriesStore s = store();
+        for (Metric metric : metrics) {
+            s.append(metric.getMetricName(), tags(metric), EpochNanos.toMillis(metric.getTimestampNanos()), metric.getMetricValue());
+        }
+    }
+
+    private static Map<String, String> tags(Metric metric) {
+        Map<String, String> tags = metric.getTags();
+        String meterId = metric.getMeterId();
+        if (meterId == null || meterId.isEmpty()) {
+            return tags;
+        }
+        Map<String, String> withMeterId = tags == null ? new HashMap<>() : new HashMap<>(tags);
+        withMeterId.put(METER_ID_TAG, meterId);
+        return withMeterId;
+    }
+
+    /**
+     * 本地查询
+     *
+     * @param metricName 指标名称
+     * @param tags       需全部匹配的标签，为空表示不过滤
+     * @param from       起始时间（含）
+     * @param to         结束时间（不含）
+     * @return 按序列分组、组内按时间排序的指标
+     */
+    public List<Metric> query(String metricName, Map<String, String> tags, LocalDateTime from, LocalDateTime to) {
+        List<Metric> result = new ArrayList<>();
+        List<Integer> seriesStarts = new ArrayList<>();
+        Series[] current = new Series[1];
+        // 同一序列的样本连续回调，序列和 meterId 只在切换序列时解析一次
+        MetricSeries[] resolved = new MetricSeries[1];
+        String[] meterId = new String[1];
+        store().query(metricName, tags, epochMillis(from), epochMillis(to), (series, timestampMillis, value) -> {
+            if (series != current[0]) {
+                current[0] = series;
+                seriesStarts.add(result.size());
+                Map<String, String> seriesTags = new HashMap<>(series.getTags());
+                meterId[0] = seriesTags.remove(METER_ID_TAG);
+                resolved[0] = SeriesRegistry.global().resolve(series.getMetricName(), seriesTags);
+            }
+            Metric metric = Metric.of(resolved[0], EpochNanos.ofMillis(timestampMillis), value);
+            metric.setMeterId(meterId[0]);
+            result.add(metric);
+        });
+        // 序列内乱序写入的样本按时间归位
+        seriesStarts.add(result.size());
+        for (int i = 0; i + 1 < seriesStarts.size(); i++) {
+            result.subList(seriesStarts.get(i), seriesStarts.get(i + 1)).sort(Comparator.comparingLong(Metric::getTimestampNanos));
+        }
+        return result;
+    }
+
+    /**
+     * 降采样查询：等值标签条件交给存储筛选序列，其余条件逐序列判断，窗口聚合在进程内完成
+     */
+    @Override
+    public List<TimeSeries> query(MetricQuery query) {
+        Map<String, String> equalities = new HashMap<>();
+        for (TagMatcher matcher : query.getMatchers()) {
+            if (matcher.getOp() == TagMatcher.Op.EQ && !matcher.getValue().isEmpty()) {
+                equalities.put(matcher.getKey(), matcher.getValue());
+            }
+        }
+        TimeSeriesStore s = store();
+        List<Series> matched = new ArrayList<>();
+        for (Series series : s.series(query.getMetricName(), equalities)) {
+            if (query.matches(series.getTags())) {
+                matched.add(series);
+            }
+        }
+        BucketAggregator aggregator = new BucketAggregator(query);
+        s.query(matched, query.getFromMillis(), query.getToMillis(),
+                (series, timestampMillis, value) -> aggregator.add(series.getTags(), timestampMillis, value));
+        return aggregator.result();
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return EpochNanos.toMillis(EpochNanos.of(time));
+    }
+
+    private TimeSeriesStore store() {
+        TimeSeriesStore s = store;
+        if (s == null) {
+            throw new IllegalStateException("本地时序库未启动");
+        }
+        return s;
+    }
+
+    /**
+     * 底层存储，供统计和按序列回调的查询使用
+     */
+    public TimeSeriesStore getStore() {
+        return store();
+    }
+
+    /**
+     * 停止维护线程，封存剩余数据块后关闭存储
+     */
+    @Override
+    public synchronized void close() {
+        TimeSeriesStore s = store;
+        if (s == null) {
+            return;
+        }
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        s.close();
+        store = null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Alert;
+import com.tanggo.fund.monitor.core.extension.alert.AlertRepo;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 日志实现的告警下发仓储
+ * 用于开发和测试环境，将告警打印到日志
+ */
+@Slf4j
+public class LogAlertRepo implements AlertRepo {
+
+    @Override
+    public void sendAlert(Alert alert) {
+        log.warn("=== 告警 === {}", alert);
+    }
+}
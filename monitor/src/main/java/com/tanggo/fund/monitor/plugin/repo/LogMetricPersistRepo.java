@@ -4,6 +4,8 @@ import com.tanggo.fund.monitor.core.entity.Metric;
 import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collection;
+
 /**
  * 日志实现的指标持久化仓储
  * 用于开发和测试环境，将指标打印到日志而不是数据库
@@ -20,4 +22,22 @@ public class LogMetricPersistRepo implements MetricPersistRepo {
         log.info("标签数据: {}", metric.getTags());
         log.info("================");
     }
+
+    /**
+     * 批量打印：整批指标合并为一条日志输出，每个指标占一行
+     */
+    @Override
+    public void insertAll(Collection<Metric> metrics) {
+        if (metrics.isEmpty() || !log.isInfoEnabled()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(metrics.size() * 96);
+        for (Metric metric : metrics) {
+            sb.append('\n')
+                    .append(metric.getTimestamp()).append(' ')
+                    .append(metric.getMetricName()).append('=').append(metric.getMetricValue())
+                    .append(' ').append(metric.getTags());
+        }
+        log.info("=== 指标数据（{}条） ==={}", metrics.size(), sb);
+    }
 }
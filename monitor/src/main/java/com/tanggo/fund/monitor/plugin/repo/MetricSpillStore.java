@@ -0,0 +1,325 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 指标溢出存储
+ * 内存队列已满时将指标按行追加到本地分段文件，队列空闲时按写入顺序逐段取回
+ *
+ * <p>每行一条指标，字段以制表符分隔：timestamp, metricName, value, meterId, tags(k=v,k=v)，
+ * 字段内的反斜杠、制表符、换行、逗号和等号均做转义。timestamp 为 epoch 纳秒，没有采集时间时为空；
+ * 旧版本写入的本地时间文本仍可读取
+ */
+@Slf4j
+public class MetricSpillStore {
+
+    private static final String SEGMENT_PREFIX = "spill-";
+    private static final String SEGMENT_SUFFIX = ".tsv";
+    // 死信文件前缀，启动时不作为待回放分段加载
+    private static final String DEAD_LETTER_PREFIX = "dead-";
+
+    private final Path directory;
+    private final int segmentRecords;
+
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private long nextSegmentId;
+    private BufferedWriter writer;
+    private int writerRecords;
+    private long pendingRecords;
+
+    /**
+     * 构造函数
+     *
+     * @param directory      溢出文件目录
+     * @param segmentRecords 单个分段文件的最大记录数
+     */
+    public MetricSpillStore(Path directory, int segmentRecords) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(f -> f.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .forEach(f -> segments.put(segmentId(f), f));
+            }
+            for (Path segment : segments.values()) {
+                try (Stream<String> lines = Files.lines(segment, StandardCharsets.UTF_8)) {
+                    pendingRecords += lines.filter(line -> !line.isEmpty()).count();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("初始化溢出目录失败: " + directory, e);
+        }
+        nextSegmentId = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        if (pendingRecords > 0) {
+            log.info("发现未回放的溢出指标: directory={}, records={}", directory, pendingRecords);
+        }
+    }
+
+    /**
+     * 追加指标
+     *
+     * @param metrics 待溢出的指标
+     */
+    public synchronized void append(Collection<Metric> metrics) {
+        try {
+            for (Metric metric : metrics) {
+                if (writer == null || writerRecords >= segmentRecords) {
+                    rotate();
+                }
+                writer.write(encode(metric));
+                writer.write('\n');
+                writerRecords++;
+                pendingRecords++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入溢出文件失败", e);
+        }
+    }
+
+    /**
+     * 读取最早的一个分段，分段文件保留到调用方写入成功后 {@link #removeSegment(Segment)}，
+     * 回放过程中进程退出时下次启动仍能读到
+     *
+     * @return 最早的分段；没有溢出数据时返回 null
+     */
+    public synchronized Segment readSegment() {
+        if (segments.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, Path> first = segments.firstEntry();
+        try {
+            if (writer != null && first.getKey() == nextSegmentId - 1) {
+                // 正在写入的分段需要先封口，之后的追加写入新分段
+                writer.close();
+                writer = null;
+            }
+            List<Metric> metrics = new ArrayList<>();
+            int records = 0;
+            try (BufferedReader reader = Files.newBufferedReader(first.getValue(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    records++;
+                    try {
+                        metrics.add(decode(line));
+                    } catch (RuntimeException e) {
+                        // 损坏的行无法回放，跳过以免整个分段永远无法读取
+                        log.warn("跳过无法解析的溢出记录: file={}, error={}", first.getValue(), e.toString());
+                    }
+                }
+            }
+            return new Segment(first.getKey(), metrics, records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取溢出文件失败: " + first.getValue(), e);
+        }
+    }
+
+    /**
+     * 删除已回放的分段
+     */
+    public synchronized void removeSegment(Segment segment) {
+        Path file = segments.get(segment.id());
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("删除溢出文件失败: " + file, e);
+        }
+        segments.remove(segment.id());
+        pendingRecords -= segment.records();
+    }
+
+    /**
+     * 把分段改名为死信文件，不再回放，保留在目录中供人工处理
+     */
+    public synchronized void deadLetter(Segment segment) {
+        Path file = segments.get(segment.id());
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.move(file, file.resolveSibling(DEAD_LETTER_PREFIX + file.getFileName()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("转移死信文件失败: " + file, e);
+        }
+        segments.remove(segment.id());
+        pendingRecords -= segment.records();
+    }
+
+    /**
+     * 待回放的溢出记录数
+     */
+    public synchronized long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("关闭溢出文件失败: {}", e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * 溢出分段
+     *
+     * @param id      分段编号
+     * @param metrics 分段内可解析的指标，按写入顺序
+     * @param records 分段内的记录行数（含无法解析而跳过的行）
+     */
+    public record Segment(long id, List<Metric> metrics, int records) {
+    }
+
+    private void rotate() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+        long id = nextSegmentId++;
+        Path segment = directory.resolve(SEGMENT_PREFIX + String.format("%016d", id) + SEGMENT_SUFFIX);
+        writer = Files.newBufferedWriter(segment, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        segments.put(id, segment);
+        writerRecords = 0;
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static String encode(Metric metric) {
+        StringBuilder sb = new StringBuilder(96);
+        if (metric.hasTimestamp()) {
+            sb.append(metric.getTimestampNanos());
+        }
+        sb.append('\t');
+        escape(sb, metric.getMetricName());
+        sb.append('\t').append(metric.getMetricValue()).append('\t');
+        escape(sb, metric.getMeterId());
+        sb.append('\t');
+        if (metric.getTags() != null) {
+            boolean first = true;
+            for (Map.Entry<String, String> tag : metric.getTags().entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                escape(sb, tag.getKey());
+                sb.append('=');
+                escape(sb, tag.getValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Metric decode(String line) {
+        List<String> fields = splitEscaped(line, '\t');
+        Metric metric = new Metric();
+        String timestamp = fields.get(0);
+        if (timestamp.indexOf('T') > 0) {
+            metric.setTimestamp(LocalDateTime.parse(timestamp));
+        } else if (!timestamp.isEmpty() && !"null".equals(timestamp)) {
+            metric.setTimestampNanos(Long.parseLong(timestamp));
+        }
+        metric.setMetricName(unescape(fields.get(1)));
+        metric.setMetricValue(Double.parseDouble(fields.get(2)));
+        String meterId = unescape(fields.get(3));
+        metric.setMeterId(meterId.isEmpty() ? null : meterId);
+        Map<String, String> tags = new HashMap<>();
+        if (fields.size() > 4 && !fields.get(4).isEmpty()) {
+            for (String pair : splitEscaped(fields.get(4), ',')) {
+                List<String> kv = splitEscaped(pair, '=');
+                tags.put(unescape(kv.get(0)), kv.size() > 1 ? unescape(kv.get(1)) : "");
+            }
+        }
+        metric.setTags(tags);
+        return metric;
+    }
+
+    private static void escape(StringBuilder sb, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\t' -> sb.append("\\t");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case ',' -> sb.append("\\,");
+                case '=' -> sb.append("\\=");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 't' -> sb.append('\t');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    default -> sb.append(next);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按未转义的分隔符拆分，保留转义序列
+     */
+    private static List<String> splitEscaped(String value, char delimiter) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == delimiter) {
+                parts.add(value.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(value.substring(start));
+        return parts;
+    }
+}
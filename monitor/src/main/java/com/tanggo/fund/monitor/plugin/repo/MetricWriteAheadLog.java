@@ -0,0 +1,481 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 指标预写日志（WAL）
+ * 每次批量写入编码为一条记录追加到当前分段文件，fsync 之后才确认；并发写入者共享同一次 fsync（组提交）
+ *
+ * <p>日志位置（LSN）是全局字节偏移，分段文件以起始 LSN 命名（wal-0000000000000000.log），
+ * 单个分段超过 segmentBytes 后滚动。读取端从检查点记录的 LSN 开始顺序读取已落盘的记录，
+ * 确认转发后推进检查点并删除已消费完的分段
+ *
+ * <p>记录格式：payloadLength(4) + crc32(4) + payload，payload 为 DataOutput 编码的指标列表。
+ * 打开时校验最后一个分段，截断进程中途退出留下的不完整记录
+ */
+@Slf4j
+public class MetricWriteAheadLog implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final long NULL_TIMESTAMP = Long.MIN_VALUE;
+    // 时间字段后的标记：记录保存的是 epoch 纳秒；旧版本在此处保存本地时间的纳秒部分（非负）
+    private static final int EPOCH_NANOS_MARKER = -1;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+
+    // 分段起始LSN -> 文件，受 this 保护
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    // 写入端，受 writeLock 保护
+    private final Object writeLock = new Object();
+    private FileChannel writer;
+    private long writerBase;
+    private long writtenLsn;
+
+    // 组提交
+    private final Object syncLock = new Object();
+    private volatile long syncedLsn;
+    private long syncCount;
+
+    // 读取端，受 this 保护
+    private long readLsn;
+    private FileChannel reader;
+    private long readerBase = -1;
+    private long droppedBytes;
+
+    /**
+     * 打开日志目录：恢复分段列表和检查点，截断最后一个分段的不完整记录
+     *
+     * @param directory    日志目录
+     * @param segmentBytes 单个分段文件的滚动阈值（字节）
+     * @param maxBytes     未转发数据的上限（字节），超出后删除最早的分段
+     */
+    public MetricWriteAheadLog(Path directory, long segmentBytes, long maxBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(f -> f.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                        .forEach(f -> segments.put(segmentBase(f), f));
+            }
+            if (segments.isEmpty()) {
+                segments.put(0L, segmentPath(0));
+            }
+            writerBase = segments.lastKey();
+            Path last = segments.lastEntry().getValue();
+            writer = FileChannel.open(last, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long valid = validLength(writer);
+            if (valid < writer.size()) {
+                log.warn("截断预写日志不完整的尾部记录: file={}, size={}, valid={}", last, writer.size(), valid);
+                writer.truncate(valid);
+            }
+            writer.position(valid);
+            writtenLsn = writerBase + valid;
+            syncedLsn = writtenLsn;
+            readLsn = Math.max(readCheckpoint(), segments.firstKey());
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开预写日志失败: " + directory, e);
+        }
+        if (readLsn < writtenLsn) {
+            log.info("发现未转发的预写日志: directory={}, pendingBytes={}", directory, writtenLsn - readLsn);
+        }
+    }
+
+    /**
+     * 追加一批指标并等待落盘
+     *
+     * @return 该记录结束位置的LSN
+     */
+    public long append(Collection<Metric> metrics) {
+        ByteBuffer record = encode(metrics);
+        long end;
+        FileChannel dropped = null;
+        try {
+            synchronized (writeLock) {
+                if (writtenLsn > writerBase && writtenLsn - writerBase + record.remaining() > segmentBytes) {
+                    roll();
+                }
+                while (record.hasRemaining()) {
+                    writer.write(record);
+                }
+                writtenLsn = writerBase + writer.position();
+                end = writtenLsn;
+            }
+            sync(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入预写日志失败: " + directory, e);
+        }
+        enforceLimit();
+        return end;
+    }
+
+    /**
+     * 组提交：已被其它写入者的 fsync 覆盖时直接返回，否则由当前线程 fsync 截至目前写入的全部数据
+     */
+    private void sync(long lsn) throws IOException {
+        if (syncedLsn >= lsn) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedLsn >= lsn) {
+                return;
+            }
+            FileChannel channel;
+            long target;
+            synchronized (writeLock) {
+                channel = writer;
+                target = writtenLsn;
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // 分段滚动时已 fsync 并关闭，target 之前的数据均已落盘
+            }
+            syncCount++;
+            syncedLsn = target;
+        }
+    }
+
+    /**
+     * 滚动分段：旧分段 fsync 后关闭，新分段以当前LSN命名
+     */
+    private void roll() throws IOException {
+        writer.force(false);
+        writer.close();
+        writerBase = writtenLsn;
+        Path next = segmentPath(writerBase);
+        writer = FileChannel.open(next, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        synchronized (this) {
+            segments.put(writerBase, next);
+        }
+    }
+
+    /**
+     * 未转发数据超出上限时删除最早的分段（正在写入的分段除外）
+     */
+    private synchronized void enforceLimit() {
+        while (segments.size() > 1 && syncedLsn - segments.firstKey() > maxBytes) {
+            Map.Entry<Long, Path> first = segments.pollFirstEntry();
+            long nextBase = segments.firstKey();
+            if (readLsn < nextBase) {
+                droppedBytes += nextBase - Math.max(readLsn, first.getKey());
+                log.warn("预写日志超出上限，丢弃最早的分段: file={}, maxBytes={}", first.getValue(), maxBytes);
+                readLsn = nextBase;
+            }
+            if (readerBase == first.getKey()) {
+                closeReader();
+            }
+            deleteQuietly(first.getValue());
+        }
+    }
+
+    /**
+     * 读取检查点之后已落盘的记录，不推进检查点
+     *
+     * @param maxMetrics 单批最多读取的指标数（至少读取一条记录）
+     * @return 读取的批次；没有新数据时指标列表为空
+     */
+    public synchronized Batch read(int maxMetrics) {
+        List<Metric> metrics = new ArrayList<>();
+        long position = readLsn;
+        long durable = syncedLsn;
+        try {
+            while (position < durable && metrics.size() < maxMetrics) {
+                Map.Entry<Long, Path> segment = segments.floorEntry(position);
+                if (segment == null) {
+                    break;
+                }
+                FileChannel channel = reader(segment);
+                long offset = position - segment.getKey();
+                if (offset >= channel.size()) {
+                    // 当前分段已读完，跳到下一个分段
+                    Long next = segments.higherKey(segment.getKey());
+                    if (next == null) {
+                        break;
+                    }
+                    position = next;
+                    continue;
+                }
+                ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+                readFully(channel, header, offset);
+                int length = header.getInt(0);
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, offset + RECORD_HEADER_BYTES);
+                decode(payload.array(), metrics);
+                position += RECORD_HEADER_BYTES + length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取预写日志失败: " + directory, e);
+        }
+        return new Batch(metrics, position);
+    }
+
+    /**
+     * 确认一批记录已转发：推进并持久化检查点，删除已消费完的分段
+     */
+    public synchronized void commit(Batch batch) {
+        if (batch.endLsn <= readLsn) {
+            return;
+        }
+        readLsn = batch.endLsn;
+        try {
+            Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.write(tmp, ByteBuffer.allocate(8).putLong(0, readLsn).array());
+            Files.move(tmp, directory.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存预写日志检查点失败: " + directory, e);
+        }
+        while (segments.size() > 1) {
+            Map.Entry<Long, Path> first = segments.firstEntry();
+            Long next = segments.higherKey(first.getKey());
+            if (next > readLsn) {
+                break;
+            }
+            segments.pollFirstEntry();
+            if (readerBase == first.getKey()) {
+                closeReader();
+            }
+            deleteQuietly(first.getValue());
+        }
+    }
+
+    private FileChannel reader(Map.Entry<Long, Path> segment) throws IOException {
+        if (readerBase != segment.getKey()) {
+            closeReader();
+            reader = FileChannel.open(segment.getValue(), StandardOpenOption.READ);
+            readerBase = segment.getKey();
+        }
+        return reader;
+    }
+
+    private void closeReader() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                log.warn("关闭预写日志分段失败: {}", e.getMessage());
+            }
+            reader = null;
+            readerBase = -1;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("预写日志记录不完整");
+            }
+        }
+    }
+
+    /**
+     * 已落盘但尚未确认转发的字节数
+     */
+    public synchronized long getPendingBytes() {
+        return syncedLsn - readLsn;
+    }
+
+    /**
+     * 超出上限被丢弃的字节数
+     */
+    public synchronized long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    /**
+     * fsync 次数，小于追加次数说明组提交生效
+     */
+    public long getSyncCount() {
+        synchronized (syncLock) {
+            return syncCount;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            try {
+                writer.force(false);
+                writer.close();
+            } catch (IOException e) {
+                log.warn("关闭预写日志失败: {}", e.getMessage());
+            }
+        }
+        synchronized (this) {
+            closeReader();
+        }
+    }
+
+    /**
+     * 从分段开头逐条校验长度和CRC，返回完整记录的总长度
+     */
+    private static long validLength(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (position + RECORD_HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            int length = header.getInt(0);
+            if (length < 0 || position + RECORD_HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + RECORD_HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            position += RECORD_HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        return bytes.length == 8 ? ByteBuffer.wrap(bytes).getLong() : 0;
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%016d", base) + SEGMENT_SUFFIX);
+    }
+
+    private static long segmentBase(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除预写日志分段失败: file={}, error={}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 编码一条记录；时间保存 epoch 纳秒，回放结果与写入和回放时的系统时区无关
+     */
+    private static ByteBuffer encode(Collection<Metric> metrics) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_HEADER_BYTES + metrics.size() * 96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeLong(0);
+            out.writeInt(metrics.size());
+            for (Metric metric : metrics) {
+                out.writeLong(metric.hasTimestamp() ? metric.getTimestampNanos() : NULL_TIMESTAMP);
+                out.writeInt(EPOCH_NANOS_MARKER);
+                out.writeUTF(nullToEmpty(metric.getMetricName()));
+                out.writeDouble(metric.getMetricValue());
+                out.writeUTF(nullToEmpty(metric.getMeterId()));
+                Map<String, String> tags = metric.getTags() == null ? Map.of() : metric.getTags();
+                out.writeInt(tags.size());
+                for (Map.Entry<String, String> tag : tags.entrySet()) {
+                    out.writeUTF(nullToEmpty(tag.getKey()));
+                    out.writeUTF(nullToEmpty(tag.getValue()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int length = record.capacity() - RECORD_HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_BYTES, length);
+        record.putInt(0, length);
+        record.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    private static void decode(byte[] payload, List<Metric> metrics) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Metric metric = new Metric();
+            long timestamp = in.readLong();
+            int nano = in.readInt();
+            if (timestamp != NULL_TIMESTAMP) {
+                if (nano == EPOCH_NANOS_MARKER) {
+                    metric.setTimestampNanos(timestamp);
+                } else {
+                    // 旧版本记录：本地时间的字面值
+                    metric.setTimestamp(LocalDateTime.ofEpochSecond(timestamp, nano, ZoneOffset.UTC));
+                }
+            }
+            metric.setMetricName(in.readUTF());
+            metric.setMetricValue(in.readDouble());
+            String meterId = in.readUTF();
+            metric.setMeterId(meterId.isEmpty() ? null : meterId);
+            int tagCount = in.readInt();
+            Map<String, String> tags = new HashMap<>(tagCount * 2);
+            for (int t = 0; t < tagCount; t++) {
+                tags.put(in.readUTF(), in.readUTF());
+            }
+            metric.setTags(tags);
+            metrics.add(metric);
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    /**
+     * 一次读取的结果：指标及其结束位置
+     */
+    public static final class Batch {
+        private final List<Metric> metrics;
+        private final long endLsn;
+
+        Batch(List<Metric> metrics, long endLsn) {
+            this.metrics = metrics;
+            this.endLsn = endLsn;
+        }
+
+        public List<Metric> getMetrics() {
+            return metrics;
+        }
+
+        public long getEndLsn() {
+            return endLsn;
+        }
+    }
+}
@@ -2,19 +2,39 @@ package com.tanggo.fund.monitor.plugin.repo;
 
 import com.tanggo.fund.monitor.core.entity.Metric;
 import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.MetricSeries;
 import lombok.extern.slf4j.Slf4j;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.sql.DataSource;
 
 /**
  * MySQL数据库持久化实现
- * 将监控指标数据保存到MySQL数据库
+ * 将监控指标数据保存到MySQL数据库，表结构见 mysql-schema.sql：
+ * 名称和标签只在 metric_series 中保存一次，样本表 metric_samples 每行只有 (series_id, ts, value)，
+ * 主键即 (series_id, ts)，按天分区（见 {@link MysqlPartitionManager}）
+ *
+ * <p>序列编号由 {@link MysqlSeriesDictionary} 解析并缓存，新序列在写样本前自动登记。
+ * 同一序列同一时间的样本重复写入（如预写日志回放）时覆盖为最后一次的值；
+ * NaN 和 ±Inf 不能写入 DOUBLE 列（驱动未开启 allowNanAndInf 时直接拒绝），跳过并计数，不影响同批其他样本
  */
 @Slf4j
 public class MysqlMetricPersistRepo implements MetricPersistRepo {
 
+    private static final String INSERT_SQL =
+            "INSERT INTO metric_samples (series_id, ts, value) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE value = VALUES(value)";
+
     private DataSource dataSource;
 
+    private final MysqlSeriesDictionary seriesDictionary = new MysqlSeriesDictionary();
+
+    // 统计信息
+    private final AtomicLong nonFiniteCount = new AtomicLong();
+
     public MysqlMetricPersistRepo(DataSource dataSource) {
         this.dataSource = dataSource;
     }
@@ -26,36 +46,84 @@ public class MysqlMetricPersistRepo implements MetricPersistRepo {
      */
     @Override
     public void insert(Metric metric) {
-        String sql = "INSERT INTO metrics (metric_name, metric_value, timestamp, tags) VALUES (?, ?, ?, ?)";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, metric.getMetricName());
-            pstmt.setDouble(2, metric.getMetricValue());
-            pstmt.setTimestamp(3, Timestamp.valueOf(metric.getTimestamp()));
-
-            // 将标签转换为JSON字符串
-            String tagsJson = metric.getTags() != null
-                ? metric.getTags().toString()
-                : "{}";
-            pstmt.setString(4, tagsJson);
-
-            int result = pstmt.executeUpdate();
+        insertAll(List.of(metric));
+        log.debug("指标数据已保存到数据库: metricName={}, value={}", metric.getMetricName(), metric.getMetricValue());
+    }
 
-            if (result > 0) {
-                log.info("指标数据已保存到数据库: metricName={}, value={}",
-                    metric.getMetricName(), metric.getMetricValue());
+    /**
+     * 批量插入指标数据
+     * 在同一连接、同一事务内通过 addBatch/executeBatch 提交，
+     * 配合JDBC参数 rewriteBatchedStatements=true 由驱动改写为多行INSERT
+     *
+     * @param metrics 待保存的指标数据
+     */
+    @Override
+    public void insertAll(Collection<Metric> metrics) {
+        List<Metric> finite = new ArrayList<>(metrics.size());
+        for (Metric metric : metrics) {
+            if (Double.isFinite(metric.getMetricValue())) {
+                finite.add(metric);
             } else {
-                log.warn("指标数据保存失败: metricName={}", metric.getMetricName());
+                nonFiniteCount.incrementAndGet();
             }
+        }
+        if (finite.size() < metrics.size()) {
+            log.debug("跳过非有限值的指标: count={}", metrics.size() - finite.size());
+        }
+        if (finite.isEmpty()) {
+            return;
+        }
 
+        List<MetricSeries> series = new ArrayList<>(finite.size());
+        for (Metric metric : finite) {
+            series.add(metric.getSeries());
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            long[] seriesIds = seriesDictionary.resolve(conn, series);
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                int i = 0;
+                for (Metric metric : finite) {
+                    bind(pstmt, seriesIds[i++], metric);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+                log.debug("批量指标数据已保存到数据库: size={}", finite.size());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
         } catch (SQLException e) {
-            log.error("保存指标到数据库异常: {}", e.getMessage(), e);
+            log.error("批量保存指标到数据库异常: size={}, error={}", finite.size(), e.getMessage(), e);
             throw new RuntimeException("数据库操作失败", e);
         }
     }
 
+    private void bind(PreparedStatement pstmt, long seriesId, Metric metric) throws SQLException {
+        long timestampNanos = metric.hasTimestamp() ? metric.getTimestampNanos() : EpochNanos.now();
+        pstmt.setLong(1, seriesId);
+        pstmt.setLong(2, Math.floorDiv(timestampNanos, 1_000L));
+        pstmt.setDouble(3, metric.getMetricValue());
+    }
+
+    /**
+     * 因取值为 NaN 或 ±Inf 而跳过的样本数
+     */
+    public long getNonFiniteCount() {
+        return nonFiniteCount.get();
+    }
+
+    /**
+     * 序列字典，供统计和运维清空缓存使用
+     */
+    public MysqlSeriesDictionary getSeriesDictionary() {
+        return seriesDictionary;
+    }
+
     /**
      * 获取数据源
      *
@@ -0,0 +1,204 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.extension.collector.MetricQueryRepo;
+import com.tanggo.fund.monitor.core.query.Aggregation;
+import com.tanggo.fund.monitor.core.query.BucketAggregator;
+import com.tanggo.fund.monitor.core.query.DataPoint;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MySQL指标查询实现
+ * 查询 {@link MysqlMetricPersistRepo} 写入的 metric_series / metric_samples 两张表，分两步执行：
+ * 先在 metric_series 中按指标名称和标签条件选出序列（行数与序列数相当，远小于样本数），
+ * 再按 series_id 和时间范围读取样本——命中主键 (series_id, ts) 前缀，按天分区时只扫描范围内的分区
+ *
+ * <p>AVG/MIN/MAX/SUM/COUNT 按 (series_id, 窗口) 分组下推到 SQL；
+ * P95 和 RATE 在 MySQL 中没有对应的聚合函数，取回原始样本后由 {@link BucketAggregator} 计算。
+ * ts 为 epoch 微秒，窗口编号为 {@code (ts - from) DIV step}，与会话时区无关
+ */
+@Slf4j
+public class MysqlMetricQueryRepo implements MetricQueryRepo {
+
+    // 单条样本查询的 series_id 个数上限，更多的序列分批查询
+    static final int MAX_SERIES_PER_QUERY = 1_000;
+
+    private final DataSource dataSource;
+
+    public MysqlMetricQueryRepo(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public List<TimeSeries> query(MetricQuery query) {
+        try (Connection conn = dataSource.getConnection()) {
+            Map<Long, Map<String, String>> series = selectSeries(conn, query);
+            if (series.isEmpty()) {
+                return List.of();
+            }
+            List<Long> ids = new ArrayList<>(series.keySet());
+            if (pushdown(query)) {
+                List<TimeSeries> result = new ArrayList<>(series.size());
+                for (List<Long> chunk : chunks(ids)) {
+                    result.addAll(readAggregated(conn, query, aggregateSql(query, chunk), series));
+                }
+                return result;
+            }
+            BucketAggregator aggregator = new BucketAggregator(query);
+            for (List<Long> chunk : chunks(ids)) {
+                readRaw(conn, rawSql(query, chunk), series, aggregator);
+            }
+            return aggregator.result();
+        } catch (SQLException e) {
+            log.error("查询指标异常: metricName={}, error={}", query.getMetricName(), e.getMessage(), e);
+            throw new RuntimeException("数据库查询失败", e);
+        }
+    }
+
+    static boolean pushdown(MetricQuery query) {
+        return query.getAggregation() != Aggregation.P95 && query.getAggregation() != Aggregation.RATE;
+    }
+
+    private static Map<Long, Map<String, String>> selectSeries(Connection conn, MetricQuery query) throws SQLException {
+        SqlStatement statement = seriesSql(query);
+        Map<Long, Map<String, String>> series = new LinkedHashMap<>();
+        try (PreparedStatement pstmt = prepare(conn, statement);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                series.put(rs.getLong(1), TagsJson.decode(rs.getString(2)));
+            }
+        }
+        return series;
+    }
+
+    private static List<TimeSeries> readAggregated(Connection conn, MetricQuery query, SqlStatement statement,
+                                                   Map<Long, Map<String, String>> series) throws SQLException {
+        Map<Long, List<DataPoint>> points = new LinkedHashMap<>();
+        try (PreparedStatement pstmt = prepare(conn, statement);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                long bucket = rs.getLong(2);
+                points.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>())
+                        .add(new DataPoint(query.getFromMillis() + bucket * query.getStepMillis(), rs.getDouble(3)));
+            }
+        }
+        List<TimeSeries> result = new ArrayList<>(points.size());
+        points.forEach((id, p) -> result.add(new TimeSeries(query.getMetricName(), series.get(id), p)));
+        return result;
+    }
+
+    private static void readRaw(Connection conn, SqlStatement statement, Map<Long, Map<String, String>> series,
+                                BucketAggregator aggregator) throws SQLException {
+        try (PreparedStatement pstmt = prepare(conn, statement);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                aggregator.add(series.get(rs.getLong(1)), Math.floorDiv(rs.getLong(2), 1_000L), rs.getDouble(3));
+            }
+        }
+    }
+
+    private static PreparedStatement prepare(Connection conn, SqlStatement statement) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(statement.sql);
+        for (int i = 0; i < statement.parameters.size(); i++) {
+            pstmt.setObject(i + 1, statement.parameters.get(i));
+        }
+        return pstmt;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_SERIES_PER_QUERY) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + MAX_SERIES_PER_QUERY)));
+        }
+        return chunks;
+    }
+
+    /**
+     * 序列选择：指标名称走索引，标签条件在该指标的序列上判断；缺失的标签按空字符串参与比较，正则全匹配
+     */
+    static SqlStatement seriesSql(MetricQuery query) {
+        SqlStatement statement = new SqlStatement();
+        StringBuilder sql = new StringBuilder(256)
+                .append("SELECT series_id, CAST(tags AS CHAR) FROM metric_series WHERE metric_name = ?");
+        statement.parameters.add(query.getMetricName());
+        for (TagMatcher matcher : query.getMatchers()) {
+            String tagValue = "COALESCE(JSON_UNQUOTE(JSON_EXTRACT(tags, ?)), '')";
+            statement.parameters.add(TagsJson.path(matcher.getKey()));
+            switch (matcher.getOp()) {
+                case EQ -> sql.append(" AND ").append(tagValue).append(" = ?");
+                case NEQ -> sql.append(" AND ").append(tagValue).append(" <> ?");
+                case REGEX -> sql.append(" AND ").append(tagValue).append(" REGEXP ?");
+                case NOT_REGEX -> sql.append(" AND ").append(tagValue).append(" NOT REGEXP ?");
+            }
+            boolean regex = matcher.getOp() == TagMatcher.Op.REGEX || matcher.getOp() == TagMatcher.Op.NOT_REGEX;
+            statement.parameters.add(regex ? matcher.anchoredRegex() : matcher.getValue());
+        }
+        sql.append(" ORDER BY series_id");
+        statement.sql = sql.toString();
+        return statement;
+    }
+
+    /**
+     * 聚合下推：按序列和窗口分组
+     */
+    static SqlStatement aggregateSql(MetricQuery query, List<Long> seriesIds) {
+        SqlStatement statement = new SqlStatement();
+        String function = switch (query.getAggregation()) {
+            case AVG -> "AVG(value)";
+            case MIN -> "MIN(value)";
+            case MAX -> "MAX(value)";
+            case SUM -> "SUM(value)";
+            case COUNT -> "COUNT(*)";
+            default -> throw new IllegalArgumentException("聚合函数不支持下推: " + query.getAggregation());
+        };
+        StringBuilder sql = new StringBuilder(256)
+                .append("SELECT series_id, (ts - ?) DIV ? AS bucket, ").append(function).append(" AS v FROM metric_samples");
+        statement.parameters.add(query.getFromMillis() * 1_000);
+        statement.parameters.add(query.getStepMillis() * 1_000);
+        where(sql, statement, query, seriesIds);
+        sql.append(" GROUP BY series_id, bucket ORDER BY series_id, bucket");
+        statement.sql = sql.toString();
+        return statement;
+    }
+
+    /**
+     * 原始样本：只下推过滤条件
+     */
+    static SqlStatement rawSql(MetricQuery query, List<Long> seriesIds) {
+        SqlStatement statement = new SqlStatement();
+        StringBuilder sql = new StringBuilder(256).append("SELECT series_id, ts, value FROM metric_samples");
+        where(sql, statement, query, seriesIds);
+        sql.append(" ORDER BY series_id, ts");
+        statement.sql = sql.toString();
+        return statement;
+    }
+
+    private static void where(StringBuilder sql, SqlStatement statement, MetricQuery query, List<Long> seriesIds) {
+        sql.append(" WHERE series_id IN (").append(String.join(", ", Collections.nCopies(seriesIds.size(), "?")))
+                .append(") AND ts >= ? AND ts < ?");
+        statement.parameters.addAll(seriesIds);
+        statement.parameters.add(query.getFromMillis() * 1_000);
+        statement.parameters.add(query.getToMillis() * 1_000);
+    }
+
+    /**
+     * 生成的SQL及其参数
+     */
+    static final class SqlStatement {
+        String sql;
+        final List<Object> parameters = new ArrayList<>();
+    }
+}
@@ -0,0 +1,205 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * metric_samples 按天分区维护
+ * 分区按 UTC 日划分，名称为 pYYYYMMDD，上界为次日零点的 epoch 微秒；最后一个分区 pmax 接收更晚的数据。
+ * 定期从 pmax 拆出未来 precreateDays 天的分区，并整分区删除超出 retentionDays 的数据——
+ * DROP PARTITION 只删除分区文件，不像 DELETE 那样逐行写 undo 日志和二级索引
+ *
+ * <p>可以在每个采集节点上启用：维护前取 MySQL 命名锁，同一时刻只有一个节点读取分区并执行 DDL，
+ * 其余节点跳过本轮，下一轮看到的已是调整后的分区
+ */
+@Slf4j
+public class MysqlPartitionManager implements AutoCloseable {
+
+    static final String TABLE = "metric_samples";
+    static final String MAX_PARTITION = "pmax";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    // 命名锁，多个节点同时维护时只有持有者执行
+    static final String LOCK_NAME = "metric_samples_partitions";
+
+    private static final String LOCK_SQL = "SELECT GET_LOCK(?, 0)";
+    private static final String UNLOCK_SQL = "SELECT RELEASE_LOCK(?)";
+
+    private static final String PARTITIONS_SQL = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS"
+            + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL";
+
+    private final DataSource dataSource;
+
+    // 数据保留天数，早于 今天 - retentionDays 的分区被删除
+    @Setter
+    private int retentionDays = 30;
+
+    // 提前创建的天数
+    @Setter
+    private int precreateDays = 3;
+
+    // 检查间隔（毫秒）
+    @Setter
+    private long checkIntervalMillis = TimeUnit.HOURS.toMillis(1);
+
+    private ScheduledExecutorService executor;
+
+    public MysqlPartitionManager(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * 立即维护一次，之后按检查间隔定期维护
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        if (retentionDays <= 0 || precreateDays < 0) {
+            throw new IllegalStateException("分区保留天数必须大于0: retentionDays=" + retentionDays + ", precreateDays=" + precreateDays);
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mysql-partition-manager");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::maintain, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void maintain() {
+        try {
+            maintain(LocalDate.now(ZoneOffset.UTC));
+        } catch (Exception e) {
+            log.error("MySQL分区维护失败: table={}", TABLE, e);
+        }
+    }
+
+    /**
+     * 按给定日期补建和删除分区，其他节点正在维护时跳过
+     *
+     * @return 是否取得锁并完成维护
+     */
+    boolean maintain(LocalDate today) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            if (!namedLock(conn, LOCK_SQL)) {
+                log.debug("其他节点正在维护MySQL分区，跳过本轮: table={}", TABLE);
+                return false;
+            }
+            try {
+                maintain(conn, today);
+            } finally {
+                namedLock(conn, UNLOCK_SQL);
+            }
+            return true;
+        }
+    }
+
+    private static boolean namedLock(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, LOCK_NAME);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void maintain(Connection conn, LocalDate today) throws SQLException {
+        TreeSet<LocalDate> existing = new TreeSet<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(PARTITIONS_SQL)) {
+            pstmt.setString(1, TABLE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate day = day(rs.getString(1));
+                    if (day != null) {
+                        existing.add(day);
+                    }
+                }
+            }
+        }
+        try (Statement statement = conn.createStatement()) {
+            for (String sql : plan(existing, today, precreateDays, retentionDays)) {
+                log.info("MySQL分区调整: {}", sql);
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * 需要执行的分区DDL
+     * 新分区只能从 pmax 中拆出，所以从已有最后一天的次日开始补建，中间缺失的日期不再补
+     *
+     * @param existing 已有的按天分区
+     */
+    static List<String> plan(TreeSet<LocalDate> existing, LocalDate today, int precreateDays, int retentionDays) {
+        List<String> statements = new ArrayList<>(2);
+        LocalDate first = existing.isEmpty() ? today : existing.last().plusDays(1);
+        LocalDate last = today.plusDays(precreateDays);
+        if (!first.isAfter(last)) {
+            StringBuilder sql = new StringBuilder(256)
+                    .append("ALTER TABLE ").append(TABLE).append(" REORGANIZE PARTITION ").append(MAX_PARTITION).append(" INTO (");
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                sql.append("PARTITION ").append(name(day)).append(" VALUES LESS THAN (").append(upperBoundMicros(day)).append("), ");
+            }
+            sql.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN MAXVALUE)");
+            statements.add(sql.toString());
+        }
+
+        LocalDate oldest = today.minusDays(retentionDays);
+        List<String> expired = new ArrayList<>();
+        for (LocalDate day : existing.headSet(oldest)) {
+            expired.add(name(day));
+        }
+        if (!expired.isEmpty()) {
+            statements.add("ALTER TABLE " + TABLE + " DROP PARTITION " + String.join(", ", expired));
+        }
+        return statements;
+    }
+
+    static String name(LocalDate day) {
+        return PARTITION_NAME.format(day);
+    }
+
+    /**
+     * 分区名对应的日期，不是按天分区（如 pmax）时返回 null
+     */
+    static LocalDate day(String partitionName) {
+        if (partitionName == null || partitionName.length() != 9 || partitionName.charAt(0) != 'p'
+                || !partitionName.substring(1).chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        return LocalDate.parse(partitionName, PARTITION_NAME);
+    }
+
+    /**
+     * 分区上界：次日零点（UTC）的 epoch 微秒
+     */
+    static long upperBoundMicros(LocalDate day) {
+        return day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toEpochSecond() * 1_000_000L;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+    }
+}
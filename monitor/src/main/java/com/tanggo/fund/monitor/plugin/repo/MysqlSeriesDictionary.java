@@ -0,0 +1,191 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.tanggo.fund.monitor.core.series.MetricSeries;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MySQL 序列字典
+ * metric_series 表把 指标名称 + 规范化标签 映射为 series_id，样本行只保存 series_id；
+ * 唯一键是规范化序列的 murmur3 64位哈希，各采集节点并发登记同一序列时由 INSERT IGNORE 去重，再按哈希读回编号
+ *
+ * <p>已解析的编号缓存在进程内，以驻留的 {@link MetricSeries} 为键：稳定运行后写入不再访问 metric_series。
+ * 超出登记上限的临时序列（编号 -1）不缓存，每次按哈希查询
+ */
+@Slf4j
+public class MysqlSeriesDictionary {
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO metric_series (series_hash, metric_name, tags) VALUES (?, ?, ?)";
+
+    // 单条 IN 查询的哈希个数上限
+    static final int MAX_IN_LIST = 1_000;
+
+    private final Map<MetricSeries, Long> cache = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * 解析一批样本所属序列的 series_id，未登记的序列先写入 metric_series
+     * 登记在调用方的样本事务之前单独提交，样本写入回滚不会让缓存指向不存在的编号
+     *
+     * @param conn   数据库连接，登记语句在返回前提交
+     * @param series 每个样本的序列
+     * @return 与 series 一一对应的 series_id
+     */
+    public long[] resolve(Connection conn, List<MetricSeries> series) throws SQLException {
+        long[] ids = new long[series.size()];
+        long[] hashes = null;
+        Map<Long, MetricSeries> misses = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            MetricSeries s = series.get(i);
+            Long id = cache.get(s);
+            if (id != null) {
+                hitCount.incrementAndGet();
+                ids[i] = id;
+                continue;
+            }
+            missCount.incrementAndGet();
+            if (hashes == null) {
+                hashes = new long[ids.length];
+            }
+            hashes[i] = hash(s);
+            MetricSeries previous = misses.putIfAbsent(hashes[i], s);
+            if (previous != null && !sameSeries(previous, s)) {
+                throw collision(previous, s);
+            }
+            ids[i] = -1;
+        }
+        if (misses.isEmpty()) {
+            return ids;
+        }
+
+        Map<Long, Long> registered = register(conn, misses);
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] < 0) {
+                ids[i] = registered.get(hashes[i]);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return 哈希到 series_id
+     */
+    private Map<Long, Long> register(Connection conn, Map<Long, MetricSeries> misses) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Map.Entry<Long, MetricSeries> entry : misses.entrySet()) {
+                pstmt.setLong(1, entry.getKey());
+                pstmt.setString(2, entry.getValue().getMetricName());
+                pstmt.setString(3, TagsJson.encode(entry.getValue().getTags()));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+        }
+
+        Map<Long, Long> registered = new HashMap<>();
+        List<Long> hashes = new ArrayList<>(misses.keySet());
+        for (int from = 0; from < hashes.size(); from += MAX_IN_LIST) {
+            List<Long> chunk = hashes.subList(from, Math.min(hashes.size(), from + MAX_IN_LIST));
+            try (PreparedStatement pstmt = conn.prepareStatement(selectSql(chunk.size()))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        long hash = rs.getLong(2);
+                        MetricSeries expected = misses.get(hash);
+                        if (expected == null) {
+                            continue;
+                        }
+                        if (!expected.getMetricName().equals(rs.getString(3))
+                                || !expected.getTags().equals(TagsJson.decode(rs.getString(4)))) {
+                            throw new IllegalStateException("序列哈希冲突: " + expected + " 与已登记的 "
+                                    + rs.getString(3) + rs.getString(4));
+                        }
+                        registered.put(hash, rs.getLong(1));
+                    }
+                }
+            }
+        }
+        if (registered.size() != misses.size()) {
+            throw new IllegalStateException("序列登记后未能读回编号: expected=" + misses.size() + ", actual=" + registered.size());
+        }
+        misses.forEach((hash, s) -> {
+            if (s.getId() >= 0) {
+                cache.put(s, registered.get(hash));
+            }
+        });
+        log.debug("新序列已登记: count={}", registered.size());
+        return registered;
+    }
+
+    static String selectSql(int hashes) {
+        return "SELECT series_id, series_hash, metric_name, CAST(tags AS CHAR) FROM metric_series WHERE series_hash IN ("
+                + String.join(", ", Collections.nCopies(hashes, "?")) + ")";
+    }
+
+    /**
+     * 规范化序列的哈希：名称和按键排序的标签逐项带长度前缀，不同序列不会拼出相同的输入
+     */
+    static long hash(MetricSeries series) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        put(hasher, series.getMetricName());
+        for (Map.Entry<String, String> tag : series.getTags().entrySet()) {
+            put(hasher, tag.getKey());
+            put(hasher, tag.getValue());
+        }
+        return hasher.hash().asLong();
+    }
+
+    private static void put(Hasher hasher, String s) {
+        hasher.putInt(s.length()).putString(s, StandardCharsets.UTF_8);
+    }
+
+    private static boolean sameSeries(MetricSeries a, MetricSeries b) {
+        return a.getMetricName().equals(b.getMetricName()) && a.getTags().equals(b.getTags());
+    }
+
+    private static IllegalStateException collision(MetricSeries a, MetricSeries b) {
+        return new IllegalStateException("序列哈希冲突: " + a + " 与 " + b);
+    }
+
+    /**
+     * 清空进程内缓存，下次写入时重新读取编号
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+}
@@ -0,0 +1,180 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import com.tanggo.fund.monitor.core.rollup.RollupAggregator;
+import com.tanggo.fund.monitor.core.rollup.RollupTier;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带摄入时汇总的持久化仓储
+ * 原始指标照常写入被装饰仓储，同时经 {@link RollupAggregator} 按层级（如 1m / 5m / 1h）汇总，
+ * 关闭的窗口写入各层级自己的仓储，长时间范围的查询由 {@link TieredMetricQueryRepo} 改读汇总层级
+ *
+ * <p>后台线程按 flushIntervalMillis 关闭早于“当前时间 - allowedLatenessMillis”的窗口，
+ * 采集停止的序列也能及时输出最后一个窗口；层级写入失败只记录日志，不影响原始数据写入
+ */
+@Slf4j
+public class RollupMetricPersistRepo implements MetricPersistRepo, AutoCloseable {
+
+    private final MetricPersistRepo delegate;
+    private final List<RollupTier> tiers;
+
+    // 窗口结束后等待迟到样本的时长（毫秒）
+    @Setter
+    private long allowedLatenessMillis = 10_000;
+
+    // 按水位线关闭窗口的间隔（毫秒）
+    @Setter
+    private long flushIntervalMillis = 10_000;
+
+    // 分位数草图的相对误差
+    @Setter
+    private double sketchRelativeAccuracy = 0.01;
+
+    private RollupAggregator aggregator;
+    private ScheduledExecutorService flusher;
+
+    // 统计信息
+    private final AtomicLong emittedCount = new AtomicLong();
+    private final AtomicLong tierFailureCount = new AtomicLong();
+
+    /**
+     * @param delegate 原始指标仓储
+     * @param tiers    汇总层级，窗口宽度必须逐级整除
+     */
+    public RollupMetricPersistRepo(MetricPersistRepo delegate, List<RollupTier> tiers) {
+        this.delegate = delegate;
+        this.tiers = tiers;
+    }
+
+    /**
+     * 启动按水位线关闭窗口的后台线程
+     */
+    public synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        aggregator();
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metric-rollup-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> flush(System.currentTimeMillis() - allowedLatenessMillis),
+                flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("摄入时汇总已启动: tiers={}, allowedLatenessMillis={}", aggregator.getTiers(), allowedLatenessMillis);
+    }
+
+    /**
+     * 停止后台线程并输出所有未关闭的窗口
+     */
+    @Override
+    public synchronized void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+        flush(Long.MAX_VALUE);
+        log.info("摄入时汇总已停止: emitted={}, late={}, tierFailures={}",
+                emittedCount.get(), getLateCount(), tierFailureCount.get());
+    }
+
+    @Override
+    public void insert(Metric metric) {
+        insertAll(List.of(metric));
+    }
+
+    /**
+     * 原始指标先写入被装饰仓储，写入成功后再参与汇总
+     */
+    @Override
+    public void insertAll(Collection<Metric> metrics) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        delegate.insertAll(metrics);
+        Map<RollupTier, List<Metric>> closed;
+        RollupAggregator agg = aggregator();
+        synchronized (agg) {
+            closed = agg.add(metrics);
+        }
+        write(closed);
+    }
+
+    /**
+     * 关闭结束时间不晚于水位线的窗口并写入各层级
+     *
+     * @param watermarkMillis 水位线（毫秒时间戳）
+     */
+    public void flush(long watermarkMillis) {
+        Map<RollupTier, List<Metric>> closed;
+        RollupAggregator agg = aggregator();
+        synchronized (agg) {
+            closed = agg.flush(watermarkMillis);
+        }
+        write(closed);
+    }
+
+    private void write(Map<RollupTier, List<Metric>> closed) {
+        closed.forEach((tier, metrics) -> {
+            try {
+                tier.getPersistRepo().insertAll(metrics);
+                emittedCount.addAndGet(metrics.size());
+            } catch (Exception e) {
+                tierFailureCount.incrementAndGet();
+                log.error("汇总层级写入失败: tier={}, size={}, error={}", tier, metrics.size(), e.getMessage(), e);
+            }
+        });
+    }
+
+    private synchronized RollupAggregator aggregator() {
+        if (aggregator == null) {
+            aggregator = new RollupAggregator(tiers, sketchRelativeAccuracy);
+        }
+        return aggregator;
+    }
+
+    /**
+     * 已写入各层级的汇总点数
+     */
+    public long getEmittedCount() {
+        return emittedCount.get();
+    }
+
+    /**
+     * 迟到而未计入汇总的样本数
+     */
+    public long getLateCount() {
+        RollupAggregator agg = aggregator();
+        synchronized (agg) {
+            return agg.getLateCount();
+        }
+    }
+
+    /**
+     * 层级写入失败次数
+     */
+    public long getTierFailureCount() {
+        return tierFailureCount.get();
+    }
+
+    /**
+     * 当前保持窗口状态的序列数
+     */
+    public int getSeriesCount() {
+        RollupAggregator agg = aggregator();
+        synchronized (agg) {
+            return agg.getSeriesCount();
+        }
+    }
+}
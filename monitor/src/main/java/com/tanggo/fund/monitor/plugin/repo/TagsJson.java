@@ -0,0 +1,41 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MySQL tags 列的 JSON 编解码
+ */
+final class TagsJson {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final Type MAP_TYPE = new TypeToken<Map<String, String>>() {
+    }.getType();
+
+    private TagsJson() {
+    }
+
+    static String encode(Map<String, String> tags) {
+        return tags == null || tags.isEmpty() ? "{}" : GSON.toJson(tags);
+    }
+
+    static Map<String, String> decode(String json) {
+        if (json == null || json.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> tags = GSON.fromJson(json, MAP_TYPE);
+        return tags == null ? Map.of() : new HashMap<>(tags);
+    }
+
+    /**
+     * 标签键对应的 JSON 路径，如 {@code $."host"}
+     */
+    static String path(String key) {
+        return "$." + GSON.toJson(key);
+    }
+}
@@ -0,0 +1,146 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.extension.collector.MetricQueryRepo;
+import com.tanggo.fund.monitor.core.query.Aggregation;
+import com.tanggo.fund.monitor.core.query.DataPoint;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import com.tanggo.fund.monitor.core.rollup.RollupAggregator;
+import com.tanggo.fund.monitor.core.rollup.RollupStat;
+import com.tanggo.fund.monitor.core.rollup.RollupTier;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层查询仓储
+ * 按查询步长自动选择满足条件的最粗汇总层级（窗口不大于步长且能整除步长、保留期覆盖查询起点），
+ * 把查询改写为对汇总统计量序列的聚合；没有合适层级时回退到原始数据仓储
+ *
+ * <ul>
+ *     <li>MIN / MAX / SUM：对 min / max / sum 统计量做同名聚合</li>
+ *     <li>COUNT：对 count 统计量求和</li>
+ *     <li>AVG：sum 之和除以 count 之和，结果与原始数据一致</li>
+ *     <li>P95：分位数不可再聚合，只使用窗口等于步长的层级</li>
+ *     <li>RATE：需要相邻原始样本，始终查询原始数据</li>
+ * </ul>
+ */
+@Slf4j
+public class TieredMetricQueryRepo implements MetricQueryRepo {
+
+    private final MetricQueryRepo rawRepo;
+    private final List<RollupTier> tiers;
+
+    /**
+     * @param rawRepo 原始数据查询仓储
+     * @param tiers   汇总层级
+     */
+    public TieredMetricQueryRepo(MetricQueryRepo rawRepo, List<RollupTier> tiers) {
+        this.rawRepo = rawRepo;
+        List<RollupTier> sorted = new ArrayList<>(tiers);
+        sorted.sort(Comparator.comparingLong(RollupTier::getWindowMillis).reversed());
+        this.tiers = List.copyOf(sorted);
+    }
+
+    @Override
+    public List<TimeSeries> query(MetricQuery aligned) {
+        RollupTier tier = select(aligned, System.currentTimeMillis());
+        if (tier == null) {
+            return rawRepo.query(aligned);
+        }
+        log.debug("查询使用汇总层级: metricName={}, stepMillis={}, tier={}", aligned.getMetricName(), aligned.getStepMillis(), tier);
+        return switch (aligned.getAggregation()) {
+            case MIN -> queryStat(tier, aligned, RollupStat.MIN, Aggregation.MIN);
+            case MAX -> queryStat(tier, aligned, RollupStat.MAX, Aggregation.MAX);
+            case SUM -> queryStat(tier, aligned, RollupStat.SUM, Aggregation.SUM);
+            case COUNT -> queryStat(tier, aligned, RollupStat.COUNT, Aggregation.SUM);
+            case P95 -> queryStat(tier, aligned, RollupStat.P95, Aggregation.MAX);
+            case AVG -> queryAverage(tier, aligned);
+            case RATE -> rawRepo.query(aligned);
+        };
+    }
+
+    /**
+     * 选择满足查询的最粗层级，没有时返回 null
+     */
+    RollupTier select(MetricQuery aligned, long nowMillis) {
+        Aggregation aggregation = aligned.getAggregation();
+        if (aggregation == Aggregation.RATE) {
+            return null;
+        }
+        long step = aligned.getStepMillis();
+        for (RollupTier tier : tiers) {
+            long window = tier.getWindowMillis();
+            if (tier.getQueryRepo() == null || window > step || step % window != 0) {
+                continue;
+            }
+            if (aggregation == Aggregation.P95 && window != step) {
+                continue;
+            }
+            if (aligned.getFromMillis() < nowMillis - tier.getRetentionMillis()) {
+                continue;
+            }
+            return tier;
+        }
+        return null;
+    }
+
+    private List<TimeSeries> queryStat(RollupTier tier, MetricQuery aligned, RollupStat stat, Aggregation aggregation) {
+        List<TimeSeries> result = new ArrayList<>();
+        for (TimeSeries series : tier.getQueryRepo().query(rewrite(aligned, stat, aggregation))) {
+            result.add(new TimeSeries(series.getMetricName(), stripStat(series.getTags()), series.getPoints()));
+        }
+        return result;
+    }
+
+    /**
+     * 平均值 = 窗口内 sum 之和 / count 之和，两次查询按标签和时间对齐
+     */
+    private List<TimeSeries> queryAverage(RollupTier tier, MetricQuery aligned) {
+        Map<Map<String, String>, Map<Long, Double>> counts = new HashMap<>();
+        for (TimeSeries series : tier.getQueryRepo().query(rewrite(aligned, RollupStat.COUNT, Aggregation.SUM))) {
+            Map<Long, Double> points = counts.computeIfAbsent(stripStat(series.getTags()), t -> new HashMap<>());
+            series.getPoints().forEach(p -> points.put(p.getTimestampMillis(), p.getValue()));
+        }
+
+        List<TimeSeries> result = new ArrayList<>();
+        for (TimeSeries series : tier.getQueryRepo().query(rewrite(aligned, RollupStat.SUM, Aggregation.SUM))) {
+            Map<String, String> tags = stripStat(series.getTags());
+            Map<Long, Double> seriesCounts = counts.getOrDefault(tags, Map.of());
+            List<DataPoint> points = new ArrayList<>(series.getPoints().size());
+            for (DataPoint point : series.getPoints()) {
+                Double count = seriesCounts.get(point.getTimestampMillis());
+                if (count != null && count > 0) {
+                    points.add(new DataPoint(point.getTimestampMillis(), point.getValue() / count));
+                }
+            }
+            if (!points.isEmpty()) {
+                result.add(new TimeSeries(series.getMetricName(), tags, points));
+            }
+        }
+        return result;
+    }
+
+    private static MetricQuery rewrite(MetricQuery aligned, RollupStat stat, Aggregation aggregation) {
+        MetricQuery rewritten = MetricQuery.of(aligned.getMetricName(), aligned.getFromMillis(), aligned.getToMillis(),
+                aligned.getStepMillis(), aggregation);
+        rewritten.getMatchers().addAll(aligned.getMatchers());
+        rewritten.getMatchers().add(TagMatcher.eq(RollupAggregator.STAT_TAG, stat.label()));
+        return rewritten;
+    }
+
+    private static Map<String, String> stripStat(Map<String, String> tags) {
+        if (!tags.containsKey(RollupAggregator.STAT_TAG)) {
+            return tags;
+        }
+        Map<String, String> stripped = new LinkedHashMap<>(tags);
+        stripped.remove(RollupAggregator.STAT_TAG);
+        return stripped;
+    }
+}
@@ -0,0 +1,303 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLNonTransientException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 先写日志再转发的持久化仓储（store-and-forward）
+ * 采集线程把指标写入本地 {@link MetricWriteAheadLog}，fsync 之后立即返回；
+ * 后台转发线程按自己的节奏从日志读取并调用被装饰仓储（如 {@link MysqlMetricPersistRepo}、
+ * {@link InfluxdbMetricPersistRepo}）写入，失败时指数退避重试，数据库的延迟和故障不再影响采集
+ *
+ * <p>转发成功后才推进检查点，进程重启后从检查点继续转发；转发成功与检查点之间崩溃会导致重复写入（至少一次）
+ *
+ * <p>连接中断、超时等瞬时故障无限重试；同一批次因其他原因连续失败 {@code maxForwardAttempts} 次后，
+ * 把批次二分逐段写入以定位坏数据。只有批次其余部分写入成功（证明数据库可用）或异常明确为数据错误时，
+ * 无法写入的单条指标才被隔离：记录错误日志并计入 {@link #getQuarantinedCount()}，检查点随之推进，日志不再卡死
+ */
+@Slf4j
+public class WalMetricPersistRepo implements MetricPersistRepo, AutoCloseable {
+
+    private final MetricPersistRepo delegate;
+
+    // 预写日志目录
+    @Setter
+    private String walDirectory = "data/wal";
+
+    // 单个日志分段的滚动阈值（字节）
+    @Setter
+    private long segmentBytes = 64L << 20;
+
+    // 未转发数据上限（字节），超出后丢弃最早的分段
+    @Setter
+    private long maxWalBytes = 1L << 30;
+
+    // 单次转发的最大指标数
+    @Setter
+    private int forwardBatchSize = 500;
+
+    // 首次重试间隔（毫秒）
+    @Setter
+    private long retryInitialMillis = 1_000;
+
+    // 最大重试间隔（毫秒）
+    @Setter
+    private long retryMaxMillis = 60_000;
+
+    // 同一批次连续失败达到该次数后拆分批次定位坏数据
+    @Setter
+    private int maxForwardAttempts = 5;
+
+    // 日志追上后转发线程的最长等待时间（毫秒）
+    @Setter
+    private long idleWaitMillis = 1_000;
+
+    private MetricWriteAheadLog wal;
+    private Thread forwarder;
+    private volatile boolean running;
+
+    // 统计信息
+    private final AtomicLong appendedCount = new AtomicLong();
+    private final AtomicLong forwardedCount = new AtomicLong();
+    private final AtomicLong forwardFailureCount = new AtomicLong();
+    private final AtomicLong quarantinedCount = new AtomicLong();
+
+    public WalMetricPersistRepo(MetricPersistRepo delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * 打开预写日志并启动转发线程，上次未转发完的数据随即开始回放
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        wal = new MetricWriteAheadLog(Path.of(walDirectory), segmentBytes, maxWalBytes);
+        running = true;
+        forwarder = new Thread(this::forwardLoop, "metric-wal-forwarder");
+        forwarder.setDaemon(true);
+        forwarder.start();
+        log.info("预写日志转发已启动: walDirectory={}, pendingBytes={}", walDirectory, wal.getPendingBytes());
+    }
+
+    /**
+     * 停止转发线程并关闭日志；未转发的数据保留在日志中，下次启动时继续转发
+     */
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(forwarder);
+        try {
+            forwarder.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wal.close();
+        log.info("预写日志转发已停止: appended={}, forwarded={}, pendingBytes={}",
+                appendedCount.get(), forwardedCount.get(), wal.getPendingBytes());
+    }
+
+    @Override
+    public void insert(Metric metric) {
+        insertAll(List.of(metric));
+    }
+
+    /**
+     * 整批写入一条日志记录，落盘后返回
+     */
+    @Override
+    public void insertAll(Collection<Metric> metrics) {
+        if (!running) {
+            throw new IllegalStateException("预写日志转发未启动");
+        }
+        if (metrics.isEmpty()) {
+            return;
+        }
+        wal.append(metrics);
+        appendedCount.addAndGet(metrics.size());
+        LockSupport.unpark(forwarder);
+    }
+
+    private void forwardLoop() {
+        long backoff = retryInitialMillis;
+        int attempts = 0;
+        while (running) {
+            MetricWriteAheadLog.Batch batch;
+            try {
+                batch = wal.read(forwardBatchSize);
+            } catch (Exception e) {
+                log.error("读取预写日志失败: {}", e.getMessage(), e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+                continue;
+            }
+            if (batch.getMetrics().isEmpty()) {
+                wal.commit(batch);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(idleWaitMillis));
+                continue;
+            }
+            try {
+                delegate.insertAll(batch.getMetrics());
+                wal.commit(batch);
+                forwardedCount.addAndGet(batch.getMetrics().size());
+                backoff = retryInitialMillis;
+                attempts = 0;
+            } catch (Exception e) {
+                forwardFailureCount.incrementAndGet();
+                if (!isTransient(e) && ++attempts >= maxForwardAttempts && isolate(batch.getMetrics())) {
+                    wal.commit(batch);
+                    backoff = retryInitialMillis;
+                    attempts = 0;
+                    continue;
+                }
+                log.warn("转发失败，{}毫秒后重试: size={}, error={}", backoff, batch.getMetrics().size(), e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+                backoff = Math.min(backoff * 2, retryMaxMillis);
+            }
+        }
+    }
+
+    /**
+     * 二分写入批次，隔离无法写入的单条指标
+     *
+     * @return 批次已处理完、可以推进检查点时返回 true；遇到瞬时故障或整批都无法写入时返回 false，稍后整批重试
+     */
+    private boolean isolate(List<Metric> metrics) {
+        List<Metric> rejected = new ArrayList<>();
+        List<Exception> errors = new ArrayList<>();
+        int delivered;
+        try {
+            delivered = bisect(metrics, rejected, errors);
+        } catch (RuntimeException e) {
+            log.warn("拆分批次时遇到瞬时故障，稍后重试: error={}", e.getMessage());
+            return false;
+        }
+        if (delivered == 0 && !errors.stream().allMatch(WalMetricPersistRepo::isPermanent)) {
+            // 没有任何数据写入成功，更可能是数据库整体不可用，不能据此丢弃数据
+            return false;
+        }
+        // 拆分过程中数据库可能刚恢复，隔离前逐条再试一次
+        int quarantined = 0;
+        for (int i = 0; i < rejected.size(); i++) {
+            try {
+                delegate.insertAll(List.of(rejected.get(i)));
+                delivered++;
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    log.warn("隔离前重试遇到瞬时故障，稍后重试: error={}", e.getMessage());
+                    return false;
+                }
+                log.error("指标无法写入，已隔离: metric={}, error={}", rejected.get(i), errors.get(i).getMessage());
+                quarantined++;
+            }
+        }
+        quarantinedCount.addAndGet(quarantined);
+        forwardedCount.addAndGet(delivered);
+        return true;
+    }
+
+    private int bisect(List<Metric> metrics, List<Metric> rejected, List<Exception> errors) {
+        try {
+            delegate.insertAll(metrics);
+            return metrics.size();
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            if (metrics.size() == 1) {
+                rejected.add(metrics.get(0));
+                errors.add(e);
+                return 0;
+            }
+            int mid = metrics.size() / 2;
+            return bisect(metrics.subList(0, mid), rejected, errors)
+                    + bisect(metrics.subList(mid, metrics.size()), rejected, errors);
+        }
+    }
+
+    /**
+     * 连接中断、超时、IO 错误等重试即可恢复的故障
+     */
+    private static boolean isTransient(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException || t instanceof SQLRecoverableException
+                    || t instanceof SQLNonTransientConnectionException || t instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 约束冲突、数据格式错误等重试也无法成功的数据错误
+     */
+    private static boolean isPermanent(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IllegalArgumentException
+                    || (t instanceof SQLNonTransientException && !(t instanceof SQLNonTransientConnectionException))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getAppendedCount() {
+        return appendedCount.get();
+    }
+
+    public long getForwardedCount() {
+        return forwardedCount.get();
+    }
+
+    /**
+     * 转发失败（等待重试）次数
+     */
+    public long getForwardFailureCount() {
+        return forwardFailureCount.get();
+    }
+
+    /**
+     * 无法写入而被隔离的指标数
+     */
+    public long getQuarantinedCount() {
+        return quarantinedCount.get();
+    }
+
+    /**
+     * 等待转发的日志字节数
+     */
+    public long getPendingBytes() {
+        return wal == null ? 0 : wal.getPendingBytes();
+    }
+
+    /**
+     * 超出日志上限被丢弃的字节数
+     */
+    public long getDroppedBytes() {
+        return wal == null ? 0 : wal.getDroppedBytes();
+    }
+
+    /**
+     * fsync 次数
+     */
+    public long getSyncCount() {
+        return wal == null ? 0 : wal.getSyncCount();
+    }
+}
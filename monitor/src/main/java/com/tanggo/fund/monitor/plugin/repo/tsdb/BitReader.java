@@ -0,0 +1,42 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 位流读取器
+ * 以绝对位置读取缓冲区（堆内数组或内存映射段），不改变缓冲区的 position
+ */
+final class BitReader {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private long bitPosition;
+
+    BitReader(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    boolean readBit() {
+        int b = buffer.get(offset + (int) (bitPosition >>> 3));
+        boolean bit = (b & (0x80 >>> (bitPosition & 7))) != 0;
+        bitPosition++;
+        return bit;
+    }
+
+    /**
+     * 读取 count 位（count 取 0~64），按无符号数返回
+     */
+    long readBits(int count) {
+        long value = 0;
+        while (count > 0) {
+            int available = 8 - (int) (bitPosition & 7);
+            int take = Math.min(available, count);
+            int b = buffer.get(offset + (int) (bitPosition >>> 3)) & 0xFF;
+            value = (value << take) | ((b >>> (available - take)) & ((1 << take) - 1));
+            bitPosition += take;
+            count -= take;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import java.util.Arrays;
+
+/**
+ * 位流写入器
+ * 按高位在前的顺序把任意位数写入可扩容的字节数组，重置后复用同一数组
+ */
+final class BitWriter {
+
+    private byte[] buffer;
+    private int bitLength;
+
+    BitWriter(int initialBytes) {
+        this.buffer = new byte[Math.max(1, initialBytes)];
+    }
+
+    void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            buffer[bitLength >>> 3] |= (byte) (0x80 >>> (bitLength & 7));
+        }
+        bitLength++;
+    }
+
+    /**
+     * 写入 value 的低 count 位（count 取 0~64）
+     */
+    void writeBits(long value, int count) {
+        ensureCapacity(count);
+        while (count > 0) {
+            int free = 8 - (bitLength & 7);
+            int take = Math.min(free, count);
+            int chunk = (int) (value >>> (count - take)) & ((1 << take) - 1);
+            buffer[bitLength >>> 3] |= (byte) (chunk << (free - take));
+            bitLength += take;
+            count -= take;
+        }
+    }
+
+    byte[] array() {
+        return buffer;
+    }
+
+    int byteLength() {
+        return (bitLength + 7) >>> 3;
+    }
+
+    void reset() {
+        Arrays.fill(buffer, 0, byteLength(), (byte) 0);
+        bitLength = 0;
+    }
+
+    private void ensureCapacity(int bits) {
+        int required = (bitLength + bits + 7) >>> 3;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 数据块解码，与 {@link ChunkEncoder} 的编码规则一一对应
+ */
+final class ChunkDecoder {
+
+    private ChunkDecoder() {
+    }
+
+    /**
+     * 解码数据块并回调落在 [fromMillis, toMillis) 内的样本
+     *
+     * @param timeBuffer  时间列所在缓冲区
+     * @param timeOffset  时间列起始字节
+     * @param valueBuffer 数值列所在缓冲区
+     * @param valueOffset 数值列起始字节
+     * @param count       样本数
+     * @return 回调的样本数
+     */
+    static int decode(ByteBuffer timeBuffer, int timeOffset, ByteBuffer valueBuffer, int valueOffset, int count,
+                      long fromMillis, long toMillis, Series series, SampleVisitor visitor) {
+        BitReader times = new BitReader(timeBuffer, timeOffset);
+        BitReader values = new BitReader(valueBuffer, valueOffset);
+
+        long timestamp = 0;
+        long delta = 0;
+        long valueBits = 0;
+        int leading = 0;
+        int trailing = 0;
+        int visited = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                timestamp = times.readBits(64);
+                valueBits = values.readBits(64);
+            } else {
+                delta += readDeltaOfDelta(times);
+                timestamp += delta;
+                if (values.readBit()) {
+                    if (values.readBit()) {
+                        leading = (int) values.readBits(5);
+                        int significant = (int) values.readBits(6) + 1;
+                        trailing = 64 - leading - significant;
+                    }
+                    valueBits ^= values.readBits(64 - leading - trailing) << trailing;
+                }
+            }
+            if (timestamp >= fromMillis && timestamp < toMillis) {
+                visitor.accept(series, timestamp, Double.longBitsToDouble(valueBits));
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private static long readDeltaOfDelta(BitReader times) {
+        if (!times.readBit()) {
+            return 0;
+        }
+        if (!times.readBit()) {
+            return signExtend(times.readBits(7), 7);
+        }
+        if (!times.readBit()) {
+            return signExtend(times.readBits(9), 9);
+        }
+        if (!times.readBit()) {
+            return signExtend(times.readBits(12), 12);
+        }
+        return times.readBits(64);
+    }
+
+    private static long signExtend(long value, int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+}
@@ -0,0 +1,134 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+/**
+ * 单个序列的活跃数据块
+ * 时间戳与数值分两列编码（Gorilla）：
+ * <ul>
+ *     <li>时间列：首个时间戳64位原值，之后写二阶差分（delta-of-delta），
+ *     按 0 / [-64,63] / [-256,255] / [-2048,2047] / 其它 五档分别用 1 / 9 / 12 / 16 / 68 位</li>
+ *     <li>数值列：首个值64位原值，之后写与前值的异或；异或为0写1位，
+ *     有效位落在上一次的前导零/尾随零窗口内时只写有效位，否则写5位前导零数、6位有效位长度和有效位</li>
+ * </ul>
+ * 采集间隔稳定、数值变化平缓的监控序列通常每个样本只需1~2字节
+ */
+final class ChunkEncoder {
+
+    // 前导零个数用5位保存，超出部分计入有效位
+    static final int MAX_LEADING_ZEROS = 31;
+
+    private final BitWriter times;
+    private final BitWriter values;
+
+    private long partitionStart;
+    private int count;
+    private long minTimestamp;
+    private long maxTimestamp;
+
+    private long previousTimestamp;
+    private long previousDelta;
+    private long previousValueBits;
+    private int previousLeading;
+    private int previousTrailing;
+
+    ChunkEncoder(int initialBytes) {
+        this.times = new BitWriter(initialBytes);
+        this.values = new BitWriter(initialBytes);
+    }
+
+    /**
+     * 开始新数据块，复用已分配的缓冲区
+     */
+    void reset(long partitionStart) {
+        times.reset();
+        values.reset();
+        this.partitionStart = partitionStart;
+        count = 0;
+        previousDelta = 0;
+        previousLeading = -1;
+        previousTrailing = 0;
+    }
+
+    void append(long timestamp, double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+        if (count == 0) {
+            times.writeBits(timestamp, 64);
+            values.writeBits(valueBits, 64);
+            minTimestamp = timestamp;
+            maxTimestamp = timestamp;
+        } else {
+            long delta = timestamp - previousTimestamp;
+            writeDeltaOfDelta(delta - previousDelta);
+            previousDelta = delta;
+            writeXor(valueBits ^ previousValueBits);
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+        }
+        previousTimestamp = timestamp;
+        previousValueBits = valueBits;
+        count++;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            times.writeBit(false);
+        } else if (dod >= -64 && dod <= 63) {
+            times.writeBits(0b10, 2);
+            times.writeBits(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            times.writeBits(0b110, 3);
+            times.writeBits(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            times.writeBits(0b1110, 4);
+            times.writeBits(dod, 12);
+        } else {
+            times.writeBits(0b1111, 4);
+            times.writeBits(dod, 64);
+        }
+    }
+
+    private void writeXor(long xor) {
+        if (xor == 0) {
+            values.writeBit(false);
+            return;
+        }
+        values.writeBit(true);
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+            values.writeBit(false);
+            values.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            return;
+        }
+        int significant = 64 - leading - trailing;
+        values.writeBit(true);
+        values.writeBits(leading, 5);
+        values.writeBits(significant - 1, 6);
+        values.writeBits(xor >>> trailing, significant);
+        previousLeading = leading;
+        previousTrailing = trailing;
+    }
+
+    long getPartitionStart() {
+        return partitionStart;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    BitWriter getTimes() {
+        return times;
+    }
+
+    BitWriter getValues() {
+        return values;
+    }
+}
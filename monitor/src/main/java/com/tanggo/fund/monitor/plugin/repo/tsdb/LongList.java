@@ -0,0 +1,27 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import java.util.Arrays;
+
+/**
+ * 可增长的 long 列表，用于保存数据块位置而不装箱
+ */
+final class LongList {
+
+    private long[] values = new long[4];
+    private int size;
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,153 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 时间分区：一个目录保存 [start, end) 时间窗口内的全部数据块
+ * 段文件写满后滚动到下一个段，分区整体过期时整目录删除
+ *
+ * <p>每个序列的数据块位置以 (段序号 << 32 | 段内偏移) 保存在内存索引中，重新打开时扫描段文件重建
+ */
+final class Partition {
+
+    static final String DIRECTORY_PREFIX = "p-";
+    private static final String SEGMENT_PREFIX = "seg-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final long start;
+    private final long end;
+    private final Path directory;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<Integer, LongList> chunks = new HashMap<>();
+    private long chunkCount;
+
+    private Partition(long start, long end, Path directory) {
+        this.start = start;
+        this.end = end;
+        this.directory = directory;
+    }
+
+    static Path directory(Path root, long start) {
+        return root.resolve(DIRECTORY_PREFIX + start);
+    }
+
+    /**
+     * 打开（必要时创建）分区目录并重建数据块索引
+     */
+    static Partition open(Path root, long start, long partitionMillis) throws IOException {
+        Partition partition = new Partition(start, start + partitionMillis, directory(root, start));
+        Files.createDirectories(partition.directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(partition.directory)) {
+            files = list.filter(f -> f.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted(Comparator.comparing(Path::getFileName))
+                    .toList();
+        }
+        for (Path file : files) {
+            Segment segment = Segment.open(file);
+            int segmentIndex = partition.segments.size();
+            partition.segments.add(segment);
+            for (int offset = segment.first(); offset >= 0; offset = segment.next(offset)) {
+                partition.index(segment.seriesId(offset), segmentIndex, offset);
+            }
+        }
+        return partition;
+    }
+
+    /**
+     * 封存数据块：当前段放不下时滚动新段，单块超过段容量时按块大小建段
+     */
+    void append(int seriesId, ChunkEncoder chunk, int segmentBytes) throws IOException {
+        int recordBytes = Segment.recordBytes(chunk);
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || !segment.fits(recordBytes)) {
+            String name = String.format("%s%05d%s", SEGMENT_PREFIX, segments.size(), SEGMENT_SUFFIX);
+            segment = Segment.create(directory.resolve(name),
+                    Math.max(segmentBytes, Segment.HEADER_BYTES + recordBytes));
+            segments.add(segment);
+        }
+        int offset = segment.append(seriesId, chunk);
+        index(seriesId, segments.size() - 1, offset);
+    }
+
+    private void index(int seriesId, int segmentIndex, int offset) {
+        chunks.computeIfAbsent(seriesId, id -> new LongList()).add(((long) segmentIndex << 32) | offset);
+        chunkCount++;
+    }
+
+    /**
+     * 按封存顺序回调序列落在查询区间内的样本，跳过时间范围不相交的数据块
+     */
+    int visit(Series series, long fromMillis, long toMillis, SampleVisitor visitor) {
+        LongList positions = chunks.get(series.getId());
+        if (positions == null) {
+            return 0;
+        }
+        int visited = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            long position = positions.get(i);
+            Segment segment = segments.get((int) (position >>> 32));
+            int offset = (int) position;
+            if (segment.maxTimestamp(offset) < fromMillis || segment.minTimestamp(offset) >= toMillis) {
+                continue;
+            }
+            visited += segment.decode(offset, fromMillis, toMillis, series, visitor);
+        }
+        return visited;
+    }
+
+    void force() {
+        segments.forEach(Segment::force);
+    }
+
+    /**
+     * 删除分区目录
+     * Java 17 无法主动解除内存映射，映射区在缓冲区被回收时释放；Linux 下删除已映射文件是安全的
+     */
+    void delete() throws IOException {
+        segments.clear();
+        chunks.clear();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    boolean overlaps(long fromMillis, long toMillis) {
+        return start < toMillis && end > fromMillis;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getEnd() {
+        return end;
+    }
+
+    long getChunkCount() {
+        return chunkCount;
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    long getStoredBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.getEnd();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,11 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+/**
+ * 查询样本回调
+ * 同一序列的样本按写入顺序连续回调，避免为每个样本创建对象
+ */
+@FunctionalInterface
+public interface SampleVisitor {
+
+    void accept(Series series, long timestampMillis, double value);
+}
@@ -0,0 +1,155 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射的只追加段文件
+ *
+ * <p>文件头16字节：magic(4) + version(4) + 已写入末尾位置(8)，随后是连续的数据块记录：
+ * seriesId(4) + count(4) + minTimestamp(8) + maxTimestamp(8) + timeBytes(4) + valueBytes(4) + 时间列 + 数值列。
+ * 末尾位置在整条记录写完后才更新，进程中途退出时未完成的记录在重新打开时被忽略
+ */
+final class Segment {
+
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 32;
+
+    private static final int MAGIC = 0x54534731;
+    private static final int VERSION = 1;
+    private static final int END_OFFSET = 8;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private int end;
+    private boolean dirty;
+
+    private Segment(Path file, MappedByteBuffer buffer, int end) {
+        this.file = file;
+        this.buffer = buffer;
+        this.end = end;
+    }
+
+    /**
+     * 创建并映射固定容量的新段文件
+     */
+    static Segment create(Path file, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(END_OFFSET, HEADER_BYTES);
+            return new Segment(file, buffer, HEADER_BYTES);
+        }
+    }
+
+    /**
+     * 映射已有段文件，末尾位置取文件头记录的值
+     */
+    static Segment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("段文件不完整: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("无法识别的段文件: " + file);
+            }
+            long end = buffer.getLong(END_OFFSET);
+            if (end < HEADER_BYTES || end > size) {
+                throw new IOException("段文件末尾位置越界: " + file + ", end=" + end);
+            }
+            return new Segment(file, buffer, (int) end);
+        }
+    }
+
+    static int recordBytes(ChunkEncoder chunk) {
+        return RECORD_HEADER_BYTES + chunk.getTimes().byteLength() + chunk.getValues().byteLength();
+    }
+
+    boolean fits(int recordBytes) {
+        return buffer.capacity() - end >= recordBytes;
+    }
+
+    /**
+     * 追加一条数据块记录
+     *
+     * @return 记录起始位置
+     */
+    int append(int seriesId, ChunkEncoder chunk) {
+        int offset = end;
+        int timeBytes = chunk.getTimes().byteLength();
+        int valueBytes = chunk.getValues().byteLength();
+        buffer.putInt(offset, seriesId);
+        buffer.putInt(offset + 4, chunk.getCount());
+        buffer.putLong(offset + 8, chunk.getMinTimestamp());
+        buffer.putLong(offset + 16, chunk.getMaxTimestamp());
+        buffer.putInt(offset + 24, timeBytes);
+        buffer.putInt(offset + 28, valueBytes);
+        buffer.put(offset + RECORD_HEADER_BYTES, chunk.getTimes().array(), 0, timeBytes);
+        buffer.put(offset + RECORD_HEADER_BYTES + timeBytes, chunk.getValues().array(), 0, valueBytes);
+
+        end = offset + RECORD_HEADER_BYTES + timeBytes + valueBytes;
+        buffer.putLong(END_OFFSET, end);
+        dirty = true;
+        return offset;
+    }
+
+    /**
+     * 下一条记录的起始位置，到达末尾时返回 -1
+     */
+    int next(int offset) {
+        int next = offset + RECORD_HEADER_BYTES + buffer.getInt(offset + 24) + buffer.getInt(offset + 28);
+        return next < end ? next : -1;
+    }
+
+    int first() {
+        return end > HEADER_BYTES ? HEADER_BYTES : -1;
+    }
+
+    int seriesId(int offset) {
+        return buffer.getInt(offset);
+    }
+
+    int count(int offset) {
+        return buffer.getInt(offset + 4);
+    }
+
+    long minTimestamp(int offset) {
+        return buffer.getLong(offset + 8);
+    }
+
+    long maxTimestamp(int offset) {
+        return buffer.getLong(offset + 16);
+    }
+
+    int decode(int offset, long fromMillis, long toMillis, Series series, SampleVisitor visitor) {
+        int timeOffset = offset + RECORD_HEADER_BYTES;
+        int valueOffset = timeOffset + buffer.getInt(offset + 24);
+        return ChunkDecoder.decode(buffer, timeOffset, buffer, valueOffset, count(offset),
+                fromMillis, toMillis, series, visitor);
+    }
+
+    /**
+     * 把脏页同步到磁盘
+     */
+    void force() {
+        if (dirty) {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,54 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import java.util.Map;
+
+/**
+ * 时间序列：指标名称加一组标签唯一确定一条序列，编号在存储目录内持久且稳定
+ */
+public final class Series {
+
+    private final int id;
+    private final String metricName;
+    private final Map<String, String> tags;
+
+    // 尚未封存的活跃数据块，仅在持有存储写锁时修改
+    ChunkEncoder active;
+
+    Series(int id, String metricName, Map<String, String> tags) {
+        this.id = id;
+        this.metricName = metricName;
+        this.tags = Map.copyOf(tags);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * 是否包含过滤条件中的全部标签
+     */
+    public boolean matches(Map<String, String> tagFilter) {
+        if (tagFilter == null) {
+            return true;
+        }
+        for (Map.Entry<String, String> entry : tagFilter.entrySet()) {
+            if (!entry.getValue().equals(tags.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return metricName + tags;
+    }
+}
@@ -0,0 +1,148 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 序列字典：序列键到序列编号的映射，追加写入 series.dict
+ *
+ * <p>记录格式：id(int) + metricName(UTF) + 标签数(short) + 标签键值(UTF)...，
+ * 进程中途退出留下的半条记录在重新打开时截断
+ */
+final class SeriesDictionary {
+
+    static final String FILE_NAME = "series.dict";
+
+    private final Map<String, Series> byKey = new HashMap<>();
+    private final Map<String, List<Series>> byMetricName = new HashMap<>();
+    private final List<Series> byId = new ArrayList<>();
+    private final StringBuilder keyBuilder = new StringBuilder(128);
+    private final DataOutputStream out;
+
+    private SeriesDictionary(DataOutputStream out) {
+        this.out = out;
+    }
+
+    static SeriesDictionary open(Path directory) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        List<Series> loaded = new ArrayList<>();
+        if (Files.exists(file)) {
+            byte[] bytes = Files.readAllBytes(file);
+            long validLength = load(bytes, loaded);
+            if (validLength < bytes.length) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+            }
+        }
+        SeriesDictionary dictionary = new SeriesDictionary(new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND))));
+        loaded.forEach(dictionary::register);
+        return dictionary;
+    }
+
+    private static long load(byte[] bytes, List<Series> loaded) throws IOException {
+        ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+        DataInputStream in = new DataInputStream(buffer);
+        long validLength = 0;
+        try {
+            while (buffer.available() > 0) {
+                int id = in.readInt();
+                String metricName = in.readUTF();
+                int tagCount = in.readShort();
+                Map<String, String> tags = new HashMap<>(tagCount * 2);
+                for (int i = 0; i < tagCount; i++) {
+                    tags.put(in.readUTF(), in.readUTF());
+                }
+                if (id != loaded.size()) {
+                    throw new IOException("序列字典编号不连续: expected=" + loaded.size() + ", actual=" + id);
+                }
+                loaded.add(new Series(id, metricName, tags));
+                validLength = bytes.length - buffer.available();
+            }
+        } catch (EOFException e) {
+            // 最后一条记录不完整
+        }
+        return validLength;
+    }
+
+    /**
+     * 查找序列，不存在时分配新编号并落盘
+     */
+    Series getOrCreate(String metricName, Map<String, String> tags) throws IOException {
+        String key = key(metricName, tags);
+        Series series = byKey.get(key);
+        if (series != null) {
+            return series;
+        }
+        series = new Series(byId.size(), metricName, tags);
+        out.writeInt(series.getId());
+        out.writeUTF(metricName);
+        out.writeShort(series.getTags().size());
+        for (Map.Entry<String, String> entry : series.getTags().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+        out.flush();
+        register(key, series);
+        return series;
+    }
+
+    private void register(Series series) {
+        register(key(series.getMetricName(), series.getTags()), series);
+    }
+
+    private void register(String key, Series series) {
+        byKey.put(key, series);
+        byId.add(series);
+        byMetricName.computeIfAbsent(series.getMetricName(), name -> new ArrayList<>()).add(series);
+    }
+
+    /**
+     * 序列键：指标名称加按键排序的标签，分隔符使用不会出现在正常文本中的控制字符
+     */
+    private String key(String metricName, Map<String, String> tags) {
+        StringBuilder sb = keyBuilder;
+        sb.setLength(0);
+        sb.append(metricName);
+        if (!tags.isEmpty()) {
+            String[] keys = tags.keySet().toArray(new String[0]);
+            if (keys.length > 1) {
+                Arrays.sort(keys);
+            }
+            for (String k : keys) {
+                sb.append('\u0000').append(k).append('\u0001').append(tags.get(k));
+            }
+        }
+        return sb.toString();
+    }
+
+    List<Series> byMetricName(String metricName) {
+        return byMetricName.getOrDefault(metricName, List.of());
+    }
+
+    List<Series> all() {
+        return byId;
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,418 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 嵌入式本地时序存储
+ *
+ * <p>样本先写入序列的活跃数据块（堆内只有几百字节的位流），数据块写满 maxSamplesPerChunk 个样本、
+ * 样本跨入新的时间分区或调用 {@link #flush()} 时封存到所属分区的内存映射段文件。
+ * 数据主体位于堆外映射区，堆内只保留序列字典、活跃数据块和数据块位置索引
+ *
+ * <p>目录结构：
+ * <pre>
+ * directory/
+ *   series.dict            序列字典
+ *   p-1767225600000/       分区（起始毫秒时间戳）
+ *     seg-00000.dat        段文件
+ * </pre>
+ *
+ * <p>写入持有写锁，查询持有读锁；活跃数据块中尚未封存的样本在进程异常退出时丢失，
+ * 丢失窗口由调用方的 flush 周期决定
+ */
+@Slf4j
+public class TimeSeriesStore implements AutoCloseable {
+
+    private final Path directory;
+
+    // 分区时间跨度（毫秒）
+    @Setter
+    private long partitionMillis = TimeUnit.HOURS.toMillis(2);
+
+    // 数据保留时长（毫秒），整个分区都超出保留期后删除
+    @Setter
+    private long retentionMillis = TimeUnit.DAYS.toMillis(7);
+
+    // 段文件容量（字节）
+    @Setter
+    private int segmentBytes = 64 << 20;
+
+    // 单个数据块的最大样本数
+    @Setter
+    private int maxSamplesPerChunk = 120;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, Partition> partitions = new TreeMap<>();
+    private SeriesDictionary dictionary;
+    private boolean opened;
+
+    // 早于该时间的样本已超出保留期，直接丢弃
+    private long retentionFloor = Long.MIN_VALUE;
+
+    // 统计信息
+    private long appendedCount;
+    private long expiredCount;
+
+    public TimeSeriesStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 打开存储目录：加载序列字典，映射全部分区的段文件并重建索引
+     */
+    public void open() {
+        lock.writeLock().lock();
+        try {
+            if (opened) {
+                return;
+            }
+            if (partitionMillis <= 0 || partitionMillis > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("分区跨度需在1毫秒到约24天之间: " + partitionMillis);
+            }
+            Files.createDirectories(directory);
+            dictionary = SeriesDictionary.open(directory);
+            List<Path> partitionDirectories;
+            try (Stream<Path> files = Files.list(directory)) {
+                partitionDirectories = files.filter(Files::isDirectory)
+                        .filter(f -> f.getFileName().toString().startsWith(Partition.DIRECTORY_PREFIX))
+                        .toList();
+            }
+            for (Path partitionDirectory : partitionDirectories) {
+                long start = Long.parseLong(partitionDirectory.getFileName().toString()
+                        .substring(Partition.DIRECTORY_PREFIX.length()));
+                partitions.put(start, Partition.open(directory, start, partitionMillis));
+            }
+            opened = true;
+            log.info("本地时序存储已打开: directory={}, series={}, partitions={}",
+                    directory, dictionary.size(), partitions.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开本地时序存储失败: " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 写入一个样本
+     *
+     * @param metricName      指标名称
+     * @param tags            标签，空键或空值的标签被忽略
+     * @param timestampMillis 毫秒时间戳
+     * @param value           数值
+     * @return 是否写入（超出保留期的样本返回false）
+     */
+    public boolean append(String metricName, Map<String, String> tags, long timestampMillis, double value) {
+        lock.writeLock().lock();
+        try {
+            ensureOpened();
+            if (timestampMillis < retentionFloor) {
+                expiredCount++;
+                return false;
+            }
+            Series series = dictionary.getOrCreate(metricName, normalize(tags));
+            long partitionStart = Math.floorDiv(timestampMillis, partitionMillis) * partitionMillis;
+            ChunkEncoder chunk = series.active;
+            if (chunk == null) {
+                chunk = new ChunkEncoder(64);
+                chunk.reset(partitionStart);
+                series.active = chunk;
+            } else if (chunk.getPartitionStart() != partitionStart || chunk.getCount() >= maxSamplesPerChunk) {
+                seal(series);
+                chunk.reset(partitionStart);
+            }
+            chunk.append(timestampMillis, value);
+            appendedCount++;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入本地时序存储失败: " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Map<String, String> normalize(Map<String, String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return Map.of();
+        }
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            if (isBlank(entry.getKey()) || isBlank(entry.getValue())) {
+                Map<String, String> filtered = new HashMap<>();
+                tags.forEach((k, v) -> {
+                    if (!isBlank(k) && !isBlank(v)) {
+                        filtered.put(k, v);
+                    }
+                });
+                return filtered;
+            }
+        }
+        return tags;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isEmpty();
+    }
+
+    private void seal(Series series) throws IOException {
+        ChunkEncoder chunk = series.active;
+        if (chunk == null || chunk.getCount() == 0) {
+            return;
+        }
+        partition(chunk.getPartitionStart()).append(series.getId(), chunk, segmentBytes);
+    }
+
+    private Partition partition(long start) throws IOException {
+        Partition partition = partitions.get(start);
+        if (partition == null) {
+            partition = Partition.open(directory, start, partitionMillis);
+            partitions.put(start, partition);
+        }
+        return partition;
+    }
+
+    /**
+     * 封存全部活跃数据块并把段文件脏页同步到磁盘
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            if (!opened) {
+                return;
+            }
+            for (Series series : dictionary.all()) {
+                ChunkEncoder chunk = series.active;
+                if (chunk != null && chunk.getCount() > 0) {
+                    seal(series);
+                    chunk.reset(chunk.getPartitionStart());
+                }
+            }
+            partitions.values().forEach(Partition::force);
+        } catch (IOException e) {
+            throw new UncheckedIOException("刷写本地时序存储失败: " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除整体超出保留期的分区
+     *
+     * @param nowMillis 当前毫秒时间戳
+     * @return 删除的分区数
+     */
+    public int enforceRetention(long nowMillis) {
+        lock.writeLock().lock();
+        try {
+            ensureOpened();
+            retentionFloor = nowMillis - retentionMillis;
+            int removed = 0;
+            while (!partitions.isEmpty() && partitions.firstEntry().getValue().getEnd() <= retentionFloor) {
+                Partition partition = partitions.pollFirstEntry().getValue();
+                partition.delete();
+                removed++;
+                log.info("删除过期分区: start={}, chunks={}", partition.getStart(), partition.getChunkCount());
+            }
+            for (Series series : dictionary.all()) {
+                ChunkEncoder chunk = series.active;
+                if (chunk != null && chunk.getCount() > 0 && chunk.getPartitionStart() + partitionMillis <= retentionFloor) {
+                    expiredCount += chunk.getCount();
+                    chunk.reset(chunk.getPartitionStart());
+                }
+            }
+            return removed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("清理过期分区失败: " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询样本
+     * 按指标名称和标签子集匹配序列，逐序列回调落在 [fromMillis, toMillis) 内的样本（含未封存的活跃数据块）
+     *
+     * @param metricName 指标名称
+     * @param tagFilter  需全部匹配的标签，为空表示不过滤
+     * @param fromMillis 起始毫秒时间戳（含）
+     * @param toMillis   结束毫秒时间戳（不含）
+     * @param visitor    样本回调
+     * @return 回调的样本数
+     */
+    public long query(String metricName, Map<String, String> tagFilter, long fromMillis, long toMillis,
+                      SampleVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            return query(series(metricName, tagFilter), fromMillis, toMillis, visitor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询指定序列的样本，序列通常来自 {@link #series(String, Map)} 再经调用方进一步过滤
+     *
+     * @return 回调的样本数
+     */
+    public long query(Collection<Series> series, long fromMillis, long toMillis, SampleVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            ensureOpened();
+            Long first = partitions.floorKey(fromMillis);
+            Map<Long, Partition> overlapping = partitions.subMap(
+                    first == null ? Long.MIN_VALUE : first, true, toMillis, false);
+            long visited = 0;
+            for (Series s : series) {
+                ChunkEncoder active = s.active;
+                boolean activeVisited = active == null || active.getCount() == 0;
+                for (Partition partition : overlapping.values()) {
+                    if (!activeVisited && active.getPartitionStart() < partition.getStart()) {
+                        visited += visitActive(s, fromMillis, toMillis, visitor);
+                        activeVisited = true;
+                    }
+                    visited += partition.visit(s, fromMillis, toMillis, visitor);
+                }
+                if (!activeVisited) {
+                    visited += visitActive(s, fromMillis, toMillis, visitor);
+                }
+            }
+            return visited;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int visitActive(Series series, long fromMillis, long toMillis, SampleVisitor visitor) {
+        ChunkEncoder chunk = series.active;
+        if (chunk.getMaxTimestamp() < fromMillis || chunk.getMinTimestamp() >= toMillis) {
+            return 0;
+        }
+        return ChunkDecoder.decode(ByteBuffer.wrap(chunk.getTimes().array()), 0,
+                ByteBuffer.wrap(chunk.getValues().array()), 0, chunk.getCount(),
+                fromMillis, toMillis, series, visitor);
+    }
+
+    /**
+     * 匹配指标名称和标签的序列
+     */
+    public List<Series> series(String metricName, Map<String, String> tagFilter) {
+        lock.readLock().lock();
+        try {
+            ensureOpened();
+            List<Series> matched = new ArrayList<>();
+            for (Series series : dictionary.byMetricName(metricName)) {
+                if (series.matches(tagFilter)) {
+                    matched.add(series);
+                }
+            }
+            return matched;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureOpened() {
+        if (!opened) {
+            throw new IllegalStateException("本地时序存储未打开: " + directory);
+        }
+    }
+
+    /**
+     * 封存活跃数据块、同步段文件并关闭序列字典
+     */
+    @Override
+    public void close() {
+        flush();
+        lock.writeLock().lock();
+        try {
+            if (!opened) {
+                return;
+            }
+            opened = false;
+            dictionary.close();
+            partitions.clear();
+            log.info("本地时序存储已关闭: directory={}, appended={}", directory, appendedCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException("关闭本地时序存储失败: " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getSeriesCount() {
+        lock.readLock().lock();
+        try {
+            return dictionary == null ? 0 : dictionary.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getPartitionCount() {
+        lock.readLock().lock();
+        try {
+            return partitions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已封存的数据块数
+     */
+    public long getChunkCount() {
+        lock.readLock().lock();
+        try {
+            return partitions.values().stream().mapToLong(Partition::getChunkCount).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 段文件中已写入的字节数（不含预分配的空闲空间）
+     */
+    public long getStoredBytes() {
+        lock.readLock().lock();
+        try {
+            return partitions.values().stream().mapToLong(Partition::getStoredBytes).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getAppendedCount() {
+        lock.readLock().lock();
+        try {
+            return appendedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 因超出保留期被丢弃的样本数
+     */
+    public long getExpiredCount() {
+        lock.readLock().lock();
+        try {
+            return expiredCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+-- 监控指标 MySQL 表结构
+-- 名称和标签只在 metric_series 中保存一次，样本表每行只有 (series_id, ts, value)
+
+-- 序列字典：series_hash 为 指标名称 + 规范化标签 的 murmur3 64位哈希，由 MysqlSeriesDictionary 计算
+CREATE TABLE IF NOT EXISTS metric_series (
+    series_id   BIGINT       NOT NULL AUTO_INCREMENT,
+    series_hash BIGINT       NOT NULL,
+    metric_name VARCHAR(255) NOT NULL,
+    tags        JSON         NOT NULL,
+    created_at  TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (series_id),
+    UNIQUE KEY uk_series_hash (series_hash),
+    KEY idx_metric_name (metric_name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 样本：ts 为 epoch 微秒，按 UTC 日分区，分区由 MysqlPartitionManager 提前创建和按保留期删除
+CREATE TABLE IF NOT EXISTS metric_samples (
+    series_id BIGINT NOT NULL,
+    ts        BIGINT NOT NULL,
+    value     DOUBLE NOT NULL,
+    PRIMARY KEY (series_id, ts)
+) ENGINE = InnoDB
+PARTITION BY RANGE (ts) (
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+-- 旧版 metrics 表（每行保存名称、标签和 DATETIME 时间）的历史数据不迁移：
+-- 旧表 tags 列实际保存的是 Map.toString() 文本（如 {host=10.0.0.1}），不是 JSON，标签值含逗号或等号时无法无歧义还原；
+-- 新版采集的序列还带有 monitorId 标签，旧数据没有这项信息，无法与新序列一一对应。
+-- 升级后新数据只写入 metric_series / metric_samples，旧 metrics 表保持原样供查询历史，超过保留期后执行 DROP TABLE metrics 即可
@@ -0,0 +1,153 @@
+package com.tanggo.fund.monitor.core.alert;
+
+import com.tanggo.fund.monitor.core.entity.AlertRule;
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingAlertEvaluatorTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final List<AlertEvent> sent = new ArrayList<>();
+    private final StreamingAlertEvaluator evaluator = new StreamingAlertEvaluator();
+
+    StreamingAlertEvaluatorTest() {
+        evaluator.setAlertRepo(alert -> sent.add((AlertEvent) alert));
+    }
+
+    @Test
+    void thresholdFiresOnTheFirstBreachingSampleAndResolves() {
+        evaluator.setRules(List.of(rule("cpu_high", AlertRule.Type.THRESHOLD, AlertRule.Comparison.GT, 90, 0)));
+
+        evaluator.onMetrics(List.of(cpu("a", 0, 50), cpu("a", 1, 95)));
+        assertEquals(List.of("FIRING:95.0"), statuses());
+
+        evaluator.onMetrics(List.of(cpu("a", 2, 96), cpu("a", 3, 40)));
+        assertEquals(List.of("FIRING:95.0", "RESOLVED:40.0"), statuses());
+        assertEquals(Map.of("host", "a"), sent.get(0).getLabels());
+        assertEquals(sent.get(0).getId(), sent.get(1).getId());
+    }
+
+    @Test
+    void forDurationRequiresTheConditionToHoldContinuously() {
+        evaluator.setRules(List.of(rule("cpu_high", AlertRule.Type.FOR_DURATION, AlertRule.Comparison.GT, 90, 60_000)));
+
+        // 10秒一个样本，中途回落一次重新计时
+        evaluator.onMetrics(List.of(cpu("a", 0, 95), cpu("a", 3, 95), cpu("a", 4, 80), cpu("a", 5, 95), cpu("a", 10, 95)));
+        assertTrue(sent.isEmpty());
+
+        evaluator.onMetrics(List.of(cpu("a", 11, 99)));
+        assertEquals(List.of("FIRING:99.0"), statuses());
+    }
+
+    @Test
+    void rateOfChangeComparesPerSecondDelta() {
+        evaluator.setRules(List.of(rule("cpu_spike", AlertRule.Type.RATE_OF_CHANGE, AlertRule.Comparison.GE, 5, 0)));
+
+        // 每10秒 +20 = 2/s，然后 +60 = 6/s
+        evaluator.onMetrics(List.of(cpu("a", 0, 10), cpu("a", 1, 30), cpu("a", 2, 90), cpu("a", 3, 90)));
+
+        assertEquals(List.of("FIRING:6.0", "RESOLVED:0.0"), statuses());
+    }
+
+    @Test
+    void absenceFiresForSilentSeriesAndResolvesOnNextSample() {
+        evaluator.setRules(List.of(rule("cpu_absent", AlertRule.Type.ABSENCE, AlertRule.Comparison.GT, 0, 60_000)));
+        evaluator.onMetrics(List.of(cpu("a", 0, 10)));
+        long now = System.currentTimeMillis();
+
+        evaluator.checkAbsence(now + 30_000);
+        assertTrue(sent.isEmpty());
+        evaluator.checkAbsence(now + 61_000);
+        evaluator.checkAbsence(now + 62_000);
+        assertEquals(1, sent.size());
+        assertEquals(AlertEvent.Status.FIRING, sent.get(0).getStatus());
+
+        evaluator.onMetrics(List.of(cpu("a", 1, 10)));
+        assertEquals(AlertEvent.Status.RESOLVED, sent.get(1).getStatus());
+    }
+
+    @Test
+    void samplesOnlyReachRulesIndexedByTheirNameAndTags() {
+        AlertRule hostA = rule("a_high", AlertRule.Type.THRESHOLD, AlertRule.Comparison.GT, 90, 0);
+        hostA.setMatchTags(Map.of("host", "a"));
+        AlertRule memory = rule("mem_high", AlertRule.Type.THRESHOLD, AlertRule.Comparison.GT, 90, 0);
+        memory.setMetricName("memory_usage");
+        evaluator.setRules(List.of(hostA, memory));
+
+        evaluator.onMetrics(List.of(cpu("b", 0, 99), cpu("c", 0, 99), cpu("a", 0, 99)));
+
+        assertEquals(1, evaluator.getEvaluatedCount());
+        assertEquals(List.of("FIRING:99.0"), statuses());
+        assertEquals(1, evaluator.getSeriesCount());
+    }
+
+    @Test
+    void reloadingUnchangedRulesKeepsFiringState() {
+        List<AlertRule> rules = List.of(rule("cpu_high", AlertRule.Type.THRESHOLD, AlertRule.Comparison.GT, 90, 0));
+        evaluator.setRules(rules);
+        evaluator.onMetrics(List.of(cpu("a", 0, 95)));
+
+        evaluator.setRules(List.of(rule("cpu_high", AlertRule.Type.THRESHOLD, AlertRule.Comparison.GT, 90, 0)));
+        evaluator.onMetrics(List.of(cpu("a", 1, 95)));
+
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void idleSeriesAreEvictedAndTheirIdsReused() {
+        evaluator.setSeriesIdleMillis(60_000);
+        evaluator.setRules(List.of(rule("cpu_high", AlertRule.Type.THRESHOLD, AlertRule.Comparison.GT, 90, 0)));
+        List<Metric> metrics = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            metrics.add(cpu("pid-" + i, 0, 10));
+        }
+        metrics.add(cpu("a", 0, 95));
+        evaluator.onMetrics(metrics);
+        assertEquals(101, evaluator.getSeriesCount());
+
+        // 未到空闲时长不回收；告警中的序列保留状态
+        assertEquals(0, evaluator.evictIdleSeries(System.currentTimeMillis()));
+        assertEquals(100, evaluator.evictIdleSeries(System.currentTimeMillis() + 61_000));
+        assertEquals(1, evaluator.getSeriesCount());
+
+        evaluator.onMetrics(List.of(cpu("b", 1, 99), cpu("a", 1, 40)));
+        assertEquals(2, evaluator.getSeriesCount());
+        assertEquals(List.of("FIRING:95.0", "FIRING:99.0", "RESOLVED:40.0"), statuses());
+        assertEquals(Map.of("host", "b"), sent.get(1).getLabels());
+        assertEquals(Map.of("host", "a"), sent.get(2).getLabels());
+    }
+
+    private List<String> statuses() {
+        return sent.stream().map(e -> e.getStatus() + ":" + e.getValue()).toList();
+    }
+
+    private static AlertRule rule(String id, AlertRule.Type type, AlertRule.Comparison comparison, double threshold,
+                                  long durationMillis) {
+        AlertRule rule = new AlertRule();
+        rule.setRuleId(id);
+        rule.setMetricName("cpu_usage");
+        rule.setType(type);
+        rule.setComparison(comparison);
+        rule.setThreshold(threshold);
+        rule.setDurationMillis(durationMillis);
+        return rule;
+    }
+
+    private static Metric cpu(String host, int step, double value) {
+        Metric metric = new Metric();
+        metric.setMetricName("cpu_usage");
+        metric.setMetricValue(value);
+        metric.setTimestamp(T0.plusSeconds(step * 10L));
+        metric.setTags(Map.of("host", host));
+        return metric;
+    }
+}
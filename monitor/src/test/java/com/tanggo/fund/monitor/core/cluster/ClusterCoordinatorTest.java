@@ -0,0 +1,131 @@
+package com.tanggo.fund.monitor.core.cluster;
+
+import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
+import com.tanggo.fund.monitor.core.service.MetricCollectScheduler;
+import com.tanggo.fund.monitor.core.service.MetricCollectorService;
+import com.tanggo.fund.monitor.plugin.repo.FileClusterMembershipRepo;
+import com.tanggo.fund.monitor.plugin.repo.InMemoryMetricRetrievalMetaRepo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterCoordinatorTest {
+
+    private static final int MONITORS = 300;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void partitionsMonitorsAndTakesOverOnLeaveOrTimeout() {
+        FileClusterMembershipRepo repo = new FileClusterMembershipRepo(directory.toString());
+        ClusterCoordinator a = coordinator(repo, "node-a");
+        ClusterCoordinator b = coordinator(repo, "node-b");
+        ClusterCoordinator c = coordinator(repo, "node-c");
+        List<ClusterCoordinator> all = List.of(a, b, c);
+
+        long now = System.currentTimeMillis();
+        all.forEach(n -> n.refresh(now));
+        all.forEach(n -> n.refresh(now));
+        all.forEach(n -> assertEquals(List.of("node-a", "node-b", "node-c"), n.getMembers()));
+        assertExactlyOneOwner(all);
+
+        // 主动退出：其余节点下一次刷新即接管
+        b.start();
+        b.close();
+        a.refresh(now + 1_000);
+        c.refresh(now + 1_000);
+        assertEquals(List.of("node-a", "node-c"), a.getMembers());
+        assertExactlyOneOwner(List.of(a, c));
+
+        // 心跳超时：node-c 停止心跳后被 node-a 剔除
+        a.refresh(now + 20_000);
+        assertEquals(List.of("node-a"), a.getMembers());
+        for (int i = 0; i < MONITORS; i++) {
+            assertTrue(a.owns("monitor-" + i));
+        }
+        // 首次加入、看到全部节点、node-b 退出、node-c 超时
+        assertEquals(4, a.getRebalanceCount());
+    }
+
+    @Test
+    void schedulersOnDifferentNodesSplitJobs() {
+        FileClusterMembershipRepo repo = new FileClusterMembershipRepo(directory.toString());
+        ClusterCoordinator a = coordinator(repo, "node-a");
+        ClusterCoordinator b = coordinator(repo, "node-b");
+        a.refresh(System.currentTimeMillis());
+
+        Map<String, MetricRetrievalMeta> metas = new LinkedHashMap<>();
+        for (int i = 0; i < MONITORS; i++) {
+            MetricRetrievalMeta meta = new MetricRetrievalMeta();
+            meta.setMonitorId("monitor-" + i);
+            meta.setIntervalMillis(60_000);
+            metas.put(meta.getMonitorId(), meta);
+        }
+        MetricCollectScheduler schedulerA = scheduler(metas, a);
+        MetricCollectScheduler schedulerB = scheduler(metas, b);
+        try {
+            schedulerA.start();
+            assertEquals(MONITORS, schedulerA.getJobCount());
+
+            // node-b 加入后 node-a 收到成员变化通知，交出一部分监控
+            b.refresh(System.currentTimeMillis());
+            schedulerB.start();
+            a.refresh(System.currentTimeMillis());
+
+            assertTrue(schedulerB.getJobCount() > 0 && schedulerA.getJobCount() < MONITORS);
+            assertEquals(MONITORS, schedulerA.getJobCount() + schedulerB.getJobCount());
+        } finally {
+            schedulerA.stop();
+            schedulerB.stop();
+        }
+    }
+
+    private static void assertExactlyOneOwner(List<ClusterCoordinator> nodes) {
+        List<Integer> owned = new ArrayList<>();
+        for (ClusterCoordinator node : nodes) {
+            int count = 0;
+            for (int i = 0; i < MONITORS; i++) {
+                String monitorId = "monitor-" + i;
+                if (node.owns(monitorId)) {
+                    count++;
+                    assertEquals(node.getNodeId(), nodes.get(0).ownerOf(monitorId));
+                }
+            }
+            assertTrue(count > 0, "节点未分到监控: " + node.getNodeId());
+            owned.add(count);
+        }
+        assertEquals(MONITORS, owned.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private static ClusterCoordinator coordinator(FileClusterMembershipRepo repo, String nodeId) {
+        ClusterCoordinator coordinator = new ClusterCoordinator();
+        coordinator.setMembershipRepo(repo);
+        coordinator.setNodeId(nodeId);
+        coordinator.setHeartbeatIntervalMillis(60_000);
+        coordinator.setFailureTimeoutMillis(15_000);
+        return coordinator;
+    }
+
+    private static MetricCollectScheduler scheduler(Map<String, MetricRetrievalMeta> metas, ClusterCoordinator coordinator) {
+        MetricCollectScheduler scheduler = new MetricCollectScheduler();
+        scheduler.setMetricCollectorService(new MetricCollectorService() {
+            @Override
+            public void handle(String monitorId) {
+            }
+        });
+        scheduler.setMetricRetrievalMetaRepo(new InMemoryMetricRetrievalMetaRepo(metas));
+        scheduler.setClusterCoordinator(coordinator);
+        scheduler.setTickMillis(1_000);
+        scheduler.setWorkerThreads(1);
+        return scheduler;
+    }
+}
@@ -0,0 +1,59 @@
+package com.tanggo.fund.monitor.core.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 30_000;
+
+    @Test
+    void distributesKeysEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 160);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.owner("monitor-" + i), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(c -> assertTrue(Math.abs(c - KEYS / 3) < KEYS / 3 * 0.15, "counts=" + counts));
+        assertNull(new ConsistentHashRing(List.of(), 160).owner("monitor-0"));
+    }
+
+    @Test
+    void onlyAffectedKeysMoveWhenMembershipChanges() {
+        ConsistentHashRing three = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"), 160);
+        ConsistentHashRing four = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"), 160);
+        ConsistentHashRing two = new ConsistentHashRing(List.of("node-a", "node-c"), 160);
+
+        int joinMoved = 0;
+        int leaveMoved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "monitor-" + i;
+            String before = three.owner(key);
+            // 加入：改变归属的键只会移到新节点
+            String afterJoin = four.owner(key);
+            if (!afterJoin.equals(before)) {
+                assertEquals("node-d", afterJoin);
+                joinMoved++;
+            }
+            // 退出：只有原属退出节点的键改变归属
+            String afterLeave = two.owner(key);
+            if (!afterLeave.equals(before)) {
+                assertEquals("node-b", before);
+                leaveMoved++;
+            }
+        }
+
+        assertTrue(Math.abs(joinMoved - KEYS / 4) < KEYS / 4 * 0.15, "joinMoved=" + joinMoved);
+        assertTrue(Math.abs(leaveMoved - KEYS / 3) < KEYS / 3 * 0.15, "leaveMoved=" + leaveMoved);
+    }
+}
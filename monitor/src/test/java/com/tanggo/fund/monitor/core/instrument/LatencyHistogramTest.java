@@ -0,0 +1,57 @@
+package com.tanggo.fund.monitor.core.instrument;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsAreContiguousAndBoundRelativeError() {
+        int previous = -1;
+        for (long v = 0; v < 1_000_000; v += v < 4096 ? 1 : 997) {
+            int index = LatencyHistogram.bucketIndex(v);
+            assertTrue(index >= previous, "下标应单调: " + v);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(upper >= v, "上界应覆盖记录值: " + v);
+            assertTrue(upper - v <= Math.max(1, v / 32), "相对误差超过1/32: " + v);
+            previous = index;
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    void percentilesOfUniformDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(5_000_000, snapshot.percentile(0.5), 5_000_000 / 32.0);
+        assertEquals(9_900_000, snapshot.percentile(0.99), 9_900_000 / 32.0);
+        assertEquals(10_000_000, snapshot.getMaxNanos(), 10_000_000 / 32.0);
+        assertEquals(5_000_500, snapshot.getMeanNanos(), 1e-6);
+    }
+
+    @Test
+    void snapshotDifferenceCoversOnlyTheInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1_000_000);
+        }
+        HistogramSnapshot first = histogram.snapshot();
+        for (int i = 0; i < 10; i++) {
+            histogram.record(50_000_000);
+        }
+
+        HistogramSnapshot interval = histogram.snapshot().minus(first);
+
+        assertEquals(10, interval.getCount());
+        assertEquals(50_000_000, interval.percentile(0.5), 50_000_000 / 32.0);
+        assertEquals(500_000_000, interval.getSumNanos());
+    }
+}
@@ -0,0 +1,62 @@
+package com.tanggo.fund.monitor.core.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BucketAggregatorTest {
+
+    private static final Map<String, String> HOST_A = Map.of("host", "a");
+    private static final Map<String, String> HOST_B = Map.of("host", "b");
+
+    @Test
+    void aggregatesEachWindowPerSeries() {
+        assertEquals(List.of(new DataPoint(0, 2.0), new DataPoint(10_000, 15.0)), run(Aggregation.AVG).get(0).getPoints());
+        assertEquals(List.of(new DataPoint(0, 1.0), new DataPoint(10_000, 10.0)), run(Aggregation.MIN).get(0).getPoints());
+        assertEquals(List.of(new DataPoint(0, 3.0), new DataPoint(10_000, 20.0)), run(Aggregation.MAX).get(0).getPoints());
+        assertEquals(List.of(new DataPoint(0, 6.0), new DataPoint(10_000, 30.0)), run(Aggregation.SUM).get(0).getPoints());
+        assertEquals(List.of(new DataPoint(0, 3.0), new DataPoint(10_000, 2.0)), run(Aggregation.COUNT).get(0).getPoints());
+
+        List<TimeSeries> series = run(Aggregation.AVG);
+        assertEquals(2, series.size());
+        assertEquals(HOST_B, series.get(1).getTags());
+        assertEquals(List.of(new DataPoint(0, 7.0)), series.get(1).getPoints());
+    }
+
+    @Test
+    void p95UsesNearestRank() {
+        BucketAggregator aggregator = new BucketAggregator(MetricQuery.of("latency", 0, 60_000, 60_000, Aggregation.P95));
+        // 乱序写入
+        for (int i = 100; i >= 1; i--) {
+            aggregator.add(HOST_A, i * 100L, i);
+        }
+        assertEquals(List.of(new DataPoint(0, 95.0)), aggregator.result().get(0).getPoints());
+    }
+
+    @Test
+    void rateIgnoresCounterResets() {
+        BucketAggregator aggregator = new BucketAggregator(MetricQuery.of("bytes", 0, 40_000, 20_000, Aggregation.RATE));
+        aggregator.add(HOST_A, 0, 100);
+        aggregator.add(HOST_A, 5_000, 150);   // 10/s
+        aggregator.add(HOST_A, 10_000, 250);  // 20/s
+        aggregator.add(HOST_A, 20_000, 5);    // 回绕，忽略
+        aggregator.add(HOST_A, 30_000, 55);   // 5/s
+        assertEquals(List.of(new DataPoint(0, 15.0), new DataPoint(20_000, 5.0)), aggregator.result().get(0).getPoints());
+    }
+
+    private static List<TimeSeries> run(Aggregation aggregation) {
+        BucketAggregator aggregator = new BucketAggregator(MetricQuery.of("cpu_usage", 0, 20_000, 10_000, aggregation));
+        aggregator.add(HOST_A, 0, 1);
+        aggregator.add(HOST_B, 1_000, 7);
+        aggregator.add(HOST_A, 5_000, 2);
+        aggregator.add(HOST_A, 9_999, 3);
+        aggregator.add(HOST_A, 10_000, 10);
+        aggregator.add(HOST_A, 15_000, 20);
+        // 超出查询范围
+        aggregator.add(HOST_A, 20_000, 99);
+        return aggregator.result();
+    }
+}
@@ -0,0 +1,165 @@
+package com.tanggo.fund.monitor.core.rollup;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RollupAggregatorTest {
+
+    // 5分钟整点
+    private static final long BASE = 1_700_000_100_000L;
+
+    private final RollupTier oneMinute = new RollupTier("1m", 60_000, 0, null, null);
+    private final RollupTier fiveMinutes = new RollupTier("5m", 300_000, 0, null, null);
+
+    @Test
+    void sketchQuantilesStayWithinRelativeAccuracyAfterMerge() {
+        Random random = new Random(42);
+        double[] values = new double[20_000];
+        QuantileSketch left = new QuantileSketch(0.01);
+        QuantileSketch right = new QuantileSketch(0.01);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2) * (i % 10 == 0 ? -1 : 1);
+            (i % 2 == 0 ? left : right).add(values[i]);
+        }
+        left.merge(right);
+        Arrays.sort(values);
+
+        assertEquals(values.length, left.getCount());
+        for (double q : new double[]{0.01, 0.5, 0.95, 0.99}) {
+            double exact = values[(int) Math.ceil(q * values.length) - 1];
+            double estimate = left.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= 0.01 * Math.abs(exact) + 1e-12, q + ": " + estimate + " vs " + exact);
+        }
+        assertThrows(IllegalArgumentException.class, () -> left.merge(new QuantileSketch(0.02)));
+    }
+
+    @Test
+    void closedFineWindowsCascadeIntoCoarseTier() {
+        RollupAggregator aggregator = new RollupAggregator(List.of(fiveMinutes, oneMinute), 0.01);
+        List<Metric> emitted1m = new ArrayList<>();
+        List<Metric> emitted5m = new ArrayList<>();
+
+        // 10分钟，每10秒一个样本，取值 0..59
+        for (int i = 0; i < 60; i++) {
+            Map<RollupTier, List<Metric>> closed = aggregator.add(List.of(metric(BASE + i * 10_000L, i)));
+            emitted1m.addAll(closed.getOrDefault(oneMinute, List.of()));
+            emitted5m.addAll(closed.getOrDefault(fiveMinutes, List.of()));
+        }
+        // 1分钟窗口在下一分钟的样本到达时关闭；第一个5分钟窗口随第6个1分钟窗口关闭而输出
+        assertEquals(9 * RollupStat.values().length, emitted1m.size());
+        assertEquals(RollupStat.values().length, emitted5m.size());
+
+        Map<RollupTier, List<Metric>> flushed = aggregator.flush(Long.MAX_VALUE);
+        emitted1m.addAll(flushed.get(oneMinute));
+        emitted5m.addAll(flushed.get(fiveMinutes));
+        assertEquals(0, aggregator.getSeriesCount());
+
+        Map<String, Double> firstMinute = stats(emitted1m, BASE);
+        assertEquals(Map.of("min", 0.0, "max", 5.0, "sum", 15.0, "count", 6.0), without(firstMinute, "p50", "p95", "p99"));
+
+        Map<String, Double> secondFive = stats(emitted5m, BASE + 300_000);
+        assertEquals(Map.of("min", 30.0, "max", 59.0, "sum", 1335.0, "count", 30.0), without(secondFive, "p50", "p95", "p99"));
+        // 最近秩：ceil(0.95 * 30) - 1 = 28 -> 58
+        assertEquals(58.0, secondFive.get("p95"), 58.0 * 0.01);
+        assertEquals(10, emitted1m.stream().map(Metric::getTimestamp).distinct().count());
+        emitted5m.forEach(m -> assertEquals("10.0.0.1", m.getTags().get("host")));
+    }
+
+    @Test
+    void samplesOlderThanOpenWindowAreCountedAsLate() {
+        RollupAggregator aggregator = new RollupAggregator(List.of(oneMinute), 0.01);
+        aggregator.add(List.of(metric(BASE + 65_000, 1.0)));
+        aggregator.add(List.of(metric(BASE + 5_000, 2.0), metric(BASE + 70_000, 3.0)));
+
+        // 水位线未到窗口结束，窗口保持打开
+        assertTrue(aggregator.flush(BASE + 100_000).isEmpty());
+        Map<String, Double> stats = stats(aggregator.flush(BASE + 120_000).get(oneMinute), BASE + 60_000);
+
+        assertEquals(1, aggregator.getLateCount());
+        assertEquals(2.0, stats.get("count"));
+        assertEquals(4.0, stats.get("sum"));
+    }
+
+    @Test
+    void samplesInWindowsAlreadyFlushedAreCountedAsLate() {
+        RollupAggregator aggregator = new RollupAggregator(List.of(oneMinute), 0.01);
+        aggregator.add(List.of(metric(BASE + 1_000, 1.0), metric(BASE + 2_000, 2.0)));
+        assertEquals(RollupStat.values().length, aggregator.flush(BASE + 70_000).get(oneMinute).size());
+        assertEquals(0, aggregator.getSeriesCount());
+
+        // 序列已释放，迟到样本不能重新打开同一窗口输出重复的汇总点
+        aggregator.add(List.of(metric(BASE + 3_000, 3.0)));
+        assertEquals(1, aggregator.getLateCount());
+        assertEquals(0, aggregator.getSeriesCount());
+        assertTrue(aggregator.flush(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void nonFiniteSamplesAreSkipped() {
+        RollupAggregator aggregator = new RollupAggregator(List.of(oneMinute), 0.01);
+        aggregator.add(List.of(metric(BASE + 1_000, Double.POSITIVE_INFINITY), metric(BASE + 2_000, 2.0),
+                metric(BASE + 3_000, Double.NEGATIVE_INFINITY), metric(BASE + 4_000, Double.NaN),
+                metric(BASE + 5_000, 4.0)));
+
+        Map<String, Double> stats = stats(aggregator.flush(BASE + 60_000).get(oneMinute), BASE);
+
+        assertEquals(3, aggregator.getNonFiniteCount());
+        assertEquals(2.0, stats.get("count"));
+        assertEquals(6.0, stats.get("sum"));
+        assertEquals(2.0, stats.get("min"));
+        assertEquals(4.0, stats.get("max"));
+        assertEquals(4.0, stats.get("p99"), 4.0 * 0.01);
+
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        sketch.add(Double.POSITIVE_INFINITY);
+        sketch.add(1.0);
+        sketch.add(Double.NEGATIVE_INFINITY);
+        assertEquals(1, sketch.getCount());
+    }
+
+    @Test
+    void rejectsTiersThatDoNotNest() {
+        RollupTier sevenMinutes = new RollupTier("7m", 420_000, 0, null, null);
+        assertThrows(IllegalArgumentException.class, () -> new RollupAggregator(List.of(fiveMinutes, sevenMinutes), 0.01));
+    }
+
+    private static Map<String, Double> stats(List<Metric> metrics, long windowStart) {
+        LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(windowStart), ZoneId.systemDefault());
+        Map<String, Double> stats = new TreeMap<>();
+        metrics.stream()
+                .filter(m -> m.getTimestamp().equals(timestamp))
+                .forEach(m -> stats.put(m.getTags().get(RollupAggregator.STAT_TAG), m.getMetricValue()));
+        return stats;
+    }
+
+    private static Map<String, Double> without(Map<String, Double> stats, String... keys) {
+        Map<String, Double> copy = new TreeMap<>(stats);
+        for (String key : keys) {
+            copy.remove(key);
+        }
+        return copy;
+    }
+
+    private static Metric metric(long epochMillis, double value) {
+        Metric metric = new Metric();
+        metric.setMetricName("cpu_usage");
+        metric.setMetricValue(value);
+        metric.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()));
+        metric.setTags(Map.of("host", "10.0.0.1"));
+        return metric;
+    }
+}
@@ -0,0 +1,68 @@
+package com.tanggo.fund.monitor.core.series;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeriesBitmapTest {
+
+    @Test
+    void setOperationsMatchBitSetAcrossArrayAndBitmapContainers() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            // 密度从稀疏（数组容器）到稠密（位图容器），跨越多个桶
+            int range = 1 << 18;
+            double densityA = random.nextDouble() * 0.2;
+            double densityB = random.nextDouble() * 0.2;
+            SeriesBitmap a = new SeriesBitmap();
+            SeriesBitmap b = new SeriesBitmap();
+            BitSet expectedA = new BitSet();
+            BitSet expectedB = new BitSet();
+            for (int id = 0; id < range; id++) {
+                if (random.nextDouble() < densityA) {
+                    a.add(id);
+                    expectedA.set(id);
+                }
+                if (random.nextDouble() < densityB) {
+                    b.add(id);
+                    expectedB.set(id);
+                }
+            }
+
+            BitSet and = (BitSet) expectedA.clone();
+            and.and(expectedB);
+            BitSet or = (BitSet) expectedA.clone();
+            or.or(expectedB);
+            BitSet andNot = (BitSet) expectedA.clone();
+            andNot.andNot(expectedB);
+
+            assertArrayEquals(expectedA.stream().toArray(), a.toArray());
+            assertArrayEquals(and.stream().toArray(), SeriesBitmap.and(a, b).toArray());
+            assertArrayEquals(or.stream().toArray(), SeriesBitmap.or(a, b).toArray());
+            assertArrayEquals(andNot.stream().toArray(), SeriesBitmap.andNot(a, b).toArray());
+            assertArrayEquals(or.stream().toArray(), SeriesBitmap.or(List.of(b, a, SeriesBitmap.empty())).toArray());
+        }
+    }
+
+    @Test
+    void addsOutOfOrderAndIgnoresDuplicates() {
+        SeriesBitmap bitmap = SeriesBitmap.of(70_000, 3, 1, 3, 65_536);
+        assertArrayEquals(new int[]{1, 3, 65_536, 70_000}, bitmap.toArray());
+        assertEquals(4, bitmap.getCardinality());
+        assertTrue(bitmap.contains(65_536));
+        assertFalse(bitmap.contains(2));
+        assertFalse(bitmap.contains(-1));
+        // 结果是独立副本
+        SeriesBitmap copy = bitmap.copy();
+        copy.add(2);
+        assertFalse(bitmap.contains(2));
+        assertTrue(SeriesBitmap.andNot(bitmap, bitmap).isEmpty());
+    }
+}
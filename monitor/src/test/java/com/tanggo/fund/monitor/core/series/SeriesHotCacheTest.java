@@ -0,0 +1,152 @@
+package com.tanggo.fund.monitor.core.series;
+
+import com.tanggo.fund.monitor.core.cluster.ClusterCoordinator;
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.query.Aggregation;
+import com.tanggo.fund.monitor.core.query.DataPoint;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import com.tanggo.fund.monitor.core.service.CollectorTemplate;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SeriesHotCacheTest {
+
+    private final long base = (System.currentTimeMillis() / 1_000 + 2) * 1_000;
+
+    @Test
+    void keepsLastSamplesPerSeriesInOrder() {
+        SeriesHotCache cache = newCache(4, 10);
+        for (int i = 0; i < 10; i++) {
+            cache.onMetrics(List.of(sample("hot_cpu", "a", i, i)));
+        }
+        // 迟到样本丢弃
+        cache.onMetrics(List.of(sample("hot_cpu", "a", 3, 99)));
+
+        MetricSeries series = SeriesRegistry.global().find("hot_cpu", Map.of("host", "a"));
+        Metric latest = cache.latest(series);
+        assertEquals(9, latest.getMetricValue());
+        assertEquals(EpochNanos.ofMillis(base + 9_000), latest.getTimestampNanos());
+        assertEquals(List.of(new DataPoint(base + 6_000, 6), new DataPoint(base + 7_000, 7),
+                        new DataPoint(base + 8_000, 8), new DataPoint(base + 9_000, 9)),
+                cache.window(series, 0, Long.MAX_VALUE));
+        assertEquals(1, cache.getLateCount());
+
+        // 环已覆盖最旧样本，更早的窗口交给存储
+        assertNull(cache.query(MetricQuery.of("hot_cpu", base, base + 10_000, 1_000, Aggregation.AVG)));
+        List<TimeSeries> hot = cache.query(MetricQuery.of("hot_cpu", base + 6_000, base + 10_000, 2_000, Aggregation.MAX));
+        assertEquals(List.of(new DataPoint(base + 6_000, 7), new DataPoint(base + 8_000, 9)), hot.get(0).getPoints());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedSeriesWithinMemoryBound() {
+        SeriesHotCache cache = newCache(8, 2);
+        cache.onMetrics(List.of(sample("hot_mem", "a", 0, 1), sample("hot_mem", "b", 0, 2)));
+        // 读取 a 使 b 成为最久未使用
+        cache.latest(SeriesRegistry.global().find("hot_mem", Map.of("host", "a")));
+        cache.onMetrics(List.of(sample("hot_mem", "c", 1, 3)));
+
+        assertEquals(2, cache.getSeriesCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2L * 8 * 16, cache.getAllocatedBytes());
+        assertNull(cache.latest(SeriesRegistry.global().find("hot_mem", Map.of("host", "b"))));
+        assertEquals(List.of(1.0, 3.0), cache.latest(MetricQuery.of("hot_mem", 0, 0, 1, Aggregation.AVG))
+                .stream().map(Metric::getMetricValue).sorted().toList());
+
+        // b 被淘汰前的样本可能在窗口内，窗口交给存储；淘汰之后的窗口仍由缓存回答
+        assertNull(cache.query(MetricQuery.of("hot_mem", base, base + 2_000, 1_000, Aggregation.AVG)));
+        assertNotNull(cache.query(MetricQuery.of("hot_mem", base + 1_000, base + 2_000, 1_000, Aggregation.AVG,
+                TagMatcher.eq("host", "c"))));
+    }
+
+    @Test
+    void clusterModeAnswersOnlyLocalMonitorsFromFirstSample() {
+        ClusterCoordinator coordinator = mock(ClusterCoordinator.class);
+        when(coordinator.owns("m1")).thenReturn(true);
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        SeriesHotCache cache = newCache(8, 10);
+        cache.setClusterCoordinator(coordinator);
+        verify(coordinator).addListener(listener.capture());
+
+        cache.onMetrics(List.of(monitorSample("m1", 0, 1), monitorSample("m2", 0, 2)));
+        // m3 在启动之后才迁入本节点，更早的样本在存储中
+        cache.onMetrics(List.of(monitorSample("m1", 2, 3), monitorSample("m3", 2, 4)));
+
+        // 未限定监控、或监控不归属本节点时交给存储
+        assertNull(cache.query(MetricQuery.of("hot_load", base, base + 4_000, 1_000, Aggregation.AVG)));
+        assertNull(cache.query(MetricQuery.of("hot_load", base, base + 4_000, 1_000, Aggregation.AVG,
+                TagMatcher.eq(CollectorTemplate.MONITOR_ID_TAG, "m2"))));
+        assertNotNull(cache.query(MetricQuery.of("hot_load", base, base + 4_000, 1_000, Aggregation.AVG,
+                TagMatcher.eq(CollectorTemplate.MONITOR_ID_TAG, "m1"))));
+
+        when(coordinator.owns("m3")).thenReturn(true);
+        assertNull(cache.query(MetricQuery.of("hot_load", base, base + 4_000, 1_000, Aggregation.AVG,
+                TagMatcher.eq(CollectorTemplate.MONITOR_ID_TAG, "m3"))));
+        assertNotNull(cache.query(MetricQuery.of("hot_load", base + 2_000, base + 4_000, 1_000, Aggregation.AVG,
+                TagMatcher.eq(CollectorTemplate.MONITOR_ID_TAG, "m3"))));
+
+        // 最新值同样只回答本节点的监控
+        assertNull(cache.latest(MetricQuery.of("hot_load", 0, 0, 1, Aggregation.AVG)));
+        assertNull(cache.latest(MetricQuery.of("hot_load", 0, 0, 1, Aggregation.AVG,
+                TagMatcher.eq(CollectorTemplate.MONITOR_ID_TAG, "m2"))));
+        assertEquals(List.of(3.0), cache.latest(MetricQuery.of("hot_load", 0, 0, 1, Aggregation.AVG,
+                TagMatcher.eq(CollectorTemplate.MONITOR_ID_TAG, "m1"))).stream().map(Metric::getMetricValue).toList());
+
+        // 成员变化后覆盖起点推迟到下一个样本
+        listener.getValue().run();
+        cache.onMetrics(List.of(monitorSample("m1", 4, 5)));
+        assertNull(cache.query(MetricQuery.of("hot_load", base + 2_000, base + 6_000, 1_000, Aggregation.AVG,
+                TagMatcher.eq(CollectorTemplate.MONITOR_ID_TAG, "m1"))));
+        assertNotNull(cache.query(MetricQuery.of("hot_load", base + 4_000, base + 6_000, 1_000, Aggregation.AVG,
+                TagMatcher.eq(CollectorTemplate.MONITOR_ID_TAG, "m1"))));
+    }
+
+    @Test
+    void tagIndexQueriesStillSeeUnregisteredSeries() {
+        SeriesRegistry registry = new SeriesRegistry(1);
+        SeriesTagIndex index = new SeriesTagIndex();
+        index.setRegistry(registry);
+        SeriesHotCache cache = newCache(8, 10);
+        cache.setTagIndex(index);
+        MetricSeries registered = registry.resolve("hot_disk", Map.of("dc", "sh", "host", "a"));
+        // 超出登记上限，编号为 -1，不在倒排索引中
+        MetricSeries unregistered = registry.resolve("hot_disk", Map.of("dc", "sh", "host", "b"));
+        assertEquals(-1, unregistered.getId());
+        List<Metric> samples = List.of(Metric.of(registered, EpochNanos.ofMillis(base), 1),
+                Metric.of(unregistered, EpochNanos.ofMillis(base), 2));
+        index.onMetrics(samples);
+        cache.onMetrics(samples);
+
+        MetricQuery query = MetricQuery.of("hot_disk", base, base + 1_000, 1_000, Aggregation.AVG, TagMatcher.eq("dc", "sh"));
+        assertEquals(List.of(1.0, 2.0), cache.latest(query).stream().map(Metric::getMetricValue).sorted().toList());
+        assertEquals(2, cache.query(query).size());
+    }
+
+    private Metric monitorSample(String monitorId, int second, double value) {
+        return Metric.of(SeriesRegistry.global().resolve("hot_load", Map.of(CollectorTemplate.MONITOR_ID_TAG, monitorId)),
+                EpochNanos.ofMillis(base + second * 1_000L), value);
+    }
+
+    private SeriesHotCache newCache(int samplesPerSeries, int maxSeries) {
+        SeriesHotCache cache = new SeriesHotCache();
+        cache.setSamplesPerSeries(samplesPerSeries);
+        cache.setMaxSeries(maxSeries);
+        return cache;
+    }
+
+    private Metric sample(String name, String host, int second, double value) {
+        return Metric.of(SeriesRegistry.global().resolve(name, Map.of("host", host)),
+                EpochNanos.ofMillis(base + second * 1_000L), value);
+    }
+}
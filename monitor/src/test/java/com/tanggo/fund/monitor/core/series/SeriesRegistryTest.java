@@ -0,0 +1,103 @@
+package com.tanggo.fund.monitor.core.series;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SeriesRegistryTest {
+
+    @Test
+    void internsCanonicalSeriesRegardlessOfTagOrder() {
+        SeriesRegistry registry = new SeriesRegistry(2);
+        Map<String, String> ordered = new LinkedHashMap<>();
+        ordered.put("host", "10.0.0.1");
+        ordered.put("cpu", "0");
+        MetricSeries a = registry.resolve("cpu_usage", ordered);
+        MetricSeries b = registry.resolve("cpu_usage", new HashMap<>(Map.of("cpu", "0", "host", "10.0.0.1")));
+
+        assertSame(a, b);
+        assertEquals(0, a.getId());
+        assertSame(a, registry.get(0));
+        assertEquals(List.of("cpu", "host"), List.copyOf(a.getTags().keySet()));
+        // 标签值字符串驻留
+        assertSame(a.getTags().get("host"), registry.resolve("memory_usage", Map.of("host", "10.0.0.1")).getTags().get("host"));
+
+        // 超出上限不再登记
+        MetricSeries overflow = registry.resolve("disk_usage", null);
+        assertEquals(-1, overflow.getId());
+        assertEquals(2, registry.size());
+        assertEquals(1, registry.getOverflowCount());
+    }
+
+    @Test
+    void overflowSeriesAreNotInternedAndCompareByValue() {
+        SeriesRegistry registry = new SeriesRegistry(1);
+        MetricSeries registered = registry.resolve("cpu_usage", Map.of("host", "10.0.0.1"));
+        int strings = registry.getInternedStringCount();
+
+        for (int i = 0; i < 1_000; i++) {
+            registry.resolve("cpu_usage", Map.of("pid", Integer.toString(i)));
+        }
+        assertEquals(strings, registry.getInternedStringCount());
+        assertEquals(1_000, registry.getOverflowCount());
+
+        // 已登记的序列仍返回登记的实例
+        Map<String, String> withNull = new HashMap<>();
+        withNull.put("host", "10.0.0.1");
+        withNull.put("pid", null);
+        assertSame(registered, registry.resolve("cpu_usage", withNull));
+
+        MetricSeries a = registry.resolve("cpu_usage", Map.of("pid", "1"));
+        MetricSeries b = registry.resolve("cpu_usage", Map.of("pid", "1"));
+        assertNotSame(a, b);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, registry.resolve("cpu_usage", Map.of("pid", "2")));
+    }
+
+    @Test
+    void withTagCachesDerivedSeriesAndKeepsExistingValue() {
+        SeriesRegistry registry = new SeriesRegistry(100);
+        MetricSeries base = registry.resolve("cpu_usage", null);
+
+        MetricSeries labeled = registry.withTag(base, "monitorId", "a");
+        assertEquals(Map.of("monitorId", "a"), labeled.getTags());
+        assertSame(labeled, registry.withTag(base, "monitorId", "a"));
+        assertNotSame(labeled, registry.withTag(base, "monitorId", "b"));
+        assertSame(labeled, registry.withTag(labeled, "monitorId", "b"));
+    }
+
+    @Test
+    void metricKeepsCompatibleView() {
+        MetricSeries series = SeriesRegistry.global().resolve("cpu_usage", Map.of("host", "10.0.0.1"));
+        LocalDateTime time = LocalDateTime.of(2026, 1, 1, 8, 30, 0, 123_456_789);
+        Metric compact = Metric.of(series, EpochNanos.of(time), 12.5);
+
+        Metric legacy = new Metric();
+        legacy.setMetricName("cpu_usage");
+        legacy.setTags(new HashMap<>(Map.of("host", "10.0.0.1")));
+        legacy.setTimestamp(time);
+        legacy.setMetricValue(12.5);
+
+        assertEquals(legacy, compact);
+        assertEquals(time, compact.getTimestamp());
+        assertSame(series, legacy.getSeries());
+        assertNull(Metric.of(SeriesRegistry.global().resolve("cpu_usage", null), 0, 1).getTags());
+
+        // 修改标签后重新解析序列
+        compact.setTags(Map.of("host", "10.0.0.2"));
+        assertEquals("cpu_usage", compact.getMetricName());
+        assertEquals("10.0.0.2", compact.getSeries().getTags().get("host"));
+    }
+}
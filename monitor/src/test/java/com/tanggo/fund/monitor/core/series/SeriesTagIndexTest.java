@@ -0,0 +1,65 @@
+package com.tanggo.fund.monitor.core.series;
+
+import com.tanggo.fund.monitor.core.query.Aggregation;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeriesTagIndexTest {
+
+    private SeriesRegistry registry;
+    private SeriesTagIndex index;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SeriesRegistry(1_000);
+        index = new SeriesTagIndex();
+        index.setRegistry(registry);
+        registry.resolve("cpu_usage", Map.of("dc", "sh", "role", "db", "host", "h0"));
+        registry.resolve("cpu_usage", Map.of("dc", "sh", "role", "web", "host", "h1"));
+        registry.resolve("cpu_usage", Map.of("dc", "bj", "role", "db", "host", "h2"));
+        registry.resolve("cpu_usage", Map.of("dc", "gz", "host", "h3"));
+        registry.resolve("mem_usage", Map.of("dc", "sh", "role", "db", "host", "h0"));
+    }
+
+    @Test
+    void selectsSeriesWithAndOrNotAndRegexMatchers() {
+        assertEquals(List.of("h0"), hosts(TagMatcher.eq("dc", "sh"), TagMatcher.eq("role", "db")));
+        assertEquals(List.of("h0", "h2"), hosts(TagMatcher.regex("dc", "sh|bj"), TagMatcher.eq("role", "db")));
+        assertEquals(List.of("h1", "h3"), hosts(TagMatcher.neq("role", "db")));
+        assertEquals(List.of("h2", "h3"), hosts(TagMatcher.notRegex("dc", "s.*")));
+        assertEquals(List.of("h0", "h1", "h2", "h3"), hosts());
+        assertEquals(List.of(), hosts(TagMatcher.eq("dc", "hk")));
+    }
+
+    @Test
+    void missingTagMatchesEmptyString() {
+        assertEquals(List.of("h3"), hosts(TagMatcher.eq("role", "")));
+        assertEquals(List.of("h0", "h1", "h2"), hosts(TagMatcher.neq("role", "")));
+        assertEquals(List.of("h0", "h2", "h3"), hosts(TagMatcher.regex("role", "db|")));
+    }
+
+    @Test
+    void indexesNewSeriesIncrementally() {
+        assertEquals(List.of("h0"), hosts(TagMatcher.eq("dc", "sh"), TagMatcher.eq("role", "db")));
+        registry.resolve("cpu_usage", Map.of("dc", "sh", "role", "db", "host", "h9"));
+        index.onMetrics(List.of());
+
+        assertEquals(6, index.getIndexedSeriesCount());
+        assertEquals(List.of("h0", "h9"), hosts(TagMatcher.eq("dc", "sh"), TagMatcher.eq("role", "db")));
+        assertTrue(index.select(MetricQuery.of("disk_usage", 0, 0, 0, Aggregation.AVG)).isEmpty());
+    }
+
+    private List<String> hosts(TagMatcher... matchers) {
+        return index.series(MetricQuery.of("cpu_usage", 0, 0, 0, Aggregation.AVG, matchers)).stream()
+                .map(series -> series.getTags().get("host"))
+                .toList();
+    }
+}
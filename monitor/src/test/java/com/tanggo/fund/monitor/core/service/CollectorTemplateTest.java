@@ -0,0 +1,243 @@
+package com.tanggo.fund.monitor.core.service;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
+import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import com.tanggo.fund.monitor.core.entity.meta.MetricCalculatorMeta;
+import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
+import com.tanggo.fund.monitor.core.extension.MetricCalculator;
+import com.tanggo.fund.monitor.core.extension.MetricRetrievalChannel;
+import com.tanggo.fund.monitor.core.extension.StreamingMetricCalculator;
+import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import com.tanggo.fund.monitor.core.instrument.CollectorInstrumentation;
+import com.tanggo.fund.monitor.core.instrument.Stage;
+import com.tanggo.fund.monitor.core.instrument.StageSnapshot;
+import com.tanggo.fund.monitor.plugin.repo.InMemoryMetricCalculatorRepo;
+import com.tanggo.fund.monitor.plugin.repo.InMemoryMetricRetrievalChannelRepo;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectorTemplateTest {
+
+    private final ChannelMeta channelMeta = new ChannelMeta();
+
+    CollectorTemplateTest() {
+        channelMeta.setChannelId("stub_channel");
+    }
+
+    @Test
+    void batchOfMonitorsIsPersistedWithOneBulkCall() {
+        BulkCountingRepo repo = new BulkCountingRepo();
+
+        newTemplate(repo).retrievalBatch(List.of(meta("a"), meta("b"), meta("c")));
+
+        assertEquals(1, repo.insertAllCalls);
+        assertEquals(0, repo.insertCalls);
+        assertEquals(List.of(1.0, 1.0, 1.0), repo.values);
+    }
+
+    @Test
+    void defaultBulkWriteFallsBackToPerRowInsert() {
+        RowCountingRepo repo = new RowCountingRepo();
+
+        newTemplate(repo).retrievalBatch(List.of(meta("a"), meta("b"), meta("c")));
+
+        assertEquals(3, repo.insertCalls);
+    }
+
+    @Test
+    void everyCalculatedMetricIsPersistedWithMonitorIdTag() {
+        BulkCountingRepo repo = new BulkCountingRepo();
+        CollectorTemplate template = newTemplate(repo);
+        MetricCalculator multi = new MetricCalculator() {
+            @Override
+            public Metric calculate(String content) {
+                return calculateAll(content).get(0);
+            }
+
+            @Override
+            public List<Metric> calculateAll(String content) {
+                return List.of(sample("cpu_usage", 20.0), sample("cpu_user", 12.0), sample("cpu_system", 8.0));
+            }
+        };
+        template.setMetricCalculatorRepo(new InMemoryMetricCalculatorRepo(Map.of("stub_calculator", multi)));
+
+        template.retrieval(meta("a"));
+
+        assertEquals(1, repo.insertAllCalls);
+        assertEquals(List.of(20.0, 12.0, 8.0), repo.values);
+        repo.metrics.forEach(m -> assertEquals(Map.of(CollectorTemplate.MONITOR_ID_TAG, "a"), m.getTags()));
+    }
+
+    @Test
+    void recordsEveryStageAndAttributesFailures() {
+        BulkCountingRepo repo = new BulkCountingRepo();
+        CollectorTemplate template = newTemplate(repo);
+        CollectorInstrumentation instrumentation = template.getInstrumentation();
+
+        template.retrieval(meta("a"));
+        template.setMetricPersistRepo(metric -> {
+            throw new RuntimeException("数据库不可用");
+        });
+        assertThrows(RuntimeException.class, () -> template.retrieval(meta("a")));
+
+        Map<Stage, StageSnapshot> stages = new EnumMap<>(Stage.class);
+        instrumentation.snapshot().forEach(s -> stages.put(s.getStage(), s));
+        assertEquals(Set.of(Stage.values()), stages.keySet());
+        for (Stage stage : List.of(Stage.CONNECT, Stage.EXECUTE, Stage.CALCULATE)) {
+            assertEquals(2, stages.get(stage).getSuccessCount(), stage.name());
+            assertEquals(0, stages.get(stage).getFailureCount(), stage.name());
+        }
+        assertEquals(1, stages.get(Stage.PERSIST).getFailureCount());
+        assertEquals(1, stages.get(Stage.CYCLE).getFailureCount());
+        assertEquals(0, stages.get(Stage.CYCLE).getInFlight());
+        assertEquals(2, stages.get(Stage.CYCLE).getLatency().getCount());
+
+        StageSnapshot calculate = stages.get(Stage.CALCULATE);
+        assertEquals("a", calculate.getMonitorId());
+        assertEquals("stub_channel", calculate.getChannelId());
+        assertEquals("stub_calculator", calculate.getCalculatorId());
+        assertTrue(instrumentation.scrape().contains(
+                "collector_stage_total{stage=\"persist\",monitorId=\"a\",channelId=\"stub_channel\",calculatorId=\"stub_calculator\",result=\"failure\"} 1"));
+    }
+
+    @Test
+    void publisherFeedsStageMetricsBackThroughPersistRepo() {
+        CollectorTemplate template = newTemplate(new BulkCountingRepo());
+        template.retrievalBatch(List.of(meta("a"), meta("b")));
+
+        BulkCountingRepo sink = new BulkCountingRepo();
+        InstrumentationPublisher publisher = new InstrumentationPublisher();
+        publisher.setInstrumentation(template.getInstrumentation());
+        publisher.setMetricPersistRepo(sink);
+
+        assertTrue(publisher.publish() > 0);
+        assertEquals(1, sink.insertAllCalls);
+        assertTrue(sink.metrics.stream().anyMatch(m -> m.getMetricName().equals("collector_stage_count")
+                && "calculate".equals(m.getTags().get("stage")) && "b".equals(m.getTags().get("monitorId"))));
+
+        // 没有新的活动时不再输出
+        assertEquals(0, publisher.publish());
+    }
+
+    @Test
+    void streamingCalculatorConsumesChannelOutputDirectly() {
+        BulkCountingRepo repo = new BulkCountingRepo();
+        CollectorTemplate template = newTemplate(repo);
+        List<String> seen = new ArrayList<>();
+        StreamingMetricCalculator streaming = new StreamingMetricCalculator() {
+            @Override
+            public Metric calculate(String content) {
+                throw new AssertionError("应走流式解析");
+            }
+
+            @Override
+            public List<Metric> calculateStream(InputStream output) throws IOException {
+                seen.add(new String(output.readAllBytes(), StandardCharsets.UTF_8));
+                return List.of(sample("streamed", 7.0));
+            }
+        };
+        template.setMetricCalculatorRepo(new InMemoryMetricCalculatorRepo(Map.of("stub_calculator", streaming)));
+
+        template.retrieval(meta("echo"));
+
+        // 通道未实现流式执行时由默认实现包装完整输出
+        assertEquals(List.of("echo"), seen);
+        assertEquals(List.of(7.0), repo.values);
+    }
+
+    @Test
+    void subscribersSeeLabelledMetricsBeforePersistAndCannotBreakIt() {
+        BulkCountingRepo repo = new BulkCountingRepo();
+        CollectorTemplate template = newTemplate(repo);
+        List<String> seen = new ArrayList<>();
+        template.setMetricSubscribers(List.of(
+                metrics -> {
+                    throw new IllegalStateException("订阅者异常");
+                },
+                metrics -> metrics.forEach(m -> seen.add(m.getTags().get(CollectorTemplate.MONITOR_ID_TAG) + ":" + repo.insertAllCalls))));
+
+        template.retrievalBatch(List.of(meta("a"), meta("b")));
+
+        assertEquals(List.of("a:0", "b:0"), seen);
+        assertEquals(1, repo.insertAllCalls);
+    }
+
+    private CollectorTemplate newTemplate(MetricPersistRepo repo) {
+        MetricRetrievalChannel channel = new MetricRetrievalChannel() {
+            @Override
+            public void connect(ChannelMeta channelMeta) {
+            }
+
+            @Override
+            public String execute(CommandMeta cmd) {
+                return cmd.getCommand();
+            }
+        };
+        MetricCalculator calculator = content -> sample(content, 1.0);
+
+        CollectorTemplate template = new CollectorTemplate();
+        template.setMonitorChannelRepo(new InMemoryMetricRetrievalChannelRepo(Map.of("stub_channel", channel)));
+        template.setMetricCalculatorRepo(new InMemoryMetricCalculatorRepo(Map.of("stub_calculator", calculator)));
+        template.setMetricPersistRepo(repo);
+        return template;
+    }
+
+    private static Metric sample(String name, double value) {
+        Metric metric = new Metric();
+        metric.setMetricName(name);
+        metric.setMetricValue(value);
+        metric.setTimestamp(LocalDateTime.now());
+        return metric;
+    }
+
+    private MetricRetrievalMeta meta(String command) {
+        CommandMeta commandMeta = new CommandMeta();
+        commandMeta.setCommand(command);
+        MetricCalculatorMeta calculatorMeta = new MetricCalculatorMeta();
+        calculatorMeta.setCalculatorId("stub_calculator");
+
+        MetricRetrievalMeta meta = new MetricRetrievalMeta();
+        meta.setMonitorId(command);
+        meta.setChannelMeta(channelMeta);
+        meta.setCommandMeta(commandMeta);
+        meta.setMetricCalculatorMeta(calculatorMeta);
+        return meta;
+    }
+
+    private static class RowCountingRepo implements MetricPersistRepo {
+        int insertCalls;
+
+        @Override
+        public void insert(Metric metric) {
+            insertCalls++;
+        }
+    }
+
+    private static class BulkCountingRepo extends RowCountingRepo {
+        int insertAllCalls;
+        final List<Double> values = new ArrayList<>();
+        final List<Metric> metrics = new ArrayList<>();
+
+        @Override
+        public void insertAll(Collection<Metric> metrics) {
+            insertAllCalls++;
+            this.metrics.addAll(metrics);
+            metrics.forEach(m -> values.add(m.getMetricValue()));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.tanggo.fund.monitor.core.service;
+
+import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
+import com.tanggo.fund.monitor.core.entity.meta.MetricRetrievalMeta;
+import com.tanggo.fund.monitor.plugin.repo.InMemoryMetricRetrievalMetaRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricCollectSchedulerTest {
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final Map<String, Long> sleeps = new ConcurrentHashMap<>();
+    private final Map<String, Long> timeouts = new ConcurrentHashMap<>();
+    private final Map<String, ChannelMeta> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger batches = new AtomicInteger();
+    private MetricCollectScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void slowJobDoesNotDelayFastJob() throws Exception {
+        sleeps.put("slow", 2_000L);
+        scheduler = newScheduler(Map.of("slow", 50L, "fast", 50L), 5_000);
+        scheduler.start();
+
+        Thread.sleep(600);
+
+        // 慢任务只执行一次，其余轮次因仍在执行而跳过
+        assertEquals(1, count("slow"));
+        assertTrue(scheduler.getSkippedCount() > 0);
+        // 快任务按自身间隔持续执行
+        assertTrue(count("fast") >= 5, "fast=" + count("fast"));
+    }
+
+    @Test
+    void timedOutJobIsInterruptedAndRescheduled() throws Exception {
+        sleeps.put("hang", 60_000L);
+        scheduler = newScheduler(Map.of("hang", 50L), 100);
+        scheduler.start();
+
+        Thread.sleep(700);
+
+        assertTrue(scheduler.getTimeoutCount() >= 2, "timeouts=" + scheduler.getTimeoutCount());
+        assertTrue(count("hang") >= 2);
+    }
+
+    @Test
+    void queuingTimeDoesNotCountTowardsTimeout() throws Exception {
+        // 唯一的工作线程被 hog 占用 400ms，queued 每轮都要在队列中等待超过自身的超时时间
+        sleeps.put("hog", 400L);
+        timeouts.put("queued", 100L);
+        scheduler = newScheduler(Map.of("hog", 50L, "queued", 50L), 5_000);
+        scheduler.setWorkerThreads(1);
+        scheduler.start();
+
+        Thread.sleep(1_500);
+
+        // 排队中的任务既不计超时，也不会因取消而永久停留在运行状态
+        assertEquals(0, scheduler.getTimeoutCount());
+        assertTrue(count("queued") >= 2, "queued=" + count("queued"));
+        assertTrue(count("hog") >= 2, "hog=" + count("hog"));
+    }
+
+    @Test
+    void batchesJobsSharingChannel() throws Exception {
+        ChannelMeta host = new ChannelMeta();
+        host.setChannelId("ssh_cpu_channel");
+        host.setExtensions(Map.of("host", "10.0.0.1"));
+        channels.put("cpu", host);
+        channels.put("mem", host);
+        scheduler = newScheduler(Map.of("cpu", 100L, "mem", 100L), 5_000);
+        scheduler.start();
+
+        Thread.sleep(500);
+
+        assertTrue(batches.get() >= 2, "batches=" + batches.get());
+        assertEquals(count("cpu"), count("mem"));
+        assertEquals(scheduler.getDispatchedCount(), scheduler.getBatchedCount());
+    }
+
+    private int count(String monitorId) {
+        AtomicInteger c = calls.get(monitorId);
+        return c == null ? 0 : c.get();
+    }
+
+    private MetricCollectScheduler newScheduler(Map<String, Long> intervals, long timeoutMillis) {
+        Map<String, MetricRetrievalMeta> metas = new LinkedHashMap<>();
+        intervals.forEach((id, interval) -> {
+            MetricRetrievalMeta meta = new MetricRetrievalMeta();
+            meta.setMonitorId(id);
+            meta.setIntervalMillis(interval);
+            meta.setTimeoutMillis(timeouts.getOrDefault(id, timeoutMillis));
+            meta.setChannelMeta(channels.get(id));
+            metas.put(id, meta);
+        });
+
+        MetricCollectorService service = new MetricCollectorService() {
+            @Override
+            public void handle(String monitorId) {
+                calls.computeIfAbsent(monitorId, k -> new AtomicInteger()).incrementAndGet();
+                Long sleep = sleeps.get(monitorId);
+                if (sleep != null) {
+                    try {
+                        Thread.sleep(sleep);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void handleBatch(List<String> monitorIds) {
+                batches.incrementAndGet();
+                monitorIds.forEach(this::handle);
+            }
+        };
+
+        MetricCollectScheduler s = new MetricCollectScheduler();
+        s.setMetricCollectorService(service);
+        s.setMetricRetrievalMetaRepo(new InMemoryMetricRetrievalMetaRepo(metas));
+        s.setTickMillis(10);
+        s.setWorkerThreads(4);
+        s.setWorkerQueueCapacity(16);
+        return s;
+    }
+}
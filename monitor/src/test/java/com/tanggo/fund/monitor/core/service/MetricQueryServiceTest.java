@@ -0,0 +1,157 @@
+package com.tanggo.fund.monitor.core.service;
+
+import com.tanggo.fund.monitor.core.cluster.ClusterCoordinator;
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.query.Aggregation;
+import com.tanggo.fund.monitor.core.query.DataPoint;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import com.tanggo.fund.monitor.core.series.EpochNanos;
+import com.tanggo.fund.monitor.core.series.MetricSeries;
+import com.tanggo.fund.monitor.core.series.SeriesHotCache;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class MetricQueryServiceTest {
+
+    private static final long STEP = 60_000;
+    private static final long PAST = 1_767_225_600_000L;
+
+    private final List<MetricQuery> backendCalls = new CopyOnWriteArrayList<>();
+
+    @Test
+    void alignsRangeToStepSoPanelRefreshesShareCacheEntry() {
+        MetricQueryService service = newService();
+
+        // 同一步长内两次刷新，范围对齐后相同；匹配条件顺序不影响缓存键
+        service.query(MetricQuery.of("cpu_usage", PAST + 1_000, PAST + 3_600_000 + 1_000, STEP, Aggregation.AVG,
+                TagMatcher.eq("host", "a"), TagMatcher.regex("dc", "sh.*")));
+        service.query(MetricQuery.of("cpu_usage", PAST + 59_000, PAST + 3_600_000 + 59_000, STEP, Aggregation.AVG,
+                TagMatcher.regex("dc", "sh.*"), TagMatcher.eq("host", "a")));
+
+        assertEquals(1, backendCalls.size());
+        assertEquals(PAST, backendCalls.get(0).getFromMillis());
+        assertEquals(PAST + 3_600_000 + STEP, backendCalls.get(0).getToMillis());
+        assertEquals(1, service.getHitCount());
+
+        service.query(MetricQuery.of("cpu_usage", PAST, PAST + 3_600_000, STEP, Aggregation.P95));
+        assertEquals(2, backendCalls.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndExpiresOpenRanges() throws Exception {
+        MetricQueryService service = newService();
+        service.setCacheMaxEntries(2);
+        service.setCacheTtlMillis(50);
+
+        MetricQuery a = MetricQuery.of("a", PAST, PAST + STEP, STEP, Aggregation.AVG);
+        MetricQuery b = MetricQuery.of("b", PAST, PAST + STEP, STEP, Aggregation.AVG);
+        MetricQuery c = MetricQuery.of("c", PAST, PAST + STEP, STEP, Aggregation.AVG);
+        service.query(a);
+        service.query(b);
+        service.query(a);
+        service.query(c);
+        assertEquals(1, service.getEvictionCount());
+        service.query(a);
+        assertEquals(3, backendCalls.size());
+
+        // 包含当前时间的范围按较短的 TTL 过期
+        long now = System.currentTimeMillis();
+        MetricQuery live = MetricQuery.of("a", now - STEP, now, STEP, Aggregation.AVG);
+        service.query(live);
+        service.query(live);
+        assertEquals(4, backendCalls.size());
+        Thread.sleep(100);
+        service.query(live);
+        assertEquals(5, backendCalls.size());
+    }
+
+    @Test
+    void concurrentIdenticalQueriesHitBackendOnceAndFailuresAreNotCached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MetricQueryService service = new MetricQueryService();
+        service.setMetricQueryRepo(query -> {
+            backendCalls.add(query);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of();
+        });
+        MetricQuery query = MetricQuery.of("cpu_usage", PAST, PAST + STEP, STEP, Aggregation.MAX);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<List<TimeSeries>>> futures = List.of(pool.submit(() -> service.query(query)),
+                pool.submit(() -> service.query(query)), pool.submit(() -> service.query(query)));
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<List<TimeSeries>> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertEquals(1, backendCalls.size());
+
+        MetricQueryService failing = new MetricQueryService();
+        failing.setMetricQueryRepo(q -> {
+            backendCalls.add(q);
+            throw new RuntimeException("数据库不可用");
+        });
+        assertThrows(RuntimeException.class, () -> failing.query(query));
+        assertThrows(RuntimeException.class, () -> failing.query(query));
+        assertEquals(3, backendCalls.size());
+        assertThrows(IllegalArgumentException.class,
+                () -> failing.query(MetricQuery.of("cpu_usage", PAST, PAST + STEP, 0, Aggregation.AVG)));
+    }
+
+    @Test
+    void answersRecentWindowsAndLatestValuesFromHotCache() {
+        long base = (System.currentTimeMillis() / STEP + 1) * STEP;
+        SeriesHotCache hotCache = new SeriesHotCache();
+        MetricSeries series = SeriesRegistry.global().resolve("hot_load", Map.of("host", "a"));
+        hotCache.onMetrics(List.of(Metric.of(series, EpochNanos.ofMillis(base), 1.0),
+                Metric.of(series, EpochNanos.ofMillis(base + 2_000), 3.0)));
+        MetricQueryService service = newService();
+        service.setHotCache(hotCache);
+
+        List<TimeSeries> recent = service.query(MetricQuery.of("hot_load", base, base + STEP, STEP, Aggregation.AVG));
+        assertEquals(List.of(new DataPoint(base, 2.0)), recent.get(0).getPoints());
+        assertEquals(0, backendCalls.size());
+
+        // 缓存启用之前的窗口查询存储
+        service.query(MetricQuery.of("hot_load", PAST, PAST + STEP, STEP, Aggregation.AVG));
+        assertEquals(1, backendCalls.size());
+
+        List<TimeSeries> latest = service.latest(MetricQuery.of("hot_load", 0, 0, 0, Aggregation.AVG, TagMatcher.eq("host", "a")));
+        assertEquals(List.of(new DataPoint(base + 2_000, 3.0)), latest.get(0).getPoints());
+        assertEquals(Map.of("host", "a"), latest.get(0).getTags());
+
+        // 集群部署时未限定到本节点监控的最新值查询只能拿到部分序列，直接拒绝
+        ClusterCoordinator coordinator = mock(ClusterCoordinator.class);
+        hotCache.setClusterCoordinator(coordinator);
+        assertThrows(IllegalStateException.class,
+                () -> service.latest(MetricQuery.of("hot_load", 0, 0, 0, Aggregation.AVG, TagMatcher.eq("host", "a"))));
+    }
+
+    private MetricQueryService newService() {
+        MetricQueryService service = new MetricQueryService();
+        service.setMetricQueryRepo(query -> {
+            backendCalls.add(query);
+            return List.of(new TimeSeries(query.getMetricName(), Map.of(), List.of(new DataPoint(query.getFromMillis(), 1.0))));
+        });
+        return service;
+    }
+}
@@ -0,0 +1,59 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvMetricCalculatorTest {
+
+    @Test
+    void wideRowsBecomeOneMetricPerValueColumn() {
+        CsvMetricCalculator calculator = new CsvMetricCalculator();
+        calculator.setColumns(List.of("time", "host", "cpu", "mem"));
+        calculator.setTimestampColumn("time");
+        calculator.setTimestampFormat("yyyy-MM-dd HH:mm:ss");
+        calculator.setTagColumns(List.of("host"));
+        calculator.setMetricPrefix("legacy_");
+
+        List<Metric> metrics = calculator.calculateAll("""
+                time,host,cpu,mem
+                2024-05-01 10:00:00,"web,01",12.5,
+                2024-05-01 10:00:00,web02,abc,40
+                2024-05-01 10:01:00,web02,7\r
+                """);
+
+        // 第二行数值非法、第三行列数不足，整行跳过
+        assertEquals(1, metrics.size());
+        Metric cpu = metrics.get(0);
+        assertEquals("legacy_cpu", cpu.getMetricName());
+        assertEquals(12.5, cpu.getMetricValue());
+        assertEquals(Map.of("host", "web,01"), cpu.getTags());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 0), cpu.getTimestamp());
+        assertEquals(3, calculator.getRowCount());
+        assertEquals(2, calculator.getInvalidRowCount());
+    }
+
+    @Test
+    void longRowsUseNameAndValueColumns() {
+        CsvMetricCalculator calculator = new CsvMetricCalculator();
+        calculator.setColumns(List.of("ts", "name", "value", "region"));
+        calculator.setDelimiter(';');
+        calculator.setTimestampColumn("ts");
+        calculator.setTimestampFormat("epoch_seconds");
+        calculator.setTagColumns(List.of("region"));
+        calculator.setNameColumn("name");
+        calculator.setValueColumn("value");
+
+        List<Metric> metrics = calculator.calculateAll("1700000000;queue_depth;17;\"华东\"\n1700000000;queue_lag;0.5;华北\n");
+
+        assertEquals(List.of("queue_depth", "queue_lag"), metrics.stream().map(Metric::getMetricName).toList());
+        assertEquals(Map.of("region", "华东"), metrics.get(0).getTags());
+        assertThrows(IllegalArgumentException.class, () -> calculator.calculate(""));
+    }
+}
@@ -0,0 +1,112 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于正则的旧版 top/free 解析逻辑，仅作为新解析器的对照基准
+ */
+final class LegacyOutputParsers {
+
+    private LegacyOutputParsers() {
+    }
+
+    static Map<String, Double> parseTopOutput(String topOutput) {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+
+        String[] lines = topOutput.split("\n");
+
+        for (String line : lines) {
+            if (line.contains("%Cpu")) {
+                double userCpu = extractValue(line, "us");
+                double sysCpu = extractValue(line, "sy");
+                double idleCpu = extractValue(line, "id");
+
+                double totalCpu = userCpu + sysCpu;
+                metrics.put("cpu_usage_percent", totalCpu);
+                metrics.put("cpu_user_percent", userCpu);
+                metrics.put("cpu_system_percent", sysCpu);
+                metrics.put("cpu_idle_percent", idleCpu);
+            }
+
+            if (line.contains("KiB Mem")) {
+                double totalMem = extractMemValue(line, "total");
+                double usedMem = extractMemValue(line, "used");
+
+                double memUsagePercent = (usedMem / totalMem) * 100;
+                metrics.put("memory_usage_percent", memUsagePercent);
+                metrics.put("memory_total_kb", totalMem);
+                metrics.put("memory_used_kb", usedMem);
+            }
+        }
+
+        if (!metrics.containsKey("cpu_usage_percent")) {
+            metrics.put("cpu_usage_percent", 0.0);
+        }
+
+        return metrics;
+    }
+
+    static Map<String, Double> parseMemoryOutput(String freeOutput) {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+
+        String[] lines = freeOutput.split("\n");
+
+        for (String line : lines) {
+            if (line.trim().startsWith("Mem:")) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length >= 4) {
+                    try {
+                        double total = extractNumericValue(parts[1]);
+                        double used = extractNumericValue(parts[2]);
+
+                        if (total > 0) {
+                            double usagePercent = (used / total) * 100;
+                            metrics.put("memory_usage_percent", usagePercent);
+                            metrics.put("memory_total", total);
+                            metrics.put("memory_used", used);
+                            metrics.put("memory_free", extractNumericValue(parts[3]));
+                        }
+                    } catch (NumberFormatException e) {
+                        // 跳过该行
+                    }
+                }
+            }
+        }
+
+        if (!metrics.containsKey("memory_usage_percent")) {
+            metrics.put("memory_usage_percent", 0.0);
+        }
+
+        return metrics;
+    }
+
+    private static double extractValue(String line, String key) {
+        Matcher matcher = Pattern.compile("([\\d.]+)\\s+" + key).matcher(line);
+        if (matcher.find()) {
+            return Double.parseDouble(matcher.group(1));
+        }
+        return 0.0;
+    }
+
+    private static double extractMemValue(String line, String key) {
+        Matcher matcher = Pattern.compile("(\\d+)\\s+" + key).matcher(line);
+        if (matcher.find()) {
+            return Double.parseDouble(matcher.group(1));
+        }
+        return 0.0;
+    }
+
+    private static double extractNumericValue(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0.0;
+        }
+        Matcher matcher = Pattern.compile("([\\d.]+)").matcher(value);
+        if (matcher.find()) {
+            return Double.parseDouble(matcher.group(1));
+        }
+        return 0.0;
+    }
+}
@@ -0,0 +1,137 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 用采集到的 top/free 输出样本比对新旧解析结果
+ */
+class OutputParserCorpusTest {
+
+    private static final Path CORPUS = Path.of("src/test/resources/corpus");
+
+    static Stream<Path> topSamples() throws IOException {
+        return samples("top");
+    }
+
+    static Stream<Path> freeSamples() throws IOException {
+        return samples("free");
+    }
+
+    @ParameterizedTest
+    @MethodSource("topSamples")
+    void topMatchesLegacyParser(Path sample) throws IOException {
+        String output = Files.readString(sample, StandardCharsets.UTF_8);
+
+        Map<String, Double> expected = legacy(output, LegacyOutputParsers::parseTopOutput, "cpu_usage_percent", "cpu_usage");
+        Map<String, Double> actual = values(new TopCpuMetricCalculator().calculateAll(output));
+
+        // 旧实现不识别 MiB/GiB 内存行，这部分单独校验
+        if (!expected.containsKey("memory_total_kb")) {
+            actual.keySet().removeIf(name -> name.startsWith("memory_"));
+        }
+        assertEquals(expected, actual, sample.getFileName().toString());
+    }
+
+    @ParameterizedTest
+    @MethodSource("topSamples")
+    void topStreamingMatchesBufferedParsing(Path sample) throws IOException {
+        byte[] output = Files.readAllBytes(sample);
+
+        TopCpuMetricCalculator calculator = new TopCpuMetricCalculator();
+        Map<String, Double> buffered = values(calculator.calculateAll(new String(output, StandardCharsets.UTF_8)));
+        Map<String, Double> streamed = values(calculator.calculateStream(new ByteArrayInputStream(output)));
+
+        assertEquals(buffered, streamed, sample.getFileName().toString());
+    }
+
+    @ParameterizedTest
+    @MethodSource("freeSamples")
+    void freeMatchesLegacyParser(Path sample) throws IOException {
+        String output = Files.readString(sample, StandardCharsets.UTF_8);
+
+        Map<String, Double> expected = legacy(output, LegacyOutputParsers::parseMemoryOutput, "memory_usage_percent", "memory_usage");
+        Map<String, Double> actual = values(new FreeMemoryMetricCalculator().calculateAll(output));
+
+        assertEquals(expected, actual, sample.getFileName().toString());
+    }
+
+    @Test
+    void scalesMibMemoryLineToKib() throws IOException {
+        String output = Files.readString(CORPUS.resolve("top/procps-ng-4-mib.txt"), StandardCharsets.UTF_8);
+
+        Map<String, Double> values = values(new TopCpuMetricCalculator().calculateAll(output));
+
+        assertEquals(31815.4 * 1024, values.get("memory_total_kb"), 1e-6);
+        assertEquals(14003.7 * 1024, values.get("memory_used_kb"), 1e-6);
+        assertEquals(14003.7 / 31815.4 * 100, values.get("memory_usage_percent"), 1e-9);
+        assertEquals(23.5, values.get("cpu_usage"), 1e-9);
+    }
+
+    @Test
+    void scalesGibMemoryLineToKib() throws IOException {
+        String output = Files.readString(CORPUS.resolve("top/procps-ng-4-gib.txt"), StandardCharsets.UTF_8);
+
+        Map<String, Double> values = values(new TopCpuMetricCalculator().calculateAll(output));
+
+        assertEquals(31.1 * 1024 * 1024, values.get("memory_total_kb"), 1e-6);
+        assertEquals(13.7 * 1024 * 1024, values.get("memory_used_kb"), 1e-6);
+    }
+
+    @Test
+    void decimalParsingMatchesParseDouble() {
+        String[] inputs = {"0", "0.0", "1.", ".5", "12.5", "78.9", "95.2", "31815.4", "0.1", "0.3",
+                "16266588", "9007199254740993", "123456789012345678", "0.00000000000000000000000001",
+                "12.123456789012345678", "3.14159265358979", "00012.500"};
+        for (String input : inputs) {
+            assertEquals(Double.parseDouble(input), TextScan.parseDecimal(input, 0, input.length()), input);
+        }
+    }
+
+    private static Stream<Path> samples(String dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(CORPUS.resolve(dir))) {
+            files = list.sorted().toList();
+        }
+        assertFalse(files.isEmpty());
+        return files.stream();
+    }
+
+    /**
+     * 旧实现：解析异常时计算器输出-1，主指标更名
+     */
+    private static Map<String, Double> legacy(String output, Function<String, Map<String, Double>> parser,
+                                              String primaryKey, String primaryName) {
+        Map<String, Double> parsed;
+        try {
+            parsed = parser.apply(output);
+        } catch (NumberFormatException e) {
+            return new LinkedHashMap<>(Map.of(primaryName, -1.0));
+        }
+        Map<String, Double> values = new LinkedHashMap<>();
+        parsed.forEach((key, value) -> values.put(primaryKey.equals(key) ? primaryName : key, value));
+        return values;
+    }
+
+    private static Map<String, Double> values(List<Metric> metrics) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        metrics.forEach(m -> values.put(m.getMetricName(), m.getMetricValue()));
+        return values;
+    }
+}
@@ -0,0 +1,159 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
+import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import com.tanggo.fund.monitor.plugin.channel.ProcfsMetricRetrievalChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ProcfsMetricCalculatorTest {
+
+    private static final String STAT_1 = """
+            cpu  1000 0 500 8000 500 0 0 0 0 0
+            cpu0 500 0 250 4000 250 0 0 0 0 0
+            cpu1 500 0 250 4000 250 0 0 0 0 0
+            intr 123456 0 0
+            ctxt 1000
+            btime 1700000000
+            processes 5000
+            procs_running 3
+            procs_blocked 1
+            """;
+
+    // 两次读数之间：user +300, system +100, idle +500, iowait +100，共1000节拍
+    private static final String STAT_2 = """
+            cpu  1300 0 600 8500 600 0 0 0 0 0
+            cpu0 1300 0 600 4000 250 0 0 0 0 0
+            cpu1 500 0 250 4000 250 0 0 0 0 0
+            ctxt 3000
+            procs_running 2
+            procs_blocked 0
+            """;
+
+    private static final String NET_DEV = """
+            Inter-|   Receive                                                |  Transmit
+             face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed
+                lo: 69809531   15320    0    0    0     0          0         0 69809531   15320    0    0    0     0       0          0
+              eth0:%d   2000    3    4    0     0          0         0  5000000    1000    5    6    0     0       0          0
+            """;
+
+    @TempDir
+    Path proc;
+
+    @Test
+    void cpuUsageComesFromDeltasBetweenReads() {
+        ProcStatMetricCalculator calculator = new ProcStatMetricCalculator();
+        Map<String, Double> first = values(calculator.calculateAll(STAT_1));
+        // 首次读取为开机以来的平均值
+        assertEquals(15.0, first.get("cpu_usage"), 1e-9);
+
+        List<Metric> metrics = calculator.calculateAll(STAT_2);
+        Map<String, Double> second = values(metrics);
+        assertEquals("cpu_usage", metrics.get(0).getMetricName());
+        assertEquals(40.0, second.get("cpu_usage"), 1e-9);
+        assertEquals(30.0, second.get("cpu_user_percent"), 1e-9);
+        assertEquals(10.0, second.get("cpu_system_percent"), 1e-9);
+        assertEquals(10.0, second.get("cpu_iowait_percent"), 1e-9);
+        assertEquals(50.0, second.get("cpu_idle_percent"), 1e-9);
+        assertEquals(2.0, second.get("processes_running"));
+        assertTrue(second.get("context_switches_per_sec") > 0);
+
+        Map<String, Double> cores = new HashMap<>();
+        metrics.stream().filter(m -> m.getMetricName().equals("cpu_core_usage"))
+                .forEach(m -> cores.put(m.getTags().get("cpu"), m.getMetricValue()));
+        assertEquals(Map.of("0", 100.0, "1", 15.0), cores);
+    }
+
+    @Test
+    void parsesMeminfoAndLoadavg() {
+        String meminfo = """
+                MemTotal:       16000000 kB
+                MemFree:         2000000 kB
+                MemAvailable:    4000000 kB
+                Buffers:          100000 kB
+                Cached:          3000000 kB
+                SwapCached:            0 kB
+                SwapTotal:       2000000 kB
+                SwapFree:        1500000 kB
+                """;
+        Map<String, Double> memory = values(new ProcMeminfoMetricCalculator().calculateAll(meminfo));
+        assertEquals(75.0, memory.get("memory_usage"), 1e-9);
+        assertEquals(3000000.0, memory.get("memory_cached_kb"));
+        assertEquals(25.0, memory.get("swap_usage"), 1e-9);
+
+        Map<String, Double> load = values(new ProcLoadavgMetricCalculator().calculateAll("0.52 1.08 12.00 3/1234 56789\n"));
+        assertEquals(Map.of("load_average_1m", 0.52, "load_average_5m", 1.08, "load_average_15m", 12.0,
+                "scheduling_entities_runnable", 3.0, "scheduling_entities_total", 1234.0), load);
+    }
+
+    @Test
+    void channelStreamsFileBufferAndCountersBecomeRates() throws IOException {
+        ProcfsMetricRetrievalChannel channel = new ProcfsMetricRetrievalChannel();
+        channel.setProcRoot(proc.toString());
+        // 小缓冲区，验证读取时扩容
+        channel.setInitialBufferBytes(16);
+        Files.createDirectories(proc.resolve("net"));
+        ProcNetDevMetricCalculator calculator = new ProcNetDevMetricCalculator();
+
+        Files.writeString(proc.resolve("net/dev"), NET_DEV.formatted(1_000_000));
+        List<Metric> first = channel.executeStreaming(new ChannelMeta(), command("net/dev"), calculator::calculateStream);
+        Files.writeString(proc.resolve("net/dev"), NET_DEV.formatted(3_000_000));
+        List<Metric> second = channel.executeStreaming(new ChannelMeta(), command("net/dev"), calculator::calculateStream);
+
+        assertEquals(1_000_000.0, first.get(0).getMetricValue());
+        assertFalse(first.stream().anyMatch(m -> m.getMetricName().endsWith("_per_sec")));
+        assertTrue(first.stream().noneMatch(m -> m.getTags() != null && "lo".equals(m.getTags().get("interface"))));
+        assertTrue(second.stream().anyMatch(m -> m.getMetricName().equals("net_receive_bytes_per_sec")
+                && m.getMetricValue() > 0 && "eth0".equals(m.getTags().get("interface"))));
+        assertTrue(second.stream().anyMatch(m -> m.getMetricName().equals("net_transmit_bytes_per_sec")
+                && m.getMetricValue() == 0));
+
+        assertThrows(IllegalArgumentException.class, () -> channel.execute(command("../etc/passwd")));
+    }
+
+    @Test
+    void readsTheRealProcfs() {
+        assumeTrue(Files.isReadable(Path.of("/proc/stat")));
+        ProcfsMetricRetrievalChannel channel = new ProcfsMetricRetrievalChannel();
+        channel.connect(new ChannelMeta());
+        ProcStatMetricCalculator stat = new ProcStatMetricCalculator();
+
+        for (String file : List.of("stat", "meminfo", "loadavg", "net/dev", "diskstats")) {
+            assertFalse(channel.execute(command(file)).isEmpty(), file);
+        }
+        channel.executeStreaming(new ChannelMeta(), command("stat"), stat::calculateStream);
+        Metric usage = channel.executeStreaming(new ChannelMeta(), command("stat"), stat::calculateStream).get(0);
+        assertTrue(usage.getMetricValue() >= 0 && usage.getMetricValue() <= 100, String.valueOf(usage.getMetricValue()));
+        new ProcDiskstatsMetricCalculator().calculateAll(channel.execute(command("diskstats")));
+    }
+
+    private static CommandMeta command(String path) {
+        CommandMeta command = new CommandMeta();
+        command.setCommand(path);
+        return command;
+    }
+
+    private static Map<String, Double> values(List<Metric> metrics) {
+        Map<String, Double> values = new HashMap<>();
+        for (Metric metric : metrics) {
+            if (metric.getTags() == null) {
+                values.put(metric.getMetricName(), metric.getMetricValue());
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,89 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PrometheusTextMetricCalculatorTest {
+
+    private final PrometheusTextMetricCalculator calculator = new PrometheusTextMetricCalculator();
+
+    @Test
+    void parsesLabelsEscapesSpecialValuesAndTimestamps() {
+        String text = """
+                # TYPE rpc_duration_seconds summary
+                rpc_duration_seconds{quantile="0.5"} NaN
+                rpc_duration_seconds_count 0
+                http_request_duration_seconds_bucket{le="+Inf", path="/a\\"b\\\\c", service="下单"} 17 1700000000000
+                process_open_fds  42\r
+                free_space -Inf
+                """;
+
+        List<Metric> metrics = calculator.calculateAll(text);
+
+        assertEquals(4, metrics.size());
+        assertEquals("rpc_duration_seconds_count", metrics.get(0).getMetricName());
+        assertNull(metrics.get(0).getTags());
+
+        Metric bucket = metrics.get(1);
+        assertEquals(Map.of("le", "+Inf", "path", "/a\"b\\c", "service", "下单"), bucket.getTags());
+        assertEquals(17.0, bucket.getMetricValue());
+        assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(1_700_000_000_000L), ZoneId.systemDefault()),
+                bucket.getTimestamp());
+
+        assertEquals(42.0, metrics.get(2).getMetricValue());
+        assertEquals(Double.NEGATIVE_INFINITY, metrics.get(3).getMetricValue());
+    }
+
+    @Test
+    void parsesOpenMetricsSecondTimestamps() {
+        String text = """
+                # TYPE foo counter
+                foo_total 17.0 1520879607.789
+                bar 1 1520879607
+                baz 2 1520879607789
+                # EOF
+                """;
+
+        List<Metric> metrics = calculator.calculateAll(text);
+
+        assertEquals(List.of(1_520_879_607_789_000_000L, 1_520_879_607_000_000_000L, 1_520_879_607_789_000_000L),
+                metrics.stream().map(Metric::getTimestampNanos).toList());
+    }
+
+    @Test
+    void skipsOpenMetricsExemplars() {
+        String text = """
+                foo_bucket{le="0.1"} 8 # {trace_id="KOO5S4vxi0o"} 0.67
+                foo_bucket{le="+Inf"} 17 1520879607.789 # {trace_id="oHg5SJYRHA0"} 9.8 1520879602.890
+                """;
+
+        List<Metric> metrics = calculator.calculateAll(text);
+
+        assertEquals(List.of(8.0, 17.0), metrics.stream().map(Metric::getMetricValue).toList());
+        assertEquals(Map.of("le", "0.1"), metrics.get(0).getTags());
+        assertEquals(1_520_879_607_789_000_000L, metrics.get(1).getTimestampNanos());
+    }
+
+    @Test
+    void filtersByNameAndRejectsMalformedOrEmptyOutput() {
+        calculator.setIncludeMetrics("node_.*");
+        calculator.setExcludeMetrics("node_scrape_.*");
+
+        List<Metric> metrics = calculator.calculateAll("go_goroutines 8\nnode_load1 0.5\nnode_scrape_duration 0.1\n");
+
+        assertEquals(List.of("node_load1"), metrics.stream().map(Metric::getMetricName).toList());
+        assertThrows(IllegalArgumentException.class, () -> calculator.calculateAll("# only comments\n"));
+        assertThrows(IllegalArgumentException.class, () -> calculator.calculateAll("node_load1{cpu=\"0\" 1\n"));
+        assertThrows(IllegalArgumentException.class, () -> calculator.calculateAll(""));
+    }
+}
@@ -0,0 +1,88 @@
+package com.tanggo.fund.monitor.plugin.calculator;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopCpuMetricCalculatorTest {
+
+    private static final String TOP_OUTPUT = """
+            top - 10:00:00 up 1 day,  2:03,  1 user,  load average: 0.52, 0.58, 0.59
+            Tasks: 200 total,   1 running, 199 sleeping,   0 stopped,   0 zombie
+            %Cpu(s): 12.5 us,  8.3 sy,  0.0 ni, 78.9 id,  0.3 wa,  0.0 hi,  0.0 si,  0.0 st
+            KiB Mem : 16384000 total,  8192000 free,  5120000 used,  3072000 buff/cache
+            """;
+
+    @Test
+    void emitsOneSeriesPerValueWithoutNumericTags() {
+        List<Metric> metrics = new TopCpuMetricCalculator().calculateAll(TOP_OUTPUT);
+
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Metric metric : metrics) {
+            values.put(metric.getMetricName(), metric.getMetricValue());
+            assertNull(metric.getTags());
+            assertEquals(metrics.get(0).getTimestamp(), metric.getTimestamp());
+        }
+
+        assertEquals("cpu_usage", metrics.get(0).getMetricName());
+        assertEquals(20.8, values.get("cpu_usage"), 1e-9);
+        assertEquals(12.5, values.get("cpu_user_percent"), 1e-9);
+        assertEquals(8.3, values.get("cpu_system_percent"), 1e-9);
+        assertEquals(78.9, values.get("cpu_idle_percent"), 1e-9);
+        assertEquals(16384000.0, values.get("memory_total_kb"), 1e-9);
+        assertEquals(5120000.0, values.get("memory_used_kb"), 1e-9);
+        assertEquals(31.25, values.get("memory_usage_percent"), 1e-9);
+    }
+
+    @Test
+    void calculateReturnsPrimaryMetric() {
+        Metric metric = new TopCpuMetricCalculator().calculate(TOP_OUTPUT);
+
+        assertEquals("cpu_usage", metric.getMetricName());
+        assertEquals(20.8, metric.getMetricValue(), 1e-9);
+    }
+
+    @Test
+    void streamingStopsReadingAfterHeader() throws IOException {
+        StringBuilder output = new StringBuilder(TOP_OUTPUT).append('\n');
+        output.append("  PID USER      PR  NI    VIRT    RES    SHR S  %CPU %MEM     TIME+ COMMAND\n");
+        for (int i = 0; i < 20_000; i++) {
+            output.append(String.format("%5d app       20   0  193924   6876   4160 S   0.0  0.0   2:12.01 worker-%d%n", i, i));
+        }
+        byte[] bytes = output.toString().getBytes(StandardCharsets.UTF_8);
+        AtomicLong read = new AtomicLong();
+        InputStream counting = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                read.addAndGet(Math.max(n, 0));
+                return n;
+            }
+        };
+
+        TopCpuMetricCalculator calculator = new TopCpuMetricCalculator();
+        List<Metric> streamed = calculator.calculateStream(counting);
+
+        assertTrue(read.get() <= 8192, "只应读取表头所在的第一个缓冲: " + read.get());
+        assertTrue(bytes.length > 1_000_000);
+        List<Metric> buffered = calculator.calculateAll(output.toString());
+        assertEquals(buffered.size(), streamed.size());
+        for (int i = 0; i < buffered.size(); i++) {
+            assertEquals(buffered.get(i).getMetricName(), streamed.get(i).getMetricName());
+            assertEquals(buffered.get(i).getMetricValue(), streamed.get(i).getMetricValue());
+        }
+    }
+}
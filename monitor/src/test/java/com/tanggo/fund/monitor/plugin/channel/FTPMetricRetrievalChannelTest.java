@@ -0,0 +1,161 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
+import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import com.tanggo.fund.monitor.plugin.calculator.CsvMetricCalculator;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.impl.DefaultFtpServer;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FTPMetricRetrievalChannelTest {
+
+    @TempDir
+    Path home;
+
+    @TempDir
+    Path state;
+
+    private FtpServer server;
+    private FTPMetricRetrievalChannel channel;
+    private ChannelMeta channelMeta;
+    private CsvMetricCalculator calculator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FtpServerFactory serverFactory = new FtpServerFactory();
+        ListenerFactory listenerFactory = new ListenerFactory();
+        listenerFactory.setServerAddress("127.0.0.1");
+        listenerFactory.setPort(0);
+        serverFactory.addListener("default", listenerFactory.createListener());
+
+        UserManager userManager = new PropertiesUserManagerFactory().createUserManager();
+        BaseUser user = new BaseUser();
+        user.setName("monitor");
+        user.setPassword("secret");
+        user.setHomeDirectory(home.toString());
+        user.setAuthorities(List.of(new WritePermission()));
+        userManager.save(user);
+        serverFactory.setUserManager(userManager);
+
+        server = serverFactory.createServer();
+        server.start();
+        int port = ((DefaultFtpServer) server).getListener("default").getPort();
+
+        channelMeta = new ChannelMeta();
+        channelMeta.setChannelId("ftp_channel");
+        channelMeta.setExtensions(Map.of("host", "127.0.0.1", "port", port, "username", "monitor", "password", "secret"));
+        channel = newChannel();
+
+        calculator = new CsvMetricCalculator();
+        calculator.setColumns(List.of("ts", "host", "cpu"));
+        calculator.setTimestampColumn("ts");
+        calculator.setTagColumns(List.of("host"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.disconnect();
+        server.stop();
+    }
+
+    @Test
+    void readsOnlyAppendedCompleteLinesOverPooledConnection() throws IOException {
+        write("ts,host,cpu\n1000,a,10\n2000,a,2");
+
+        assertEquals(List.of(10.0), values(scrape()));
+
+        // 半行补全后与新行一起读取
+        append("0\n3000,b,30\n");
+        List<Metric> metrics = scrape();
+        assertEquals(List.of(20.0, 30.0), values(metrics));
+        assertEquals(Map.of("host", "b"), metrics.get(1).getTags());
+
+        assertEquals(List.of(), scrape());
+        assertEquals(1, channel.getClientPool().getLoginCount());
+        assertEquals(2, channel.getClientPool().getReuseCount());
+        assertEquals(Files.size(home.resolve("app.csv")), channel.getBytesRead());
+    }
+
+    @Test
+    void truncatedFileIsReadFromStartAndBacklogIsDrainedInChunks() throws IOException {
+        write("ts,host,cpu\n1000,a,10\n2000,a,20\n");
+        assertEquals(List.of(10.0, 20.0), values(scrape()));
+
+        write("3000,a,30\n");
+        assertEquals(List.of(30.0), values(scrape()));
+        assertEquals(1, channel.getTruncatedCount());
+
+        // 每次最多读16字节：一次只取到完整的一行
+        channel.setMaxReadBytes(16);
+        append("4000,a,40\n5000,a,50\n");
+        assertEquals(List.of(40.0), values(scrape()));
+        assertEquals(List.of(50.0), values(scrape()));
+    }
+
+    @Test
+    void offsetsSurviveRestartAndFailedParseIsReRead() throws IOException {
+        write("ts,host,cpu\n1000,a,10\n");
+        assertEquals(List.of(10.0), values(scrape()));
+
+        channel.disconnect();
+        channel = newChannel();
+        append("2000,a,20\n");
+        CommandMeta cmd = command();
+        assertThrows(RuntimeException.class, () -> channel.executeStreaming(channelMeta, cmd, in -> {
+            throw new IOException("计算器故障");
+        }));
+
+        // 重启后从持久化位置继续，解析失败的行重新读取
+        assertEquals(List.of(20.0), values(scrape()));
+        assertEquals("", channel.execute(channelMeta, cmd));
+    }
+
+    private FTPMetricRetrievalChannel newChannel() {
+        FTPMetricRetrievalChannel ftp = new FTPMetricRetrievalChannel();
+        ftp.setOffsetFile(state.resolve("ftp-offsets.properties").toString());
+        return ftp;
+    }
+
+    private List<Metric> scrape() {
+        return channel.executeStreaming(channelMeta, command(), calculator::calculateStream);
+    }
+
+    private static CommandMeta command() {
+        CommandMeta cmd = new CommandMeta();
+        cmd.setCommand("/app.csv");
+        return cmd;
+    }
+
+    private void write(String content) throws IOException {
+        Files.writeString(home.resolve("app.csv"), content, StandardCharsets.UTF_8);
+    }
+
+    private void append(String content) throws IOException {
+        Files.writeString(home.resolve("app.csv"), content, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private static List<Double> values(List<Metric> metrics) {
+        return metrics.stream().map(Metric::getMetricValue).toList();
+    }
+}
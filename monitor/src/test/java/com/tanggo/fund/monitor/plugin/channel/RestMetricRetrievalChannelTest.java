@@ -0,0 +1,180 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.entity.meta.ChannelMeta;
+import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import com.tanggo.fund.monitor.plugin.calculator.PrometheusTextMetricCalculator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestMetricRetrievalChannelTest {
+
+    private static final String BODY = """
+            # HELP http_requests_total Total requests.
+            # TYPE http_requests_total counter
+            http_requests_total{method="get",code="200"} 1027
+            http_requests_total{method="post",code="500"} 3
+            """;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private RestMetricRetrievalChannel channel;
+    private ChannelMeta channelMeta;
+
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/metrics", this::metrics);
+        server.createContext("/slow", this::slow);
+        server.start();
+
+        channel = new RestMetricRetrievalChannel();
+        channelMeta = new ChannelMeta();
+        channelMeta.setChannelId("rest_channel");
+        channelMeta.setExtensions(Map.of("baseUrl", "http://127.0.0.1:" + server.getAddress().getPort()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void gzipBodyIsDecodedAndRevalidatedWithEtag() {
+        assertEquals(BODY, channel.execute(channelMeta, command("/metrics", null)));
+        assertEquals(BODY, channel.execute(channelMeta, command("metrics", null)));
+
+        assertNull(ifNoneMatch.get(0));
+        assertEquals("\"v1\"", ifNoneMatch.get(1));
+        assertEquals(1, channel.getNotModifiedCount());
+        assertEquals(2, channel.getRequestCount());
+    }
+
+    @Test
+    void batchRunsConcurrentlyWithinPerHostLimit() {
+        channel.setMaxConcurrentPerHost(3);
+        List<CommandMeta> cmds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            cmds.add(command("/slow?delay=100&i=" + i, null));
+        }
+
+        List<String> outputs = channel.executeBatch(channelMeta, cmds);
+
+        assertEquals(12, outputs.size());
+        outputs.forEach(o -> assertEquals("ok", o));
+        // 批内请求同时在途，但同一主机不超过3个
+        assertEquals(3, maxInFlight.get());
+        assertEquals(12, channel.getRequestCount());
+    }
+
+    @Test
+    void commandTimeoutFailsOnlyThatTarget() {
+        CommandMeta slow = command("/slow?delay=2000", Map.of("timeoutMillis", 200));
+
+        long start = System.nanoTime();
+        assertThrows(RuntimeException.class, () -> channel.execute(channelMeta, slow));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 1_500);
+
+        List<String> outputs = channel.executeBatch(channelMeta, List.of(slow, command("/slow?delay=0", null)));
+        assertEquals(List.of("", "ok"), outputs);
+        assertTrue(channel.getFailureCount() >= 2);
+    }
+
+    @Test
+    void streamingScrapeFeedsPrometheusCalculator() {
+        PrometheusTextMetricCalculator calculator = new PrometheusTextMetricCalculator();
+
+        List<Metric> metrics = channel.executeStreaming(channelMeta, command("/metrics", Map.of("conditional", false)),
+                calculator::calculateStream);
+
+        assertEquals(2, metrics.size());
+        assertEquals("http_requests_total", metrics.get(0).getMetricName());
+        assertEquals(1027.0, metrics.get(0).getMetricValue());
+        assertEquals(Map.of("method", "post", "code", "500"), metrics.get(1).getTags());
+        assertEquals(0, channel.getCachedResponseCount());
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatch.add(etag);
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            if ("\"v1\"".equals(etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void slow(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            String query = exchange.getRequestURI().getQuery();
+            long delay = Long.parseLong(query.replaceAll(".*delay=(\\d+).*", "$1"));
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            // 客户端超时断开
+        }
+    }
+
+    private static CommandMeta command(String path, Map<String, Object> extensions) {
+        CommandMeta cmd = new CommandMeta();
+        cmd.setCommand(path);
+        cmd.setExtensions(extensions);
+        return cmd;
+    }
+}
@@ -0,0 +1,101 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import com.tanggo.fund.monitor.core.entity.meta.CommandMeta;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShellCommandBatcherTest {
+
+    @Test
+    void splitsCompoundCommandOutputPerCommand() throws Exception {
+        List<CommandMeta> cmds = List.of(command("printf 'a\\nb\\n'"), command("true"), command("echo c"));
+        ShellCommandBatcher batcher = ShellCommandBatcher.create(cmds.size());
+
+        List<String> outputs = batcher.split(runLocally(batcher.compose(cmds)));
+
+        assertEquals(List.of("a\nb\n", "", "c\n"), outputs);
+    }
+
+    @Test
+    void failingCommandDoesNotAbortBatch() throws Exception {
+        List<CommandMeta> cmds = List.of(command("no_such_command_xyz"), command("echo ok"));
+        ShellCommandBatcher batcher = ShellCommandBatcher.create(cmds.size());
+
+        List<String> outputs = batcher.split(runLocally(batcher.compose(cmds)));
+
+        assertEquals(List.of("", "ok\n"), outputs);
+    }
+
+    @Test
+    void outputWithoutTrailingNewlineKeepsMarkersOnTheirOwnLine() throws Exception {
+        List<CommandMeta> cmds = List.of(command("printf 'no-newline'"), command("printf 'x\\ny'"), command("echo z"));
+        ShellCommandBatcher batcher = ShellCommandBatcher.create(cmds.size());
+
+        List<String> outputs = batcher.split(runLocally(batcher.compose(cmds)));
+
+        assertEquals(List.of("no-newline", "x\ny", "z\n"), outputs);
+    }
+
+    @Test
+    void backgroundCommandOutputStaysInItsOwnSegment() throws Exception {
+        List<CommandMeta> cmds = List.of(command("sleep 0.2 && echo bg &"), command("echo next"));
+        ShellCommandBatcher batcher = ShellCommandBatcher.create(cmds.size());
+
+        List<String> outputs = batcher.split(runLocally(batcher.compose(cmds)));
+
+        assertEquals(List.of("bg\n", "next\n"), outputs);
+    }
+
+    @Test
+    void trailingCommentDoesNotSwallowFollowingCommands() throws Exception {
+        List<CommandMeta> cmds = List.of(command("echo a # 内存"), command("echo b"));
+        ShellCommandBatcher batcher = ShellCommandBatcher.create(cmds.size());
+
+        List<String> outputs = batcher.split(runLocally(batcher.compose(cmds)));
+
+        assertEquals(List.of("a\n", "b\n"), outputs);
+    }
+
+    @Test
+    void exitOnlyEndsItsOwnCommand() throws Exception {
+        List<CommandMeta> cmds = List.of(command("echo a; exit 3"), command("echo b"));
+        ShellCommandBatcher batcher = ShellCommandBatcher.create(cmds.size());
+
+        List<String> outputs = batcher.split(runLocally(batcher.compose(cmds)));
+
+        assertEquals(List.of("a\n", "b\n"), outputs);
+    }
+
+    @Test
+    void rejectsTruncatedOutput() {
+        List<CommandMeta> cmds = List.of(command("echo a"), command("echo b"));
+        ShellCommandBatcher batcher = ShellCommandBatcher.create(cmds.size());
+        String compound = batcher.compose(cmds);
+        int markerStart = compound.indexOf("__MONITOR_BATCH_");
+        String firstMarker = compound.substring(markerStart, compound.indexOf('\'', markerStart));
+
+        assertThrows(IllegalStateException.class, () -> batcher.split(firstMarker + "\na\n"));
+    }
+
+    private CommandMeta command(String command) {
+        CommandMeta meta = new CommandMeta();
+        meta.setCommand(command);
+        return meta;
+    }
+
+    private String runLocally(String command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("sh", "-c", command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        try (InputStream in = process.getInputStream()) {
+            String output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            process.waitFor();
+            return output;
+        }
+    }
+}
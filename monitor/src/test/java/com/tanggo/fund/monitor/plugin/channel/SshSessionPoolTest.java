@@ -0,0 +1,130 @@
+package com.tanggo.fund.monitor.plugin.channel;
+
+import com.jcraft.jsch.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SshSessionPoolTest {
+
+    private final List<Session> created = new ArrayList<>();
+    private final SshSessionPool pool = new SshSessionPool();
+    private final SshSessionPool.SessionKey hostA = new SshSessionPool.SessionKey("10.0.0.1", 22, "admin");
+    private final SshSessionPool.SessionKey hostB = new SshSessionPool.SessionKey("10.0.0.2", 22, "admin");
+
+    SshSessionPoolTest() {
+        pool.setSessionFactory(key -> {
+            Session session = mock(Session.class);
+            when(session.isConnected()).thenReturn(true);
+            created.add(session);
+            return session;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void reusesSessionPerHost() {
+        Session first;
+        try (SshSessionPool.Lease lease = pool.acquire(hostA, "pw")) {
+            first = lease.getSession();
+        }
+        try (SshSessionPool.Lease lease = pool.acquire(hostA, "pw")) {
+            assertSame(first, lease.getSession());
+        }
+        try (SshSessionPool.Lease lease = pool.acquire(hostB, "pw")) {
+            assertNotSame(first, lease.getSession());
+        }
+
+        assertEquals(2, pool.getHandshakeCount());
+        assertEquals(1, pool.getReuseCount());
+        assertEquals(2, pool.getSessionCount());
+    }
+
+    @Test
+    void reconnectsInvalidatedSession() {
+        try (SshSessionPool.Lease lease = pool.acquire(hostA, "pw")) {
+            lease.invalidate();
+        }
+        try (SshSessionPool.Lease lease = pool.acquire(hostA, "pw")) {
+            assertSame(created.get(1), lease.getSession());
+        }
+        verify(created.get(0)).disconnect();
+        assertEquals(2, pool.getHandshakeCount());
+    }
+
+    @Test
+    void invalidatedSessionStaysOpenUntilConcurrentLeasesReturn() {
+        SshSessionPool.Lease first = pool.acquire(hostA, "pw");
+        SshSessionPool.Lease second = pool.acquire(hostA, "pw");
+        Session shared = first.getSession();
+
+        first.invalidate();
+        first.close();
+        // 另一租约仍在使用，会话不再借出但保持连接
+        verify(shared, never()).disconnect();
+        try (SshSessionPool.Lease lease = pool.acquire(hostA, "pw")) {
+            assertSame(created.get(1), lease.getSession());
+        }
+
+        second.close();
+        verify(shared).disconnect();
+        verify(created.get(1), never()).disconnect();
+    }
+
+    @Test
+    void failedHealthCheckRetiresSessionInUse() throws Exception {
+        pool.setHealthCheckIntervalMillis(0);
+        SshSessionPool.Lease busy = pool.acquire(hostA, "pw");
+        Session stale = busy.getSession();
+        doThrow(new RuntimeException("连接已断开")).when(stale).sendKeepAliveMsg();
+
+        try (SshSessionPool.Lease lease = pool.acquire(hostA, "pw")) {
+            assertSame(created.get(1), lease.getSession());
+        }
+        verify(stale, never()).disconnect();
+
+        busy.close();
+        verify(stale).disconnect();
+        assertEquals(1, pool.getHealthCheckFailureCount());
+    }
+
+    @Test
+    void capsConcurrentChannelsPerSession() {
+        pool.setMaxChannelsPerSession(1);
+        pool.setChannelAcquireTimeoutMillis(50);
+
+        try (SshSessionPool.Lease ignored = pool.acquire(hostA, "pw")) {
+            assertThrows(RuntimeException.class, () -> pool.acquire(hostA, "pw"));
+        }
+        pool.acquire(hostA, "pw").close();
+    }
+
+    @Test
+    void evictsIdleSessionsWithoutInFlightLeases() {
+        pool.setIdleTimeoutMillis(0);
+        SshSessionPool.Lease busy = pool.acquire(hostA, "pw");
+        pool.acquire(hostB, "pw").close();
+
+        pool.evictIdle();
+
+        assertEquals(1, pool.getEvictedCount());
+        assertEquals(1, pool.getSessionCount());
+        busy.close();
+    }
+}
@@ -0,0 +1,200 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncBatchMetricPersistRepoTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    void flushesBySizeAndByTime() throws Exception {
+        RecordingMysqlRepo mysql = new RecordingMysqlRepo();
+        AsyncBatchMetricPersistRepo repo = new AsyncBatchMetricPersistRepo(mysql);
+        repo.setBatchSize(10);
+        repo.setFlushIntervalMillis(200);
+        repo.start();
+
+        for (int i = 0; i < 25; i++) {
+            repo.insert(metric(i));
+        }
+        // 两个满批立即刷写，剩余5条等待时间触发
+        Thread.sleep(500);
+        repo.close();
+
+        assertEquals(List.of(10, 10, 5), mysql.batchSizes);
+        assertEquals(25, repo.getFlushedCount());
+        assertEquals(3, repo.getBatchCount());
+        assertEquals(0, repo.getQueueDepth());
+    }
+
+    @Test
+    void dropsOldestWhenQueueIsFull() throws Exception {
+        RecordingMysqlRepo mysql = new RecordingMysqlRepo();
+        mysql.blockUntil = new CountDownLatch(1);
+        AsyncBatchMetricPersistRepo repo = new AsyncBatchMetricPersistRepo(mysql);
+        repo.setQueueCapacity(5);
+        repo.setBatchSize(1);
+        repo.setOverflowPolicy(AsyncBatchMetricPersistRepo.OverflowPolicy.DROP_OLDEST);
+        repo.start();
+
+        repo.insert(metric(0));
+        Thread.sleep(100);
+        // 刷写线程阻塞在第一批，后续10条只能保留最新5条
+        for (int i = 1; i <= 10; i++) {
+            repo.insert(metric(i));
+        }
+        mysql.blockUntil.countDown();
+        repo.close();
+
+        assertEquals(5, repo.getDroppedCount());
+        assertEquals(List.of(0.0, 6.0, 7.0, 8.0, 9.0, 10.0), mysql.values());
+    }
+
+    @Test
+    void spillsFailedBatchesAndReplaysThem() throws Exception {
+        RecordingMysqlRepo mysql = new RecordingMysqlRepo();
+        mysql.failing.set(true);
+        AsyncBatchMetricPersistRepo repo = new AsyncBatchMetricPersistRepo(mysql);
+        repo.setBatchSize(100);
+        repo.setFlushIntervalMillis(50);
+        repo.setOverflowPolicy(AsyncBatchMetricPersistRepo.OverflowPolicy.SPILL);
+        repo.setSpillDirectory(spillDir.toString());
+        repo.start();
+
+        for (int i = 0; i < 3; i++) {
+            repo.insert(metric(i));
+        }
+        Thread.sleep(200);
+        assertTrue(repo.getSpilledCount() >= 3);
+
+        mysql.failing.set(false);
+        Thread.sleep(500);
+        repo.close();
+
+        assertEquals(List.of(0.0, 1.0, 2.0), mysql.values());
+        assertEquals(0, repo.getSpillPendingCount());
+    }
+
+    @Test
+    void permanentlyRejectedSegmentMovesToDeadLetterAndLaterDataFlows() throws Exception {
+        RecordingMysqlRepo mysql = new RecordingMysqlRepo();
+        mysql.poison = 13;
+        AsyncBatchMetricPersistRepo repo = new AsyncBatchMetricPersistRepo(mysql);
+        repo.setBatchSize(100);
+        repo.setFlushIntervalMillis(20);
+        repo.setMaxReplayAttempts(2);
+        repo.setOverflowPolicy(AsyncBatchMetricPersistRepo.OverflowPolicy.SPILL);
+        repo.setSpillDirectory(spillDir.toString());
+        repo.start();
+
+        repo.insert(metric(13));
+        Thread.sleep(100);
+        mysql.failing.set(true);
+        repo.insert(metric(1));
+        Thread.sleep(100);
+        mysql.failing.set(false);
+        Thread.sleep(500);
+        repo.close();
+
+        assertEquals(1, repo.getDeadLetteredCount());
+        assertEquals(0, repo.getSpillPendingCount());
+        assertEquals(List.of(1.0), mysql.values());
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("dead-spill-")).count());
+        }
+    }
+
+    @Test
+    void flusherSurvivesUnexpectedErrors() throws Exception {
+        RecordingMysqlRepo mysql = new RecordingMysqlRepo();
+        mysql.failing.set(true);
+        AsyncBatchMetricPersistRepo repo = new AsyncBatchMetricPersistRepo(mysql);
+        repo.setFlushIntervalMillis(20);
+        repo.setOverflowPolicy(AsyncBatchMetricPersistRepo.OverflowPolicy.SPILL);
+        Path missing = spillDir.resolve("spill");
+        repo.setSpillDirectory(missing.toString());
+        repo.start();
+
+        // 溢出目录被删除：写库失败后溢出也失败
+        Files.delete(missing);
+        repo.insert(metric(0));
+        Thread.sleep(150);
+        assertEquals(1, repo.getLoopErrorCount());
+        assertEquals(1, repo.getFailedCount());
+
+        Files.createDirectories(missing);
+        mysql.failing.set(false);
+        repo.insert(metric(1));
+        Thread.sleep(150);
+        repo.close();
+
+        assertEquals(List.of(1.0), mysql.values());
+    }
+
+    private Metric metric(int i) {
+        Metric metric = new Metric();
+        metric.setMetricName("cpu_usage");
+        metric.setMetricValue(i);
+        metric.setTimestamp(LocalDateTime.of(2026, 1, 1, 0, 0).plusSeconds(i));
+        metric.setTags(Map.of("host", "10.0.0.1"));
+        return metric;
+    }
+
+    private static class RecordingMysqlRepo extends MysqlMetricPersistRepo {
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private final List<Metric> written = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean failing = new AtomicBoolean();
+        private volatile CountDownLatch blockUntil;
+        // 包含该值的批次被永久拒绝
+        private volatile double poison = Double.NaN;
+
+        RecordingMysqlRepo() {
+            super(null);
+        }
+
+        @Override
+        public void insertAll(Collection<Metric> metrics) {
+            if (failing.get()) {
+                throw new RuntimeException("数据库不可用");
+            }
+            if (metrics.stream().anyMatch(m -> m.getMetricValue() == poison)) {
+                throw new RuntimeException("违反约束");
+            }
+            CountDownLatch latch = blockUntil;
+            if (latch != null) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batchSizes.add(metrics.size());
+            written.addAll(metrics);
+        }
+
+        List<Double> values() {
+            List<Double> values = new ArrayList<>();
+            written.forEach(m -> values.add(m.getMetricValue()));
+            return values;
+        }
+    }
+}
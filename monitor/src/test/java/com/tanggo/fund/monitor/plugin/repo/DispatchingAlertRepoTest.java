@@ -0,0 +1,154 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.alert.AlertEvent;
+import com.tanggo.fund.monitor.core.alert.AlertNotification;
+import com.tanggo.fund.monitor.core.entity.Alert;
+import com.tanggo.fund.monitor.core.extension.alert.AlertRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DispatchingAlertRepoTest {
+
+    private final BlockingQueue<AlertNotification> delivered = new LinkedBlockingQueue<>();
+    private final AlertRepo receiver = alert -> delivered.add((AlertNotification) alert);
+    private DispatchingAlertRepo repo;
+
+    @AfterEach
+    void tearDown() {
+        repo.close();
+    }
+
+    @Test
+    void stormCollapsesIntoOneNotificationPerGroup() throws InterruptedException {
+        repo = newRepo(Map.of("default", receiver));
+        long now = System.currentTimeMillis();
+        for (int round = 0; round < 3; round++) {
+            for (int host = 0; host < 500; host++) {
+                repo.sendAlert(event("cpu_high", "h" + host, AlertEvent.Status.FIRING));
+            }
+        }
+        repo.sendAlert(event("mem_high", "h0", AlertEvent.Status.FIRING));
+
+        repo.dispatch(now + 10_000);
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+
+        repo.dispatch(now + 31_000);
+        AlertNotification first = delivered.poll(5, TimeUnit.SECONDS);
+        AlertNotification second = delivered.poll(5, TimeUnit.SECONDS);
+        assertNotNull(second);
+        assertEquals(501, first.getAlerts().size() + second.getAlerts().size());
+        assertEquals(1000, repo.getSuppressedCount());
+
+        // 已通知且仍在触发的告警不再下发
+        repo.sendAlert(event("cpu_high", "h1", AlertEvent.Status.FIRING));
+        repo.dispatch(now + 400_000);
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(2, repo.getNotificationCount());
+    }
+
+    @Test
+    void resolutionsWaitForGroupIntervalAndFlapsCancelOut() throws InterruptedException {
+        repo = newRepo(Map.of("default", receiver));
+        long now = System.currentTimeMillis();
+        repo.sendAlert(event("cpu_high", "h1", AlertEvent.Status.FIRING));
+        repo.dispatch(now + 31_000);
+        assertEquals(1, delivered.poll(5, TimeUnit.SECONDS).getAlerts().size());
+
+        repo.sendAlert(event("cpu_high", "h1", AlertEvent.Status.RESOLVED));
+        // 等待期内触发又恢复
+        repo.sendAlert(event("cpu_high", "h2", AlertEvent.Status.FIRING));
+        repo.sendAlert(event("cpu_high", "h2", AlertEvent.Status.RESOLVED));
+
+        repo.dispatch(now + 60_000);
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+        repo.dispatch(now + 340_000);
+        AlertNotification resolved = delivered.poll(5, TimeUnit.SECONDS);
+        assertEquals(List.of(AlertEvent.Status.RESOLVED),
+                resolved.getAlerts().stream().map(a -> ((AlertEvent) a).getStatus()).toList());
+        assertEquals(Map.of("ruleId", "cpu_high"), resolved.getGroupLabels());
+
+        // 分组内已无告警，随后被清理
+        repo.dispatch(now + 700_000);
+        assertEquals(0, repo.getGroupCount());
+    }
+
+    @Test
+    void receiverTokenBucketDefersAndRetriesDeliveries() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        AlertRepo flaky = alert -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("接收者不可用");
+            }
+            delivered.add((AlertNotification) alert);
+        };
+        repo = newRepo(Map.of("default", flaky));
+        repo.setReceiverBurst(1);
+        repo.setReceiverRatePerSecond(0.001);
+        long now = System.currentTimeMillis();
+        repo.sendAlert(event("cpu_high", "h1", AlertEvent.Status.FIRING));
+        repo.sendAlert(event("mem_high", "h1", AlertEvent.Status.FIRING));
+
+        repo.dispatch(now + 31_000);
+
+        AlertNotification notification = delivered.poll(5, TimeUnit.SECONDS);
+        assertNotNull(notification);
+        assertEquals(3, attempts.get());
+        assertEquals(2, repo.getRetryCount());
+        assertEquals(1, repo.getThrottledCount());
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void abandonedDeliveryIsRequeuedInsteadOfMarkedNotified() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        AlertRepo down = alert -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("接收者不可用");
+            }
+            delivered.add((AlertNotification) alert);
+        };
+        repo = newRepo(Map.of("default", down));
+        repo.setMaxRetries(1);
+        long now = System.currentTimeMillis();
+        repo.sendAlert(event("cpu_high", "h1", AlertEvent.Status.FIRING));
+        repo.dispatch(now + 31_000);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (repo.getFailedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, repo.getFailedCount());
+
+        // 仍在触发的告警不能因为曾经尝试过投递而被去重
+        repo.sendAlert(event("cpu_high", "h1", AlertEvent.Status.FIRING));
+        repo.dispatch(now + 400_000);
+        AlertNotification notification = delivered.poll(5, TimeUnit.SECONDS);
+        assertNotNull(notification);
+        assertEquals(List.of("cpu_high:h1"), notification.getAlerts().stream().map(Alert::getId).toList());
+    }
+
+    private DispatchingAlertRepo newRepo(Map<String, AlertRepo> receivers) {
+        DispatchingAlertRepo dispatching = new DispatchingAlertRepo(receivers);
+        // 由测试驱动分组检查
+        dispatching.setTickMillis(TimeUnit.HOURS.toMillis(1));
+        dispatching.setRetryInitialMillis(10);
+        dispatching.start();
+        return dispatching;
+    }
+
+    private static AlertEvent event(String ruleId, String host, AlertEvent.Status status) {
+        return new AlertEvent(ruleId + ":" + host, status, ruleId, ruleId, "critical", null, "cpu_usage",
+                Map.of("host", host), 95.0, 0);
+    }
+}
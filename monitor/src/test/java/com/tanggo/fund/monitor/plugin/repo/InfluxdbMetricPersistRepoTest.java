@@ -0,0 +1,84 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.influxdb.client.InfluxDBClient;
+import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteOptions;
+import com.influxdb.client.domain.WritePrecision;
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InfluxdbMetricPersistRepoTest {
+
+    @Test
+    void encodesLineProtocolWithSortedEscapedTags() {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("role", "db server");
+        tags.put("dc", "sh,1");
+        tags.put("empty", "");
+        Metric metric = metric("cpu usage", 12.5, tags);
+        metric.setMeterId("m=1");
+
+        StringBuilder sb = new StringBuilder();
+        InfluxLineProtocol.append(sb, metric);
+
+        assertEquals("cpu\\ usage,meterId=m\\=1,dc=sh\\,1,role=db\\ server value=12.5 1767225600123000000",
+                sb.toString());
+    }
+
+    @Test
+    void escapesBackslashesBeforeOtherSpecialCharacters() {
+        Metric metric = metric("disk\\usage", 1, Map.of("path", "C:\\data dir\\", "note", "a\nb"));
+
+        StringBuilder sb = new StringBuilder();
+        InfluxLineProtocol.append(sb, metric);
+
+        assertEquals("disk\\\\usage,note=a\\ b,path=C:\\\\data\\ dir\\\\ value=1.0 1767225600123000000", sb.toString());
+    }
+
+    @Test
+    void skipsNonFiniteValues() {
+        assertFalse(InfluxLineProtocol.append(new StringBuilder(), metric("cpu_usage", Double.NaN, Map.of())));
+    }
+
+    @Test
+    void reusesOneWriteApiAndFlushesOnClose() {
+        InfluxDBClient client = mock(InfluxDBClient.class);
+        WriteApi writeApi = mock(WriteApi.class);
+        when(client.makeWriteApi(any(WriteOptions.class))).thenReturn(writeApi);
+
+        InfluxdbMetricPersistRepo repo = new InfluxdbMetricPersistRepo(client, "metrics", "org");
+        repo.setRegisterShutdownHook(false);
+        repo.insert(metric("cpu_usage", 1, Map.of()));
+        repo.insert(metric("cpu_usage", 2, Map.of()));
+        repo.insertAll(List.of(metric("cpu_usage", 3, Map.of()), metric("memory_usage", 4, Map.of())));
+        repo.close();
+
+        verify(client, times(1)).makeWriteApi(any(WriteOptions.class));
+        verify(writeApi, times(3)).writeRecords(eq("metrics"), eq("org"), eq(WritePrecision.NS), anyList());
+        verify(writeApi).close();
+        assertEquals(4, repo.getSubmittedCount());
+    }
+
+    private Metric metric(String name, double value, Map<String, String> tags) {
+        Metric metric = new Metric();
+        metric.setMetricName(name);
+        metric.setMetricValue(value);
+        metric.setTimestampNanos(1767225600123000000L);
+        metric.setTags(tags);
+        return metric;
+    }
+}
@@ -0,0 +1,78 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.query.Aggregation;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalTsdbMetricPersistRepoTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.now().withNano(0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void persistsAcrossRestartAndQueriesByTags() {
+        LocalTsdbMetricPersistRepo repo = newRepo();
+        // 乱序写入
+        repo.insertAll(List.of(metric("10.0.0.1", 2, 20.0), metric("10.0.0.1", 0, 10.0),
+                metric("10.0.0.2", 1, 99.0), metric("10.0.0.1", 1, 15.0)));
+        repo.close();
+        assertThrows(IllegalStateException.class, () -> repo.insert(metric("10.0.0.1", 3, 1.0)));
+
+        LocalTsdbMetricPersistRepo reopened = newRepo();
+        List<Metric> metrics = reopened.query("cpu_usage", Map.of("host", "10.0.0.1"), T0, T0.plusMinutes(1));
+        reopened.close();
+
+        assertEquals(List.of(10.0, 15.0, 20.0), metrics.stream().map(Metric::getMetricValue).toList());
+        assertEquals(List.of(T0, T0.plusSeconds(5), T0.plusSeconds(10)), metrics.stream().map(Metric::getTimestamp).toList());
+        assertEquals(Map.of("host", "10.0.0.1"), metrics.get(0).getTags());
+    }
+
+    @Test
+    void servesDownsampledQueriesWithTagMatchers() {
+        LocalTsdbMetricPersistRepo repo = newRepo();
+        repo.insertAll(List.of(metric("10.0.0.1", 0, 10.0), metric("10.0.0.1", 1, 30.0),
+                metric("10.0.0.2", 0, 50.0), metric("10.1.0.1", 0, 70.0)));
+
+        long from = T0.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        MetricQuery query = MetricQuery.of("cpu_usage", from, from + 60_000, 60_000, Aggregation.AVG,
+                TagMatcher.regex("host", "10\\.0\\..*"), TagMatcher.neq("host", "10.0.0.2"));
+        List<TimeSeries> series = repo.query(query);
+        repo.close();
+
+        assertEquals(1, series.size());
+        assertEquals(Map.of("host", "10.0.0.1"), series.get(0).getTags());
+        assertEquals(20.0, series.get(0).getPoints().get(0).getValue());
+    }
+
+    private LocalTsdbMetricPersistRepo newRepo() {
+        LocalTsdbMetricPersistRepo repo = new LocalTsdbMetricPersistRepo();
+        repo.setDirectory(dir.toString());
+        repo.setSegmentBytes(4096);
+        repo.start();
+        return repo;
+    }
+
+    private static Metric metric(String host, int step, double value) {
+        Metric metric = new Metric();
+        metric.setMetricName("cpu_usage");
+        metric.setMetricValue(value);
+        metric.setTimestamp(T0.plusSeconds(step * 5L));
+        metric.setTags(Map.of("host", host));
+        return metric;
+    }
+}
@@ -0,0 +1,78 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.query.Aggregation;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricQueryPushdownTest {
+
+    private static final long FROM = 1_767_225_600_000L;
+
+    @Test
+    void mysqlSelectsSeriesByNameAndTagMatchers() {
+        MetricQuery query = MetricQuery.of("cpu_usage", FROM, FROM + 3_600_000, 60_000, Aggregation.MAX,
+                TagMatcher.eq("host", "10.0.0.1"), TagMatcher.notRegex("dc", "sh|bj"));
+
+        MysqlMetricQueryRepo.SqlStatement statement = MysqlMetricQueryRepo.seriesSql(query);
+
+        assertEquals("SELECT series_id, CAST(tags AS CHAR) FROM metric_series WHERE metric_name = ?"
+                + " AND COALESCE(JSON_UNQUOTE(JSON_EXTRACT(tags, ?)), '') = ?"
+                + " AND COALESCE(JSON_UNQUOTE(JSON_EXTRACT(tags, ?)), '') NOT REGEXP ?"
+                + " ORDER BY series_id", statement.sql);
+        assertEquals(List.of("cpu_usage", "$.\"host\"", "10.0.0.1", "$.\"dc\"", "^(?:sh|bj)$"), statement.parameters);
+    }
+
+    @Test
+    void mysqlPushesAggregationIntoSampleQueryBySeriesId() {
+        MetricQuery query = MetricQuery.of("cpu_usage", FROM, FROM + 3_600_000, 60_000, Aggregation.MAX);
+
+        MysqlMetricQueryRepo.SqlStatement statement = MysqlMetricQueryRepo.aggregateSql(query, List.of(7L, 9L));
+
+        assertEquals("SELECT series_id, (ts - ?) DIV ? AS bucket, MAX(value) AS v FROM metric_samples"
+                + " WHERE series_id IN (?, ?) AND ts >= ? AND ts < ?"
+                + " GROUP BY series_id, bucket ORDER BY series_id, bucket", statement.sql);
+        assertEquals(List.of(FROM * 1_000, 60_000_000L, 7L, 9L, FROM * 1_000, (FROM + 3_600_000) * 1_000),
+                statement.parameters);
+    }
+
+    @Test
+    void mysqlFetchesRawSamplesForPercentileAndRate() {
+        MetricQuery query = MetricQuery.of("cpu_usage", FROM, FROM + 60_000, 60_000, Aggregation.P95);
+
+        assertFalse(MysqlMetricQueryRepo.pushdown(query));
+        assertEquals("SELECT series_id, ts, value FROM metric_samples"
+                + " WHERE series_id IN (?) AND ts >= ? AND ts < ? ORDER BY series_id, ts",
+                MysqlMetricQueryRepo.rawSql(query, List.of(7L)).sql);
+    }
+
+    @Test
+    void influxGeneratesFluxWithEpochAlignedWindows() {
+        MetricQuery query = MetricQuery.of("cpu_usage", FROM, FROM + 3_600_000, 300_000, Aggregation.P95,
+                TagMatcher.eq("host", "10.0.0.1"), TagMatcher.neq("env", ""), TagMatcher.regex("path", "/var/.*"));
+
+        String flux = InfluxdbMetricQueryRepo.flux(query, "monitor");
+
+        assertEquals("""
+                from(bucket: "monitor")
+                  |> range(start: 2026-01-01T00:00:00Z, stop: 2026-01-01T01:00:00Z)
+                  |> filter(fn: (r) => r._measurement == "cpu_usage" and r._field == "value")
+                  |> filter(fn: (r) => r["host"] == "10.0.0.1")
+                  |> filter(fn: (r) => r["env"] != "")
+                  |> filter(fn: (r) => r["path"] =~ /^(?:\\/var\\/.*)$/)
+                  |> aggregateWindow(every: 300000ms, fn: (column, tables=<-) => tables |> quantile(q: 0.95, column: column, method: "exact_selector"), createEmpty: false, timeSrc: "_start")
+                """, flux);
+
+        MetricQuery rate = MetricQuery.of("bytes", FROM, FROM + 60_000, 60_000, Aggregation.RATE,
+                TagMatcher.neq("host", "a"));
+        String rateFlux = InfluxdbMetricQueryRepo.flux(rate, "monitor");
+        assertTrue(rateFlux.contains("not exists r[\"host\"] or r[\"host\"] != \"a\""));
+        assertTrue(rateFlux.contains("|> derivative(unit: 1s, nonNegative: true)\n  |> aggregateWindow(every: 60000ms, fn: mean"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MetricSpillStoreTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    void segmentIsKeptUntilRemovedAfterReplay() {
+        MetricSpillStore store = new MetricSpillStore(spillDir, 2);
+        store.append(List.of(metric(0), metric(1), metric(2)));
+
+        MetricSpillStore.Segment first = store.readSegment();
+        assertEquals(List.of(0.0, 1.0), first.metrics().stream().map(Metric::getMetricValue).toList());
+        store.close();
+
+        // 回放未完成时进程退出：重启后分段仍在
+        MetricSpillStore reopened = new MetricSpillStore(spillDir, 2);
+        assertEquals(3, reopened.getPendingRecords());
+        MetricSpillStore.Segment again = reopened.readSegment();
+        assertEquals(first.id(), again.id());
+
+        reopened.removeSegment(again);
+        assertEquals(1, reopened.getPendingRecords());
+        reopened.removeSegment(reopened.readSegment());
+        assertEquals(0, reopened.getPendingRecords());
+        assertNull(reopened.readSegment());
+    }
+
+    @Test
+    void keepsEpochNanosAndMissingTimestamps() {
+        MetricSpillStore store = new MetricSpillStore(spillDir, 10);
+        Metric exact = metric(0);
+        exact.setTimestampNanos(1_762_054_200_123_456_789L);
+        Metric untimed = metric(1);
+        untimed.setTimestamp(null);
+        store.append(List.of(exact, untimed));
+        store.close();
+
+        List<Metric> replayed = new MetricSpillStore(spillDir, 10).readSegment().metrics();
+        assertEquals(1_762_054_200_123_456_789L, replayed.get(0).getTimestampNanos());
+        assertFalse(replayed.get(1).hasTimestamp());
+    }
+
+    private Metric metric(int i) {
+        Metric metric = new Metric();
+        metric.setMetricName("cpu_usage");
+        metric.setMetricValue(i);
+        metric.setTimestamp(LocalDateTime.of(2026, 1, 1, 0, 0).plusSeconds(i));
+        metric.setTags(Map.of("host", "10.0.0.1"));
+        return metric;
+    }
+}
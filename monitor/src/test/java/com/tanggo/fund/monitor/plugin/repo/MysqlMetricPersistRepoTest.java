@@ -0,0 +1,103 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.series.MetricSeries;
+import com.tanggo.fund.monitor.core.series.SeriesRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MysqlMetricPersistRepoTest {
+
+    private static final long NANOS = 1_767_225_600_123_456_789L;
+
+    private final MetricSeries series = SeriesRegistry.global().resolve("mysql_cpu", Map.of("host", "a"));
+
+    private PreparedStatement seriesInsert;
+    private ResultSet seriesRows;
+    private PreparedStatement samples;
+    private MysqlMetricPersistRepo repo;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection conn = mock(Connection.class);
+        seriesInsert = mock(PreparedStatement.class);
+        PreparedStatement seriesSelect = mock(PreparedStatement.class);
+        seriesRows = mock(ResultSet.class);
+        samples = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        when(conn.getAutoCommit()).thenReturn(true);
+        when(conn.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.startsWith("INSERT IGNORE INTO metric_series")) {
+                return seriesInsert;
+            }
+            return sql.startsWith("SELECT") ? seriesSelect : samples;
+        });
+        when(seriesSelect.executeQuery()).thenReturn(seriesRows);
+        when(seriesRows.next()).thenReturn(true, false);
+        when(seriesRows.getLong(1)).thenReturn(42L);
+        when(seriesRows.getLong(2)).thenReturn(MysqlSeriesDictionary.hash(series));
+        repo = new MysqlMetricPersistRepo(dataSource);
+    }
+
+    @Test
+    void registersNewSeriesOnceAndWritesNarrowSampleRows() throws SQLException {
+        when(seriesRows.getString(3)).thenReturn("mysql_cpu");
+        when(seriesRows.getString(4)).thenReturn("{\"host\":\"a\"}");
+
+        repo.insertAll(List.of(Metric.of(series, NANOS, 1.5), Metric.of(series, NANOS + 1_000_000_000L, 2.5)));
+        repo.insertAll(List.of(Metric.of(series, NANOS + 2_000_000_000L, 3.5)));
+
+        // 同一序列只登记一次，之后从缓存取编号
+        verify(seriesInsert, times(1)).addBatch();
+        verify(seriesInsert).setLong(1, MysqlSeriesDictionary.hash(series));
+        verify(seriesInsert).setString(3, "{\"host\":\"a\"}");
+        verify(samples, times(3)).addBatch();
+        verify(samples, times(3)).setLong(1, 42L);
+        verify(samples).setLong(2, 1_767_225_600_123_456L);
+        verify(samples).setDouble(3, 3.5);
+        assertEquals(1, repo.getSeriesDictionary().getCacheSize());
+        assertEquals(1, repo.getSeriesDictionary().getHitCount());
+    }
+
+    @Test
+    void skipsNonFiniteValuesWithoutFailingTheBatch() throws SQLException {
+        when(seriesRows.getString(3)).thenReturn("mysql_cpu");
+        when(seriesRows.getString(4)).thenReturn("{\"host\":\"a\"}");
+
+        repo.insertAll(List.of(Metric.of(series, NANOS, Double.NaN), Metric.of(series, NANOS + 1, 2.5),
+                Metric.of(series, NANOS + 2, Double.POSITIVE_INFINITY), Metric.of(series, NANOS + 3, Double.NEGATIVE_INFINITY)));
+
+        verify(samples, times(1)).addBatch();
+        verify(samples).setDouble(3, 2.5);
+        assertEquals(3, repo.getNonFiniteCount());
+    }
+
+    @Test
+    void rejectsHashCollisionWithDifferentStoredSeries() throws SQLException {
+        when(seriesRows.getString(3)).thenReturn("mysql_cpu");
+        when(seriesRows.getString(4)).thenReturn("{\"host\":\"b\"}");
+
+        assertThrows(IllegalStateException.class, () -> repo.insertAll(List.of(Metric.of(series, NANOS, 1.5))));
+        verify(samples, never()).addBatch();
+        assertEquals(0, repo.getSeriesDictionary().getCacheSize());
+    }
+}
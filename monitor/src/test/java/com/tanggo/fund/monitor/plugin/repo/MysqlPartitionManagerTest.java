@@ -0,0 +1,95 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MysqlPartitionManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 10);
+
+    @Test
+    void splitsDayPartitionsOutOfMaxPartition() {
+        assertEquals(List.of("ALTER TABLE metric_samples REORGANIZE PARTITION pmax INTO ("
+                        + "PARTITION p20260110 VALUES LESS THAN (1768089600000000), "
+                        + "PARTITION p20260111 VALUES LESS THAN (1768176000000000), "
+                        + "PARTITION p20260112 VALUES LESS THAN (1768262400000000), "
+                        + "PARTITION pmax VALUES LESS THAN MAXVALUE)"),
+                MysqlPartitionManager.plan(new TreeSet<>(), TODAY, 2, 30));
+    }
+
+    @Test
+    void continuesAfterLastPartitionAndDropsExpiredDays() {
+        TreeSet<LocalDate> existing = new TreeSet<>(List.of(
+                LocalDate.of(2025, 12, 10), LocalDate.of(2025, 12, 11), LocalDate.of(2026, 1, 11)));
+
+        assertEquals(List.of("ALTER TABLE metric_samples REORGANIZE PARTITION pmax INTO ("
+                        + "PARTITION p20260112 VALUES LESS THAN (1768262400000000), "
+                        + "PARTITION pmax VALUES LESS THAN MAXVALUE)",
+                "ALTER TABLE metric_samples DROP PARTITION p20251210"),
+                MysqlPartitionManager.plan(existing, TODAY, 2, 30));
+        assertEquals(List.of(), MysqlPartitionManager.plan(new TreeSet<>(List.of(TODAY, TODAY.plusDays(1))), TODAY, 1, 30));
+        assertEquals(TODAY, MysqlPartitionManager.day("p20260110"));
+        assertNull(MysqlPartitionManager.day("pmax"));
+    }
+
+    @Test
+    void onlyLockHolderRunsPartitionDdl() throws SQLException {
+        Connection busy = connection(0);
+        assertFalse(new MysqlPartitionManager(dataSource(busy)).maintain(TODAY));
+        verify(busy, never()).createStatement();
+
+        Connection free = connection(1);
+        Statement statement = mock(Statement.class);
+        when(free.createStatement()).thenReturn(statement);
+        assertTrue(new MysqlPartitionManager(dataSource(free)).maintain(TODAY));
+        verify(statement).execute(startsWith("ALTER TABLE metric_samples REORGANIZE PARTITION pmax"));
+        verify(free).prepareStatement("SELECT RELEASE_LOCK(?)");
+    }
+
+    private static DataSource dataSource(Connection conn) throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(conn);
+        return dataSource;
+    }
+
+    /**
+     * GET_LOCK 返回 lockResult，分区列表为空
+     */
+    private static Connection connection(int lockResult) throws SQLException {
+        Connection conn = mock(Connection.class);
+        PreparedStatement lock = query(true, lockResult);
+        PreparedStatement other = query(false, 0);
+        when(conn.prepareStatement(anyString())).thenReturn(other);
+        when(conn.prepareStatement("SELECT GET_LOCK(?, 0)")).thenReturn(lock);
+        return conn;
+    }
+
+    private static PreparedStatement query(boolean hasRow, int value) throws SQLException {
+        PreparedStatement pstmt = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(hasRow, false);
+        when(rs.getInt(1)).thenReturn(value);
+        when(pstmt.executeQuery()).thenReturn(rs);
+        return pstmt;
+    }
+}
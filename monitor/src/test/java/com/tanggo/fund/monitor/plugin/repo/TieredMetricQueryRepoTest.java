@@ -0,0 +1,132 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.query.Aggregation;
+import com.tanggo.fund.monitor.core.query.DataPoint;
+import com.tanggo.fund.monitor.core.query.MetricQuery;
+import com.tanggo.fund.monitor.core.query.TagMatcher;
+import com.tanggo.fund.monitor.core.query.TimeSeries;
+import com.tanggo.fund.monitor.core.rollup.RollupTier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredMetricQueryRepoTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    // 两小时前的整点，落在各层级的保留期内
+    private final long base = Math.floorDiv(System.currentTimeMillis() - 2 * HOUR, HOUR) * HOUR;
+
+    @TempDir
+    Path dir;
+
+    private LocalTsdbMetricPersistRepo raw;
+    private LocalTsdbMetricPersistRepo minuteStore;
+    private LocalTsdbMetricPersistRepo fiveMinuteStore;
+    private RollupTier oneMinute;
+    private RollupTier fiveMinutes;
+
+    @BeforeEach
+    void setUp() {
+        raw = open("raw");
+        minuteStore = open("1m");
+        fiveMinuteStore = open("5m");
+        oneMinute = new RollupTier("1m", 60_000, TimeUnit.DAYS.toMillis(1), minuteStore, minuteStore);
+        fiveMinutes = new RollupTier("5m", 300_000, TimeUnit.DAYS.toMillis(1), fiveMinuteStore, fiveMinuteStore);
+    }
+
+    @AfterEach
+    void tearDown() {
+        raw.close();
+        minuteStore.close();
+        fiveMinuteStore.close();
+    }
+
+    @Test
+    void rollupQueriesMatchRawAggregation() {
+        RollupMetricPersistRepo rollup = new RollupMetricPersistRepo(raw, List.of(oneMinute, fiveMinutes));
+        // 1小时，每5秒一个样本，两台主机
+        for (int i = 0; i < 720; i++) {
+            rollup.insertAll(List.of(metric("10.0.0.1", base + i * 5_000L, i % 97),
+                    metric("10.0.0.2", base + i * 5_000L, 100 + i % 13)));
+        }
+        rollup.close();
+        assertEquals(0, rollup.getLateCount());
+        assertTrue(rollup.getEmittedCount() > 0);
+
+        TieredMetricQueryRepo tiered = new TieredMetricQueryRepo(raw, List.of(oneMinute, fiveMinutes));
+        for (Aggregation aggregation : List.of(Aggregation.AVG, Aggregation.MIN, Aggregation.MAX, Aggregation.SUM, Aggregation.COUNT)) {
+            MetricQuery query = query(15 * 60_000, aggregation);
+            assertSame(fiveMinutes, tiered.select(query, System.currentTimeMillis()));
+            assertSeriesEquals(raw.query(query), tiered.query(query), 1e-9);
+        }
+
+        // 分位数只使用窗口等于步长的层级，误差在草图精度内
+        MetricQuery p95 = query(60_000, Aggregation.P95);
+        assertSame(oneMinute, tiered.select(p95, System.currentTimeMillis()));
+        assertSeriesEquals(raw.query(p95), tiered.query(p95), 0.01);
+    }
+
+    @Test
+    void fallsBackToRawWhenNoTierFits() {
+        TieredMetricQueryRepo tiered = new TieredMetricQueryRepo(raw, List.of(oneMinute, fiveMinutes));
+        long now = System.currentTimeMillis();
+
+        assertNull(tiered.select(query(30_000, Aggregation.AVG), now));
+        assertNull(tiered.select(query(90_000, Aggregation.AVG), now));
+        assertNull(tiered.select(query(15 * 60_000, Aggregation.RATE), now));
+        assertNull(tiered.select(query(15 * 60_000, Aggregation.P95), now));
+        // 超出层级保留期
+        assertNull(tiered.select(query(15 * 60_000, Aggregation.AVG), base + 2 * TimeUnit.DAYS.toMillis(1)));
+    }
+
+    private MetricQuery query(long stepMillis, Aggregation aggregation) {
+        return MetricQuery.of("cpu_usage", base, base + HOUR, stepMillis, aggregation, TagMatcher.regex("host", "10\\.0\\.0\\..*"));
+    }
+
+    private static void assertSeriesEquals(List<TimeSeries> expected, List<TimeSeries> actual, double relativeError) {
+        assertEquals(expected.size(), actual.size());
+        for (TimeSeries e : expected) {
+            TimeSeries a = actual.stream().filter(s -> s.getTags().equals(e.getTags())).findFirst().orElseThrow();
+            assertEquals(e.getPoints().size(), a.getPoints().size());
+            for (int i = 0; i < e.getPoints().size(); i++) {
+                DataPoint ep = e.getPoints().get(i);
+                DataPoint ap = a.getPoints().get(i);
+                assertEquals(ep.getTimestampMillis(), ap.getTimestampMillis());
+                assertEquals(ep.getValue(), ap.getValue(), Math.abs(ep.getValue()) * relativeError + 1e-9);
+            }
+        }
+    }
+
+    private LocalTsdbMetricPersistRepo open(String name) {
+        LocalTsdbMetricPersistRepo repo = new LocalTsdbMetricPersistRepo();
+        repo.setDirectory(dir.resolve(name).toString());
+        repo.setSegmentBytes(1 << 20);
+        repo.start();
+        return repo;
+    }
+
+    private static Metric metric(String host, long epochMillis, double value) {
+        Metric metric = new Metric();
+        metric.setMetricName("cpu_usage");
+        metric.setMetricValue(value);
+        metric.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()));
+        metric.setTags(Map.of("host", host));
+        return metric;
+    }
+}
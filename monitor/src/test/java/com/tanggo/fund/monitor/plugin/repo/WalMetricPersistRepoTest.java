@@ -0,0 +1,224 @@
+package com.tanggo.fund.monitor.plugin.repo;
+
+import com.tanggo.fund.monitor.core.entity.Metric;
+import com.tanggo.fund.monitor.core.extension.collector.MetricPersistRepo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WalMetricPersistRepoTest {
+
+    @TempDir
+    Path walDir;
+
+    @Test
+    void acknowledgesWhileBackendIsDownAndForwardsAfterRecovery() throws Exception {
+        FlakyRepo backend = new FlakyRepo();
+        backend.failing.set(true);
+        WalMetricPersistRepo repo = newRepo(backend);
+
+        for (int i = 0; i < 5; i++) {
+            repo.insert(metric(i));
+        }
+        Thread.sleep(200);
+        assertTrue(repo.getForwardFailureCount() > 0);
+        assertTrue(repo.getPendingBytes() > 0);
+
+        backend.failing.set(false);
+        awaitForwarded(repo, 5);
+        repo.close();
+
+        assertEquals(List.of(0.0, 1.0, 2.0, 3.0, 4.0), backend.values());
+        assertEquals(0, repo.getPendingBytes());
+        assertEquals(Map.of("host", "10.0.0.1"), backend.written.get(0).getTags());
+        assertEquals(metric(0).getTimestamp(), backend.written.get(0).getTimestamp());
+        assertEquals(metric(0).getTimestampNanos(), backend.written.get(0).getTimestampNanos());
+    }
+
+    @Test
+    void replaysUnforwardedRecordsAfterRestartAndDropsTornTail() throws Exception {
+        FlakyRepo down = new FlakyRepo();
+        down.failing.set(true);
+        WalMetricPersistRepo first = newRepo(down);
+        first.insertAll(List.of(metric(0), metric(1)));
+        first.insert(metric(2));
+        first.close();
+
+        // 模拟写入一半时进程退出
+        try (Stream<Path> files = Files.list(walDir)) {
+            Path segment = files.filter(f -> f.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+        }
+
+        FlakyRepo up = new FlakyRepo();
+        WalMetricPersistRepo second = newRepo(up);
+        second.insert(metric(3));
+        awaitForwarded(second, 4);
+        second.close();
+
+        assertEquals(List.of(0.0, 1.0, 2.0, 3.0), up.values());
+
+        // 检查点已推进，再次启动不会重复转发
+        FlakyRepo again = new FlakyRepo();
+        WalMetricPersistRepo third = newRepo(again);
+        Thread.sleep(100);
+        third.close();
+        assertEquals(List.of(), again.values());
+    }
+
+    @Test
+    void concurrentWritersShareFsyncAndSegmentsRoll() throws Exception {
+        FlakyRepo backend = new FlakyRepo();
+        WalMetricPersistRepo repo = new WalMetricPersistRepo(backend);
+        repo.setWalDirectory(walDir.toString());
+        repo.setSegmentBytes(4096);
+        repo.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    repo.insert(metric(i));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        awaitForwarded(repo, 800);
+        repo.close();
+
+        assertEquals(800, backend.written.size());
+        assertTrue(repo.getSyncCount() <= 800);
+        try (Stream<Path> files = Files.list(walDir)) {
+            // 已转发完的分段被删除，只剩正在写入的分段
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("wal-")).count());
+        }
+    }
+
+    @Test
+    void quarantinesPoisonRecordAfterBoundedAttempts() throws Exception {
+        FlakyRepo backend = new FlakyRepo();
+        backend.poison = 2;
+        WalMetricPersistRepo repo = new WalMetricPersistRepo(backend);
+        repo.setWalDirectory(walDir.toString());
+        repo.setRetryInitialMillis(10);
+        repo.setRetryMaxMillis(10);
+        repo.setIdleWaitMillis(20);
+        repo.setMaxForwardAttempts(3);
+        repo.start();
+
+        repo.insertAll(List.of(metric(0), metric(1), metric(2), metric(3), metric(4)));
+        awaitForwarded(repo, 4);
+        repo.insert(metric(5));
+        awaitForwarded(repo, 5);
+        repo.close();
+
+        assertEquals(1, repo.getQuarantinedCount());
+        assertEquals(List.of(0.0, 1.0, 3.0, 4.0, 5.0), backend.values());
+        assertEquals(0, repo.getPendingBytes());
+    }
+
+    @Test
+    void keepsRetryingWhenEveryRecordFails() throws Exception {
+        FlakyRepo backend = new FlakyRepo();
+        backend.failing.set(true);
+        WalMetricPersistRepo repo = new WalMetricPersistRepo(backend);
+        repo.setWalDirectory(walDir.toString());
+        repo.setRetryInitialMillis(10);
+        repo.setRetryMaxMillis(10);
+        repo.setMaxForwardAttempts(2);
+        repo.start();
+
+        repo.insertAll(List.of(metric(0), metric(1)));
+        Thread.sleep(200);
+        assertEquals(0, repo.getQuarantinedCount());
+
+        // 单条批次明确为数据错误时才隔离
+        backend.failing.set(false);
+        backend.poison = 2;
+        backend.poisonError = new IllegalArgumentException("数据格式错误");
+        repo.insert(metric(2));
+        awaitForwarded(repo, 2);
+        Thread.sleep(200);
+        repo.close();
+
+        assertEquals(1, repo.getQuarantinedCount());
+        assertEquals(List.of(0.0, 1.0), backend.values());
+        assertEquals(0, repo.getPendingBytes());
+    }
+
+    private WalMetricPersistRepo newRepo(MetricPersistRepo backend) {
+        WalMetricPersistRepo repo = new WalMetricPersistRepo(backend);
+        repo.setWalDirectory(walDir.toString());
+        repo.setRetryInitialMillis(20);
+        repo.setIdleWaitMillis(20);
+        repo.start();
+        return repo;
+    }
+
+    private static void awaitForwarded(WalMetricPersistRepo repo, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (repo.getForwardedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Metric metric(int i) {
+        Metric metric = new Metric();
+        metric.setMetricName("cpu_usage");
+        metric.setMetricValue(i);
+        metric.setTimestamp(LocalDateTime.of(2026, 1, 1, 0, 0).plusSeconds(i).plusNanos(123_456_789));
+        metric.setTags(Map.of("host", "10.0.0.1"));
+        return metric;
+    }
+
+    private static class FlakyRepo implements MetricPersistRepo {
+        private final List<Metric> written = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean failing = new AtomicBoolean();
+        // 包含该值的批次被永久拒绝
+        private volatile double poison = Double.NaN;
+        private volatile RuntimeException poisonError = new RuntimeException("违反约束");
+
+        @Override
+        public void insert(Metric metric) {
+            insertAll(List.of(metric));
+        }
+
+        @Override
+        public void insertAll(Collection<Metric> metrics) {
+            if (failing.get()) {
+                throw new RuntimeException("数据库不可用");
+            }
+            if (metrics.stream().anyMatch(m -> m.getMetricValue() == poison)) {
+                throw poisonError;
+            }
+            written.addAll(metrics);
+        }
+
+        List<Double> values() {
+            return written.stream().map(Metric::getMetricValue).toList();
+        }
+    }
+}
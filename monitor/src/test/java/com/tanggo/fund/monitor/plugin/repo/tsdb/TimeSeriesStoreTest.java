@@ -0,0 +1,133 @@
+package com.tanggo.fund.monitor.plugin.repo.tsdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeSeriesStoreTest {
+
+    private static final long T0 = 1_767_225_600_000L;
+    private static final long HOUR = 3_600_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsIrregularTimestampsAndArbitraryValues() {
+        Random random = new Random(42);
+        List<String> expected = new ArrayList<>();
+        long t = 1_000;
+        // 分区足够大，乱序样本不会跨分区，查询结果保持写入顺序
+        try (TimeSeriesStore store = newStore(20 * 24 * HOUR)) {
+            for (int i = 0; i < 1_000; i++) {
+                // 覆盖全部二阶差分档位（含乱序）和各种数值
+                t += switch (i % 5) {
+                    case 0 -> 5_000;
+                    case 1 -> 5_000 + random.nextInt(100) - 50;
+                    case 2 -> random.nextInt(4_000);
+                    case 3 -> 1_000_000L;
+                    default -> -1_000;
+                };
+                double value = switch (i % 4) {
+                    case 0 -> random.nextDouble() * 100;
+                    case 1 -> 42.0;
+                    case 2 -> i == 2 ? Double.NaN : -random.nextLong();
+                    default -> Double.MIN_VALUE * i;
+                };
+                store.append("cpu_usage", Map.of("host", "a"), t, value);
+                expected.add(sample(t, value));
+            }
+            // 一半样本已封存到段文件，一半仍在活跃数据块
+            assertEquals(expected, read(store, "cpu_usage", Map.of()));
+            store.flush();
+            assertEquals(expected, read(store, "cpu_usage", Map.of()));
+        }
+    }
+
+    @Test
+    void regularSeriesCompressesToAFewBytesPerSample() {
+        try (TimeSeriesStore store = newStore()) {
+            for (int i = 0; i < 12_000; i++) {
+                store.append("memory_usage", Map.of("host", "a"), T0 + i * 5_000L, 60.0 + (i % 10) * 0.5);
+            }
+            store.flush();
+            double bytesPerSample = (double) store.getStoredBytes() / 12_000;
+            assertTrue(bytesPerSample < 4, "bytes/sample=" + bytesPerSample);
+            assertEquals(100, store.getChunkCount());
+        }
+    }
+
+    @Test
+    void reopensSealedDataAndSeriesDictionary() {
+        try (TimeSeriesStore store = newStore()) {
+            store.append("cpu_usage", Map.of("host", "a"), T0, 1.0);
+            store.append("cpu_usage", Map.of("host", "b"), T0, 2.0);
+            store.append("cpu_usage", Map.of("host", "a"), T0 + 1_000, 3.0);
+        }
+        try (TimeSeriesStore store = newStore()) {
+            assertEquals(2, store.getSeriesCount());
+            assertEquals(List.of(sample(T0, 1.0), sample(T0 + 1_000, 3.0)),
+                    read(store, "cpu_usage", Map.of("host", "a")));
+            store.append("cpu_usage", Map.of("host", "b"), T0 + 1_000, 4.0);
+            assertEquals(2, store.getSeriesCount());
+            assertEquals(List.of(sample(T0, 2.0), sample(T0 + 1_000, 4.0)),
+                    read(store, "cpu_usage", Map.of("host", "b")));
+        }
+    }
+
+    @Test
+    void rollsSegmentsAndPartitionsAndDropsExpiredOnes() throws Exception {
+        try (TimeSeriesStore store = newStore()) {
+            store.setSegmentBytes(256);
+            store.setMaxSamplesPerChunk(10);
+            for (int i = 0; i < 6 * 60; i++) {
+                store.append("load", Map.of(), T0 + i * 60_000L, i);
+            }
+            store.flush();
+            assertEquals(6, store.getPartitionCount());
+            assertTrue(Files.list(Partition.directory(dir, T0)).count() > 1);
+
+            // 保留3小时：前2个分区整体过期，第3个分区仍有保留期内的数据
+            assertEquals(2, store.enforceRetention(T0 + 5 * HOUR + HOUR / 2));
+            assertEquals(4, store.getPartitionCount());
+            assertFalse(Files.exists(Partition.directory(dir, T0)));
+            assertFalse(store.append("load", Map.of(), T0, 0));
+            assertEquals(1, store.getExpiredCount());
+            assertEquals(4 * 60, read(store, "load", Map.of()).size());
+        }
+    }
+
+    private TimeSeriesStore newStore() {
+        return newStore(HOUR);
+    }
+
+    private TimeSeriesStore newStore(long partitionMillis) {
+        TimeSeriesStore store = new TimeSeriesStore(dir);
+        store.setPartitionMillis(partitionMillis);
+        store.setRetentionMillis(3 * HOUR);
+        store.open();
+        return store;
+    }
+
+    private static List<String> read(TimeSeriesStore store, String metricName, Map<String, String> tags) {
+        List<String> samples = new ArrayList<>();
+        store.query(metricName, tags, Long.MIN_VALUE, Long.MAX_VALUE,
+                (series, ts, value) -> samples.add(sample(ts, value)));
+        return samples;
+    }
+
+    // 按原始位比较，NaN 和 -0.0 也能精确校验
+    private static String sample(long timestamp, double value) {
+        return timestamp + ":" + Long.toHexString(Double.doubleToRawLongBits(value));
+    }
+}